@@ -0,0 +1,37 @@
+package todoapp.backend.analytics;
+
+import java.time.Instant;
+import java.util.List;
+
+import todoapp.backend.enums.Granularity;
+
+/**
+ * Completion trends of a tenant's ToDos over the latest time buckets.
+ * Completion time percentiles are in seconds, and null when nothing was
+ * completed.
+ *
+ * @param granularity the size of the buckets
+ * @param buckets     the buckets, oldest first, ending with the current one
+ * @param completions the ToDos completed over all the buckets
+ * @param p50         median completion time over all the buckets
+ * @param p95         95th percentile of the completion time over all the
+ *                    buckets
+ * @param p99         99th percentile of the completion time over all the
+ *                    buckets
+ * @param overdue     the ToDos not done whose due date is already past
+ */
+public record AnalyticsReport(Granularity granularity, List<Bucket> buckets, long completions, Double p50,
+        Double p95, Double p99, long overdue) {
+
+    /**
+     * ToDos completed in one time bucket.
+     *
+     * @param start       the start of the bucket (UTC)
+     * @param completions the ToDos completed in the bucket
+     * @param p50         median completion time
+     * @param p95         95th percentile of the completion time
+     * @param p99         99th percentile of the completion time
+     */
+    public record Bucket(Instant start, long completions, Double p50, Double p95, Double p99) {
+    }
+}
@@ -0,0 +1,79 @@
+package todoapp.backend.analytics;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import todoapp.backend.enums.Granularity;
+import todoapp.backend.model.ToDo;
+import todoapp.backend.repository.ToDoChangeListener;
+import todoapp.backend.util.TenantContext;
+
+/**
+ * Keeps rolling completion analytics of every tenant up to date as ToDos
+ * change: completions and completion time percentiles per hour and per day,
+ * and the number of overdue ToDos. Days are the days of the clock's zone
+ * (UTC).
+ */
+@Component
+public class CompletionAnalytics implements ToDoChangeListener {
+    private final Clock clock;
+    private final double relativeAccuracy;
+    private final int hourlyRetention;
+    private final int dailyRetention;
+    private final Map<String, TenantAnalytics> tenants = new ConcurrentHashMap<>();
+
+    public CompletionAnalytics(Clock clock,
+            @Value("${todo.analytics.relative-accuracy:0.01}") double relativeAccuracy,
+            @Value("${todo.analytics.hourly-retention:168}") int hourlyRetention,
+            @Value("${todo.analytics.daily-retention:90}") int dailyRetention) {
+        this.clock = clock;
+        this.relativeAccuracy = relativeAccuracy;
+        this.hourlyRetention = hourlyRetention;
+        this.dailyRetention = dailyRetention;
+    }
+
+    @Override
+    public void onAdd(String tenantId, ToDo added) {
+        tenant(tenantId).record(null, added, clock.millis());
+    }
+
+    @Override
+    public void onUpdate(String tenantId, ToDo previous, ToDo updated) {
+        tenant(tenantId).record(previous, updated, clock.millis());
+    }
+
+    @Override
+    public void onDelete(String tenantId, ToDo deleted) {
+        tenant(tenantId).record(deleted, null, clock.millis());
+    }
+
+    /**
+     * Builds the analytics report of the current tenant.
+     *
+     * @param granularity the size of the buckets
+     * @param buckets     how many buckets to report, up to the retained ones
+     * @return the report, ending with the current bucket
+     */
+    public AnalyticsReport getReport(Granularity granularity, int buckets) {
+        TenantAnalytics tenant = tenants.get(TenantContext.getTenantId());
+        if (tenant == null) {
+            // nothing changed yet: empty buckets, which aren't kept
+            tenant = newAnalytics();
+        }
+        return tenant.report(granularity, Math.max(1, buckets), clock.millis(), LocalDate.now(clock).toEpochDay());
+    }
+
+    // Created on the tenant's first change, see getReport() for the others
+    private TenantAnalytics tenant(String tenantId) {
+        return tenants.computeIfAbsent(tenantId, id -> newAnalytics());
+    }
+
+    private TenantAnalytics newAnalytics() {
+        return new TenantAnalytics(relativeAccuracy, hourlyRetention, dailyRetention);
+    }
+}
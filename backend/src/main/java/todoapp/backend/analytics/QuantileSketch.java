@@ -0,0 +1,204 @@
+package todoapp.backend.analytics;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Mergeable quantile sketch with relative accuracy (the DDSketch scheme).
+ * Positive values are counted in logarithmic buckets, so any quantile is
+ * estimated within the configured relative error, whatever the distribution.
+ *
+ * Buckets hold exact counts: sketches merge by adding their counts, and a
+ * value can be removed again. Memory is bounded by a maximum number of
+ * buckets; beyond it, the lowest buckets are collapsed into one, which only
+ * degrades the accuracy of the lowest quantiles. Not thread-safe.
+ */
+public class QuantileSketch {
+    public static final int DEFAULT_MAX_BUCKETS = 2048;
+
+    private final double relativeAccuracy;
+    private final int maxBuckets;
+    private final double logGamma;
+
+    // counts[i] is the count of bucket (minIndex + i)
+    private long[] counts = new long[0];
+    private int minIndex;
+    // values <= 0
+    private long zeroCount;
+    private long count;
+
+    /**
+     * @param relativeAccuracy maximum relative error of the estimated quantiles,
+     *                         e.g. 0.01 for 1%
+     */
+    public QuantileSketch(double relativeAccuracy) {
+        this(relativeAccuracy, DEFAULT_MAX_BUCKETS);
+    }
+
+    public QuantileSketch(double relativeAccuracy, int maxBuckets) {
+        this.relativeAccuracy = relativeAccuracy;
+        this.maxBuckets = Math.max(1, maxBuckets);
+        this.logGamma = Math.log((1 + relativeAccuracy) / (1 - relativeAccuracy));
+    }
+
+    @JsonCreator
+    QuantileSketch(@JsonProperty("relativeAccuracy") double relativeAccuracy,
+            @JsonProperty("maxBuckets") int maxBuckets, @JsonProperty("minIndex") int minIndex,
+            @JsonProperty("counts") long[] counts, @JsonProperty("zeroCount") long zeroCount) {
+        this(relativeAccuracy, maxBuckets);
+        this.minIndex = minIndex;
+        this.counts = counts == null ? new long[0] : counts.clone();
+        this.zeroCount = zeroCount;
+        this.count = zeroCount;
+        for (long bucketCount : this.counts) {
+            this.count += bucketCount;
+        }
+    }
+
+    @JsonProperty("relativeAccuracy")
+    public double getRelativeAccuracy() {
+        return relativeAccuracy;
+    }
+
+    @JsonProperty("maxBuckets")
+    public int getMaxBuckets() {
+        return maxBuckets;
+    }
+
+    @JsonProperty("minIndex")
+    int getMinIndex() {
+        return minIndex;
+    }
+
+    @JsonProperty("counts")
+    long[] getCounts() {
+        return counts.clone();
+    }
+
+    @JsonProperty("zeroCount")
+    long getZeroCount() {
+        return zeroCount;
+    }
+
+    @JsonProperty("count")
+    public long getCount() {
+        return count;
+    }
+
+    public void add(double value) {
+        add(value, 1);
+    }
+
+    public void remove(double value) {
+        add(value, -1);
+    }
+
+    /**
+     * Returns the estimated value at the given quantile.
+     *
+     * @param quantile between 0 and 1, e.g. 0.95 for the 95th percentile
+     * @return the estimated value, or null if the sketch is empty
+     */
+    public Double getQuantile(double quantile) {
+        if (count <= 0) {
+            return null;
+        }
+        // nearest-rank definition: the smallest value with at least that
+        // fraction of the values at or below it
+        long rank = Math.max(0, (long) Math.ceil(quantile * count) - 1);
+        long seen = zeroCount;
+        if (rank < seen) {
+            return 0.0;
+        }
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (rank < seen) {
+                return valueOf(minIndex + i);
+            }
+        }
+        return valueOf(minIndex + counts.length - 1);
+    }
+
+    /**
+     * Adds the counts of another sketch to this one.
+     *
+     * @param other a sketch with the same relative accuracy
+     */
+    public void merge(QuantileSketch other) {
+        if (other.relativeAccuracy != relativeAccuracy) {
+            throw new IllegalArgumentException("Sketches with different accuracies can't be merged");
+        }
+        // from the highest bucket down, so collapsing only ever folds the lowest
+        for (int i = other.counts.length - 1; i >= 0; i--) {
+            if (other.counts[i] != 0) {
+                int index = reserve(other.minIndex + i);
+                counts[index - minIndex] += other.counts[i];
+            }
+        }
+        zeroCount += other.zeroCount;
+        count += other.count;
+    }
+
+    public QuantileSketch copy() {
+        QuantileSketch copy = new QuantileSketch(relativeAccuracy, maxBuckets);
+        copy.merge(this);
+        return copy;
+    }
+
+    private void add(double value, int delta) {
+        count += delta;
+        if (value <= 0) {
+            zeroCount += delta;
+            return;
+        }
+        int index = reserve((int) Math.ceil(Math.log(value) / logGamma));
+        counts[index - minIndex] += delta;
+    }
+
+    // representative value of a bucket, at most relativeAccuracy away from any
+    // value counted in it
+    private double valueOf(int index) {
+        return 2 * Math.exp(index * logGamma) / (1 + Math.exp(logGamma));
+    }
+
+    // Makes room for the given bucket and returns the bucket to count it in,
+    // which is the lowest one if it falls below the collapsed range
+    private int reserve(int index) {
+        if (counts.length == 0) {
+            minIndex = index;
+            counts = new long[1];
+            return index;
+        }
+        int maxIndex = minIndex + counts.length - 1;
+        if (index >= minIndex && index <= maxIndex) {
+            return index;
+        }
+
+        if (index < minIndex) {
+            int newMin = Math.max(index, maxIndex - maxBuckets + 1);
+            if (newMin < minIndex) {
+                long[] grown = new long[maxIndex - newMin + 1];
+                System.arraycopy(counts, 0, grown, minIndex - newMin, counts.length);
+                counts = grown;
+                minIndex = newMin;
+            }
+            return newMin;
+        }
+
+        // above the range: collapse the lowest buckets if it gets too wide
+        int newMin = Math.max(minIndex, index - maxBuckets + 1);
+        long[] grown = new long[index - newMin + 1];
+        long collapsed = 0;
+        for (int i = 0; i < counts.length; i++) {
+            if (minIndex + i < newMin) {
+                collapsed += counts[i];
+            } else {
+                grown[minIndex + i - newMin] = counts[i];
+            }
+        }
+        grown[0] += collapsed;
+        counts = grown;
+        minIndex = newMin;
+        return index;
+    }
+}
@@ -0,0 +1,160 @@
+package todoapp.backend.analytics;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+import todoapp.backend.enums.Granularity;
+import todoapp.backend.enums.Status;
+import todoapp.backend.model.ToDo;
+import todoapp.backend.util.ChangeBuffer;
+
+/**
+ * Pre-aggregated completion analytics of one tenant: a completion time sketch
+ * per hour and per day (UTC) in which ToDos were completed, and the number of
+ * ToDos not done per due date. Reports only read these rollups, so their cost
+ * depends on the number of buckets, not of ToDos.
+ *
+ * Changes are recorded while the repository's stripe is locked, so they are
+ * only queued there, and applied to the rollups through a {@link ChangeBuffer}.
+ */
+class TenantAnalytics {
+    private static final long MILLIS_PER_HOUR = 3_600_000L;
+    private static final long MILLIS_PER_DAY = 86_400_000L;
+    private static final long NO_DUE_DAY = Long.MIN_VALUE;
+
+    // What a version of a ToDo contributes to the rollups
+    private record Contribution(long dueDay, boolean done, long doneMillis, long completionMillis) {
+    }
+
+    // A ToDo's contribution until now (null if just added) and from now on
+    // (null once deleted)
+    private record Change(Contribution previous, Contribution current, long nowMillis) {
+    }
+
+    private final double relativeAccuracy;
+    private final int hourlyRetention;
+    private final int dailyRetention;
+
+    // bucket start (in hours or days since the epoch) -> completion times
+    private final NavigableMap<Long, QuantileSketch> hourly = new TreeMap<>();
+    private final NavigableMap<Long, QuantileSketch> daily = new TreeMap<>();
+    // due date (days since the epoch) -> ToDos not done
+    private final NavigableMap<Long, Integer> openByDueDay = new TreeMap<>();
+    private final ChangeBuffer<Change> changes = new ChangeBuffer<>(this::apply);
+
+    TenantAnalytics(double relativeAccuracy, int hourlyRetention, int dailyRetention) {
+        this.relativeAccuracy = relativeAccuracy;
+        this.hourlyRetention = hourlyRetention;
+        this.dailyRetention = dailyRetention;
+    }
+
+    /**
+     * Replaces the contribution of a ToDo's previous version by the one of its
+     * current version.
+     *
+     * @param previous  the ToDo's previous version, or null if it was added
+     * @param current   the ToDo's current version, or null if it was deleted
+     * @param nowMillis the current time
+     */
+    void record(ToDo previous, ToDo current, long nowMillis) {
+        changes.add(new Change(contributionOf(previous), contributionOf(current), nowMillis));
+    }
+
+    private static Contribution contributionOf(ToDo toDo) {
+        if (toDo == null) {
+            return null;
+        }
+        boolean done = toDo.getIsDone() == Status.DONE;
+        return new Contribution(toDo.getDueDate() == null ? NO_DUE_DAY : toDo.getDueDate().toEpochDay(), done,
+                toDo.getDoneMillis(), done ? toDo.getDoneCompletionMillis() : 0);
+    }
+
+    AnalyticsReport report(Granularity granularity, int bucketCount, long nowMillis, long today) {
+        return changes.read(() -> buildReport(granularity, bucketCount, nowMillis, today));
+    }
+
+    private void apply(Change change) {
+        Contribution current = change.current();
+        Contribution previous = change.previous();
+        if (current != null && current.equals(previous)) {
+            return;
+        }
+        if (current != null) {
+            apply(current, 1);
+        }
+        if (previous != null) {
+            apply(previous, -1);
+        }
+        evict(change.nowMillis());
+    }
+
+    private AnalyticsReport buildReport(Granularity granularity, int bucketCount, long nowMillis, long today) {
+        evict(nowMillis);
+
+        boolean byHour = granularity == Granularity.HOUR;
+        NavigableMap<Long, QuantileSketch> rollups = byHour ? hourly : daily;
+        long bucketMillis = byHour ? MILLIS_PER_HOUR : MILLIS_PER_DAY;
+        long last = Math.floorDiv(nowMillis, bucketMillis);
+        long first = last - Math.min(bucketCount, byHour ? hourlyRetention : dailyRetention) + 1;
+
+        List<AnalyticsReport.Bucket> buckets = new ArrayList<>();
+        QuantileSketch window = new QuantileSketch(relativeAccuracy);
+        for (long bucket = first; bucket <= last; bucket++) {
+            QuantileSketch sketch = rollups.get(bucket);
+            Instant start = Instant.ofEpochMilli(bucket * bucketMillis);
+            if (sketch == null) {
+                buckets.add(new AnalyticsReport.Bucket(start, 0, null, null, null));
+            } else {
+                buckets.add(new AnalyticsReport.Bucket(start, sketch.getCount(), sketch.getQuantile(0.5),
+                        sketch.getQuantile(0.95), sketch.getQuantile(0.99)));
+                window.merge(sketch);
+            }
+        }
+
+        long overdue = 0;
+        for (int open : openByDueDay.headMap(today, false).values()) {
+            overdue += open;
+        }
+
+        return new AnalyticsReport(granularity, buckets, window.getCount(), window.getQuantile(0.5),
+                window.getQuantile(0.95), window.getQuantile(0.99), overdue);
+    }
+
+    private void apply(Contribution contribution, int sign) {
+        if (!contribution.done()) {
+            if (contribution.dueDay() != NO_DUE_DAY) {
+                openByDueDay.merge(contribution.dueDay(), sign, (a, b) -> a + b == 0 ? null : a + b);
+            }
+            return;
+        }
+
+        double seconds = contribution.completionMillis() / 1000.0;
+        addToBucket(hourly, Math.floorDiv(contribution.doneMillis(), MILLIS_PER_HOUR), seconds, sign);
+        addToBucket(daily, Math.floorDiv(contribution.doneMillis(), MILLIS_PER_DAY), seconds, sign);
+    }
+
+    private void addToBucket(NavigableMap<Long, QuantileSketch> rollups, long bucket, double seconds, int sign) {
+        QuantileSketch sketch = rollups.get(bucket);
+        if (sign > 0) {
+            if (sketch == null) {
+                sketch = new QuantileSketch(relativeAccuracy);
+                rollups.put(bucket, sketch);
+            }
+            sketch.add(seconds);
+        } else if (sketch != null) {
+            // completions in already evicted buckets are simply forgotten
+            sketch.remove(seconds);
+            if (sketch.getCount() == 0) {
+                rollups.remove(bucket);
+            }
+        }
+    }
+
+    private void evict(long nowMillis) {
+        hourly.headMap(Math.floorDiv(nowMillis, MILLIS_PER_HOUR) - hourlyRetention, true).clear();
+        daily.headMap(Math.floorDiv(nowMillis, MILLIS_PER_DAY) - dailyRetention, true).clear();
+    }
+}
@@ -0,0 +1,330 @@
+package todoapp.backend.archive;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.lang.ref.SoftReference;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import todoapp.backend.analytics.QuantileSketch;
+import todoapp.backend.enums.Priority;
+import todoapp.backend.enums.Status;
+import todoapp.backend.model.CompletionStats;
+import todoapp.backend.model.ToDo;
+
+/**
+ * Immutable file of archived (DONE) ToDos, sorted by ID. The ToDos are stored
+ * in blocks of up to {@link #BLOCK_SIZE}, each compressed on its own, followed
+ * by a footer with a sparse index (the first ID and the position of every
+ * block) and the completion stats of the whole segment:
+ *
+ * <pre>
+ * "TDAR" version | block... | footer | position of the footer (8 bytes)
+ * </pre>
+ *
+ * Nothing is read when a segment is opened: the footer is read the first time
+ * the segment is queried, and a lookup by ID then only inflates the one block
+ * that may hold it. Scans inflate every block; the decoded ToDos are kept
+ * behind a soft reference, so the GC drops them when memory runs short.
+ */
+class ArchiveSegment {
+    static final int BLOCK_SIZE = 128;
+    private static final int MAGIC = 0x54444152; // "TDAR"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 8;
+    private static final int NO_DUE_DAY = Integer.MIN_VALUE;
+
+    private record Footer(int count, int minId, int maxId, int[] firstIds, long[] offsets, int[] lengths,
+            CompletionStats stats) {
+    }
+
+    private final Path file;
+    private final ObjectMapper mapper;
+    private volatile Footer footer;
+    private volatile SoftReference<List<ToDo>> decoded = new SoftReference<>(null);
+
+    ArchiveSegment(Path file, ObjectMapper mapper) {
+        this.file = file;
+        this.mapper = mapper;
+    }
+
+    /**
+     * Writes a new segment. The file is written under a temporary name, synced
+     * and then renamed, so a crash never leaves a partial segment behind.
+     *
+     * @param file   the segment file
+     * @param toDos  the ToDos to archive, sorted by ID, not empty
+     * @param mapper writes the completion stats
+     * @return the new segment
+     */
+    static ArchiveSegment write(Path file, List<ToDo> toDos, ObjectMapper mapper) throws IOException {
+        int blocks = (toDos.size() + BLOCK_SIZE - 1) / BLOCK_SIZE;
+        int[] firstIds = new int[blocks];
+        long[] offsets = new long[blocks];
+        int[] lengths = new int[blocks];
+
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileOutputStream fileOutput = new FileOutputStream(temporary.toFile());
+                DataOutputStream output = new DataOutputStream(new BufferedOutputStream(fileOutput))) {
+            output.writeInt(MAGIC);
+            output.writeInt(VERSION);
+            long position = HEADER_SIZE;
+            for (int block = 0; block < blocks; block++) {
+                List<ToDo> blockToDos = toDos.subList(block * BLOCK_SIZE,
+                        Math.min(toDos.size(), (block + 1) * BLOCK_SIZE));
+                byte[] compressed = compress(blockToDos);
+                firstIds[block] = blockToDos.get(0).getId();
+                offsets[block] = position;
+                lengths[block] = compressed.length;
+                output.write(compressed);
+                position += compressed.length;
+            }
+
+            output.writeInt(toDos.size());
+            output.writeInt(toDos.get(0).getId());
+            output.writeInt(toDos.get(toDos.size() - 1).getId());
+            output.writeInt(blocks);
+            for (int block = 0; block < blocks; block++) {
+                output.writeInt(firstIds[block]);
+                output.writeLong(offsets[block]);
+                output.writeInt(lengths[block]);
+            }
+            byte[] stats = mapper.writeValueAsBytes(statsOf(toDos));
+            output.writeInt(stats.length);
+            output.write(stats);
+            output.writeLong(position);
+            output.flush();
+            fileOutput.getChannel().force(false);
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return new ArchiveSegment(file, mapper);
+    }
+
+    Path file() {
+        return file;
+    }
+
+    int count() throws IOException {
+        return footer().count();
+    }
+
+    int maxId() throws IOException {
+        return footer().maxId();
+    }
+
+    CompletionStats stats() throws IOException {
+        return footer().stats();
+    }
+
+    /**
+     * Finds an archived ToDo by ID, inflating at most one block.
+     *
+     * @param id the ToDo's ID
+     * @return the archived ToDo (shared, not to be modified), or null if it's
+     *         not in this segment
+     */
+    ToDo findById(int id) throws IOException {
+        Footer index = footer();
+        if (id < index.minId() || id > index.maxId()) {
+            return null;
+        }
+        List<ToDo> toDos = decoded.get();
+        if (toDos == null) {
+            // the last block starting at or before the ID
+            int block = Arrays.binarySearch(index.firstIds(), id);
+            if (block < 0) {
+                block = -block - 2;
+            }
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                toDos = readBlock(channel, index, block);
+            }
+        }
+        int low = 0;
+        int high = toDos.size() - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int middleId = toDos.get(middle).getId();
+            if (middleId < id) {
+                low = middle + 1;
+            } else if (middleId > id) {
+                high = middle - 1;
+            } else {
+                return toDos.get(middle);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Reads every ToDo of the segment.
+     *
+     * @return the archived ToDos (shared, not to be modified), sorted by ID
+     */
+    List<ToDo> readAll() throws IOException {
+        List<ToDo> toDos = decoded.get();
+        if (toDos != null) {
+            return toDos;
+        }
+        Footer index = footer();
+        toDos = new ArrayList<>(index.count());
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            for (int block = 0; block < index.firstIds().length; block++) {
+                toDos.addAll(readBlock(channel, index, block));
+            }
+        }
+        decoded = new SoftReference<>(toDos);
+        return toDos;
+    }
+
+    void delete() throws IOException {
+        decoded = new SoftReference<>(null);
+        Files.deleteIfExists(file);
+    }
+
+    /**
+     * Completion stats of archived ToDos, with the same arithmetic as the
+     * repository's accumulators.
+     *
+     * @param toDos DONE ToDos
+     * @return their completion stats
+     */
+    static CompletionStats statsOf(List<ToDo> toDos) {
+        int priorities = Priority.values().length;
+        long count = 0;
+        long totalSeconds = 0;
+        long[] countByPriority = new long[priorities];
+        long[] secondsByPriority = new long[priorities];
+        QuantileSketch sketch = new QuantileSketch(CompletionStats.SKETCH_ACCURACY);
+        QuantileSketch[] sketchByPriority = new QuantileSketch[priorities];
+        for (int i = 0; i < priorities; i++) {
+            sketchByPriority[i] = new QuantileSketch(CompletionStats.SKETCH_ACCURACY);
+        }
+        for (ToDo toDo : toDos) {
+            long seconds = toDo.getDoneCompletionMillis() / 1000;
+            count++;
+            totalSeconds += seconds;
+            sketch.add(seconds);
+            if (toDo.getPriority() != null) {
+                countByPriority[toDo.getPriority().ordinal()]++;
+                secondsByPriority[toDo.getPriority().ordinal()] += seconds;
+                sketchByPriority[toDo.getPriority().ordinal()].add(seconds);
+            }
+        }
+        return new CompletionStats(count, totalSeconds, countByPriority, secondsByPriority, sketch,
+                sketchByPriority);
+    }
+
+    private Footer footer() throws IOException {
+        Footer index = footer;
+        if (index == null) {
+            synchronized (this) {
+                if (footer == null) {
+                    footer = readFooter();
+                }
+                index = footer;
+            }
+        }
+        return index;
+    }
+
+    private Footer readFooter() throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            DataInputStream header = new DataInputStream(new ByteArrayInputStream(read(channel, 0, HEADER_SIZE)));
+            if (header.readInt() != MAGIC || header.readInt() != VERSION) {
+                throw new IOException(file + " is not an archive segment");
+            }
+            long size = channel.size();
+            long footerPosition = ByteBuffer.wrap(read(channel, size - Long.BYTES, Long.BYTES)).getLong();
+            DataInputStream input = new DataInputStream(new ByteArrayInputStream(
+                    read(channel, footerPosition, (int) (size - Long.BYTES - footerPosition))));
+
+            int count = input.readInt();
+            int minId = input.readInt();
+            int maxId = input.readInt();
+            int blocks = input.readInt();
+            int[] firstIds = new int[blocks];
+            long[] offsets = new long[blocks];
+            int[] lengths = new int[blocks];
+            for (int block = 0; block < blocks; block++) {
+                firstIds[block] = input.readInt();
+                offsets[block] = input.readLong();
+                lengths[block] = input.readInt();
+            }
+            byte[] stats = new byte[input.readInt()];
+            input.readFully(stats);
+            return new Footer(count, minId, maxId, firstIds, offsets, lengths,
+                    mapper.readValue(stats, CompletionStats.class));
+        }
+    }
+
+    private static byte[] compress(List<ToDo> toDos) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        Deflater deflater = new Deflater();
+        try (DataOutputStream output = new DataOutputStream(new DeflaterOutputStream(bytes, deflater))) {
+            output.writeInt(toDos.size());
+            for (ToDo toDo : toDos) {
+                output.writeInt(toDo.getId());
+                output.writeUTF(toDo.getName());
+                output.writeInt(toDo.getDueDate() == null ? NO_DUE_DAY : (int) toDo.getDueDate().toEpochDay());
+                output.writeByte(toDo.getPriority() == null ? -1 : toDo.getPriority().ordinal());
+                output.writeLong(toDo.getDoneMillis());
+                output.writeLong(toDo.getCreationMillis());
+            }
+        } finally {
+            deflater.end();
+        }
+        return bytes.toByteArray();
+    }
+
+    private static List<ToDo> readBlock(FileChannel channel, Footer index, int block) throws IOException {
+        byte[] compressed = read(channel, index.offsets()[block], index.lengths()[block]);
+        try (DataInputStream input = new DataInputStream(
+                new InflaterInputStream(new ByteArrayInputStream(compressed)))) {
+            int count = input.readInt();
+            List<ToDo> toDos = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                ToDo toDo = new ToDo();
+                toDo.setId(input.readInt());
+                toDo.setName(input.readUTF());
+                int dueDay = input.readInt();
+                toDo.setDueDate(dueDay == NO_DUE_DAY ? null : LocalDate.ofEpochDay(dueDay));
+                int priority = input.readByte();
+                toDo.setPriority(priority < 0 ? null : Priority.values()[priority]);
+                // set the stored done date after the status, which would stamp "now"
+                toDo.setIsDone(Status.DONE);
+                toDo.setDoneMillis(input.readLong());
+                toDo.setCreationMillis(input.readLong());
+                toDos.add(toDo);
+            }
+            return toDos;
+        }
+    }
+
+    private static byte[] read(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of archive segment");
+            }
+        }
+        return buffer.array();
+    }
+}
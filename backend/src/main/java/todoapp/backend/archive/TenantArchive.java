@@ -0,0 +1,243 @@
+package todoapp.backend.archive;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import todoapp.backend.model.CompletionStats;
+import todoapp.backend.model.ToDo;
+
+/**
+ * The archive segments of one tenant, kept in their own directory and named
+ * by a sequence number, so they sort oldest first. Every archiving run adds a
+ * segment; once there are more than the maximum, they are merged into one.
+ * Should a ToDo be in several segments (a crash between writing a segment and
+ * deleting its ToDos from the live set), the newest copy wins.
+ *
+ * Queries share the read lock, while adding, merging and rewriting segments
+ * take the write lock.
+ */
+class TenantArchive {
+    private static final String SUFFIX = ".seg";
+
+    private final Path directory;
+    private final ObjectMapper mapper;
+    private final int maxSegments;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // oldest first
+    private final List<ArchiveSegment> segments = new ArrayList<>();
+    private long nextSequence = 1;
+    // sum of the segments' stats, computed on first use
+    private volatile CompletionStats stats;
+
+    /**
+     * Opens the segments found in the directory, without reading them.
+     */
+    TenantArchive(Path directory, ObjectMapper mapper, int maxSegments) throws IOException {
+        this.directory = directory;
+        this.mapper = mapper;
+        this.maxSegments = Math.max(1, maxSegments);
+        Files.createDirectories(directory);
+        try (Stream<Path> files = Files.list(directory)) {
+            List<Path> found = files.collect(Collectors.toList());
+            for (Path file : found) {
+                // left by a crash while writing a segment
+                if (file.getFileName().toString().endsWith(".tmp")) {
+                    Files.deleteIfExists(file);
+                }
+            }
+            found.stream().filter(file -> file.getFileName().toString().endsWith(SUFFIX)).sorted()
+                    .forEach(file -> segments.add(new ArchiveSegment(file, mapper)));
+        }
+        if (!segments.isEmpty()) {
+            String last = segments.get(segments.size() - 1).file().getFileName().toString();
+            nextSequence = Long.parseLong(last.substring(0, last.length() - SUFFIX.length())) + 1;
+        }
+    }
+
+    /**
+     * Writes the given ToDos to a new segment, merging the segments if there
+     * are too many.
+     *
+     * @param toDos DONE ToDos, sorted by ID, not empty
+     */
+    void append(List<ToDo> toDos) throws IOException {
+        lock.writeLock().lock();
+        try {
+            segments.add(ArchiveSegment.write(nextFile(), toDos, mapper));
+            stats = null;
+            if (segments.size() > maxSegments) {
+                merge();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes the given ToDos from the segments that hold them, for ToDos that
+     * were archived but stayed live. Each such segment is rewritten without
+     * them under its own name, so it keeps its place among the others, or
+     * deleted if nothing is left in it.
+     *
+     * @param ids the IDs of the ToDos to remove
+     */
+    void remove(Set<Integer> ids) throws IOException {
+        lock.writeLock().lock();
+        try {
+            for (int i = segments.size() - 1; i >= 0; i--) {
+                ArchiveSegment segment = segments.get(i);
+                if (!holdsAny(segment, ids)) {
+                    continue;
+                }
+                List<ToDo> kept = segment.readAll().stream().filter(toDo -> !ids.contains(toDo.getId())).toList();
+                if (kept.isEmpty()) {
+                    segment.delete();
+                    segments.remove(i);
+                } else {
+                    segments.set(i, ArchiveSegment.write(segment.file(), kept, mapper));
+                }
+            }
+            stats = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return the number of segment files
+     */
+    int segmentCount() {
+        lock.readLock().lock();
+        try {
+            return segments.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return the highest archived ID, 0 if none
+     */
+    int maxId() throws IOException {
+        lock.readLock().lock();
+        try {
+            int maxId = 0;
+            for (ArchiveSegment segment : segments) {
+                maxId = Math.max(maxId, segment.maxId());
+            }
+            return maxId;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    ToDo findById(int id) throws IOException {
+        lock.readLock().lock();
+        try {
+            for (int i = segments.size() - 1; i >= 0; i--) {
+                ToDo found = segments.get(i).findById(id);
+                if (found != null) {
+                    return new ToDo(found);
+                }
+            }
+            return null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Finds the archived ToDos matching a filter.
+     *
+     * @param filter the filter
+     * @return copies of the matching ToDos, sorted by ID
+     */
+    List<ToDo> findAll(Predicate<ToDo> filter) throws IOException {
+        lock.readLock().lock();
+        try {
+            List<ToDo> matches = new ArrayList<>();
+            Set<Integer> seen = new HashSet<>();
+            for (int i = segments.size() - 1; i >= 0; i--) {
+                for (ToDo toDo : segments.get(i).readAll()) {
+                    if (seen.add(toDo.getId()) && filter.test(toDo)) {
+                        matches.add(new ToDo(toDo));
+                    }
+                }
+            }
+            if (segments.size() > 1) {
+                matches.sort(Comparator.comparingInt(ToDo::getId));
+            }
+            return matches;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return the completion stats of the archived ToDos, read from the
+     *         segments' footers
+     */
+    CompletionStats getCompletionStats() throws IOException {
+        lock.readLock().lock();
+        try {
+            CompletionStats current = stats;
+            if (current == null) {
+                current = ArchiveSegment.statsOf(List.of());
+                for (ArchiveSegment segment : segments) {
+                    current = current.plus(segment.stats());
+                }
+                // computed under the read lock, so no segment was added meanwhile
+                stats = current;
+            }
+            return current;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Rewrites all the segments into one, keeping the newest copy of each ToDo.
+    // The merged segment is written before the old ones are deleted. Must be
+    // called holding the write lock.
+    private void merge() throws IOException {
+        TreeMap<Integer, ToDo> merged = new TreeMap<>();
+        for (ArchiveSegment segment : segments) {
+            for (ToDo toDo : segment.readAll()) {
+                merged.put(toDo.getId(), toDo);
+            }
+        }
+        ArchiveSegment mergedSegment = ArchiveSegment.write(nextFile(), new ArrayList<>(merged.values()), mapper);
+        for (ArchiveSegment segment : segments) {
+            segment.delete();
+        }
+        segments.clear();
+        segments.add(mergedSegment);
+    }
+
+    private static boolean holdsAny(ArchiveSegment segment, Set<Integer> ids) throws IOException {
+        for (int id : ids) {
+            if (segment.findById(id) != null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Path nextFile() {
+        return directory.resolve(String.format("%010d%s", nextSequence++, SUFFIX));
+    }
+}
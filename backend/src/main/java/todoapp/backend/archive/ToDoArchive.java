@@ -0,0 +1,258 @@
+package todoapp.backend.archive;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import todoapp.backend.cluster.ShardRouter;
+import todoapp.backend.enums.Status;
+import todoapp.backend.model.CompletionStats;
+import todoapp.backend.model.FilterCriteria;
+import todoapp.backend.model.ToDo;
+import todoapp.backend.repository.ToDoInMemoRepository;
+import todoapp.backend.repository.ToDoRepository;
+import todoapp.backend.util.TenantContext;
+
+/**
+ * Cold tier of the ToDos. Every interval, the ToDos that have been DONE for
+ * longer than the minimum age are written to a new immutable, compressed
+ * segment file of their tenant, and only then deleted from the repository, so
+ * scans, sorts and metrics of the live set no longer go through them.
+ *
+ * Archived ToDos are read-only. They are only read when a query asks for them,
+ * a segment at a time, and still count in the completion metrics through the
+ * stats kept in each segment's footer.
+ */
+@Component
+@Lazy(false)
+public class ToDoArchive {
+    private static final Logger logger = LoggerFactory.getLogger(ToDoArchive.class);
+    private static final long MILLIS_PER_HOUR = 3_600_000L;
+
+    private final ToDoRepository toDoRepository;
+    private final ShardRouter shardRouter;
+    private final ObjectMapper mapper;
+    private final Clock clock;
+    private final boolean enabled;
+    private final Path directory;
+    private final long minAgeMillis;
+    private final long intervalMillis;
+    private final int maxSegments;
+    private final Map<String, TenantArchive> tenants = new ConcurrentHashMap<>();
+    private ScheduledExecutorService archiver;
+
+    public ToDoArchive(ToDoRepository toDoRepository, ShardRouter shardRouter, ObjectMapper mapper, Clock clock,
+            @Value("${todo.archive.enabled:false}") boolean enabled,
+            @Value("${todo.archive.dir:data/archive}") String directory,
+            @Value("${todo.archive.min-age-hours:2160}") long minAgeHours,
+            @Value("${todo.archive.interval-millis:3600000}") long intervalMillis,
+            @Value("${todo.archive.max-segments:16}") int maxSegments) {
+        this.toDoRepository = toDoRepository;
+        this.shardRouter = shardRouter;
+        this.mapper = mapper;
+        this.clock = clock;
+        this.enabled = enabled;
+        this.directory = Path.of(directory);
+        this.minAgeMillis = minAgeHours * MILLIS_PER_HOUR;
+        this.intervalMillis = intervalMillis;
+        this.maxSegments = maxSegments;
+    }
+
+    /**
+     * Opens the existing segments and starts archiving. The IDs of archived
+     * ToDos are never handed out again.
+     */
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            open();
+        } catch (IOException ex) {
+            throw new IllegalStateException("Could not open the archive in " + directory, ex);
+        }
+        archiver = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "todo-archiver");
+            thread.setDaemon(true);
+            return thread;
+        });
+        archiver.scheduleWithFixedDelay(this::archiveSafely, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (archiver != null) {
+            archiver.shutdownNow();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Archives the ToDos of every tenant that have been DONE for longer than
+     * the minimum age.
+     *
+     * @param nowMillis the current time
+     * @return the number of ToDos archived
+     */
+    public int archiveOldToDos(long nowMillis) throws IOException {
+        int archived = 0;
+        for (String tenantId : toDoRepository.getTenantIds()) {
+            TenantContext.setTenantId(tenantId);
+            try {
+                archived += archiveTenant(tenantId, nowMillis - minAgeMillis);
+            } finally {
+                TenantContext.clear();
+            }
+        }
+        return archived;
+    }
+
+    /**
+     * Finds the current tenant's archived ToDos that match the criteria. All
+     * archived ToDos are DONE, so looking for the others reads nothing.
+     *
+     * @param filterCriteria the criteria to match (null when not filtering)
+     * @return the matching archived ToDos, sorted by ID
+     */
+    public List<ToDo> findAllByCriteria(FilterCriteria filterCriteria) {
+        if (!enabled || (filterCriteria != null && filterCriteria.getDoneStatus() == Status.NOT_DONE)) {
+            return List.of();
+        }
+        Predicate<ToDo> filter = filterCriteria == null ? toDo -> true : filterCriteria.toPredicate();
+        try {
+            return tenant(TenantContext.getTenantId()).findAll(filter);
+        } catch (IOException ex) {
+            throw new IllegalStateException("Could not read the archive", ex);
+        }
+    }
+
+    /**
+     * Tells whether the current tenant's ToDo with the given ID was archived.
+     * Only the block of each segment that may hold it is read.
+     */
+    public boolean isArchived(int id) {
+        if (!enabled) {
+            return false;
+        }
+        try {
+            return tenant(TenantContext.getTenantId()).findById(id) != null;
+        } catch (IOException ex) {
+            throw new IllegalStateException("Could not read the archive", ex);
+        }
+    }
+
+    /**
+     * @return the completion stats of the current tenant's archived ToDos
+     */
+    public CompletionStats getCompletionStats() {
+        try {
+            return enabled ? tenant(TenantContext.getTenantId()).getCompletionStats()
+                    : ArchiveSegment.statsOf(List.of());
+        } catch (IOException ex) {
+            throw new IllegalStateException("Could not read the archive", ex);
+        }
+    }
+
+    private void archiveSafely() {
+        try {
+            int archived = archiveOldToDos(clock.millis());
+            if (archived > 0) {
+                logger.info("Archived {} ToDos", archived);
+            }
+        } catch (IOException | RuntimeException ex) {
+            logger.error("Could not archive the old ToDos, will retry", ex);
+        }
+    }
+
+    // The segment is durable before any ToDo leaves the live set. Each ToDo is
+    // then deleted only if it still equals the archived one, checked under the
+    // repository's write lock; one changed in between stays live, and is
+    // removed from the archive again. Until then (or after a crash), the live
+    // ToDo hides its archived copy.
+    private int archiveTenant(String tenantId, long cutoffMillis) throws IOException {
+        List<ToDo> old = new ArrayList<>();
+        for (ToDo toDo : toDoRepository.findAllByCriteria(new FilterCriteria(null, null, Status.DONE))) {
+            if (toDo.getDoneMillis() <= cutoffMillis) {
+                old.add(toDo);
+            }
+        }
+        if (old.isEmpty()) {
+            return 0;
+        }
+        old.sort(Comparator.comparingInt(ToDo::getId));
+        TenantArchive tenant = tenant(tenantId);
+        tenant.append(old);
+
+        Set<Integer> stayedLive = new HashSet<>();
+        for (ToDo toDo : old) {
+            if (!toDoRepository.deleteIf(toDo.getId(), toDo::equals)) {
+                stayedLive.add(toDo.getId());
+            }
+        }
+        if (!stayedLive.isEmpty()) {
+            tenant.remove(stayedLive);
+        }
+        return old.size() - stayedLive.size();
+    }
+
+    // Keeps the in-memory ID sequences past the archived IDs, which only reads
+    // the segments' footers. Stored sequences (jdbc) never go back anyway.
+    private void open() throws IOException {
+        Files.createDirectories(directory);
+        if (!(toDoRepository instanceof ToDoInMemoRepository toDoInMemoRepository)) {
+            return;
+        }
+        try (Stream<Path> tenantDirectories = Files.list(directory)) {
+            for (Path tenantDirectory : tenantDirectories.filter(Files::isDirectory).toList()) {
+                String tenantId = tenantDirectory.getFileName().toString();
+                int maxId = tenant(tenantId).maxId();
+                if (maxId > 0) {
+                    TenantContext.setTenantId(tenantId);
+                    try {
+                        toDoInMemoRepository.reserveId(shardRouter.toLocalId(maxId));
+                    } finally {
+                        TenantContext.clear();
+                    }
+                }
+            }
+        }
+    }
+
+    private TenantArchive tenant(String tenantId) {
+        return tenants.computeIfAbsent(tenantId, id -> {
+            try {
+                // tenant IDs are validated, so they're safe as directory names
+                return new TenantArchive(directory.resolve(id), mapper, maxSegments);
+            } catch (IOException ex) {
+                throw new IllegalStateException("Could not open the archive of tenant " + id, ex);
+            }
+        });
+    }
+}
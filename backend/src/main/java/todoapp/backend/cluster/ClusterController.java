@@ -0,0 +1,106 @@
+package todoapp.backend.cluster;
+
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import todoapp.backend.archive.ToDoArchive;
+import todoapp.backend.exception.ClusterAccessDeniedException;
+import todoapp.backend.exception.ErrorResponse;
+import todoapp.backend.exception.ReadOnlyReplicaException;
+import todoapp.backend.model.CompletionStats;
+import todoapp.backend.model.ToDo;
+import todoapp.backend.repository.ToDoRepository;
+
+/**
+ * Endpoints used by the nodes of a sharded deployment to talk to each other,
+ * and to add or remove nodes. Only served to requests carrying the cluster
+ * secret, see {@link todoapp.backend.controller.ClusterPeerInterceptor}.
+ */
+@RestController
+public class ClusterController {
+    private final ShardRouter shardRouter;
+    private final ToDoRepository toDoRepository;
+    private final ToDoArchive toDoArchive;
+
+    public ClusterController(ShardRouter shardRouter, ToDoRepository toDoRepository, ToDoArchive toDoArchive) {
+        this.shardRouter = shardRouter;
+        this.toDoRepository = toDoRepository;
+        this.toDoArchive = toDoArchive;
+    }
+
+    @GetMapping("/cluster/nodes")
+    public ResponseEntity<List<String>> getNodes() {
+        return ResponseEntity.ok(shardRouter.getNodes());
+    }
+
+    // Body: {"url": "http://host:port"}
+    @PostMapping("/cluster/nodes")
+    public ResponseEntity<List<String>> joinNode(@RequestBody Map<String, String> node) {
+        if (!shardRouter.isEnabled() || node.get("url") == null) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        shardRouter.join(node.get("url"));
+        return ResponseEntity.ok(shardRouter.getNodes());
+    }
+
+    @DeleteMapping("/cluster/nodes")
+    public ResponseEntity<List<String>> leaveNode(@RequestParam("url") String url) {
+        if (!shardRouter.isEnabled()) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        shardRouter.leave(url);
+        return ResponseEntity.ok(shardRouter.getNodes());
+    }
+
+    @PutMapping("/cluster/membership")
+    public ResponseEntity<?> applyMembership(@RequestBody List<String> nodes) {
+        if (!shardRouter.isEnabled() || nodes.isEmpty()) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        shardRouter.applyMembership(nodes);
+        return new ResponseEntity<>(HttpStatus.OK);
+    }
+
+    // Stores a ToDo with its full state (ID, done status and dates included),
+    // either created on another node or moved here while rebalancing
+    @PostMapping("/cluster/todos")
+    public ResponseEntity<ToDo> storeToDo(@RequestBody ToDo toDo) {
+        if (toDoRepository.update(toDo.getId(), toDo) == null) {
+            toDoRepository.add(toDo);
+        }
+        return ResponseEntity.ok(toDo);
+    }
+
+    @GetMapping("/cluster/stats")
+    public ResponseEntity<CompletionStats> getLocalCompletionStats() {
+        CompletionStats stats = toDoRepository.getCompletionStats();
+        if (toDoArchive.isEnabled()) {
+            stats = stats.plus(toDoArchive.getCompletionStats());
+        }
+        return ResponseEntity.ok(stats);
+    }
+
+    // EXCEPTION HANDLERS
+    @ExceptionHandler(value = ClusterAccessDeniedException.class)
+    public ResponseEntity<?> handleClusterAccessDeniedException(ClusterAccessDeniedException ex) {
+        ErrorResponse error = new ErrorResponse("NOT_A_CLUSTER_PEER", ex.getMessage());
+        return new ResponseEntity<>(error.getBody(), HttpStatus.FORBIDDEN);
+    }
+
+    @ExceptionHandler(value = ReadOnlyReplicaException.class)
+    public ResponseEntity<?> handleReadOnlyReplicaException(ReadOnlyReplicaException ex) {
+        ErrorResponse error = new ErrorResponse("READ_ONLY_REPLICA", ex.getMessage());
+        return new ResponseEntity<>(error.getBody(), HttpStatus.METHOD_NOT_ALLOWED);
+    }
+}
@@ -0,0 +1,82 @@
+package todoapp.backend.cluster;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Immutable consistent hash ring of cluster nodes. Each node is placed on the
+ * ring at several virtual points, and a key belongs to the first node found
+ * clockwise from the key's hash. Adding or removing a node only moves the keys
+ * of the ring segments that node takes over or gives up.
+ */
+public final class ConsistentHashRing {
+    private final int virtualNodes;
+    private final List<String> nodes;
+    private final NavigableMap<Long, String> ring = new TreeMap<>();
+
+    public ConsistentHashRing(Collection<String> nodes, int virtualNodes) {
+        this.virtualNodes = virtualNodes;
+        this.nodes = List.copyOf(nodes.stream().distinct().sorted().toList());
+        for (String node : this.nodes) {
+            for (int i = 0; i < virtualNodes; i++) {
+                ring.put(hash(node + "#" + i), node);
+            }
+        }
+    }
+
+    public List<String> getNodes() {
+        return Collections.unmodifiableList(nodes);
+    }
+
+    public boolean contains(String node) {
+        return nodes.contains(node);
+    }
+
+    /**
+     * Returns the node that owns the given key, or null if the ring is empty.
+     *
+     * @param key the key to look up
+     * @return the owner node of the key
+     */
+    public String ownerOf(String key) {
+        if (ring.isEmpty()) {
+            return null;
+        }
+        Map.Entry<Long, String> owner = ring.ceilingEntry(hash(key));
+        return owner != null ? owner.getValue() : ring.firstEntry().getValue();
+    }
+
+    public ConsistentHashRing withNode(String node) {
+        List<String> newNodes = new ArrayList<>(nodes);
+        newNodes.add(node);
+        return new ConsistentHashRing(newNodes, virtualNodes);
+    }
+
+    public ConsistentHashRing withoutNode(String node) {
+        List<String> newNodes = new ArrayList<>(nodes);
+        newNodes.remove(node);
+        return new ConsistentHashRing(newNodes, virtualNodes);
+    }
+
+    // First 8 bytes of the key's MD5 digest, which spreads keys evenly
+    private static long hash(String key) {
+        try {
+            byte[] digest = MessageDigest.getInstance("MD5").digest(key.getBytes(StandardCharsets.UTF_8));
+            long hash = 0;
+            for (int i = 0; i < 8; i++) {
+                hash = (hash << 8) | (digest[i] & 0xFF);
+            }
+            return hash;
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("MD5 is not available", ex);
+        }
+    }
+}
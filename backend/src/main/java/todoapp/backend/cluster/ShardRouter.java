@@ -0,0 +1,481 @@
+package todoapp.backend.cluster;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.servlet.http.HttpServletRequest;
+import todoapp.backend.enums.Status;
+import todoapp.backend.exception.InvalidToDoPropertiesException;
+import todoapp.backend.exception.ShardUnavailableException;
+import todoapp.backend.exception.ToDoNotFoundException;
+import todoapp.backend.model.CompletionStats;
+import todoapp.backend.model.FilterCriteria;
+import todoapp.backend.model.ToDo;
+import todoapp.backend.model.ToDoPatch;
+import todoapp.backend.repository.ToDoRepository;
+import todoapp.backend.util.TenantContext;
+
+/**
+ * Routes requests between the nodes of a sharded deployment. ToDos are spread
+ * over the nodes by consistent hashing of their tenant and ID: single-ID
+ * operations are forwarded to the owner node, while list and metrics queries
+ * are scattered to every node and their partial results gathered.
+ *
+ * Requests between nodes carry the cluster secret shared by all the nodes.
+ * Requests forwarded by another node also carry the X-Cluster-Forwarded header
+ * and are always answered from local data only. When sharding is disabled (the
+ * default), every operation is local.
+ */
+@Component
+public class ShardRouter {
+    public static final String FORWARDED_HEADER = "X-Cluster-Forwarded";
+    public static final String SECRET_HEADER = "X-Cluster-Secret";
+
+    private static final Logger logger = LoggerFactory.getLogger(ShardRouter.class);
+
+    private final ToDoRepository toDoRepository;
+    private final ObjectMapper mapper;
+    private final boolean enabled;
+    private final String selfUrl;
+    private final int nodeId;
+    private final int maxNodes;
+    private final int virtualNodes;
+    private final byte[] secret;
+    private final HttpClient httpClient = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(2)).build();
+
+    private volatile ConsistentHashRing ring;
+
+    // Partial result of a list query on one node
+    public record PartialPage(List<ToDo> content, long totalElements) {
+    }
+
+    public ShardRouter(ToDoRepository toDoRepository, ObjectMapper mapper,
+            @Value("${todo.cluster.enabled:false}") boolean enabled,
+            @Value("${todo.cluster.self-url:http://localhost:9090}") String selfUrl,
+            @Value("${todo.cluster.nodes:}") String nodes,
+            @Value("${todo.cluster.node-id:0}") int nodeId,
+            @Value("${todo.cluster.max-nodes:64}") int maxNodes,
+            @Value("${todo.cluster.virtual-nodes:128}") int virtualNodes,
+            @Value("${todo.cluster.secret:}") String secret) {
+        if (enabled && secret.isBlank()) {
+            throw new IllegalStateException("todo.cluster.secret must be set when sharding is enabled");
+        }
+        this.toDoRepository = toDoRepository;
+        this.mapper = mapper;
+        this.enabled = enabled;
+        this.selfUrl = selfUrl;
+        this.nodeId = nodeId;
+        this.maxNodes = maxNodes;
+        this.virtualNodes = virtualNodes;
+        this.secret = secret.getBytes(StandardCharsets.UTF_8);
+
+        Set<String> initialNodes = new LinkedHashSet<>();
+        initialNodes.add(selfUrl);
+        Arrays.stream(nodes.split(",")).map(String::trim).filter(node -> !node.isEmpty())
+                .forEach(initialNodes::add);
+        this.ring = new ConsistentHashRing(initialNodes, virtualNodes);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Tells whether a request comes from a node of the cluster (or an operator),
+     * i.e. sharding is enabled and the request carries the cluster secret.
+     */
+    public boolean isPeer(HttpServletRequest request) {
+        String given = request.getHeader(SECRET_HEADER);
+        return enabled && given != null && MessageDigest.isEqual(secret, given.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Tells whether the current request must be answered with the data of every
+     * node, i.e. sharding is enabled and the request was not forwarded by a peer.
+     */
+    public boolean shouldScatter() {
+        return enabled && !isForwardedRequest();
+    }
+
+    /**
+     * Tells whether the ToDo with the given ID (of the current tenant) belongs to
+     * another node, so the current request must be forwarded to it.
+     */
+    public boolean isRemote(int id) {
+        return shouldScatter() && !selfUrl.equals(ownerOf(id));
+    }
+
+    /**
+     * Turns an ID from the local sequence into an ID that is unique across the
+     * cluster, by interleaving the sequences of all nodes.
+     *
+     * @param localId the next ID of this node's sequence
+     * @return the cluster-wide ID
+     */
+    public int toClusterId(int localId) {
+        if (!enabled) {
+            return localId;
+        }
+        if (localId > (Integer.MAX_VALUE - nodeId) / maxNodes) {
+            throw new IllegalStateException("ToDo ID sequence exhausted on node " + nodeId);
+        }
+        return localId * maxNodes + nodeId;
+    }
+
+    /**
+     * Inverse of {@link #toClusterId(int)}.
+     *
+     * @param clusterId an ID allocated by this node
+     * @return the ID of this node's sequence it was made from
+     */
+    public int toLocalId(int clusterId) {
+        return enabled ? clusterId / maxNodes : clusterId;
+    }
+
+    public List<String> getNodes() {
+        return ring.getNodes();
+    }
+
+    // SINGLE-ID OPERATIONS, FORWARDED TO THE OWNER NODE
+    public ToDo forwardAdd(ToDo toDo) {
+        return readToDo(send(ownerOf(toDo.getId()), "POST", "/cluster/todos", toDo));
+    }
+
+    public ToDo forwardUpdate(int id, ToDo toDo) {
+        return readToDo(send(ownerOf(id), "PUT", "/todos/" + id, toDo));
+    }
+
+    public ToDo forwardDoneStatus(int id, Status doneStatus) {
+        String action = doneStatus == Status.DONE ? "/done" : "/undone";
+        return readToDo(send(ownerOf(id), "PUT", "/todos/" + id + action, null));
+    }
+
+    public boolean forwardDelete(int id) {
+        send(ownerOf(id), "DELETE", "/todos/" + id, null);
+        return true;
+    }
+
+    // BULK OPERATIONS, RUN BY EVERY NODE ON ITS OWN TODOS
+    /**
+     * Deletes, on every other node, the ToDos matching the criteria.
+     *
+     * @return the number of ToDos deleted by the peers
+     */
+    public int scatterDeleteByCriteria(FilterCriteria criteria) {
+        return sumAffected(scatter("DELETE", criteriaQuery(criteria), null));
+    }
+
+    /**
+     * Applies a patch, on every other node, to the ToDos matching the criteria.
+     *
+     * @return the number of ToDos updated by the peers
+     */
+    public int scatterUpdateByCriteria(FilterCriteria criteria, ToDoPatch patch) {
+        return sumAffected(scatter("PATCH", criteriaQuery(criteria), patch));
+    }
+
+    // SCATTER/GATHER QUERIES
+    /**
+     * Gets, from every other node, the first 'limit' ToDos matching the criteria
+     * in the requested order, together with their total number of matches.
+     *
+     * @param criteria the filter criteria (null when not filtering)
+     * @param sort     the sort order
+     * @param limit    the number of ToDos to get from each node
+     * @return the partial page of each peer node
+     */
+    public List<PartialPage> fetchPeerPages(FilterCriteria criteria, Sort sort, int limit) {
+        StringBuilder query = new StringBuilder("/todos?page=0&size=").append(limit);
+        appendCriteria(query, criteria);
+        if (sort != null) {
+            for (Sort.Order order : sort) {
+                appendParam(query, "sortBy", order.getProperty());
+                appendParam(query, "order", order.getDirection());
+            }
+        }
+
+        return scatter("GET", query.toString(), null).stream().map(this::readPartialPage).collect(Collectors.toList());
+    }
+
+    /**
+     * Gets the sum of the completion time accumulators of every other node.
+     */
+    public CompletionStats fetchPeerCompletionStats(CompletionStats localStats) {
+        CompletionStats stats = localStats;
+        for (String body : scatter("GET", "/cluster/stats", null)) {
+            stats = stats.plus(read(body, new TypeReference<CompletionStats>() {
+            }));
+        }
+        return stats;
+    }
+
+    // MEMBERSHIP AND REBALANCING
+    /**
+     * Adds a node to the cluster: every node, including the new one, gets the
+     * new membership and hands over the ToDos the new node now owns.
+     */
+    public void join(String nodeUrl) {
+        List<String> newNodes = ring.withNode(nodeUrl).getNodes();
+        broadcastMembership(newNodes, newNodes);
+    }
+
+    /**
+     * Removes a node from the cluster: the leaving node hands over all its ToDos
+     * to the remaining ones.
+     */
+    public void leave(String nodeUrl) {
+        broadcastMembership(ring.withoutNode(nodeUrl).getNodes(), ring.getNodes());
+    }
+
+    /**
+     * Replaces this node's view of the cluster and moves away every local ToDo
+     * that now belongs to another node. Thanks to consistent hashing, only the
+     * ToDos of the ring segments that changed owner are moved.
+     *
+     * @param nodes the URLs of all the nodes of the cluster
+     */
+    public synchronized void applyMembership(List<String> nodes) {
+        if (!enabled) {
+            throw new IllegalStateException("Sharding is disabled");
+        }
+        ring = new ConsistentHashRing(nodes, virtualNodes);
+        rebalance();
+    }
+
+    private void rebalance() {
+        int moved = 0;
+        for (String tenantId : toDoRepository.getTenantIds()) {
+            TenantContext.setTenantId(tenantId);
+            try {
+                for (ToDo toDo : toDoRepository.findAll()) {
+                    String owner = ownerOf(toDo.getId());
+                    if (owner == null || owner.equals(selfUrl)) {
+                        continue;
+                    }
+                    try {
+                        if (move(owner, toDo)) {
+                            moved++;
+                        }
+                    } catch (ShardUnavailableException ex) {
+                        logger.warn("Could not move ToDo {} of tenant {} to {}, keeping it", toDo.getId(), tenantId,
+                                owner);
+                    }
+                }
+            } finally {
+                TenantContext.clear();
+            }
+        }
+        logger.info("Rebalancing moved {} ToDos to other nodes", moved);
+    }
+
+    // Sends the ToDo to its new owner, then deletes it here only if it is still
+    // the version sent, checked under the repository's write lock. A ToDo
+    // changed in between is sent again; one deleted in between is deleted at
+    // the owner as well.
+    private boolean move(String owner, ToDo toDo) {
+        ToDo sent = toDo;
+        while (sent != null) {
+            send(owner, "POST", "/cluster/todos", sent);
+            if (toDoRepository.deleteIf(sent.getId(), sent::equals)) {
+                return true;
+            }
+            sent = toDoRepository.findById(toDo.getId());
+        }
+        try {
+            send(owner, "DELETE", "/todos/" + toDo.getId(), null);
+        } catch (ToDoNotFoundException ex) {
+            // already gone there too
+        }
+        return false;
+    }
+
+    private void broadcastMembership(List<String> newNodes, List<String> notifiedNodes) {
+        List<CompletableFuture<String>> responses = new ArrayList<>();
+        for (String node : notifiedNodes) {
+            if (!node.equals(selfUrl)) {
+                responses.add(sendAsync(node, "PUT", "/cluster/membership", newNodes));
+            }
+        }
+        if (notifiedNodes.contains(selfUrl)) {
+            applyMembership(newNodes);
+        }
+        awaitAll(responses);
+    }
+
+    private String ownerOf(int id) {
+        return ring.ownerOf(TenantContext.getTenantId() + ":" + id);
+    }
+
+    // Requests claiming to be forwarded without the secret are routed as usual
+    private boolean isForwardedRequest() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        return attributes instanceof ServletRequestAttributes servletAttributes
+                && servletAttributes.getRequest().getHeader(FORWARDED_HEADER) != null
+                && isPeer(servletAttributes.getRequest());
+    }
+
+    // HTTP
+    private List<String> scatter(String method, String path, Object body) {
+        List<CompletableFuture<String>> responses = new ArrayList<>();
+        for (String node : ring.getNodes()) {
+            if (!node.equals(selfUrl)) {
+                responses.add(sendAsync(node, method, path, body));
+            }
+        }
+        return awaitAll(responses);
+    }
+
+    private String send(String node, String method, String path, Object body) {
+        return awaitAll(List.of(sendAsync(node, method, path, body))).get(0);
+    }
+
+    private CompletableFuture<String> sendAsync(String node, String method, String path, Object body) {
+        HttpRequest.BodyPublisher publisher;
+        try {
+            publisher = body == null ? HttpRequest.BodyPublishers.noBody()
+                    : HttpRequest.BodyPublishers.ofByteArray(mapper.writeValueAsBytes(body));
+        } catch (IOException ex) {
+            throw new IllegalStateException("Failed to serialize request to " + node, ex);
+        }
+
+        HttpRequest request = HttpRequest.newBuilder(URI.create(node + path))
+                .timeout(Duration.ofSeconds(10))
+                .header("Content-Type", "application/json")
+                .header("Accept", "application/json")
+                .header(TenantContext.TENANT_HEADER, TenantContext.getTenantId())
+                .header(FORWARDED_HEADER, selfUrl)
+                .header(SECRET_HEADER, new String(secret, StandardCharsets.UTF_8))
+                .method(method, publisher)
+                .build();
+
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                .thenApply(response -> checkStatus(node, response));
+    }
+
+    private List<String> awaitAll(List<CompletableFuture<String>> responses) {
+        List<String> bodies = new ArrayList<>(responses.size());
+        for (CompletableFuture<String> response : responses) {
+            try {
+                bodies.add(response.join());
+            } catch (CompletionException ex) {
+                // errors answered by the peer are rethrown as they are
+                if (ex.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                throw new ShardUnavailableException();
+            }
+        }
+        return bodies;
+    }
+
+    // Turns the peer's error responses back into this application's exceptions
+    private String checkStatus(String node, HttpResponse<String> response) {
+        if (response.statusCode() < 400) {
+            return response.body();
+        }
+
+        JsonNode error = readTree(response.body());
+        String code = error == null ? "" : error.path("error").asText();
+        String message = error == null ? null : error.path("message").asText(null);
+        switch (code) {
+            case "NOT_FOUND":
+                throw new ToDoNotFoundException(message);
+            case "INVALID_TODO_PROPERTIES":
+                throw message == null ? new InvalidToDoPropertiesException()
+                        : new InvalidToDoPropertiesException(message);
+            default:
+                logger.warn("Cluster node {} answered with status {}", node, response.statusCode());
+                throw new ShardUnavailableException();
+        }
+    }
+
+    private ToDo readToDo(String body) {
+        return read(body, new TypeReference<ToDo>() {
+        });
+    }
+
+    private PartialPage readPartialPage(String body) {
+        JsonNode page = readTree(body);
+        List<ToDo> content = mapper.convertValue(page.path("content"), new TypeReference<List<ToDo>>() {
+        });
+        return new PartialPage(content, page.path("totalElements").asLong());
+    }
+
+    private int sumAffected(List<String> bodies) {
+        int affected = 0;
+        for (String body : bodies) {
+            JsonNode result = readTree(body);
+            if (result == null) {
+                throw new ShardUnavailableException();
+            }
+            affected += result.path("affected").asInt();
+        }
+        return affected;
+    }
+
+    private <T> T read(String body, TypeReference<T> type) {
+        try {
+            return mapper.readValue(body, type);
+        } catch (IOException ex) {
+            throw new ShardUnavailableException();
+        }
+    }
+
+    private JsonNode readTree(String body) {
+        try {
+            return body == null || body.isEmpty() ? null : mapper.readTree(body);
+        } catch (IOException ex) {
+            return null;
+        }
+    }
+
+    private static String criteriaQuery(FilterCriteria criteria) {
+        StringBuilder query = new StringBuilder("/todos?");
+        appendCriteria(query, criteria);
+        return query.toString();
+    }
+
+    private static void appendCriteria(StringBuilder query, FilterCriteria criteria) {
+        if (criteria != null) {
+            appendParam(query, "name", criteria.getName());
+            appendParam(query, "priority", criteria.getPriority());
+            appendParam(query, "doneStatus", criteria.getDoneStatus());
+        }
+    }
+
+    private static void appendParam(StringBuilder query, String name, Object value) {
+        if (value != null) {
+            query.append('&').append(name).append('=')
+                    .append(URLEncoder.encode(value.toString(), StandardCharsets.UTF_8));
+        }
+    }
+}
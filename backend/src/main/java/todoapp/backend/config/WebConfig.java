@@ -0,0 +1,50 @@
+package todoapp.backend.config;
+
+import java.util.List;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import todoapp.backend.cluster.ShardRouter;
+import todoapp.backend.controller.ClusterPeerInterceptor;
+import todoapp.backend.controller.ReadOnlyReplicaInterceptor;
+import todoapp.backend.controller.TenantInterceptor;
+import todoapp.backend.serialization.CompactFormat;
+
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+    // standalone, leader or follower
+    private final String replicationRole;
+    private final ObjectProvider<ShardRouter> shardRouter;
+
+    public WebConfig(@Value("${todo.replication.role:standalone}") String replicationRole,
+            ObjectProvider<ShardRouter> shardRouter) {
+        this.replicationRole = replicationRole;
+        this.shardRouter = shardRouter;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new ClusterPeerInterceptor(shardRouter)).addPathPatterns("/cluster/**");
+        registry.addInterceptor(new TenantInterceptor()).addPathPatterns("/todos", "/todos/**", "/cluster/**");
+
+        if (replicationRole.equals("follower")) {
+            registry.addInterceptor(new ReadOnlyReplicaInterceptor())
+                    .addPathPatterns("/todos", "/todos/**", "/cluster/**");
+        }
+    }
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        // JSON stays the default, CBOR is used when the client accepts
+        // application/cbor (and not JSON first). Replaces Spring's default CBOR
+        // converter, which would write the same fields as JSON.
+        converters.removeIf(converter -> converter instanceof MappingJackson2CborHttpMessageConverter);
+        converters.add(new MappingJackson2CborHttpMessageConverter(CompactFormat.newCborMapper()));
+    }
+}
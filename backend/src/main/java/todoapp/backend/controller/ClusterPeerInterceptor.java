@@ -0,0 +1,30 @@
+package todoapp.backend.controller;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import todoapp.backend.cluster.ShardRouter;
+import todoapp.backend.exception.ClusterAccessDeniedException;
+
+/**
+ * Only lets the nodes of a sharded deployment (and operators holding the
+ * cluster secret) call the cluster endpoints. Standalone nodes reject them all.
+ */
+public class ClusterPeerInterceptor implements HandlerInterceptor {
+    private final ObjectProvider<ShardRouter> shardRouter;
+
+    public ClusterPeerInterceptor(ObjectProvider<ShardRouter> shardRouter) {
+        this.shardRouter = shardRouter;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        ShardRouter router = shardRouter.getIfAvailable();
+        if (router == null || !router.isPeer(request)) {
+            throw new ClusterAccessDeniedException();
+        }
+        return true;
+    }
+}
@@ -0,0 +1,23 @@
+package todoapp.backend.controller;
+
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import todoapp.backend.exception.ReadOnlyReplicaException;
+
+/**
+ * Rejects every request that would change ToDos on a follower node. Followers
+ * only apply the changes replicated from the leader.
+ */
+public class ReadOnlyReplicaInterceptor implements HandlerInterceptor {
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        String method = request.getMethod();
+        if (!method.equals("GET") && !method.equals("HEAD") && !method.equals("OPTIONS")) {
+            throw new ReadOnlyReplicaException();
+        }
+        return true;
+    }
+}
@@ -0,0 +1,36 @@
+package todoapp.backend.controller;
+
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import todoapp.backend.exception.InvalidTenantException;
+import todoapp.backend.util.TenantContext;
+import todoapp.backend.util.Validators;
+
+/**
+ * Binds the tenant given in the X-Tenant-Id header to the request's thread.
+ * Requests without the header are served from the default tenant.
+ */
+public class TenantInterceptor implements HandlerInterceptor {
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        String tenantId = request.getHeader(TenantContext.TENANT_HEADER);
+
+        if (tenantId == null) {
+            TenantContext.setTenantId(TenantContext.DEFAULT_TENANT);
+        } else if (Validators.validateTenantId(tenantId)) {
+            TenantContext.setTenantId(tenantId);
+        } else {
+            throw new InvalidTenantException();
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+            Exception ex) {
+        TenantContext.clear();
+    }
+}
@@ -4,6 +4,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
+import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
@@ -11,10 +12,12 @@ import org.springframework.data.domain.Sort.Direction;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.converter.json.MappingJacksonValue;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
@@ -23,14 +26,26 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
 
+import todoapp.backend.analytics.AnalyticsReport;
+import todoapp.backend.enums.Granularity;
 import todoapp.backend.enums.Priority;
 import todoapp.backend.enums.Status;
 import todoapp.backend.exception.ErrorResponse;
+import todoapp.backend.exception.InvalidRequestParamsException;
+import todoapp.backend.exception.InvalidTenantException;
 import todoapp.backend.exception.InvalidToDoPropertiesException;
+import todoapp.backend.exception.PersistenceBacklogException;
+import todoapp.backend.exception.ReadOnlyReplicaException;
+import todoapp.backend.exception.ShardUnavailableException;
 import todoapp.backend.exception.ToDoNotFoundException;
 import todoapp.backend.model.FilterCriteria;
 import todoapp.backend.model.ToDo;
+import todoapp.backend.model.ToDoPatch;
+import todoapp.backend.scheduler.OverdueToDos;
+import todoapp.backend.serialization.ToDoFields;
 import todoapp.backend.service.ToDoService;
+import todoapp.backend.suggest.NameSuggestions;
+import todoapp.backend.sync.ChangeSet;
 import todoapp.backend.util.Validators;
 
 @CrossOrigin("*")
@@ -51,7 +66,10 @@ public class ToDoController {
             @RequestParam(value = "page", required = true, defaultValue = "0") int page,
             @RequestParam(value = "size", required = true, defaultValue = "10") int size,
             @RequestParam(value = "sortBy", required = false) String[] sortBy,
-            @RequestParam(value = "order", required = false) String[] order) {
+            @RequestParam(value = "order", required = false) String[] order,
+            @RequestParam(value = "fields", required = false) String fields,
+            @RequestParam(value = "fuzzy", required = true, defaultValue = "false") boolean fuzzy,
+            @RequestParam(value = "archived", required = true, defaultValue = "false") boolean archived) {
         // Init page request and add sorting if necessary
         Pageable pageReq;
 
@@ -68,13 +86,38 @@ public class ToDoController {
             pageReq = PageRequest.of(page, size);
         }
 
+        // Parse the projection first, so an invalid one fails before querying
+        ToDoFields projection = fields != null ? ToDoFields.parse(fields) : null;
+
         // Call getAll if there's no filters or getByCriteria if there's at least 1
-        if (Validators.validateAllCriteriaAreNull(name, priority, doneStatus)) {
-            return ResponseEntity.ok(toDoService.getAllToDos(pageReq));
+        Page<ToDo> result;
+        if (fuzzy) {
+            // typo tolerant name search, ranked by relevance instead of sorted
+            if (name == null || name.isBlank()) {
+                throw new InvalidRequestParamsException("A fuzzy search needs a name to look for.");
+            }
+            if (archived) {
+                throw new InvalidRequestParamsException("Fuzzy searches only cover the live ToDos.");
+            }
+            result = toDoService.searchByName(new FilterCriteria(name, priority, doneStatus), pageReq);
+        } else if (archived) {
+            // the archived ToDos are only read when asked for
+            FilterCriteria criteria = Validators.validateAllCriteriaAreNull(name, priority, doneStatus) ? null
+                    : new FilterCriteria(name, priority, doneStatus);
+            result = toDoService.getIncludingArchived(criteria, pageReq);
+        } else if (Validators.validateAllCriteriaAreNull(name, priority, doneStatus)) {
+            result = toDoService.getAllToDos(pageReq);
         } else {
-            return ResponseEntity
-                    .ok(toDoService.getByCriteria(new FilterCriteria(name, priority, doneStatus), pageReq));
+            result = toDoService.getByCriteria(new FilterCriteria(name, priority, doneStatus), pageReq);
         }
+
+        if (projection == null) {
+            return ResponseEntity.ok(result);
+        }
+        // only the requested properties of each ToDo are written
+        MappingJacksonValue projected = new MappingJacksonValue(result);
+        projected.setFilters(projection.toFilterProvider());
+        return ResponseEntity.ok(projected);
     }
 
     @PostMapping("/todos")
@@ -127,13 +170,92 @@ public class ToDoController {
         return new ResponseEntity<>(HttpStatus.OK);
     }
 
+    @DeleteMapping("/todos")
+    public ResponseEntity<?> deleteToDosByCriteria(
+            @RequestParam(value = "name", required = false) String name,
+            @RequestParam(value = "priority", required = false) Priority priority,
+            @RequestParam(value = "doneStatus", required = false) Status doneStatus) {
+        // At least one criteria, so a bare DELETE /todos can't wipe everything
+        if (Validators.validateAllCriteriaAreNull(name, priority, doneStatus)) {
+            throw new InvalidRequestParamsException("Bulk deletes need at least one filter criteria.");
+        }
+        int deleted = toDoService.deleteByCriteria(new FilterCriteria(name, priority, doneStatus));
+
+        return ResponseEntity.ok(Map.of("affected", deleted));
+    }
+
+    @PatchMapping("/todos")
+    public ResponseEntity<?> updateToDosByCriteria(@RequestBody ToDoPatch patch,
+            @RequestParam(value = "name", required = false) String name,
+            @RequestParam(value = "priority", required = false) Priority priority,
+            @RequestParam(value = "doneStatus", required = false) Status doneStatus) {
+        // At least one criteria, so a bare PATCH /todos can't rewrite everything
+        if (Validators.validateAllCriteriaAreNull(name, priority, doneStatus)) {
+            throw new InvalidRequestParamsException("Bulk updates need at least one filter criteria.");
+        }
+        int updated = toDoService.updateByCriteria(new FilterCriteria(name, priority, doneStatus), patch);
+
+        return ResponseEntity.ok(Map.of("affected", updated));
+    }
+
     @GetMapping("/todos/metrics")
-    public ResponseEntity<?> getMetrics() {
-        Map<String, Double> metrics = toDoService.getMetrics();
+    public ResponseEntity<?> getMetrics(
+            @RequestParam(value = "percentiles", required = false) double[] percentiles) {
+        // Averages only, unless percentiles are requested (e.g. percentiles=50,95,99)
+        if (percentiles == null) {
+            return ResponseEntity.ok(toDoService.getMetrics());
+        }
+        if (!Validators.validatePercentiles(percentiles)) {
+            throw new InvalidRequestParamsException("Percentiles must be greater than 0 and at most 100.");
+        }
+        Map<String, Double> metrics = toDoService.getMetrics(percentiles);
 
         return ResponseEntity.ok(metrics);
     }
 
+    @GetMapping("/todos/analytics")
+    public ResponseEntity<?> getAnalytics(
+            @RequestParam(value = "granularity", required = true, defaultValue = "HOUR") Granularity granularity,
+            @RequestParam(value = "buckets", required = true, defaultValue = "24") int buckets) {
+        AnalyticsReport report = toDoService.getAnalytics(granularity, buckets);
+
+        return ResponseEntity.ok(report);
+    }
+
+    @GetMapping("/todos/overdue")
+    public ResponseEntity<?> getOverdueToDos() {
+        OverdueToDos overdue = toDoService.getOverdueToDos();
+
+        return ResponseEntity.ok(overdue);
+    }
+
+    @GetMapping("/todos/changes")
+    public ResponseEntity<?> getChanges(
+            @RequestParam(value = "since", required = true, defaultValue = "0") long since,
+            @RequestParam(value = "limit", required = true, defaultValue = "1000") int limit) {
+        // Only what changed since the client's version (or everything, flagged
+        // as a resync, if the client is too far behind)
+        if (!Validators.validateChangesLimit(limit)) {
+            throw new InvalidRequestParamsException("The number of changes must be between 1 and 10000.");
+        }
+        ChangeSet changes = toDoService.getChangesSince(since, limit);
+
+        return ResponseEntity.ok(changes);
+    }
+
+    @GetMapping("/todos/suggestions")
+    public ResponseEntity<?> getNameSuggestions(
+            @RequestParam(value = "name", required = false) String name,
+            @RequestParam(value = "limit", required = true, defaultValue = "10") int limit) {
+        // Completes the last word typed in the name filter
+        if (!Validators.validateSuggestionLimit(limit)) {
+            throw new InvalidRequestParamsException("The number of suggestions must be between 1 and 100.");
+        }
+        NameSuggestions suggestions = toDoService.getNameSuggestions(name, limit);
+
+        return ResponseEntity.ok(suggestions);
+    }
+
     // EXCEPTION HANDLERS
     @ExceptionHandler(value = InvalidToDoPropertiesException.class)
     public ResponseEntity<?> handleInvalidToDoPropertiesException(InvalidToDoPropertiesException ex) {
@@ -147,6 +269,36 @@ public class ToDoController {
         return new ResponseEntity<>(error.getBody(), HttpStatus.BAD_REQUEST);
     }
 
+    @ExceptionHandler(value = InvalidRequestParamsException.class)
+    public ResponseEntity<?> handleInvalidRequestParamsException(InvalidRequestParamsException ex) {
+        ErrorResponse error = new ErrorResponse("INVALID_REQUEST_PARAMS", ex.getMessage());
+        return new ResponseEntity<>(error.getBody(), HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler(value = InvalidTenantException.class)
+    public ResponseEntity<?> handleInvalidTenantException(InvalidTenantException ex) {
+        ErrorResponse error = new ErrorResponse("INVALID_TENANT", ex.getMessage());
+        return new ResponseEntity<>(error.getBody(), HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler(value = ReadOnlyReplicaException.class)
+    public ResponseEntity<?> handleReadOnlyReplicaException(ReadOnlyReplicaException ex) {
+        ErrorResponse error = new ErrorResponse("READ_ONLY_REPLICA", ex.getMessage());
+        return new ResponseEntity<>(error.getBody(), HttpStatus.METHOD_NOT_ALLOWED);
+    }
+
+    @ExceptionHandler(value = ShardUnavailableException.class)
+    public ResponseEntity<?> handleShardUnavailableException(ShardUnavailableException ex) {
+        ErrorResponse error = new ErrorResponse("SHARD_UNAVAILABLE", ex.getMessage());
+        return new ResponseEntity<>(error.getBody(), HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
+    @ExceptionHandler(value = PersistenceBacklogException.class)
+    public ResponseEntity<?> handlePersistenceBacklogException(PersistenceBacklogException ex) {
+        ErrorResponse error = new ErrorResponse("PERSISTENCE_BACKLOG", ex.getMessage());
+        return new ResponseEntity<>(error.getBody(), HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
     @ExceptionHandler(value = HttpMessageNotReadableException.class)
     public ResponseEntity<?> handleHttpMessageNotReadableException(HttpMessageNotReadableException ex) {
         ErrorResponse error = new ErrorResponse("INVALID_TODO_PROPERTIES",
@@ -0,0 +1,6 @@
+package todoapp.backend.enums;
+
+public enum Granularity {
+    HOUR,
+    DAY;
+}
@@ -0,0 +1,23 @@
+package todoapp.backend.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+import lombok.Getter;
+
+@ResponseStatus(value = HttpStatus.FORBIDDEN, reason = "Not a cluster peer")
+public class ClusterAccessDeniedException extends RuntimeException {
+    private String defaultMessage = "Cluster endpoints are only served to the nodes of a sharded deployment.";
+
+    @Getter
+    private String message;
+
+    public ClusterAccessDeniedException() {
+        this.message = defaultMessage;
+    }
+
+    public ClusterAccessDeniedException(String msg) {
+        super(msg);
+        this.message = msg;
+    }
+}
@@ -0,0 +1,23 @@
+package todoapp.backend.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+import lombok.Getter;
+
+@ResponseStatus(value = HttpStatus.BAD_REQUEST, reason = "Invalid request parameters")
+public class InvalidRequestParamsException extends RuntimeException {
+    private String defaultMessage = "Some request parameters' values are invalid. Please, make sure they are within their expected range.";
+
+    @Getter
+    private String message;
+
+    public InvalidRequestParamsException() {
+        this.message = defaultMessage;
+    }
+
+    public InvalidRequestParamsException(String msg) {
+        super(msg);
+        this.message = msg;
+    }
+}
@@ -0,0 +1,23 @@
+package todoapp.backend.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+import lombok.Getter;
+
+@ResponseStatus(value = HttpStatus.BAD_REQUEST, reason = "Invalid tenant ID")
+public class InvalidTenantException extends RuntimeException {
+    private String defaultMessage = "Invalid tenant ID. Only letters, digits, '-' and '_' are allowed (max. 64 characters).";
+
+    @Getter
+    private String message;
+
+    public InvalidTenantException() {
+        this.message = defaultMessage;
+    }
+
+    public InvalidTenantException(String msg) {
+        super(msg);
+        this.message = msg;
+    }
+}
@@ -0,0 +1,23 @@
+package todoapp.backend.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+import lombok.Getter;
+
+@ResponseStatus(value = HttpStatus.SERVICE_UNAVAILABLE, reason = "Persistence falling behind")
+public class PersistenceBacklogException extends RuntimeException {
+    private String defaultMessage = "Too many changes are waiting to be saved. Please, try again later.";
+
+    @Getter
+    private String message;
+
+    public PersistenceBacklogException() {
+        this.message = defaultMessage;
+    }
+
+    public PersistenceBacklogException(String msg) {
+        super(msg);
+        this.message = msg;
+    }
+}
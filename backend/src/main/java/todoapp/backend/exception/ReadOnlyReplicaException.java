@@ -0,0 +1,23 @@
+package todoapp.backend.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+import lombok.Getter;
+
+@ResponseStatus(value = HttpStatus.METHOD_NOT_ALLOWED, reason = "Read-only replica")
+public class ReadOnlyReplicaException extends RuntimeException {
+    private String defaultMessage = "This node is a read-only replica. Please, send changes to the leader node.";
+
+    @Getter
+    private String message;
+
+    public ReadOnlyReplicaException() {
+        this.message = defaultMessage;
+    }
+
+    public ReadOnlyReplicaException(String msg) {
+        super(msg);
+        this.message = msg;
+    }
+}
@@ -0,0 +1,23 @@
+package todoapp.backend.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+import lombok.Getter;
+
+@ResponseStatus(value = HttpStatus.SERVICE_UNAVAILABLE, reason = "Cluster node unavailable")
+public class ShardUnavailableException extends RuntimeException {
+    private String defaultMessage = "The cluster node owning the requested ToDos is not available. Please, try again later.";
+
+    @Getter
+    private String message;
+
+    public ShardUnavailableException() {
+        this.message = defaultMessage;
+    }
+
+    public ShardUnavailableException(String msg) {
+        super(msg);
+        this.message = msg;
+    }
+}
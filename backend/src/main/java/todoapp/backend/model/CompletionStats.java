@@ -0,0 +1,132 @@
+package todoapp.backend.model;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import todoapp.backend.analytics.QuantileSketch;
+import todoapp.backend.enums.Priority;
+
+/**
+ * Snapshot of the completion time accumulators of a tenant's ToDos: how many
+ * ToDos are DONE, the sum of their completion times (in seconds) and a sketch
+ * of their distribution, overall and grouped by priority.
+ */
+public class CompletionStats {
+    // relative error of the completion time percentiles
+    public static final double SKETCH_ACCURACY = 0.01;
+
+    private final long count;
+    private final long totalSeconds;
+    private final long[] countByPriority;
+    private final long[] totalSecondsByPriority;
+    private final QuantileSketch sketch;
+    private final QuantileSketch[] sketchByPriority;
+
+    @JsonCreator
+    public CompletionStats(@JsonProperty("count") long count, @JsonProperty("totalSeconds") long totalSeconds,
+            @JsonProperty("countByPriority") long[] countByPriority,
+            @JsonProperty("totalSecondsByPriority") long[] totalSecondsByPriority,
+            @JsonProperty("sketch") QuantileSketch sketch,
+            @JsonProperty("sketchByPriority") QuantileSketch[] sketchByPriority) {
+        this.count = count;
+        this.totalSeconds = totalSeconds;
+        this.countByPriority = countByPriority.clone();
+        this.totalSecondsByPriority = totalSecondsByPriority.clone();
+        // the sketches are owned by the snapshot from now on
+        this.sketch = sketch;
+        this.sketchByPriority = sketchByPriority.clone();
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getTotalSeconds() {
+        return totalSeconds;
+    }
+
+    public long[] getCountByPriority() {
+        return countByPriority.clone();
+    }
+
+    public long[] getTotalSecondsByPriority() {
+        return totalSecondsByPriority.clone();
+    }
+
+    public QuantileSketch getSketch() {
+        return sketch.copy();
+    }
+
+    public QuantileSketch[] getSketchByPriority() {
+        QuantileSketch[] copies = new QuantileSketch[sketchByPriority.length];
+        for (int i = 0; i < copies.length; i++) {
+            copies[i] = sketchByPriority[i].copy();
+        }
+        return copies;
+    }
+
+    public long getCount(Priority priority) {
+        return countByPriority[priority.ordinal()];
+    }
+
+    /**
+     * Returns the average completion time (in seconds) of all DONE ToDos, or 0 if
+     * there are none.
+     */
+    @JsonIgnore
+    public double getAverageSeconds() {
+        return count == 0 ? 0.0 : (double) totalSeconds / count;
+    }
+
+    /**
+     * Returns the average completion time (in seconds) of the DONE ToDos with the
+     * given priority, or 0 if there are none.
+     */
+    public double getAverageSeconds(Priority priority) {
+        long priorityCount = countByPriority[priority.ordinal()];
+        return priorityCount == 0 ? 0.0 : (double) totalSecondsByPriority[priority.ordinal()] / priorityCount;
+    }
+
+    /**
+     * Returns the estimated completion time (in seconds) at the given percentile
+     * of all DONE ToDos, or null if there are none.
+     *
+     * @param percentile between 0 and 100, e.g. 95
+     */
+    public Double getPercentileSeconds(double percentile) {
+        return sketch.getQuantile(percentile / 100);
+    }
+
+    /**
+     * Returns the estimated completion time (in seconds) at the given percentile
+     * of the DONE ToDos with the given priority, or null if there are none.
+     *
+     * @param percentile between 0 and 100, e.g. 95
+     */
+    public Double getPercentileSeconds(Priority priority, double percentile) {
+        return sketchByPriority[priority.ordinal()].getQuantile(percentile / 100);
+    }
+
+    /**
+     * Combines these accumulators with the ones of another set of ToDos, e.g.
+     * the ones held by another cluster node.
+     *
+     * @param other the accumulators to add
+     * @return the accumulators of both sets of ToDos
+     */
+    public CompletionStats plus(CompletionStats other) {
+        long[] counts = countByPriority.clone();
+        long[] seconds = totalSecondsByPriority.clone();
+        QuantileSketch[] sketches = getSketchByPriority();
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += other.countByPriority[i];
+            seconds[i] += other.totalSecondsByPriority[i];
+            sketches[i].merge(other.sketchByPriority[i]);
+        }
+        QuantileSketch allSketch = getSketch();
+        allSketch.merge(other.sketch);
+        return new CompletionStats(count + other.count, totalSeconds + other.totalSeconds, counts, seconds,
+                allSketch, sketches);
+    }
+}
@@ -1,5 +1,7 @@
 package todoapp.backend.model;
 
+import java.util.function.Predicate;
+
 import lombok.Getter;
 import lombok.Setter;
 import todoapp.backend.enums.Priority;
@@ -23,4 +25,22 @@ public class FilterCriteria {
         this.priority = priority;
         this.doneStatus = doneStatus;
     }
+
+    /**
+     * Builds a predicate that tells whether a ToDo matches these criteria. The
+     * name criteria is lower cased only once, when building the predicate.
+     *
+     * @return a predicate matching the ToDos that meet all non null criteria
+     */
+    public Predicate<ToDo> toPredicate() {
+        String lowerCaseName = name == null ? null : name.toLowerCase();
+        Priority priorityCriteria = priority;
+        Status doneStatusCriteria = doneStatus;
+
+        // Check if To Do matches criteria one by one. Whenever a criteria is
+        // null, the filter is not applied, so we return the match as true.
+        return toDo -> (lowerCaseName == null || toDo.getName().toLowerCase().contains(lowerCaseName))
+                && (priorityCriteria == null || priorityCriteria == toDo.getPriority())
+                && (doneStatusCriteria == null || doneStatusCriteria == toDo.getIsDone());
+    }
 }
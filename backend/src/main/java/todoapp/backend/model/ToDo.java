@@ -1,19 +1,25 @@
 package todoapp.backend.model;
 
 import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
 import jakarta.persistence.Entity;
+import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.Setter;
 import todoapp.backend.enums.Priority;
 import todoapp.backend.enums.Status;
 
+// Equal when all properties are: storage engines hand out copies
 @Entity
+@EqualsAndHashCode
 public class ToDo {
 
     // ToDo Properties
@@ -36,27 +42,33 @@ public class ToDo {
     @Getter
     private Status isDone;
 
-    @JsonProperty("doneDate")
-    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss.SSS'Z'", timezone = "UTC")
-
+    // Timestamps are kept as epoch milliseconds (UTC). doneMillis is NO_DATE
+    // while the ToDo is not done. The service stamps them with its injected
+    // clock; ToDos built elsewhere (e.g. in tests) read the system clock.
+    @JsonIgnore
     @Getter
-    private LocalDateTime doneDate; // Nullable
+    @Setter
+    private long doneMillis;
 
     @JsonProperty("priority")
     @Getter
     @Setter
     private Priority priority;
 
-    @JsonProperty("creationDate")
-    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss.SSS'Z'", timezone = "UTC")
+    @JsonIgnore
     @Getter
-    private LocalDateTime creationDate;
+    @Setter
+    private long creationMillis;
+
+    public static final long NO_DATE = Long.MIN_VALUE;
+
+    private static final String DATE_TIME_PATTERN = "yyyy-MM-dd'T'HH:mm:ss.SSS'Z'";
 
     // Default constructor
     public ToDo() {
         this.isDone = Status.NOT_DONE; // "Not Done " by default
-        this.doneDate = null; // No done date initially
-        this.creationDate = LocalDateTime.now();
+        this.doneMillis = NO_DATE; // No done date initially
+        this.creationMillis = System.currentTimeMillis();
     }
 
     public ToDo(int id, String name, LocalDate dueDate, Priority priority) {
@@ -64,13 +76,35 @@ public class ToDo {
         this.name = name;
         this.dueDate = dueDate;
         this.isDone = Status.NOT_DONE; // "Not Done " by default
-        this.doneDate = null; // No done date initially
+        this.doneMillis = NO_DATE; // No done date initially
         this.priority = priority;
-        this.creationDate = LocalDateTime.now();
+        this.creationMillis = System.currentTimeMillis();
+    }
+
+    // Copy constructor, keeps the done status and both timestamps
+    public ToDo(ToDo other) {
+        this.id = other.id;
+        this.name = other.name;
+        this.dueDate = other.dueDate;
+        this.isDone = other.isDone;
+        this.doneMillis = other.doneMillis;
+        this.priority = other.priority;
+        this.creationMillis = other.creationMillis;
     }
 
     // Setter for isDone flag. Works for both marking as done and not done.
     public void setIsDone(Status doneStatus) {
+        setIsDone(doneStatus, System.currentTimeMillis());
+    }
+
+    /**
+     * Marks the ToDo as done or not done. Marking it as done stamps the done
+     * date with the given time, marking it as not done clears it.
+     *
+     * @param doneStatus the new done status
+     * @param nowMillis  the current time, in epoch milliseconds
+     */
+    public void setIsDone(Status doneStatus, long nowMillis) {
         // If isDone status is already the one to which we are trying to
         // update to, nothing changes. No error is thrown.
         if (this.isDone == doneStatus) {
@@ -80,17 +114,75 @@ public class ToDo {
         // Otherwisem, update isDone flag and doneDate
         this.isDone = doneStatus;
         if (doneStatus == Status.DONE) {
-            // Set done date to today when marked as done
-            this.doneDate = LocalDateTime.now();
+            // Set done date to now when marked as done
+            this.doneMillis = nowMillis;
         } else {
             // Reset done date when marked as not done
-            this.doneDate = null;
+            this.doneMillis = NO_DATE;
         }
     }
 
+    // Date views, only used to (de)serialize the ToDo
+    @JsonProperty("doneDate")
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = DATE_TIME_PATTERN, timezone = "UTC")
+    public LocalDateTime getDoneDate() {
+        return doneMillis == NO_DATE ? null : toDateTime(doneMillis);
+    }
+
+    @JsonProperty("doneDate")
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = DATE_TIME_PATTERN, timezone = "UTC")
+    private void setDoneDate(LocalDateTime doneDate) {
+        this.doneMillis = doneDate == null ? NO_DATE : toMillis(doneDate);
+    }
+
+    @JsonProperty("creationDate")
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = DATE_TIME_PATTERN, timezone = "UTC")
+    public LocalDateTime getCreationDate() {
+        return toDateTime(creationMillis);
+    }
+
+    @JsonProperty("creationDate")
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = DATE_TIME_PATTERN, timezone = "UTC")
+    private void setCreationDate(LocalDateTime creationDate) {
+        this.creationMillis = toMillis(creationDate);
+    }
+
     // Computed property completionTime
+    @JsonIgnore
     public Duration getCompletionTime() {
-        return isDone == Status.DONE ? Duration.between(creationDate, doneDate)
-                : Duration.between(creationDate, LocalDateTime.now());
+        return Duration.ofMillis(getCompletionMillis(System.currentTimeMillis()));
+    }
+
+    /**
+     * Time from creation to completion of a done ToDo.
+     *
+     * @return the completion time in milliseconds
+     * @throws IllegalStateException if the ToDo is not done
+     */
+    @JsonIgnore
+    public long getDoneCompletionMillis() {
+        if (isDone != Status.DONE) {
+            throw new IllegalStateException("ToDo " + id + " is not done");
+        }
+        return doneMillis - creationMillis;
+    }
+
+    /**
+     * Time from creation to completion, or up to the given time if the ToDo is
+     * not done yet.
+     *
+     * @param nowMillis the current time, in epoch milliseconds
+     * @return the completion time in milliseconds
+     */
+    public long getCompletionMillis(long nowMillis) {
+        return (isDone == Status.DONE ? doneMillis : nowMillis) - creationMillis;
+    }
+
+    private static LocalDateTime toDateTime(long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneOffset.UTC);
+    }
+
+    private static long toMillis(LocalDateTime dateTime) {
+        return dateTime.toInstant(ZoneOffset.UTC).toEpochMilli();
     }
 }
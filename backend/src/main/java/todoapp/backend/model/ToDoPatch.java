@@ -0,0 +1,83 @@
+package todoapp.backend.model;
+
+import java.time.LocalDate;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import lombok.Getter;
+import lombok.Setter;
+import todoapp.backend.enums.Priority;
+import todoapp.backend.enums.Status;
+
+/**
+ * Changes applied to every ToDo matched by a bulk update. Only the non null
+ * properties are changed, so e.g. {"priority": "HIGH"} only raises the
+ * priority. A due date can't be cleared this way.
+ */
+@Getter
+@Setter
+public class ToDoPatch {
+    // All can be null, which means that property is left as it is
+    @JsonProperty("name")
+    private String name;
+
+    @JsonProperty("dueDate")
+    private LocalDate dueDate;
+
+    @JsonProperty("priority")
+    private Priority priority;
+
+    @JsonProperty("isDone")
+    private Status isDone;
+
+    // Done date of the ToDos the patch marks as done, stamped by the service
+    // that applies it (NO_DATE: the system clock is read)
+    @JsonIgnore
+    private long doneMillis = ToDo.NO_DATE;
+
+    // Default constructor
+    public ToDoPatch() {
+
+    }
+
+    public ToDoPatch(String name, LocalDate dueDate, Priority priority, Status isDone) {
+        this.name = name;
+        this.dueDate = dueDate;
+        this.priority = priority;
+        this.isDone = isDone;
+    }
+
+    /**
+     * @return True if the patch doesn't change any property
+     */
+    @JsonIgnore
+    public boolean isEmpty() {
+        return name == null && dueDate == null && priority == null && isDone == null;
+    }
+
+    /**
+     * Applies the patch to a copy of the given ToDo, which is left untouched.
+     * Changing the done status stamps or resets the done date, as when marking
+     * a single ToDo.
+     *
+     * @param toDo the ToDo to patch
+     * @return the patched copy
+     */
+    public ToDo applyTo(ToDo toDo) {
+        ToDo patched = new ToDo(toDo);
+        if (name != null) {
+            patched.setName(name);
+        }
+        if (dueDate != null) {
+            patched.setDueDate(dueDate);
+        }
+        if (priority != null) {
+            patched.setPriority(priority);
+        }
+        if (isDone != null) {
+            patched.setIsDone(isDone, doneMillis == ToDo.NO_DATE ? System.currentTimeMillis() : doneMillis);
+        }
+        return patched;
+    }
+}
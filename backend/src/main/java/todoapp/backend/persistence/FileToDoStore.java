@@ -0,0 +1,183 @@
+package todoapp.backend.persistence;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.annotation.PreDestroy;
+import todoapp.backend.model.ToDo;
+import todoapp.backend.replication.ReplicationOperation;
+
+/**
+ * Append-only log file store: every operation is written as one JSON line, in
+ * the same format the replication stream uses, and each batch is flushed (and
+ * optionally fsynced) as a whole.
+ *
+ * The log is replayed on load and then rewritten as a snapshot of the live
+ * ToDos only, so it doesn't grow across restarts. When a batch fails, whatever
+ * part of it reached the file is cut off again, so the retry starts on a clean
+ * line. A torn line left anyway, by a crash in the middle of a batch or a
+ * failed cut, is skipped on load.
+ */
+@Component
+@ConditionalOnProperty(name = "todo.persistence.enabled", havingValue = "true")
+public class FileToDoStore implements ToDoStore {
+    private static final Logger logger = LoggerFactory.getLogger(FileToDoStore.class);
+
+    private final Path file;
+    private final ObjectMapper mapper;
+    private final boolean fsync;
+
+    private FileOutputStream output;
+    private Writer writer;
+
+    public FileToDoStore(ObjectMapper mapper, @Value("${todo.persistence.file:data/todos.log}") String file,
+            @Value("${todo.persistence.fsync:true}") boolean fsync) {
+        this.mapper = mapper;
+        this.file = Path.of(file);
+        this.fsync = fsync;
+    }
+
+    @Override
+    public void write(List<ReplicationOperation> batch) throws IOException {
+        if (writer == null) {
+            open();
+        }
+        long sizeBefore = output.getChannel().size();
+        try {
+            for (ReplicationOperation operation : batch) {
+                writer.write(mapper.writeValueAsString(operation));
+                writer.write('\n');
+            }
+            writer.flush();
+            if (fsync) {
+                output.getChannel().force(false);
+            }
+        } catch (IOException ex) {
+            discard(sizeBefore);
+            throw ex;
+        }
+    }
+
+    @Override
+    public Map<String, List<ToDo>> load() throws IOException {
+        close();
+        Map<String, Map<Integer, ToDo>> toDos = new LinkedHashMap<>();
+        if (Files.exists(file)) {
+            try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                String line;
+                int lineNumber = 0;
+                while ((line = reader.readLine()) != null) {
+                    lineNumber++;
+                    if (line.isBlank()) {
+                        continue;
+                    }
+                    ReplicationOperation operation;
+                    try {
+                        operation = mapper.readValue(line, ReplicationOperation.class);
+                    } catch (JsonProcessingException ex) {
+                        logger.warn("Skipping unreadable line {} of {}", lineNumber, file);
+                        continue;
+                    }
+                    apply(toDos, operation);
+                }
+            }
+        }
+
+        Map<String, List<ToDo>> loaded = new LinkedHashMap<>();
+        toDos.forEach((tenantId, tenantToDos) -> loaded.put(tenantId, new ArrayList<>(tenantToDos.values())));
+        compact(loaded);
+        return loaded;
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        if (writer != null) {
+            writer.close();
+            writer = null;
+            output = null;
+        }
+    }
+
+    private static void apply(Map<String, Map<Integer, ToDo>> toDos, ReplicationOperation operation) {
+        switch (operation.getType()) {
+            case RESET -> toDos.clear();
+            case ADD, UPDATE -> toDos.computeIfAbsent(operation.getTenantId(), tenantId -> new LinkedHashMap<>())
+                    .put(operation.getToDo().getId(), operation.getToDo());
+            case DELETE -> {
+                Map<Integer, ToDo> tenantToDos = toDos.get(operation.getTenantId());
+                if (tenantToDos != null) {
+                    tenantToDos.remove(operation.getId());
+                }
+            }
+        }
+    }
+
+    // Replaces the log with one ADD per live ToDo. The snapshot is written to a
+    // temporary file first, so a crash leaves either the old or the new log.
+    private void compact(Map<String, List<ToDo>> toDos) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path snapshot = parent.resolve(file.getFileName() + ".tmp");
+        try (FileOutputStream snapshotOutput = new FileOutputStream(snapshot.toFile());
+                Writer snapshotWriter = new BufferedWriter(
+                        new OutputStreamWriter(snapshotOutput, StandardCharsets.UTF_8))) {
+            for (Map.Entry<String, List<ToDo>> tenant : toDos.entrySet()) {
+                for (ToDo toDo : tenant.getValue()) {
+                    snapshotWriter.write(mapper.writeValueAsString(new ReplicationOperation(0,
+                            ReplicationOperation.Type.ADD, tenant.getKey(), toDo.getId(), toDo)));
+                    snapshotWriter.write('\n');
+                }
+            }
+            snapshotWriter.flush();
+            snapshotOutput.getChannel().force(false);
+        }
+        Files.move(snapshot, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // Drops the writer without flushing what it still buffers, and truncates
+    // the file to its size before the failed batch. The next write opens a new
+    // writer.
+    private void discard(long size) {
+        try {
+            output.close();
+        } catch (IOException ex) {
+            logger.warn("Could not close {} after a failed write", file, ex);
+        }
+        writer = null;
+        output = null;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(size);
+        } catch (IOException ex) {
+            logger.warn("Could not cut the failed batch off {}, its torn line will be skipped on load", file, ex);
+        }
+    }
+
+    private void open() throws IOException {
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        output = new FileOutputStream(file.toFile(), true);
+        writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,35 @@
+package todoapp.backend.persistence;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+import todoapp.backend.model.ToDo;
+import todoapp.backend.replication.ReplicationOperation;
+
+/**
+ * Durable storage behind the in-memory repository. Written to by the
+ * {@link WriteBehindPipeline}, and read on startup to restore the ToDos. Calls
+ * are never concurrent, so implementations don't need to be thread-safe.
+ */
+public interface ToDoStore {
+
+    /**
+     * Durably applies a batch of changes, in order. ADD and UPDATE operations
+     * carry the full state of their ToDo.
+     *
+     * @param batch the changes to apply
+     * @throws IOException if the batch could not be written. The whole batch is
+     *                     retried, so applying an operation twice must be
+     *                     harmless
+     */
+    void write(List<ReplicationOperation> batch) throws IOException;
+
+    /**
+     * Reads back every stored ToDo.
+     *
+     * @return the ToDos of each tenant, by tenant ID
+     * @throws IOException if the store could not be read
+     */
+    Map<String, List<ToDo>> load() throws IOException;
+}
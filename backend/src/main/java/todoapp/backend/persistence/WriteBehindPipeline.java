@@ -0,0 +1,331 @@
+package todoapp.backend.persistence;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+import todoapp.backend.cluster.ShardRouter;
+import todoapp.backend.exception.PersistenceBacklogException;
+import todoapp.backend.model.ToDo;
+import todoapp.backend.replication.ReplicationOperation;
+import todoapp.backend.repository.ToDoChangeListener;
+import todoapp.backend.repository.ToDoInMemoRepository;
+import todoapp.backend.util.TenantContext;
+
+/**
+ * Write-behind persistence. Changes are applied to memory and acknowledged
+ * right away; a snapshot of each change is then put on a buffer that a single
+ * writer thread drains to the {@link ToDoStore} in batches.
+ *
+ * A batch is written once it reaches the batch size or when the flush interval
+ * has passed since its first change, whichever comes first. Changes are
+ * enqueued while their stripe is locked, so enqueueing never blocks: the
+ * buffer itself is unbounded. Back-pressure is applied before a change is
+ * made instead, see {@link #awaitCapacity()}. On shutdown the buffer is drained
+ * and flushed before the writer stops.
+ *
+ * On startup, the ToDos read back from the store are loaded into the
+ * repository before the server takes requests. Only used with the memory
+ * storage engine.
+ */
+@Component
+@ConditionalOnProperty(name = "todo.persistence.enabled", havingValue = "true")
+@Lazy(false)
+public class WriteBehindPipeline implements ToDoChangeListener, SmartInitializingSingleton {
+    private static final Logger logger = LoggerFactory.getLogger(WriteBehindPipeline.class);
+    private static final long RETRY_DELAY_MILLIS = 1000;
+    // Attempts at writing a batch once shutting down, before giving up on it
+    private static final int SHUTDOWN_ATTEMPTS = 3;
+    // Put on the buffer on shutdown to wake the writer up, never written
+    private static final ReplicationOperation WAKE_UP = new ReplicationOperation();
+
+    private final ToDoInMemoRepository toDoInMemoRepository;
+    private final ShardRouter shardRouter;
+    private final ToDoStore store;
+    private final BlockingQueue<ReplicationOperation> buffer = new LinkedBlockingQueue<>();
+    private final int bufferSize;
+    private final int batchSize;
+    private final long flushIntervalMillis;
+    private final long shutdownTimeoutMillis;
+    private final long backPressureTimeoutMillis;
+    private final Thread writer;
+    // Notified whenever a batch was written, for the changes awaiting capacity
+    private final Object batchWritten = new Object();
+
+    private final AtomicLong written = new AtomicLong();
+    private volatile boolean running;
+    private volatile boolean restoring;
+
+    public WriteBehindPipeline(@Lazy ToDoInMemoRepository toDoInMemoRepository, ShardRouter shardRouter,
+            ToDoStore store,
+            @Value("${todo.persistence.buffer-size:65536}") int bufferSize,
+            @Value("${todo.persistence.batch-size:512}") int batchSize,
+            @Value("${todo.persistence.flush-interval-millis:50}") long flushIntervalMillis,
+            @Value("${todo.persistence.shutdown-timeout-millis:10000}") long shutdownTimeoutMillis,
+            @Value("${todo.persistence.back-pressure-timeout-millis:5000}") long backPressureTimeoutMillis) {
+        this.toDoInMemoRepository = toDoInMemoRepository;
+        this.shardRouter = shardRouter;
+        this.store = store;
+        this.bufferSize = Math.max(1, bufferSize);
+        this.batchSize = Math.max(1, batchSize);
+        this.flushIntervalMillis = Math.max(0, flushIntervalMillis);
+        this.shutdownTimeoutMillis = shutdownTimeoutMillis;
+        this.backPressureTimeoutMillis = Math.max(0, backPressureTimeoutMillis);
+        this.writer = new Thread(this::drain, "todo-write-behind");
+        this.writer.setDaemon(true);
+    }
+
+    // Runs once every bean is created, before the web server is started
+    @Override
+    public void afterSingletonsInstantiated() {
+        restore();
+        start();
+    }
+
+    /**
+     * Loads the stored ToDos into the repository. Restoring doesn't write them
+     * back to the store.
+     */
+    public void restore() {
+        Map<String, List<ToDo>> stored;
+        try {
+            stored = store.load();
+        } catch (IOException ex) {
+            throw new IllegalStateException("Could not load the stored ToDos", ex);
+        }
+
+        restoring = true;
+        try {
+            int count = 0;
+            for (Map.Entry<String, List<ToDo>> tenant : stored.entrySet()) {
+                TenantContext.setTenantId(tenant.getKey());
+                try {
+                    for (ToDo toDo : tenant.getValue()) {
+                        if (toDoInMemoRepository.update(toDo.getId(), toDo) == null) {
+                            toDoInMemoRepository.add(toDo);
+                        }
+                        toDoInMemoRepository.reserveId(shardRouter.toLocalId(toDo.getId()));
+                        count++;
+                    }
+                } finally {
+                    TenantContext.clear();
+                }
+            }
+            logger.info("Restored {} ToDos of {} tenants", count, stored.size());
+        } finally {
+            restoring = false;
+        }
+    }
+
+    public void start() {
+        running = true;
+        writer.start();
+    }
+
+    /**
+     * Stops taking new batches, writes every buffered change and stops the
+     * writer. Changes made afterwards are written synchronously.
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (writer.isAlive()) {
+            // ends the writer's wait for the flush interval. Not an interrupt,
+            // which would close the store's file channel mid-write
+            buffer.offer(WAKE_UP);
+            writer.join(shutdownTimeoutMillis);
+            if (writer.isAlive()) {
+                logger.error("Write-behind writer didn't drain in {} ms, {} changes may be lost",
+                        shutdownTimeoutMillis, buffer.size());
+                return;
+            }
+        }
+        // changes enqueued while the writer was exiting
+        List<ReplicationOperation> rest = new ArrayList<>();
+        buffer.drainTo(rest);
+        rest.removeIf(operation -> operation == WAKE_UP);
+        if (!rest.isEmpty()) {
+            try {
+                write(rest);
+            } catch (IOException ex) {
+                logger.error("Could not write {} changes to the store", rest.size(), ex);
+            }
+        }
+    }
+
+    /**
+     * @return the number of changes waiting to be written
+     */
+    public int getPendingCount() {
+        return buffer.size();
+    }
+
+    /**
+     * @return the number of changes written to the store so far
+     */
+    public long getWrittenCount() {
+        return written.get();
+    }
+
+    /**
+     * Waits while the buffer holds buffer-size changes or more, until the
+     * writer has caught up. Called before a change is made and before any lock
+     * is taken, so the thread making changes is held back rather than the
+     * stripes it would lock.
+     *
+     * @throws PersistenceBacklogException if the writer didn't catch up within
+     *                                     the back-pressure timeout, e.g.
+     *                                     because the store keeps failing
+     */
+    public void awaitCapacity() {
+        if (buffer.size() < bufferSize || !writer.isAlive()) {
+            return;
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(backPressureTimeoutMillis);
+        synchronized (batchWritten) {
+            while (buffer.size() >= bufferSize && writer.isAlive()) {
+                long remainingMillis = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                if (remainingMillis <= 0) {
+                    throw new PersistenceBacklogException();
+                }
+                try {
+                    batchWritten.wait(remainingMillis);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    throw new PersistenceBacklogException();
+                }
+            }
+        }
+    }
+
+    @Override
+    public void onAdd(String tenantId, ToDo added) {
+        enqueue(ReplicationOperation.Type.ADD, tenantId, added);
+    }
+
+    @Override
+    public void onUpdate(String tenantId, ToDo previous, ToDo updated) {
+        enqueue(ReplicationOperation.Type.UPDATE, tenantId, updated);
+    }
+
+    @Override
+    public void onDelete(String tenantId, ToDo deleted) {
+        enqueue(ReplicationOperation.Type.DELETE, tenantId, deleted);
+    }
+
+    private void enqueue(ReplicationOperation.Type type, String tenantId, ToDo toDo) {
+        if (restoring) {
+            return;
+        }
+        // stored ToDos are never modified, so the writer can keep this one
+        ReplicationOperation operation = new ReplicationOperation(0, type, tenantId, toDo.getId(),
+                type == ReplicationOperation.Type.DELETE ? null : toDo);
+
+        if (!running && !writer.isAlive()) {
+            // stopped (or not started yet): nobody drains the buffer
+            writeSynchronously(operation);
+            return;
+        }
+
+        // never blocks, the buffer is unbounded
+        buffer.offer(operation);
+    }
+
+    private void writeSynchronously(ReplicationOperation operation) {
+        try {
+            write(List.of(operation));
+        } catch (IOException ex) {
+            logger.error("Could not write a change to the store", ex);
+        }
+    }
+
+    // Writer thread: takes changes off the buffer and writes them in batches
+    // until stopped, then writes whatever is left
+    private void drain() {
+        List<ReplicationOperation> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                ReplicationOperation first = buffer.poll(Math.max(1, flushIntervalMillis), TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                fill(batch);
+            } catch (InterruptedException ex) {
+                running = false;
+            }
+            writeBatch(batch);
+        }
+        while (buffer.drainTo(batch, batchSize) > 0) {
+            writeBatch(batch);
+        }
+    }
+
+    // Adds buffered changes to the batch until it's full or the flush interval
+    // has passed since its first change
+    private void fill(List<ReplicationOperation> batch) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+        while (batch.size() < batchSize && running) {
+            buffer.drainTo(batch, batchSize - batch.size());
+            long remaining = deadline - System.nanoTime();
+            if (batch.size() >= batchSize || remaining <= 0) {
+                return;
+            }
+            ReplicationOperation next = buffer.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+        }
+    }
+
+    // Writes and clears the batch, retrying until it's written. Once shutting
+    // down, gives up after a few attempts.
+    private void writeBatch(List<ReplicationOperation> batch) {
+        batch.removeIf(operation -> operation == WAKE_UP);
+        int attempts = 0;
+        while (!batch.isEmpty()) {
+            try {
+                write(batch);
+                batch.clear();
+            } catch (IOException ex) {
+                attempts++;
+                if (!running && attempts >= SHUTDOWN_ATTEMPTS) {
+                    logger.error("Giving up on writing {} changes to the store", batch.size(), ex);
+                    batch.clear();
+                    return;
+                }
+                logger.warn("Could not write {} changes to the store, retrying", batch.size(), ex);
+                try {
+                    Thread.sleep(RETRY_DELAY_MILLIS);
+                } catch (InterruptedException interrupted) {
+                    running = false;
+                }
+            }
+        }
+    }
+
+    private void write(List<ReplicationOperation> batch) throws IOException {
+        synchronized (store) {
+            store.write(batch);
+        }
+        written.addAndGet(batch.size());
+        synchronized (batchWritten) {
+            batchWritten.notifyAll();
+        }
+    }
+}
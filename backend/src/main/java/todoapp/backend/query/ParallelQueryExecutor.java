@@ -0,0 +1,193 @@
+package todoapp.backend.query;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.function.Predicate;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+import todoapp.backend.model.ToDo;
+
+/**
+ * Scatter/gather execution of page queries over large lists of ToDos. The list
+ * is split into chunks that are filtered and partially sorted in parallel,
+ * each chunk keeping only its first (offset + page size) ToDos, and the chunks
+ * are then k-way merged up to the end of the requested page.
+ *
+ * Runs on its own fork-join pool so that large queries never take threads from
+ * the web server nor from the common pool.
+ */
+@Component
+public class ParallelQueryExecutor {
+    private final ForkJoinPool pool;
+    private final int parallelThreshold;
+    private final int chunkSize;
+
+    public ParallelQueryExecutor(@Value("${todo.query.parallel-threshold:50000}") int parallelThreshold,
+            @Value("${todo.query.parallelism:0}") int parallelism,
+            @Value("${todo.query.chunk-size:16384}") int chunkSize) {
+        this.parallelThreshold = parallelThreshold;
+        this.chunkSize = Math.max(1, chunkSize);
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors(),
+                forkJoinPool -> {
+                    ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory
+                            .newThread(forkJoinPool);
+                    thread.setName("todo-query-" + thread.getPoolIndex());
+                    return thread;
+                }, null, false);
+    }
+
+    /**
+     * Tells whether a query over the given number of ToDos is large enough to be
+     * run in parallel.
+     *
+     * @param size the number of ToDos to query
+     * @return True if the size reaches the configured threshold
+     */
+    public boolean isWorthParallelizing(int size) {
+        return parallelThreshold > 0 && size >= parallelThreshold;
+    }
+
+    /**
+     * Gets the requested page of the ToDos that match the filter, in the order
+     * given by the comparator. The result is the same as filtering and stably
+     * sorting the whole list before slicing the page.
+     *
+     * @param toDos      the ToDos to query
+     * @param filter     the filter to apply (null when not filtering)
+     * @param comparator the sort order (null when not sorting)
+     * @param pageReq    the requested page
+     * @return the requested page, with the total number of matching ToDos
+     */
+    public Page<ToDo> findPage(List<ToDo> toDos, Predicate<ToDo> filter, Comparator<ToDo> comparator,
+            Pageable pageReq) {
+        int limit = (int) Math.min(Integer.MAX_VALUE, pageReq.getOffset() + pageReq.getPageSize());
+
+        // scatter: one task per chunk
+        List<ForkJoinTask<ChunkResult>> tasks = new ArrayList<>();
+        for (int from = 0; from < toDos.size(); from += chunkSize) {
+            int start = from;
+            int end = Math.min(from + chunkSize, toDos.size());
+            tasks.add(pool.submit(() -> scanChunk(toDos, start, end, filter, comparator, limit)));
+        }
+
+        // gather
+        List<ChunkResult> chunks = new ArrayList<>(tasks.size());
+        long total = 0;
+        for (ForkJoinTask<ChunkResult> task : tasks) {
+            ChunkResult chunk = task.join();
+            chunks.add(chunk);
+            total += chunk.matches();
+        }
+
+        List<ToDo> top = comparator == null ? concat(chunks, limit) : merge(chunks, comparator, limit);
+
+        int start = (int) Math.min(pageReq.getOffset(), top.size());
+        return new PageImpl<>(new ArrayList<>(top.subList(start, top.size())), pageReq, total);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    // First (up to limit) ToDos of a chunk in sort order, and how many matched
+    private record ChunkResult(List<ToDo> top, int matches) {
+    }
+
+    private static ChunkResult scanChunk(List<ToDo> toDos, int from, int to, Predicate<ToDo> filter,
+            Comparator<ToDo> comparator, int limit) {
+        if (comparator == null) {
+            // no sorting: keep the first matches in list order
+            List<ToDo> top = new ArrayList<>(Math.min(limit, to - from));
+            int matches = 0;
+            for (int i = from; i < to; i++) {
+                ToDo toDo = toDos.get(i);
+                if (filter == null || filter.test(toDo)) {
+                    if (matches < limit) {
+                        top.add(toDo);
+                    }
+                    matches++;
+                }
+            }
+            return new ChunkResult(top, matches);
+        }
+
+        // Bounded max-heap holding the best 'limit' positions seen so far. Ties
+        // are broken by position so the result matches a stable sort.
+        Comparator<Integer> byToDo = (a, b) -> {
+            int result = comparator.compare(toDos.get(a), toDos.get(b));
+            return result != 0 ? result : Integer.compare(a, b);
+        };
+        PriorityQueue<Integer> heap = new PriorityQueue<>(Math.min(limit, to - from) + 1, byToDo.reversed());
+        int matches = 0;
+        for (int i = from; i < to; i++) {
+            ToDo toDo = toDos.get(i);
+            if (filter != null && !filter.test(toDo)) {
+                continue;
+            }
+            matches++;
+            if (heap.size() < limit) {
+                heap.add(i);
+            } else if (limit > 0 && byToDo.compare(i, heap.peek()) < 0) {
+                heap.poll();
+                heap.add(i);
+            }
+        }
+
+        ToDo[] top = new ToDo[heap.size()];
+        for (int i = top.length - 1; i >= 0; i--) {
+            top[i] = toDos.get(heap.poll());
+        }
+        return new ChunkResult(List.of(top), matches);
+    }
+
+    private static List<ToDo> concat(List<ChunkResult> chunks, int limit) {
+        List<ToDo> top = new ArrayList<>();
+        for (ChunkResult chunk : chunks) {
+            for (ToDo toDo : chunk.top()) {
+                if (top.size() == limit) {
+                    return top;
+                }
+                top.add(toDo);
+            }
+        }
+        return top;
+    }
+
+    // k-way merge of the sorted chunks, stopping once 'limit' ToDos are taken.
+    // Ties are taken from the earlier chunk first, keeping the sort stable.
+    private static List<ToDo> merge(List<ChunkResult> chunks, Comparator<ToDo> comparator, int limit) {
+        // cursor = {chunk index, position within the chunk}
+        PriorityQueue<int[]> cursors = new PriorityQueue<>(Math.max(1, chunks.size()), (a, b) -> {
+            int result = comparator.compare(chunks.get(a[0]).top().get(a[1]), chunks.get(b[0]).top().get(b[1]));
+            return result != 0 ? result : Integer.compare(a[0], b[0]);
+        });
+        for (int i = 0; i < chunks.size(); i++) {
+            if (!chunks.get(i).top().isEmpty()) {
+                cursors.add(new int[] { i, 0 });
+            }
+        }
+
+        List<ToDo> top = new ArrayList<>();
+        while (top.size() < limit && !cursors.isEmpty()) {
+            int[] cursor = cursors.poll();
+            List<ToDo> chunk = chunks.get(cursor[0]).top();
+            top.add(chunk.get(cursor[1]));
+            if (++cursor[1] < chunk.size()) {
+                cursors.add(cursor);
+            }
+        }
+        return top;
+    }
+}
@@ -0,0 +1,354 @@
+package todoapp.backend.query;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.data.domain.Sort;
+
+import todoapp.backend.exception.InvalidRequestParamsException;
+import todoapp.backend.model.ToDo;
+
+/**
+ * Compiled form of a requested sort order. Each ToDo is reduced to a single
+ * packed {@code long} key holding the sorted fields from the most to the least
+ * significant bits (direction and null handling included), and the keys are
+ * sorted with an LSD radix sort on primitive arrays.
+ *
+ * Some fields don't fit in a key exactly (a name only contributes a prefix,
+ * and fields past the 64th bit are cut). Such plans are inexact: ToDos with
+ * equal keys are then ordered by the full comparator, which only runs on
+ * those ties. Nulls sort after every value, so they come last when ascending
+ * and first when descending. Sorting is stable.
+ *
+ * Plans are immutable and cached per sort specification.
+ */
+public final class SortPlan {
+    // Below this size, a comparison sort is faster than the radix passes
+    private static final int RADIX_THRESHOLD = 64;
+    private static final int MAX_CACHED_PLANS = 1024;
+    private static final Map<Sort, SortPlan> PLANS = new ConcurrentHashMap<>();
+    private static final SortPlan UNSORTED = new SortPlan(new Field[0], new boolean[0]);
+
+    /**
+     * The fields ToDos can be sorted by. Each one encodes its value as an
+     * unsigned number of at most 'bits' bits, in ascending order and with null
+     * as the largest value.
+     */
+    enum Field {
+        PRIORITY("priority", 2, true,
+                Comparator.comparing(ToDo::getPriority, Comparator.nullsLast(Comparator.naturalOrder()))),
+        // days since 0001-01-01, up to the year 11000 or so
+        DUE_DATE("dueDate", 22, true,
+                Comparator.comparing(ToDo::getDueDate, Comparator.nullsLast(Comparator.naturalOrder()))),
+        // epoch milliseconds, up to the year 2109
+        CREATION_DATE("creationDate", 42, true, Comparator.comparingLong(ToDo::getCreationMillis)),
+        DONE_DATE("doneDate", 42, true, Comparator.comparing(
+                toDo -> toDo.getDoneMillis() == ToDo.NO_DATE ? null : toDo.getDoneMillis(),
+                Comparator.nullsLast(Comparator.<Long>naturalOrder()))),
+        // case insensitive; the key holds a prefix of up to 7 characters
+        NAME("name", 56, false,
+                Comparator.comparing(ToDo::getName, Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER)));
+
+        private static final long FIRST_EPOCH_DAY = LocalDate.of(1, 1, 1).toEpochDay();
+
+        private final String property;
+        private final int bits;
+        private final boolean exact;
+        private final Comparator<ToDo> comparator;
+
+        Field(String property, int bits, boolean exact, Comparator<ToDo> comparator) {
+            this.property = property;
+            this.bits = bits;
+            this.exact = exact;
+            this.comparator = comparator;
+        }
+
+        static Field of(String property) {
+            for (Field field : values()) {
+                if (field.property.equals(property)) {
+                    return field;
+                }
+            }
+            throw new InvalidRequestParamsException("ToDos can't be sorted by '" + property + "'.");
+        }
+
+        // The value of this field, out of 'bits' bits. Values that don't fit
+        // are clamped, which keeps the order but makes the key inexact.
+        long encode(ToDo toDo) {
+            long nullValue = (1L << bits) - 1;
+            switch (this) {
+                case PRIORITY:
+                    return toDo.getPriority() == null ? nullValue : toDo.getPriority().ordinal();
+                case DUE_DATE:
+                    return toDo.getDueDate() == null ? nullValue
+                            : clamp(toDo.getDueDate().toEpochDay() - FIRST_EPOCH_DAY, nullValue - 1);
+                case CREATION_DATE:
+                    return clamp(toDo.getCreationMillis(), nullValue - 1);
+                case DONE_DATE:
+                    return toDo.getDoneMillis() == ToDo.NO_DATE ? nullValue
+                            : clamp(toDo.getDoneMillis(), nullValue - 1);
+                default:
+                    return toDo.getName() == null ? nullValue : namePrefix(toDo.getName(), bits / 8);
+            }
+        }
+
+        // Tells whether the value encoded for the ToDo was clamped
+        boolean isClamped(ToDo toDo) {
+            switch (this) {
+                case DUE_DATE:
+                    return toDo.getDueDate() != null && (toDo.getDueDate().toEpochDay() < FIRST_EPOCH_DAY
+                            || toDo.getDueDate().toEpochDay() - FIRST_EPOCH_DAY >= (1L << bits) - 1);
+                case CREATION_DATE:
+                    return toDo.getCreationMillis() < 0 || toDo.getCreationMillis() >= (1L << bits) - 1;
+                case DONE_DATE:
+                    return toDo.getDoneMillis() != ToDo.NO_DATE
+                            && (toDo.getDoneMillis() < 0 || toDo.getDoneMillis() >= (1L << bits) - 1);
+                default:
+                    return false;
+            }
+        }
+
+        private static long clamp(long value, long max) {
+            return Math.max(0, Math.min(value, max));
+        }
+
+        // One byte per character, case folded like String.CASE_INSENSITIVE_ORDER.
+        // 0 marks the end of the name, so shorter names sort first, and
+        // characters past 253 share the last byte value. Their actual order is
+        // unknown, so the rest of the prefix is filled with that value too:
+        // names that only differ from there on tie, and go to the comparator.
+        private static long namePrefix(String name, int chars) {
+            long prefix = 0;
+            boolean saturated = false;
+            for (int i = 0; i < chars; i++) {
+                long value = 0;
+                if (saturated) {
+                    value = 255;
+                } else if (i < name.length()) {
+                    char folded = Character.toLowerCase(Character.toUpperCase(name.charAt(i)));
+                    value = Math.min(folded + 1, 255);
+                    saturated = value == 255;
+                }
+                prefix = (prefix << 8) | value;
+            }
+            return prefix;
+        }
+    }
+
+    private final Field[] fields;
+    private final boolean[] descending;
+    // bits each field takes in the key (possibly cut), from the first field
+    private final int[] keyBits;
+    private final int totalBits;
+    private final boolean exact;
+    private final Comparator<ToDo> comparator;
+
+    private SortPlan(Field[] fields, boolean[] descending) {
+        this.fields = fields;
+        this.descending = descending;
+        this.keyBits = new int[fields.length];
+
+        int available = Long.SIZE;
+        boolean allExact = true;
+        Comparator<ToDo> fullComparator = null;
+        for (int i = 0; i < fields.length; i++) {
+            keyBits[i] = Math.min(fields[i].bits, available);
+            available -= keyBits[i];
+            allExact &= fields[i].exact && keyBits[i] == fields[i].bits;
+
+            Comparator<ToDo> fieldComparator = descending[i] ? fields[i].comparator.reversed() : fields[i].comparator;
+            fullComparator = fullComparator == null ? fieldComparator : fullComparator.thenComparing(fieldComparator);
+        }
+        this.totalBits = Long.SIZE - available;
+        this.exact = allExact;
+        this.comparator = fullComparator == null ? (toDo1, toDo2) -> 0 : fullComparator;
+    }
+
+    /**
+     * Returns the plan of the given sort order, compiling it the first time.
+     *
+     * @param sort the requested sort order (null or unsorted when not sorting)
+     * @return the plan
+     * @throws InvalidRequestParamsException if a property can't be sorted by
+     */
+    public static SortPlan of(Sort sort) {
+        if (sort == null || sort.isUnsorted()) {
+            return UNSORTED;
+        }
+        SortPlan plan = PLANS.get(sort);
+        if (plan == null) {
+            plan = compile(sort);
+            if (PLANS.size() < MAX_CACHED_PLANS) {
+                PLANS.putIfAbsent(sort, plan);
+            }
+        }
+        return plan;
+    }
+
+    private static SortPlan compile(Sort sort) {
+        List<Field> fields = new ArrayList<>();
+        List<Boolean> descending = new ArrayList<>();
+        for (Sort.Order order : sort) {
+            fields.add(Field.of(order.getProperty()));
+            descending.add(order.isDescending());
+        }
+        boolean[] descendingArray = new boolean[descending.size()];
+        for (int i = 0; i < descendingArray.length; i++) {
+            descendingArray[i] = descending.get(i);
+        }
+        return new SortPlan(fields.toArray(new Field[0]), descendingArray);
+    }
+
+    public boolean isUnsorted() {
+        return fields.length == 0;
+    }
+
+    /**
+     * @return the comparator equivalent to this plan, e.g. to merge lists
+     *         already sorted by it
+     */
+    public Comparator<ToDo> comparator() {
+        return comparator;
+    }
+
+    /**
+     * Computes the packed sort key of a ToDo. Keys compare as unsigned numbers,
+     * in the same order as {@link #comparator()} (or equal if the plan is
+     * inexact and the ToDos only differ past the key).
+     *
+     * @param toDo the ToDo
+     * @return its key
+     */
+    public long keyOf(ToDo toDo) {
+        long key = 0;
+        for (int i = 0; i < fields.length; i++) {
+            if (keyBits[i] == 0) {
+                break;
+            }
+            long value = fields[i].encode(toDo);
+            if (descending[i]) {
+                value = ((1L << fields[i].bits) - 1) - value;
+            }
+            // fields cut at the end of the key keep their most significant bits
+            key = (key << keyBits[i]) | (value >>> (fields[i].bits - keyBits[i]));
+        }
+        return key;
+    }
+
+    /**
+     * Returns the given ToDos in the order of this plan. Equal ToDos keep their
+     * order.
+     *
+     * @param toDos the ToDos to sort
+     * @return a new sorted list
+     */
+    public List<ToDo> sort(List<ToDo> toDos) {
+        List<ToDo> sorted = new ArrayList<>(toDos);
+        if (isUnsorted()) {
+            return sorted;
+        }
+        int size = sorted.size();
+        if (size < RADIX_THRESHOLD) {
+            sorted.sort(comparator);
+            return sorted;
+        }
+
+        long[] keys = new long[size];
+        int[] order = new int[size];
+        boolean clamped = false;
+        for (int i = 0; i < size; i++) {
+            ToDo toDo = sorted.get(i);
+            keys[i] = keyOf(toDo);
+            order[i] = i;
+            if (exact && !clamped) {
+                clamped = isClamped(toDo);
+            }
+        }
+        radixSort(keys, order, totalBits);
+
+        List<ToDo> result = new ArrayList<>(size);
+        for (int index : order) {
+            result.add(sorted.get(index));
+        }
+        if (!exact || clamped) {
+            sortTies(result, keys);
+        }
+        return result;
+    }
+
+    private boolean isClamped(ToDo toDo) {
+        for (Field field : fields) {
+            if (field.isClamped(toDo)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Orders the runs of equal keys with the full comparator
+    private void sortTies(List<ToDo> toDos, long[] sortedKeys) {
+        int start = 0;
+        for (int i = 1; i <= sortedKeys.length; i++) {
+            if (i == sortedKeys.length || sortedKeys[i] != sortedKeys[start]) {
+                if (i - start > 1) {
+                    toDos.subList(start, i).sort(comparator);
+                }
+                start = i;
+            }
+        }
+    }
+
+    /**
+     * Stable LSD radix sort of unsigned keys, one byte per pass, moving the
+     * given indexes along. Passes on a byte all keys share are skipped.
+     *
+     * @param keys  the keys, sorted in place
+     * @param order indexes moved with their key
+     * @param bits  number of significant low bits of the keys
+     */
+    static void radixSort(long[] keys, int[] order, int bits) {
+        int size = keys.length;
+        int passes = (bits + 7) / 8;
+        // histograms of all passes in one go
+        int[][] counts = new int[passes][256];
+        for (long key : keys) {
+            for (int pass = 0; pass < passes; pass++) {
+                counts[pass][(int) (key >>> (pass * 8)) & 0xFF]++;
+            }
+        }
+
+        long[] keyBuffer = new long[size];
+        int[] orderBuffer = new int[size];
+        long[] fromKeys = keys;
+        int[] fromOrder = order;
+        for (int pass = 0; pass < passes; pass++) {
+            int[] count = counts[pass];
+            if (size == 0 || count[(int) (fromKeys[0] >>> (pass * 8)) & 0xFF] == size) {
+                continue;
+            }
+            int offset = 0;
+            for (int b = 0; b < 256; b++) {
+                int bucketSize = count[b];
+                count[b] = offset;
+                offset += bucketSize;
+            }
+            long[] toKeys = fromKeys == keys ? keyBuffer : keys;
+            int[] toOrder = fromOrder == order ? orderBuffer : order;
+            for (int i = 0; i < size; i++) {
+                int position = count[(int) (fromKeys[i] >>> (pass * 8)) & 0xFF]++;
+                toKeys[position] = fromKeys[i];
+                toOrder[position] = fromOrder[i];
+            }
+            fromKeys = toKeys;
+            fromOrder = toOrder;
+        }
+        if (fromKeys != keys) {
+            System.arraycopy(fromKeys, 0, keys, 0, size);
+            System.arraycopy(fromOrder, 0, order, 0, size);
+        }
+    }
+}
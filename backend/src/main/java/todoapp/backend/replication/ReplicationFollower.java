@@ -0,0 +1,149 @@
+package todoapp.backend.replication;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import todoapp.backend.model.ToDo;
+import todoapp.backend.repository.ToDoRepository;
+import todoapp.backend.util.TenantContext;
+
+/**
+ * Follower side of the replication. Connects to the leader and applies the
+ * operations it ships to the local in-memory repository, reconnecting (and
+ * resyncing from a fresh snapshot) whenever the connection is lost.
+ */
+@Component
+@ConditionalOnProperty(name = "todo.replication.role", havingValue = "follower")
+@Lazy(false)
+public class ReplicationFollower {
+    private static final Logger logger = LoggerFactory.getLogger(ReplicationFollower.class);
+    private static final long RECONNECT_DELAY_MILLIS = 1000;
+
+    private final ToDoRepository toDoRepository;
+    private final ObjectMapper mapper;
+    private final String leaderHost;
+    private final int leaderPort;
+
+    private volatile boolean running;
+    private volatile Socket socket;
+    private volatile long lastAppliedSequence;
+
+    public ReplicationFollower(ToDoRepository toDoRepository, ObjectMapper mapper,
+            @Value("${todo.replication.leader-host:localhost}") String leaderHost,
+            @Value("${todo.replication.port:7070}") int leaderPort) {
+        this.toDoRepository = toDoRepository;
+        this.mapper = mapper;
+        this.leaderHost = leaderHost;
+        this.leaderPort = leaderPort;
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        Thread receiver = new Thread(this::receive, "replication-follower");
+        receiver.setDaemon(true);
+        receiver.start();
+    }
+
+    @PreDestroy
+    public void stop() throws IOException {
+        running = false;
+        if (socket != null) {
+            socket.close();
+        }
+    }
+
+    /**
+     * Returns the highest sequence number applied. Operations of different
+     * ToDos may arrive out of sequence, so lower ones may still be pending.
+     */
+    public long getLastAppliedSequence() {
+        return lastAppliedSequence;
+    }
+
+    private void receive() {
+        while (running) {
+            try (Socket connection = new Socket()) {
+                socket = connection;
+                connection.connect(new InetSocketAddress(leaderHost, leaderPort));
+                logger.info("Connected to replication leader {}:{}", leaderHost, leaderPort);
+
+                BufferedReader reader = new BufferedReader(
+                        new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8));
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    apply(mapper.readValue(line, ReplicationOperation.class));
+                }
+            } catch (IOException ex) {
+                if (running) {
+                    logger.warn("Lost connection to replication leader {}:{}, retrying", leaderHost, leaderPort);
+                }
+            }
+
+            try {
+                Thread.sleep(RECONNECT_DELAY_MILLIS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    void apply(ReplicationOperation operation) {
+        switch (operation.getType()) {
+            case RESET -> reset();
+            case ADD, UPDATE -> {
+                TenantContext.setTenantId(operation.getTenantId());
+                try {
+                    ToDo toDo = operation.getToDo();
+                    if (toDoRepository.update(toDo.getId(), toDo) == null) {
+                        toDoRepository.add(toDo);
+                    }
+                } finally {
+                    TenantContext.clear();
+                }
+            }
+            case DELETE -> {
+                TenantContext.setTenantId(operation.getTenantId());
+                try {
+                    toDoRepository.delete(operation.getId());
+                } finally {
+                    TenantContext.clear();
+                }
+            }
+        }
+
+        if (operation.getSequence() > lastAppliedSequence) {
+            lastAppliedSequence = operation.getSequence();
+        }
+    }
+
+    // Drops every local ToDo before the leader's snapshot is applied
+    private void reset() {
+        for (String tenantId : toDoRepository.getTenantIds()) {
+            TenantContext.setTenantId(tenantId);
+            try {
+                for (ToDo toDo : toDoRepository.findAll()) {
+                    toDoRepository.delete(toDo.getId());
+                }
+            } finally {
+                TenantContext.clear();
+            }
+        }
+    }
+}
@@ -0,0 +1,289 @@
+package todoapp.backend.replication;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import todoapp.backend.model.ToDo;
+import todoapp.backend.repository.ToDoChangeListener;
+import todoapp.backend.repository.ToDoRepository;
+import todoapp.backend.util.TenantContext;
+
+/**
+ * Leader side of the replication. Listens for followers on a TCP port and
+ * ships them an ordered stream of every change made to the repository.
+ *
+ * A connecting follower is registered first and then sent a RESET and a
+ * snapshot of every tenant's ToDos. Changes published from then on are held
+ * back until the whole snapshot is queued, and replayed after it: a change
+ * either made it into the snapshot or is applied after it, so a stale snapshot
+ * copy never overwrites a newer change (a deleted ToDo doesn't come back).
+ * Since every operation carries the full state of its ToDo, the follower
+ * converges to the leader's state. Followers that fall too far behind are
+ * disconnected and resync on reconnect.
+ *
+ * Changes are published from the write path of the ToDo's stripe, without a
+ * lock of their own: the operations of one ToDo reach every follower in the
+ * order they were applied, and the operations of different ToDos may
+ * interleave differently on each follower.
+ */
+@Component
+@ConditionalOnProperty(name = "todo.replication.role", havingValue = "leader")
+@Lazy(false)
+public class ReplicationLeader implements ToDoChangeListener {
+    private static final Logger logger = LoggerFactory.getLogger(ReplicationLeader.class);
+    // How often a blocked snapshot checks whether its follower is still connected
+    private static final long SEND_TIMEOUT_MILLIS = 100;
+
+    private final ToDoRepository toDoRepository;
+    private final ObjectMapper mapper;
+    private final int port;
+    private final int followerQueueSize;
+
+    private final List<FollowerSession> followers = new CopyOnWriteArrayList<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private volatile ServerSocket serverSocket;
+
+    public ReplicationLeader(@Lazy ToDoRepository toDoRepository, ObjectMapper mapper,
+            @Value("${todo.replication.port:7070}") int port,
+            @Value("${todo.replication.follower-queue-size:100000}") int followerQueueSize) {
+        this.toDoRepository = toDoRepository;
+        this.mapper = mapper;
+        this.port = port;
+        this.followerQueueSize = followerQueueSize;
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        serverSocket = new ServerSocket();
+        serverSocket.bind(new InetSocketAddress(port));
+
+        Thread acceptor = new Thread(this::acceptFollowers, "replication-acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+        logger.info("Replication leader listening on port {}", serverSocket.getLocalPort());
+    }
+
+    @PreDestroy
+    public void stop() throws IOException {
+        serverSocket.close();
+        followers.forEach(FollowerSession::close);
+    }
+
+    /**
+     * Returns the port followers connect to (useful when configured as 0).
+     */
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    public int getFollowerCount() {
+        return followers.size();
+    }
+
+    @Override
+    public void onAdd(String tenantId, ToDo added) {
+        publish(ReplicationOperation.Type.ADD, tenantId, added.getId(), added);
+    }
+
+    @Override
+    public void onUpdate(String tenantId, ToDo previous, ToDo updated) {
+        publish(ReplicationOperation.Type.UPDATE, tenantId, updated.getId(), updated);
+    }
+
+    @Override
+    public void onDelete(String tenantId, ToDo deleted) {
+        publish(ReplicationOperation.Type.DELETE, tenantId, deleted.getId(), null);
+    }
+
+    // Assigns the next sequence number and queues the operation for every
+    // follower. Called with the ToDo's stripe locked, which orders the
+    // operations of one ToDo.
+    private void publish(ReplicationOperation.Type type, String tenantId, int id, ToDo toDo) {
+        long next = sequence.incrementAndGet();
+        if (followers.isEmpty()) {
+            return;
+        }
+
+        String line = serialize(new ReplicationOperation(next, type, tenantId, id, toDo));
+        for (FollowerSession follower : followers) {
+            follower.send(line);
+        }
+    }
+
+    private void acceptFollowers() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                FollowerSession follower = new FollowerSession(socket);
+                follower.start();
+                follower.sendBlocking(
+                        serialize(new ReplicationOperation(0, ReplicationOperation.Type.RESET, null, 0, null)));
+                // registered before the snapshot is read, so that no change is missed
+                followers.add(follower);
+                sendSnapshot(follower);
+                follower.replayHeldBack();
+                logger.info("Replication follower connected from {}", socket.getRemoteSocketAddress());
+            } catch (SocketException ex) {
+                // server socket closed, or the follower left during its snapshot
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (IOException ex) {
+                logger.warn("Failed to accept replication follower", ex);
+            }
+        }
+    }
+
+    private void sendSnapshot(FollowerSession follower) throws InterruptedException, SocketException {
+        for (String tenantId : toDoRepository.getTenantIds()) {
+            TenantContext.setTenantId(tenantId);
+            try {
+                for (ToDo toDo : toDoRepository.findAll()) {
+                    follower.sendBlocking(serialize(
+                            new ReplicationOperation(0, ReplicationOperation.Type.ADD, tenantId, toDo.getId(), toDo)));
+                }
+            } finally {
+                TenantContext.clear();
+            }
+        }
+    }
+
+    private String serialize(ReplicationOperation operation) {
+        try {
+            return mapper.writeValueAsString(operation);
+        } catch (JsonProcessingException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    // Connection to one follower, with its own bounded queue and sender thread
+    private class FollowerSession {
+        private final Socket socket;
+        private final BlockingQueue<String> queue = new ArrayBlockingQueue<>(followerQueueSize);
+        // Changes published while the snapshot is sent, null once they were replayed
+        private List<String> heldBack = new ArrayList<>();
+        private volatile boolean snapshotting = true;
+
+        FollowerSession(Socket socket) {
+            this.socket = socket;
+        }
+
+        void start() {
+            Thread sender = new Thread(this::sendQueued, "replication-sender-" + socket.getPort());
+            sender.setDaemon(true);
+            sender.start();
+        }
+
+        void send(String line) {
+            if (snapshotting && holdBack(line)) {
+                return;
+            }
+            if (!queue.offer(line)) {
+                logger.warn("Replication follower {} is too far behind, disconnecting it",
+                        socket.getRemoteSocketAddress());
+                close();
+            }
+        }
+
+        // Used for the snapshot, which may be larger than the queue
+        void sendBlocking(String line) throws InterruptedException, SocketException {
+            while (!queue.offer(line, SEND_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                if (socket.isClosed()) {
+                    throw new SocketException("Replication follower disconnected");
+                }
+            }
+        }
+
+        private synchronized boolean holdBack(String line) {
+            if (heldBack == null) {
+                return false;
+            }
+            if (heldBack.size() >= followerQueueSize) {
+                logger.warn("Replication follower {} is too far behind, disconnecting it",
+                        socket.getRemoteSocketAddress());
+                close();
+            } else {
+                heldBack.add(line);
+            }
+            return true;
+        }
+
+        // Queues the changes held back during the snapshot, in the order they
+        // were published, then lets new changes through
+        void replayHeldBack() throws InterruptedException, SocketException {
+            while (true) {
+                List<String> batch;
+                synchronized (this) {
+                    if (heldBack.isEmpty()) {
+                        heldBack = null;
+                        snapshotting = false;
+                        return;
+                    }
+                    batch = heldBack;
+                    heldBack = new ArrayList<>();
+                }
+                for (String line : batch) {
+                    sendBlocking(line);
+                }
+            }
+        }
+
+        void close() {
+            followers.remove(this);
+            try {
+                socket.close();
+            } catch (IOException ex) {
+                // already closed
+            }
+        }
+
+        private void sendQueued() {
+            try (BufferedWriter writer = new BufferedWriter(
+                    new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8))) {
+                while (!socket.isClosed()) {
+                    String line = queue.take();
+                    writer.write(line);
+                    writer.write('\n');
+                    // batch whatever else is already queued before flushing
+                    while ((line = queue.poll()) != null) {
+                        writer.write(line);
+                        writer.write('\n');
+                    }
+                    writer.flush();
+                }
+            } catch (IOException ex) {
+                logger.info("Replication follower {} disconnected", socket.getRemoteSocketAddress());
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            } finally {
+                close();
+            }
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package todoapp.backend.replication;
+
+import lombok.Getter;
+import lombok.Setter;
+import todoapp.backend.model.ToDo;
+
+/**
+ * A change shipped from the leader to its followers, sent as one JSON object
+ * per line. ADD and UPDATE carry the full state of the ToDo (done status and
+ * done date included), so applying them is idempotent.
+ */
+@Getter
+@Setter
+public class ReplicationOperation {
+
+    public enum Type {
+        // Followers drop all their ToDos; sent before the initial snapshot
+        RESET,
+        ADD,
+        UPDATE,
+        DELETE;
+    }
+
+    private long sequence;
+    private Type type;
+    private String tenantId;
+    private int id;
+    private ToDo toDo; // Null for RESET and DELETE
+
+    // Default constructor
+    public ReplicationOperation() {
+
+    }
+
+    public ReplicationOperation(long sequence, Type type, String tenantId, int id, ToDo toDo) {
+        this.sequence = sequence;
+        this.type = type;
+        this.tenantId = tenantId;
+        this.id = id;
+        this.toDo = toDo;
+    }
+}
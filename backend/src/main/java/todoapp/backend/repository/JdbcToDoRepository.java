@@ -0,0 +1,475 @@
+package todoapp.backend.repository;
+
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import jakarta.annotation.PostConstruct;
+import todoapp.backend.analytics.QuantileSketch;
+import todoapp.backend.enums.Priority;
+import todoapp.backend.enums.Status;
+import todoapp.backend.exception.InvalidRequestParamsException;
+import todoapp.backend.model.CompletionStats;
+import todoapp.backend.model.FilterCriteria;
+import todoapp.backend.model.ToDo;
+import todoapp.backend.model.ToDoPatch;
+import todoapp.backend.util.TenantContext;
+
+/**
+ * Relational storage of ToDos (H2 by default), with a near-cache in front of
+ * it. Filtering, sorting and pagination run in SQL, backed by indexes on each
+ * filterable and sortable column; the cache serves ToDos by ID, recently
+ * requested pages and the completion stats until the tenant is written to.
+ *
+ * Like the in-memory repository, every change is passed to the
+ * {@link ToDoChangeListener}s, in order for each ToDo. The rows of each tenant
+ * are replayed to them on startup.
+ */
+@Repository
+@ConditionalOnProperty(name = "todo.storage.engine", havingValue = "jdbc")
+public class JdbcToDoRepository implements ToDoRepository {
+    // Writes of ToDos whose IDs share a lock are serialized, so listeners see
+    // each ToDo's changes in order
+    private static final int WRITE_LOCKS = 64;
+    // IDs reserved in the sequence table at a time
+    private static final int ID_BLOCK_SIZE = 100;
+
+    private static final String COLUMNS = "id, name, due_date, is_done, done_millis, priority, creation_millis";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ToDoNearCache cache;
+    private final ToDoChangeListener listener;
+    private final Object[] writeLocks = new Object[WRITE_LOCKS];
+
+    // Next free ID and end of the reserved block, by tenant
+    private final Map<String, int[]> idBlocks = new ConcurrentHashMap<>();
+
+    @Autowired
+    public JdbcToDoRepository(JdbcTemplate jdbcTemplate, ObjectProvider<ToDoChangeListener> listeners,
+            @Value("${todo.storage.jdbc.cache-size:10000}") int cacheSize,
+            @Value("${todo.storage.jdbc.page-cache-size:256}") int pageCacheSize) {
+        this(jdbcTemplate, listeners.orderedStream().collect(Collectors.toList()), cacheSize, pageCacheSize);
+    }
+
+    public JdbcToDoRepository(JdbcTemplate jdbcTemplate, List<ToDoChangeListener> listeners, int cacheSize,
+            int pageCacheSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.listener = ToDoChangeListener.of(listeners);
+        this.cache = new ToDoNearCache(cacheSize, pageCacheSize);
+        for (int i = 0; i < WRITE_LOCKS; i++) {
+            writeLocks[i] = new Object();
+        }
+    }
+
+    /**
+     * Creates the tables and indexes if they don't exist yet, and replays the
+     * stored ToDos to the listeners.
+     */
+    @PostConstruct
+    public void init() {
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS todo ("
+                + "tenant_id VARCHAR(64) NOT NULL, "
+                + "id INT NOT NULL, "
+                + "name VARCHAR(120) NOT NULL, "
+                + "name_lower VARCHAR(120) NOT NULL, "
+                + "due_date DATE, "
+                + "is_done BOOLEAN NOT NULL, "
+                + "done_millis BIGINT, "
+                + "priority SMALLINT, "
+                + "creation_millis BIGINT NOT NULL, "
+                + "PRIMARY KEY (tenant_id, id))");
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS todo_sequence ("
+                + "tenant_id VARCHAR(64) PRIMARY KEY, "
+                + "next_id INT NOT NULL)");
+        // tenant first, every query is scoped to one tenant
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS todo_priority ON todo (tenant_id, priority)");
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS todo_is_done ON todo (tenant_id, is_done)");
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS todo_due_date ON todo (tenant_id, due_date)");
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS todo_name ON todo (tenant_id, name_lower)");
+
+        jdbcTemplate.query("SELECT tenant_id, " + COLUMNS + " FROM todo ORDER BY tenant_id, id",
+                rs -> {
+                    listener.onAdd(rs.getString("tenant_id"), mapToDo(rs));
+                });
+    }
+
+    @Override
+    public List<ToDo> findAll() {
+        return jdbcTemplate.query("SELECT " + COLUMNS + " FROM todo WHERE tenant_id = ? ORDER BY id",
+                (rs, rowNum) -> mapToDo(rs), TenantContext.getTenantId());
+    }
+
+    @Override
+    public List<ToDo> findAllByCriteria(FilterCriteria filterCriteria) {
+        List<Object> args = new ArrayList<>();
+        String where = whereClause(filterCriteria, args);
+        return jdbcTemplate.query("SELECT " + COLUMNS + " FROM todo" + where + " ORDER BY id",
+                (rs, rowNum) -> mapToDo(rs), args.toArray());
+    }
+
+    // Filtered, sorted and sliced by the database. Recently requested pages are
+    // served from the cache until the tenant is written to.
+    @Override
+    public Page<ToDo> findPage(FilterCriteria filterCriteria, Pageable pageReq) {
+        String tenantId = TenantContext.getTenantId();
+        long generation = cache.generation(tenantId);
+        Page<ToDo> cached = cache.getPage(tenantId, generation, filterCriteria, pageReq);
+        if (cached != null) {
+            return cached;
+        }
+
+        List<Object> args = new ArrayList<>();
+        String where = whereClause(filterCriteria, args);
+        long total = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM todo" + where, Long.class, args.toArray());
+
+        List<ToDo> content = List.of();
+        if (pageReq.getOffset() < total) {
+            args.add(pageReq.getPageSize());
+            args.add(pageReq.getOffset());
+            content = jdbcTemplate.query("SELECT " + COLUMNS + " FROM todo" + where + orderByClause(pageReq.getSort())
+                    + " LIMIT ? OFFSET ?", (rs, rowNum) -> mapToDo(rs), args.toArray());
+        }
+        Page<ToDo> page = new PageImpl<>(content, pageReq, total);
+        cache.putPage(tenantId, generation, filterCriteria, pageReq, page);
+        return page;
+    }
+
+    @Override
+    public ToDo findById(int id) {
+        String tenantId = TenantContext.getTenantId();
+        ToDo cached = cache.get(tenantId, id);
+        if (cached != null) {
+            return cached;
+        }
+
+        long generation = cache.generation(tenantId);
+        List<ToDo> found = jdbcTemplate.query("SELECT " + COLUMNS + " FROM todo WHERE tenant_id = ? AND id = ?",
+                (rs, rowNum) -> mapToDo(rs), tenantId, id);
+        if (found.isEmpty()) {
+            return null;
+        }
+        cache.putIfUnchanged(tenantId, generation, found.get(0));
+        return found.get(0);
+    }
+
+    @Override
+    public ToDo add(ToDo toDo) {
+        String tenantId = TenantContext.getTenantId();
+        synchronized (writeLockFor(toDo.getId())) {
+            ToDo previous = findById(toDo.getId());
+            // H2's upsert: adding an existing ID replaces it, as in memory
+            jdbcTemplate.update("MERGE INTO todo (tenant_id, " + COLUMNS + ", name_lower) KEY (tenant_id, id) "
+                    + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)", rowValues(tenantId, toDo));
+            cache.written(tenantId, toDo.getId(), toDo);
+            // the listeners keep what they're given, so not the caller's instance
+            ToDo stored = new ToDo(toDo);
+            if (previous == null) {
+                listener.onAdd(tenantId, stored);
+            } else {
+                listener.onUpdate(tenantId, previous, stored);
+            }
+        }
+        return toDo;
+    }
+
+    @Override
+    public ToDo update(int id, ToDo updatedToDo) {
+        String tenantId = TenantContext.getTenantId();
+        synchronized (writeLockFor(id)) {
+            ToDo previous = findById(id);
+            if (previous == null) {
+                return null;
+            }
+            Object[] values = rowValues(tenantId, updatedToDo);
+            int updated = jdbcTemplate.update("UPDATE todo SET name = ?, due_date = ?, is_done = ?, done_millis = ?, "
+                    + "priority = ?, creation_millis = ?, name_lower = ? WHERE tenant_id = ? AND id = ?",
+                    values[2], values[3], values[4], values[5], values[6], values[7], values[8], tenantId, id);
+            if (updated == 0) {
+                return null;
+            }
+            cache.written(tenantId, id, updatedToDo);
+            listener.onUpdate(tenantId, previous, new ToDo(updatedToDo));
+        }
+        return updatedToDo;
+    }
+
+    @Override
+    public ToDo update(int id, UnaryOperator<ToDo> change) {
+        synchronized (writeLockFor(id)) {
+            // a copy, from the cache or the database
+            ToDo current = findById(id);
+            return current == null ? null : update(id, change.apply(current));
+        }
+    }
+
+    @Override
+    public boolean delete(int id) {
+        return deleteIf(id, toDo -> true);
+    }
+
+    @Override
+    public boolean deleteIf(int id, Predicate<ToDo> condition) {
+        String tenantId = TenantContext.getTenantId();
+        synchronized (writeLockFor(id)) {
+            ToDo deleted = findById(id);
+            if (deleted == null || !condition.test(deleted)) {
+                return false;
+            }
+            jdbcTemplate.update("DELETE FROM todo WHERE tenant_id = ? AND id = ?", tenantId, id);
+            cache.written(tenantId, id, null);
+            listener.onDelete(tenantId, deleted);
+        }
+        return true;
+    }
+
+    // One DELETE for all the matching rows. Every write lock is held, so no
+    // single-ID write can slip in between reading the rows and deleting them.
+    @Override
+    public int deleteAllByCriteria(FilterCriteria filterCriteria) {
+        String tenantId = TenantContext.getTenantId();
+        List<Object> args = new ArrayList<>();
+        String where = whereClause(filterCriteria, args);
+        return withAllWriteLocks(() -> {
+            List<ToDo> deleted = jdbcTemplate.query("SELECT " + COLUMNS + " FROM todo" + where + " ORDER BY id",
+                    (rs, rowNum) -> mapToDo(rs), args.toArray());
+            if (deleted.isEmpty()) {
+                return 0;
+            }
+            jdbcTemplate.update("DELETE FROM todo" + where, args.toArray());
+            cache.writtenAll(tenantId, deleted, true);
+            for (ToDo toDo : deleted) {
+                listener.onDelete(tenantId, toDo);
+            }
+            return deleted.size();
+        });
+    }
+
+    // The patched rows are computed once and written in a single JDBC batch,
+    // so the done dates stamped by the patch are the ones stored and notified
+    @Override
+    public int updateAllByCriteria(FilterCriteria filterCriteria, ToDoPatch patch) {
+        String tenantId = TenantContext.getTenantId();
+        List<Object> args = new ArrayList<>();
+        String where = whereClause(filterCriteria, args);
+        return withAllWriteLocks(() -> {
+            List<ToDo> previous = jdbcTemplate.query("SELECT " + COLUMNS + " FROM todo" + where + " ORDER BY id",
+                    (rs, rowNum) -> mapToDo(rs), args.toArray());
+            if (previous.isEmpty()) {
+                return 0;
+            }
+            List<ToDo> updated = new ArrayList<>(previous.size());
+            List<Object[]> batch = new ArrayList<>(previous.size());
+            for (ToDo toDo : previous) {
+                ToDo patched = patch.applyTo(toDo);
+                Object[] values = rowValues(tenantId, patched);
+                updated.add(patched);
+                batch.add(new Object[] { values[2], values[3], values[4], values[5], values[6], values[7], values[8],
+                        tenantId, patched.getId() });
+            }
+            jdbcTemplate.batchUpdate("UPDATE todo SET name = ?, due_date = ?, is_done = ?, done_millis = ?, "
+                    + "priority = ?, creation_millis = ?, name_lower = ? WHERE tenant_id = ? AND id = ?", batch);
+            cache.writtenAll(tenantId, updated, false);
+            for (int i = 0; i < previous.size(); i++) {
+                listener.onUpdate(tenantId, previous.get(i), updated.get(i));
+            }
+            return updated.size();
+        });
+    }
+
+    @Override
+    public int count() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM todo WHERE tenant_id = ?", Integer.class,
+                TenantContext.getTenantId());
+    }
+
+    @Override
+    public int nextId() {
+        String tenantId = TenantContext.getTenantId();
+        int[] block = idBlocks.computeIfAbsent(tenantId, key -> new int[] { 0, 0 });
+        synchronized (block) {
+            if (block[0] >= block[1]) {
+                reserveIdBlock(tenantId, block);
+            }
+            return block[0]++;
+        }
+    }
+
+    @Override
+    public Set<String> getTenantIds() {
+        return Set.copyOf(jdbcTemplate.queryForList(
+                "SELECT tenant_id FROM todo UNION SELECT tenant_id FROM todo_sequence", String.class));
+    }
+
+    @Override
+    public CompletionStats getCompletionStats() {
+        String tenantId = TenantContext.getTenantId();
+        long generation = cache.generation(tenantId);
+        CompletionStats cached = cache.getStats(tenantId, generation);
+        if (cached != null) {
+            return cached;
+        }
+
+        int priorities = Priority.values().length;
+        long[] totals = new long[2];
+        long[] countByPriority = new long[priorities];
+        long[] secondsByPriority = new long[priorities];
+        QuantileSketch sketch = new QuantileSketch(CompletionStats.SKETCH_ACCURACY);
+        QuantileSketch[] sketchByPriority = new QuantileSketch[priorities];
+        for (int i = 0; i < priorities; i++) {
+            sketchByPriority[i] = new QuantileSketch(CompletionStats.SKETCH_ACCURACY);
+        }
+
+        // same arithmetic as the in-memory accumulators
+        jdbcTemplate.query("SELECT priority, done_millis - creation_millis AS completion_millis FROM todo "
+                + "WHERE tenant_id = ? AND is_done = TRUE", rs -> {
+                    long seconds = rs.getLong("completion_millis") / 1000;
+                    totals[0]++;
+                    totals[1] += seconds;
+                    sketch.add(seconds);
+                    int priority = rs.getInt("priority");
+                    if (!rs.wasNull()) {
+                        countByPriority[priority]++;
+                        secondsByPriority[priority] += seconds;
+                        sketchByPriority[priority].add(seconds);
+                    }
+                }, tenantId);
+
+        CompletionStats stats = new CompletionStats(totals[0], totals[1], countByPriority, secondsByPriority, sketch,
+                sketchByPriority);
+        cache.putStats(tenantId, generation, stats);
+        return stats;
+    }
+
+    // Reserves the next block of IDs of a tenant in the sequence table.
+    // Reserved IDs left unused on shutdown are skipped.
+    private void reserveIdBlock(String tenantId, int[] block) {
+        if (jdbcTemplate.update("UPDATE todo_sequence SET next_id = next_id + ? WHERE tenant_id = ?", ID_BLOCK_SIZE,
+                tenantId) == 0) {
+            // first block: start after any ToDo stored before the sequence was
+            Integer maxId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM todo WHERE tenant_id = ?",
+                    Integer.class, tenantId);
+            int first = maxId == null ? 1 : maxId + 1;
+            jdbcTemplate.update("INSERT INTO todo_sequence (tenant_id, next_id) VALUES (?, ?)", tenantId,
+                    first + ID_BLOCK_SIZE);
+        }
+        int end = jdbcTemplate.queryForObject("SELECT next_id FROM todo_sequence WHERE tenant_id = ?",
+                Integer.class, tenantId);
+        block[0] = end - ID_BLOCK_SIZE;
+        block[1] = end;
+    }
+
+    private Object writeLockFor(int id) {
+        return writeLocks[Math.floorMod(id, WRITE_LOCKS)];
+    }
+
+    // Runs the action holding every write lock, taken in index order so bulk
+    // operations can't deadlock with each other
+    private <T> T withAllWriteLocks(Supplier<T> action) {
+        return withWriteLocksFrom(0, action);
+    }
+
+    private <T> T withWriteLocksFrom(int index, Supplier<T> action) {
+        if (index == WRITE_LOCKS) {
+            return action.get();
+        }
+        synchronized (writeLocks[index]) {
+            return withWriteLocksFrom(index + 1, action);
+        }
+    }
+
+    // WHERE clause of the current tenant's ToDos matching the criteria, adding
+    // its parameters to args
+    private static String whereClause(FilterCriteria filterCriteria, List<Object> args) {
+        StringBuilder where = new StringBuilder(" WHERE tenant_id = ?");
+        args.add(TenantContext.getTenantId());
+        if (filterCriteria == null) {
+            return where.toString();
+        }
+        if (filterCriteria.getName() != null) {
+            // case insensitive "contains", as FilterCriteria.toPredicate
+            where.append(" AND name_lower LIKE ? ESCAPE '\\'");
+            args.add("%" + escapeLike(filterCriteria.getName().toLowerCase()) + "%");
+        }
+        if (filterCriteria.getPriority() != null) {
+            where.append(" AND priority = ?");
+            args.add(filterCriteria.getPriority().ordinal());
+        }
+        if (filterCriteria.getDoneStatus() != null) {
+            where.append(" AND is_done = ?");
+            args.add(filterCriteria.getDoneStatus() == Status.DONE);
+        }
+        return where.toString();
+    }
+
+    // ORDER BY clause matching the in-memory sort plans: nulls last when
+    // ascending, first when descending, then by ID so pages are stable
+    private static String orderByClause(Sort sort) {
+        StringBuilder orderBy = new StringBuilder(" ORDER BY ");
+        if (sort != null) {
+            for (Sort.Order order : sort) {
+                String column = switch (order.getProperty()) {
+                    case "dueDate" -> "due_date";
+                    case "priority" -> "priority";
+                    case "creationDate" -> "creation_millis";
+                    case "doneDate" -> "done_millis";
+                    case "name" -> "name_lower";
+                    default -> throw new InvalidRequestParamsException(
+                            "ToDos can't be sorted by '" + order.getProperty() + "'.");
+                };
+                orderBy.append(column).append(order.isAscending() ? " ASC NULLS LAST, " : " DESC NULLS FIRST, ");
+            }
+        }
+        return orderBy.append("id").toString();
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    // Values in the order of the MERGE statement: tenant_id, COLUMNS, name_lower
+    private static Object[] rowValues(String tenantId, ToDo toDo) {
+        return new Object[] { tenantId, toDo.getId(), toDo.getName(),
+                toDo.getDueDate() == null ? null : Date.valueOf(toDo.getDueDate()),
+                toDo.getIsDone() == Status.DONE,
+                toDo.getDoneMillis() == ToDo.NO_DATE ? null : toDo.getDoneMillis(),
+                toDo.getPriority() == null ? null : toDo.getPriority().ordinal(),
+                toDo.getCreationMillis(),
+                toDo.getName() == null ? null : toDo.getName().toLowerCase() };
+    }
+
+    private static ToDo mapToDo(ResultSet rs) throws SQLException {
+        ToDo toDo = new ToDo();
+        toDo.setId(rs.getInt("id"));
+        toDo.setName(rs.getString("name"));
+        Date dueDate = rs.getDate("due_date");
+        toDo.setDueDate(dueDate == null ? null : dueDate.toLocalDate());
+        int priority = rs.getInt("priority");
+        toDo.setPriority(rs.wasNull() ? null : Priority.values()[priority]);
+        // set the stored done date after the status, which would stamp "now"
+        toDo.setIsDone(rs.getBoolean("is_done") ? Status.DONE : Status.NOT_DONE);
+        long doneMillis = rs.getLong("done_millis");
+        toDo.setDoneMillis(rs.wasNull() ? ToDo.NO_DATE : doneMillis);
+        toDo.setCreationMillis(rs.getLong("creation_millis"));
+        return toDo;
+    }
+}
@@ -0,0 +1,96 @@
+package todoapp.backend.repository;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Distinct names of a tenant's ToDos. Many names repeat exactly ("Daily
+ * standup", "Review PR"), so every stored ToDo is given the one canonical
+ * instance of its name, and its stripe slot refers to the name's entry here.
+ * The entry keeps the lower cased form of the name, computed once, and the
+ * outcome of the last name filter applied to it, so a scan only matches each
+ * distinct name once instead of lower casing and matching every ToDo's name.
+ *
+ * Each name counts the stored ToDos using it, and is dropped with the last
+ * one.
+ */
+class NameDictionary {
+
+    /**
+     * A distinct name, shared by the ToDos that have it.
+     */
+    static final class Name {
+        private final String name;
+        private final String lowerCase;
+        // only read and written inside compute(), so under the map's lock
+        private int uses;
+        // last name filter applied, replaced as a whole so it is never torn
+        private volatile Match lastMatch;
+
+        private Name(String name) {
+            this.name = name;
+            this.lowerCase = name.toLowerCase();
+        }
+
+        String name() {
+            return name;
+        }
+
+        /**
+         * Tells whether the lower cased name contains the given text. The
+         * outcome is remembered until another text is looked for, so a scan
+         * only checks each distinct name once.
+         *
+         * @param lowerCaseText the lower cased text looked for
+         * @return True if the name contains it, ignoring case
+         */
+        boolean contains(String lowerCaseText) {
+            Match match = lastMatch;
+            if (match == null || !match.lowerCaseText().equals(lowerCaseText)) {
+                match = new Match(lowerCaseText, lowerCase.contains(lowerCaseText));
+                lastMatch = match;
+            }
+            return match.contains();
+        }
+    }
+
+    private record Match(String lowerCaseText, boolean contains) {
+    }
+
+    private final ConcurrentHashMap<String, Name> names = new ConcurrentHashMap<>();
+
+    /**
+     * Records one more use of a name.
+     *
+     * @param name the name of a stored ToDo (may be null)
+     * @return the entry of the name, with its canonical instance (null for a
+     *         null name)
+     */
+    Name acquire(String name) {
+        if (name == null) {
+            return null;
+        }
+        return names.compute(name, (key, entry) -> {
+            Name used = entry == null ? new Name(key) : entry;
+            used.uses++;
+            return used;
+        });
+    }
+
+    /**
+     * Records one use less of a name, dropping it after its last use.
+     *
+     * @param name an entry previously acquired (may be null)
+     */
+    void release(Name name) {
+        if (name != null) {
+            names.computeIfPresent(name.name, (key, entry) -> entry != name || --entry.uses > 0 ? entry : null);
+        }
+    }
+
+    /**
+     * @return the number of distinct names in use
+     */
+    int size() {
+        return names.size();
+    }
+}
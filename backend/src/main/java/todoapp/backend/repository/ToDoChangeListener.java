@@ -0,0 +1,78 @@
+package todoapp.backend.repository;
+
+import java.util.List;
+
+import todoapp.backend.model.ToDo;
+
+/**
+ * Receives every change made to the in-memory repository. Listeners are called
+ * synchronously, while the changed ToDo's stripe is still locked, so changes to
+ * the same ToDo are always seen in the order they were applied. Implementations
+ * must therefore be fast and must not call back into the repository. Those
+ * keeping state of their own hand the changes off through a
+ * {@link todoapp.backend.util.ChangeBuffer} rather than lock it here.
+ */
+public interface ToDoChangeListener {
+
+    /**
+     * Called after a new ToDo was added.
+     *
+     * @param tenantId the tenant the ToDo belongs to
+     * @param added    the added ToDo
+     */
+    default void onAdd(String tenantId, ToDo added) {
+    }
+
+    /**
+     * Called after a ToDo was replaced by its updated version. They are
+     * different instances, and neither is modified afterwards.
+     *
+     * @param tenantId the tenant the ToDo belongs to
+     * @param previous the ToDo that was replaced
+     * @param updated  the ToDo stored now
+     */
+    default void onUpdate(String tenantId, ToDo previous, ToDo updated) {
+    }
+
+    /**
+     * Called after a ToDo was deleted.
+     *
+     * @param tenantId the tenant the ToDo belonged to
+     * @param deleted  the deleted ToDo
+     */
+    default void onDelete(String tenantId, ToDo deleted) {
+    }
+
+    /**
+     * Combines several listeners into one that calls them in order.
+     *
+     * @param listeners the listeners to combine
+     * @return a listener forwarding every change to all the given listeners
+     */
+    static ToDoChangeListener of(List<ToDoChangeListener> listeners) {
+        List<ToDoChangeListener> all = List.copyOf(listeners);
+
+        return new ToDoChangeListener() {
+            @Override
+            public void onAdd(String tenantId, ToDo added) {
+                for (ToDoChangeListener listener : all) {
+                    listener.onAdd(tenantId, added);
+                }
+            }
+
+            @Override
+            public void onUpdate(String tenantId, ToDo previous, ToDo updated) {
+                for (ToDoChangeListener listener : all) {
+                    listener.onUpdate(tenantId, previous, updated);
+                }
+            }
+
+            @Override
+            public void onDelete(String tenantId, ToDo deleted) {
+                for (ToDoChangeListener listener : all) {
+                    listener.onDelete(tenantId, deleted);
+                }
+            }
+        };
+    }
+}
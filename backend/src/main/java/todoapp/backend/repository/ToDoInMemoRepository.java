@@ -2,70 +2,228 @@ package todoapp.backend.repository;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
 import java.util.stream.Collectors;
 
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Repository;
 
+import jakarta.annotation.PreDestroy;
+import todoapp.backend.model.CompletionStats;
 import todoapp.backend.model.FilterCriteria;
 import todoapp.backend.model.ToDo;
+import todoapp.backend.model.ToDoPatch;
+import todoapp.backend.query.ParallelQueryExecutor;
+import todoapp.backend.query.SortPlan;
+import todoapp.backend.util.TenantContext;
 
 @Repository
+@ConditionalOnProperty(name = "todo.storage.engine", havingValue = "memory", matchIfMissing = true)
 public class ToDoInMemoRepository implements ToDoRepository {
-    // In-memory storage using a List
-    private List<ToDo> toDoList = new ArrayList<>();
+    private static final int DEFAULT_STRIPE_COUNT = Runtime.getRuntime().availableProcessors() * 4;
+
+    // In-memory storage, partitioned by tenant
+    private final Map<String, ToDoPartition> partitions = new ConcurrentHashMap<>();
+
+    // Number of lock stripes of each tenant's partition
+    private final int stripeCount;
+
+    // Notified of every change, e.g. to replicate it or to update indexes
+    private final ToDoChangeListener listener;
+
+    // Runs page queries over large tenants in parallel chunks (null to always
+    // run them on the calling thread)
+    private final ParallelQueryExecutor parallelQueryExecutor;
+
+    // Reclaims the slots of deleted ToDos in the background (the thread is
+    // only started by the first compaction)
+    private final ExecutorService compactorThread = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "todo-compactor");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Executor compactor;
+
+    public ToDoInMemoRepository() {
+        this(DEFAULT_STRIPE_COUNT, List.of());
+    }
+
+    public ToDoInMemoRepository(int stripeCount) {
+        this(stripeCount, List.of());
+    }
+
+    @Autowired
+    public ToDoInMemoRepository(ObjectProvider<ToDoChangeListener> listeners,
+            ObjectProvider<ParallelQueryExecutor> parallelQueryExecutor) {
+        this(DEFAULT_STRIPE_COUNT, listeners.orderedStream().collect(Collectors.toList()),
+                parallelQueryExecutor.getIfAvailable());
+    }
+
+    public ToDoInMemoRepository(int stripeCount, List<ToDoChangeListener> listeners) {
+        this(stripeCount, listeners, (ParallelQueryExecutor) null);
+    }
+
+    public ToDoInMemoRepository(int stripeCount, List<ToDoChangeListener> listeners,
+            ParallelQueryExecutor parallelQueryExecutor) {
+        this.stripeCount = stripeCount;
+        this.listener = ToDoChangeListener.of(listeners);
+        this.parallelQueryExecutor = parallelQueryExecutor;
+        this.compactor = compactorThread;
+    }
+
+    // Runs the compactions on the given executor, e.g. right away in tests
+    ToDoInMemoRepository(int stripeCount, List<ToDoChangeListener> listeners, Executor compactor) {
+        this.stripeCount = stripeCount;
+        this.listener = ToDoChangeListener.of(listeners);
+        this.parallelQueryExecutor = null;
+        this.compactor = compactor;
+    }
+
+    @PreDestroy
+    public void close() {
+        compactorThread.shutdownNow();
+    }
 
     @Override
     public List<ToDo> findAll() {
-        return toDoList;
+        ToDoPartition partition = existingPartition();
+        return partition == null ? List.of() : partition.findAll();
     }
 
     @Override
     public List<ToDo> findAllByCriteria(FilterCriteria filterCriteria) {
-        List<ToDo> filteredList = toDoList.stream()
-                .filter(toDo -> matchesCriteria(toDo, filterCriteria))
-                .collect(Collectors.toList());
-        return filteredList;
+        ToDoPartition partition = existingPartition();
+        return partition == null ? List.of() : partition.findAllByCriteria(filterCriteria);
+    }
+
+    // Scans the tenant's ToDos, which come in ID order, and sorts the matching
+    // ones by packed keys. Large tenants are filtered and sorted in parallel
+    // chunks instead.
+    @Override
+    public Page<ToDo> findPage(FilterCriteria filterCriteria, Pageable pageReq) {
+        SortPlan sortPlan = SortPlan.of(pageReq.getSort());
+
+        if (parallelQueryExecutor != null && parallelQueryExecutor.isWorthParallelizing(count())) {
+            return parallelQueryExecutor.findPage(findAll(), filterCriteria == null ? null : filterCriteria.toPredicate(),
+                    sortPlan.isUnsorted() ? null : sortPlan.comparator(), pageReq);
+        }
+
+        List<ToDo> matching = sortPlan.sort(filterCriteria == null ? findAll() : findAllByCriteria(filterCriteria));
+        int start = (int) Math.min(pageReq.getOffset(), matching.size());
+        int end = (int) Math.min(pageReq.getOffset() + pageReq.getPageSize(), matching.size());
+        return new PageImpl<>(new ArrayList<>(matching.subList(start, end)), pageReq, matching.size());
     }
 
     @Override
     public ToDo findById(int id) {
-        return toDoList.stream()
-                .filter(toDo -> toDo.getId() == id)
-                .findFirst().orElse(null);
+        ToDoPartition partition = existingPartition();
+        return partition == null ? null : partition.findById(id);
     }
 
     @Override
     public ToDo add(ToDo toDo) {
-        toDoList.add(toDo);
-        return toDo;
+        return partition().add(toDo);
     }
 
     @Override
     public ToDo update(int id, ToDo updatedToDo) {
-        List<ToDo> updatedList = toDoList.stream().map(toDo -> toDo.getId() == updatedToDo.getId() ? updatedToDo : toDo)
-                .collect(Collectors.toList());
-
-        toDoList = updatedList;
+        ToDoPartition partition = existingPartition();
+        return partition == null ? null : partition.update(id, updatedToDo);
+    }
 
-        return findById(id);
+    @Override
+    public ToDo update(int id, UnaryOperator<ToDo> change) {
+        ToDoPartition partition = existingPartition();
+        return partition == null ? null : partition.update(id, change);
     }
 
     @Override
     public boolean delete(int id) {
-        return toDoList.removeIf(toDo -> toDo.getId() == id);
+        ToDoPartition partition = existingPartition();
+        return partition != null && partition.delete(id);
     }
 
-    private boolean matchesCriteria(ToDo toDo, FilterCriteria criteria) {
-        // Check if To Do matches criteria one by one. Whenever a criteria is
-        // null, the filter is not applied, so we return the match as true.
-        boolean matchesName = criteria.getName() == null
-                || toDo.getName().toLowerCase().contains(criteria.getName().toLowerCase());
+    @Override
+    public boolean deleteIf(int id, Predicate<ToDo> condition) {
+        ToDoPartition partition = existingPartition();
+        return partition != null && partition.deleteIf(id, condition);
+    }
+
+    @Override
+    public int deleteAllByCriteria(FilterCriteria filterCriteria) {
+        ToDoPartition partition = existingPartition();
+        return partition == null ? 0 : partition.deleteAllByCriteria(filterCriteria);
+    }
+
+    @Override
+    public int updateAllByCriteria(FilterCriteria filterCriteria, ToDoPatch patch) {
+        ToDoPartition partition = existingPartition();
+        return partition == null ? 0 : partition.updateAllByCriteria(filterCriteria, patch);
+    }
+
+    @Override
+    public int count() {
+        ToDoPartition partition = existingPartition();
+        return partition == null ? 0 : partition.size();
+    }
+
+    @Override
+    public int nextId() {
+        return partition().nextId();
+    }
+
+    /**
+     * Makes sure the ID sequence of the current tenant never hands out the
+     * given ID, e.g. after ToDos were restored from a persistent store.
+     *
+     * @param usedId an ID from the sequence that is already taken
+     */
+    public void reserveId(int usedId) {
+        partition().reserveId(usedId);
+    }
+
+    @Override
+    public CompletionStats getCompletionStats() {
+        ToDoPartition partition = existingPartition();
+        return partition == null ? ToDoPartition.completionStatsOf() : partition.getCompletionStats();
+    }
+
+    /**
+     * @return the number of distinct ToDo names of the current tenant
+     */
+    int distinctNames() {
+        ToDoPartition partition = existingPartition();
+        return partition == null ? 0 : partition.distinctNames();
+    }
 
-        boolean matchesPriority = criteria.getPriority() == null
-                || criteria.getPriority() == toDo.getPriority();
+    @Override
+    public Set<String> getTenantIds() {
+        return Set.copyOf(partitions.keySet());
+    }
 
-        boolean matchesDoneStatus = criteria.getDoneStatus() == null || criteria.getDoneStatus() == toDo.getIsDone();
+    // Partition of the tenant bound to the current request, created by its
+    // first ID or ToDo
+    private ToDoPartition partition() {
+        return partitions.computeIfAbsent(TenantContext.getTenantId(),
+                tenantId -> new ToDoPartition(tenantId, stripeCount, listener, compactor));
+    }
 
-        return matchesName && matchesPriority && matchesDoneStatus;
+    // Partition of the tenant bound to the current request, or null if it
+    // never stored anything. Reads and changes to existing ToDos don't create
+    // one, so made-up tenant IDs don't end up in getTenantIds()
+    private ToDoPartition existingPartition() {
+        return partitions.get(TenantContext.getTenantId());
     }
 }
@@ -0,0 +1,168 @@
+package todoapp.backend.repository;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import todoapp.backend.enums.Priority;
+import todoapp.backend.enums.Status;
+import todoapp.backend.model.CompletionStats;
+import todoapp.backend.model.FilterCriteria;
+import todoapp.backend.model.ToDo;
+
+/**
+ * In-process cache in front of a slower store: the most recently used ToDos by
+ * ID, the most recently requested pages and each tenant's completion stats.
+ *
+ * Every write to a tenant bumps its generation. Pages and stats are cached
+ * under the generation they were read at, so a write invalidates all of them
+ * at once; ToDos read from the store are only cached if no write happened
+ * while they were being read, so a slow read can't cache a stale ToDo. Cached
+ * ToDos are copied in and out, since callers modify them in place.
+ */
+class ToDoNearCache {
+
+    private record ToDoKey(String tenantId, int id) {
+    }
+
+    private record PageKey(String tenantId, long generation, String name, Priority priority, Status doneStatus,
+            long offset, int size, Sort sort) {
+    }
+
+    private record CachedPage(List<ToDo> content, long totalElements) {
+    }
+
+    private record CachedStats(long generation, CompletionStats stats) {
+    }
+
+    private final Map<ToDoKey, ToDo> toDos;
+    private final Map<PageKey, CachedPage> pages;
+    private final Map<String, CachedStats> stats = new HashMap<>();
+    private final Map<String, Long> generations = new HashMap<>();
+
+    /**
+     * @param maxToDos maximum number of ToDos cached by ID (0 disables it)
+     * @param maxPages maximum number of pages cached (0 disables it)
+     */
+    ToDoNearCache(int maxToDos, int maxPages) {
+        this.toDos = lruMap(maxToDos);
+        this.pages = lruMap(maxPages);
+    }
+
+    /**
+     * Returns the current generation of a tenant, to be taken before reading
+     * from the store.
+     */
+    synchronized long generation(String tenantId) {
+        return generations.getOrDefault(tenantId, 0L);
+    }
+
+    synchronized ToDo get(String tenantId, int id) {
+        ToDo cached = toDos.get(new ToDoKey(tenantId, id));
+        return cached == null ? null : new ToDo(cached);
+    }
+
+    /**
+     * Caches a ToDo read from the store, unless the tenant was written to since
+     * the given generation.
+     */
+    synchronized void putIfUnchanged(String tenantId, long generation, ToDo toDo) {
+        if (generation == generation(tenantId)) {
+            toDos.put(new ToDoKey(tenantId, toDo.getId()), new ToDo(toDo));
+        }
+    }
+
+    /**
+     * Records a write, to be called once it's committed to the store.
+     *
+     * @param current the ToDo as stored now, or null if it was deleted
+     */
+    synchronized void written(String tenantId, int id, ToDo current) {
+        generations.merge(tenantId, 1L, Long::sum);
+        ToDoKey key = new ToDoKey(tenantId, id);
+        if (current == null) {
+            toDos.remove(key);
+        } else {
+            toDos.put(key, new ToDo(current));
+        }
+    }
+
+    /**
+     * Records the writes of a bulk operation at once, to be called once it's
+     * committed to the store.
+     *
+     * @param written the ToDos as stored now, or as they were if deleted
+     * @param deleted whether the ToDos were deleted
+     */
+    synchronized void writtenAll(String tenantId, List<ToDo> written, boolean deleted) {
+        generations.merge(tenantId, 1L, Long::sum);
+        for (ToDo toDo : written) {
+            ToDoKey key = new ToDoKey(tenantId, toDo.getId());
+            if (deleted) {
+                toDos.remove(key);
+            } else {
+                toDos.put(key, new ToDo(toDo));
+            }
+        }
+    }
+
+    synchronized Page<ToDo> getPage(String tenantId, long generation, FilterCriteria criteria, Pageable pageReq) {
+        CachedPage cached = pages.get(pageKey(tenantId, generation, criteria, pageReq));
+        if (cached == null) {
+            return null;
+        }
+        List<ToDo> content = new ArrayList<>(cached.content().size());
+        for (ToDo toDo : cached.content()) {
+            content.add(new ToDo(toDo));
+        }
+        return new PageImpl<>(content, pageReq, cached.totalElements());
+    }
+
+    synchronized void putPage(String tenantId, long generation, FilterCriteria criteria, Pageable pageReq,
+            Page<ToDo> page) {
+        if (generation != generation(tenantId)) {
+            return;
+        }
+        List<ToDo> content = new ArrayList<>(page.getNumberOfElements());
+        for (ToDo toDo : page.getContent()) {
+            content.add(new ToDo(toDo));
+        }
+        pages.put(pageKey(tenantId, generation, criteria, pageReq), new CachedPage(content, page.getTotalElements()));
+    }
+
+    synchronized CompletionStats getStats(String tenantId, long generation) {
+        CachedStats cached = stats.get(tenantId);
+        return cached != null && cached.generation() == generation ? cached.stats() : null;
+    }
+
+    synchronized void putStats(String tenantId, long generation, CompletionStats completionStats) {
+        if (generation == generation(tenantId)) {
+            stats.put(tenantId, new CachedStats(generation, completionStats));
+        }
+    }
+
+    private static PageKey pageKey(String tenantId, long generation, FilterCriteria criteria, Pageable pageReq) {
+        return criteria == null
+                ? new PageKey(tenantId, generation, null, null, null, pageReq.getOffset(), pageReq.getPageSize(),
+                        pageReq.getSort())
+                : new PageKey(tenantId, generation, criteria.getName(), criteria.getPriority(),
+                        criteria.getDoneStatus(), pageReq.getOffset(), pageReq.getPageSize(), pageReq.getSort());
+    }
+
+    // Access ordered map that drops its least recently used entry when full
+    private static <K, V> Map<K, V> lruMap(int maxSize) {
+        return new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+}
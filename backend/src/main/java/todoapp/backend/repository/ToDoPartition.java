@@ -0,0 +1,185 @@
+package todoapp.backend.repository;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import todoapp.backend.analytics.QuantileSketch;
+import todoapp.backend.enums.Priority;
+import todoapp.backend.model.CompletionStats;
+import todoapp.backend.model.FilterCriteria;
+import todoapp.backend.model.ToDo;
+import todoapp.backend.model.ToDoPatch;
+
+/**
+ * Independent storage of a single tenant's ToDos. Each partition has its own
+ * ID sequence, and its ToDos are spread by ID hash over a fixed number of
+ * stripes, each with its own lock, ID index and metrics accumulators.
+ * Single-ID operations only lock the stripe owning the ID, so concurrent
+ * writes to different ToDos rarely contend. Scans fan out over all stripes.
+ */
+class ToDoPartition {
+    // Minimum number of ToDos for a scan to run on the stripes in parallel
+    static final int PARALLEL_SCAN_THRESHOLD = 8192;
+
+    private final ToDoStripe[] stripes;
+    private final int stripeMask;
+    // distinct names of the ToDos, shared by the stripes
+    private final NameDictionary names = new NameDictionary();
+
+    private final AtomicInteger idSequence = new AtomicInteger(1);
+
+    ToDoPartition(String tenantId, int stripeCount, ToDoChangeListener listener, Executor compactor) {
+        // round up to a power of two so the stripe can be picked with a mask
+        int size = stripeCount <= 1 ? 1 : Integer.highestOneBit(stripeCount - 1) << 1;
+        stripes = new ToDoStripe[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new ToDoStripe(tenantId, listener, compactor, names);
+        }
+        stripeMask = size - 1;
+    }
+
+    int nextId() {
+        return idSequence.getAndIncrement();
+    }
+
+    void reserveId(int usedId) {
+        idSequence.accumulateAndGet(usedId + 1, Math::max);
+    }
+
+    int size() {
+        int size = 0;
+        for (ToDoStripe stripe : stripes) {
+            size += stripe.size();
+        }
+        return size;
+    }
+
+    List<ToDo> findAll() {
+        return scan(ToDoStripe::findAll);
+    }
+
+    List<ToDo> findAllByCriteria(FilterCriteria filterCriteria) {
+        String lowerCaseName = lowerCaseName(filterCriteria);
+        Predicate<ToDo> filter = otherCriteria(filterCriteria);
+
+        return scan(stripe -> stripe.findAll(lowerCaseName, filter));
+    }
+
+    int distinctNames() {
+        return names.size();
+    }
+
+    ToDo findById(int id) {
+        return stripeFor(id).findById(id);
+    }
+
+    ToDo add(ToDo toDo) {
+        return stripeFor(toDo.getId()).add(toDo);
+    }
+
+    ToDo update(int id, ToDo updatedToDo) {
+        return stripeFor(id).update(id, updatedToDo);
+    }
+
+    ToDo update(int id, UnaryOperator<ToDo> change) {
+        return stripeFor(id).update(id, change);
+    }
+
+    boolean delete(int id) {
+        return stripeFor(id).delete(id);
+    }
+
+    boolean deleteIf(int id, Predicate<ToDo> condition) {
+        return stripeFor(id).deleteIf(id, condition);
+    }
+
+    // Each stripe applies its part of a bulk operation at once; the stripes
+    // are visited one after the other, so the whole isn't atomic
+    int deleteAllByCriteria(FilterCriteria filterCriteria) {
+        String lowerCaseName = lowerCaseName(filterCriteria);
+        Predicate<ToDo> filter = otherCriteria(filterCriteria);
+        int deleted = 0;
+        for (ToDoStripe stripe : stripes) {
+            deleted += stripe.deleteAll(lowerCaseName, filter);
+        }
+        return deleted;
+    }
+
+    int updateAllByCriteria(FilterCriteria filterCriteria, ToDoPatch patch) {
+        String lowerCaseName = lowerCaseName(filterCriteria);
+        Predicate<ToDo> filter = otherCriteria(filterCriteria);
+        int updated = 0;
+        for (ToDoStripe stripe : stripes) {
+            updated += stripe.updateAll(lowerCaseName, filter, patch::applyTo);
+        }
+        return updated;
+    }
+
+    CompletionStats getCompletionStats() {
+        return completionStatsOf(stripes);
+    }
+
+    // Merges the accumulators of the given stripes, none giving empty stats
+    static CompletionStats completionStatsOf(ToDoStripe... stripes) {
+        int priorities = Priority.values().length;
+        long[] totals = new long[2 + 2 * priorities];
+        QuantileSketch[] sketches = new QuantileSketch[priorities + 1];
+        for (int i = 0; i < sketches.length; i++) {
+            sketches[i] = new QuantileSketch(CompletionStats.SKETCH_ACCURACY);
+        }
+        for (ToDoStripe stripe : stripes) {
+            stripe.addCompletionStatsTo(totals, sketches);
+        }
+
+        // overall distribution, including the ToDos without priority
+        QuantileSketch sketch = sketches[priorities].copy();
+        for (int i = 0; i < priorities; i++) {
+            sketch.merge(sketches[i]);
+        }
+        return new CompletionStats(totals[0], totals[1], Arrays.copyOfRange(totals, 2, 2 + priorities),
+                Arrays.copyOfRange(totals, 2 + priorities, totals.length), sketch,
+                Arrays.copyOf(sketches, priorities));
+    }
+
+    // The name criteria is matched by the stripes through the name dictionary,
+    // once per distinct name, and the other criteria by a predicate
+    private static String lowerCaseName(FilterCriteria filterCriteria) {
+        return filterCriteria.getName() == null ? null : filterCriteria.getName().toLowerCase();
+    }
+
+    private static Predicate<ToDo> otherCriteria(FilterCriteria filterCriteria) {
+        return new FilterCriteria(null, filterCriteria.getPriority(), filterCriteria.getDoneStatus()).toPredicate();
+    }
+
+    // Runs the given scan on every stripe (in parallel for large partitions) and
+    // merges the results back into ID order.
+    private List<ToDo> scan(Function<ToDoStripe, List<ToDo>> stripeScan) {
+        Stream<ToDoStripe> stripeStream = Arrays.stream(stripes);
+        if (stripes.length > 1 && size() >= PARALLEL_SCAN_THRESHOLD) {
+            stripeStream = stripeStream.parallel();
+        }
+
+        List<List<ToDo>> results = stripeStream.map(stripeScan).collect(Collectors.toList());
+
+        List<ToDo> merged = new ArrayList<>(results.stream().mapToInt(List::size).sum());
+        results.forEach(merged::addAll);
+        // each stripe is already in ID order, so this only merges the runs
+        merged.sort(Comparator.comparingInt(ToDo::getId));
+        return merged;
+    }
+
+    private ToDoStripe stripeFor(int id) {
+        // spread the ID bits so that sequential IDs are spread over all stripes
+        int hash = id * 0x9E3779B9;
+        return stripes[(hash ^ (hash >>> 16)) & stripeMask];
+    }
+}
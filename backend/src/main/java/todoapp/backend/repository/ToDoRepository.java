@@ -1,10 +1,35 @@
 package todoapp.backend.repository;
 
 import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
 
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import todoapp.backend.exception.InvalidRequestParamsException;
+import todoapp.backend.model.CompletionStats;
 import todoapp.backend.model.FilterCriteria;
 import todoapp.backend.model.ToDo;
+import todoapp.backend.model.ToDoPatch;
 
+/**
+ * Storage of ToDos. All operations are scoped to the tenant of the current
+ * request (see {@link todoapp.backend.util.TenantContext}).
+ *
+ * This is the storage engine SPI: the engine is picked with the
+ * todo.storage.engine property (memory or jdbc). Every engine answers page
+ * queries itself through {@link #findPage(FilterCriteria, Pageable)}, in the
+ * way that suits its storage (e.g. the database's indexes, or scanning and
+ * sorting in memory).
+ *
+ * Engines keep their own copies of the ToDos they are given and never modify
+ * a stored ToDo, so listeners get the previous and the updated versions as
+ * different instances. {@link #findById(int)} returns a copy; ToDos returned
+ * by scans and pages may be shared and must not be modified. Changes go
+ * through {@link #update(int, UnaryOperator)}.
+ */
 public interface ToDoRepository {
 
     /**
@@ -27,12 +52,24 @@ public interface ToDoRepository {
      */
     public List<ToDo> findAllByCriteria(FilterCriteria filterCriteria);
 
+    /**
+     * Retrieves one page of the ToDos that match the given criteria, in the
+     * requested order. ToDos are sorted by the requested properties, nulls
+     * last when ascending and first when descending, and then by ID.
+     *
+     * @param filterCriteria the criteria to match (null when not filtering)
+     * @param pageReq        the requested page and sort order
+     * @return the requested page, with the total number of matching ToDos
+     * @throws InvalidRequestParamsException if a property can't be sorted by
+     */
+    public Page<ToDo> findPage(FilterCriteria filterCriteria, Pageable pageReq);
+
     /**
      * Retrieves a ToDo given an ID.
      * 
      * @param id the ID of the ToDo to be found
-     * @return the ToDo object that matches the given ID. If it's not found, return
-     *         null
+     * @return a copy of the ToDo that matches the given ID. If it's not found,
+     *         return null
      */
     public ToDo findById(int id);
 
@@ -54,6 +91,18 @@ public interface ToDoRepository {
      */
     public ToDo update(int id, ToDo toDo);
 
+    /**
+     * Updates a ToDo atomically: the change is applied to a copy of the ToDo's
+     * current state under the engine's write lock, so no other write to it can
+     * slip in between reading and storing it.
+     *
+     * @param id     the ID of the ToDo to update
+     * @param change modifies the given copy and returns it (or returns a new
+     *               ToDo with the same ID)
+     * @return the updated ToDo, or null if it was not found
+     */
+    public ToDo update(int id, UnaryOperator<ToDo> change);
+
     /**
      * Deletes the ToDo with the given ID. Returns True if an element was removed.
      * If it was not found, no changes to the storage are made and returns False.
@@ -62,4 +111,82 @@ public interface ToDoRepository {
      * @return True if a ToDo was removed, otherwise returns False
      */
     public boolean delete(int id);
+
+    /**
+     * Deletes the ToDo with the given ID if its current state matches the
+     * condition. The ToDo is checked and deleted atomically, so no write to it
+     * can slip in between.
+     *
+     * @param id        the ID of the ToDo to delete
+     * @param condition tested against the ToDo's current state
+     * @return True if the ToDo was found, matched and was removed
+     */
+    public boolean deleteIf(int id, Predicate<ToDo> condition);
+
+    /**
+     * Deletes every ToDo that matches the given criteria, as a single operation
+     * of the engine rather than one delete per ToDo. Listeners are still told
+     * about each deleted ToDo.
+     *
+     * @param filterCriteria the criteria to match
+     * @return the number of ToDos deleted
+     */
+    public default int deleteAllByCriteria(FilterCriteria filterCriteria) {
+        int deleted = 0;
+        for (ToDo toDo : findAllByCriteria(filterCriteria)) {
+            if (delete(toDo.getId())) {
+                deleted++;
+            }
+        }
+        return deleted;
+    }
+
+    /**
+     * Applies a patch to every ToDo that matches the given criteria, as a single
+     * operation of the engine rather than one update per ToDo. Listeners are
+     * still told about each updated ToDo.
+     *
+     * @param filterCriteria the criteria to match
+     * @param patch          the changes to apply
+     * @return the number of ToDos updated
+     */
+    public default int updateAllByCriteria(FilterCriteria filterCriteria, ToDoPatch patch) {
+        int updated = 0;
+        for (ToDo toDo : findAllByCriteria(filterCriteria)) {
+            if (update(toDo.getId(), patch.applyTo(toDo)) != null) {
+                updated++;
+            }
+        }
+        return updated;
+    }
+
+    /**
+     * Returns the number of stored ToDos.
+     *
+     * @return the number of ToDos
+     */
+    public int count();
+
+    /**
+     * Returns the next available ToDo ID. IDs are sequential per tenant.
+     *
+     * @return the ID to assign to a new ToDo
+     */
+    public int nextId();
+
+    /**
+     * Returns the IDs of all tenants that have stored ToDos at some point.
+     *
+     * @return the tenant IDs
+     */
+    public Set<String> getTenantIds();
+
+    /**
+     * Retrieves the completion time accumulators of the DONE ToDos, overall and
+     * by priority. They are kept up to date on every add, update and delete, so
+     * no ToDos are scanned.
+     *
+     * @return a snapshot of the completion time accumulators
+     */
+    public CompletionStats getCompletionStats();
 }
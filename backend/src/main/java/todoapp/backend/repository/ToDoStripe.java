@@ -0,0 +1,501 @@
+package todoapp.backend.repository;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+
+import todoapp.backend.analytics.QuantileSketch;
+import todoapp.backend.enums.Priority;
+import todoapp.backend.enums.Status;
+import todoapp.backend.model.CompletionStats;
+import todoapp.backend.model.ToDo;
+
+/**
+ * One stripe of a tenant's partition. Holds the ToDos whose ID hashes to it,
+ * guarded by its own lock, together with its fragment of the ID index and of
+ * the completion time accumulators.
+ *
+ * Deleting a ToDo only leaves a tombstone (a null slot) that scans skip, so it
+ * takes constant time. Once tombstones make up a good part of the slots, the
+ * stripe is compacted in the background: the live slots and their index are
+ * rebuilt under the read lock, so readers carry on, and swapped in under the
+ * write lock if no write happened meanwhile.
+ *
+ * The stripe stores its own copies of the ToDos it is given, and never
+ * modifies a stored ToDo: an update stores a new instance. Lookups by ID
+ * return a copy, while scans return the stored instances, which must not be
+ * modified.
+ *
+ * Stored ToDos are given the canonical instance of their name from the
+ * partition's name dictionary, and each slot refers to the entry of its name,
+ * through which scans match the name criteria.
+ */
+class ToDoStripe {
+    // Compaction starts once there are this many tombstones, and at least
+    // 1 / COMPACTION_RATIO of the slots are tombstones
+    static final int COMPACTION_MIN_TOMBSTONES = 64;
+    static final int COMPACTION_RATIO = 4;
+    // Optimistic compactions tried before compacting under the write lock
+    private static final int OPTIMISTIC_COMPACTIONS = 2;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final String tenantId;
+    private final ToDoChangeListener listener;
+    private final Executor compactor;
+    private final NameDictionary names;
+    private final AtomicBoolean compactionPending = new AtomicBoolean();
+
+    // ToDos stored in insertion order (null for deleted ones), and the slot of
+    // each one by ID
+    private List<ToDo> slots = new ArrayList<>();
+    // dictionary entry of each slot's name (null for deleted ones)
+    private List<NameDictionary.Name> slotNames = new ArrayList<>();
+    private Map<Integer, Integer> slotById = new HashMap<>();
+    private int tombstones;
+    // counts writes, so a compaction built meanwhile can be discarded
+    private long writeCount;
+
+    // Completion time accumulators
+    private long doneCount;
+    private long doneSeconds;
+    private final long[] doneCountByPriority = new long[Priority.values().length];
+    private final long[] doneSecondsByPriority = new long[Priority.values().length];
+    // completion time distribution by priority, ToDos without priority last
+    private final QuantileSketch[] doneSketchByPriority = new QuantileSketch[Priority.values().length + 1];
+
+    ToDoStripe(String tenantId, ToDoChangeListener listener, Executor compactor) {
+        this(tenantId, listener, compactor, new NameDictionary());
+    }
+
+    ToDoStripe(String tenantId, ToDoChangeListener listener, Executor compactor, NameDictionary names) {
+        this.tenantId = tenantId;
+        this.listener = listener;
+        this.compactor = compactor;
+        this.names = names;
+        for (int i = 0; i < doneSketchByPriority.length; i++) {
+            doneSketchByPriority[i] = new QuantileSketch(CompletionStats.SKETCH_ACCURACY);
+        }
+    }
+
+    int size() {
+        lock.readLock().lock();
+        try {
+            return slotById.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    List<ToDo> findAll() {
+        lock.readLock().lock();
+        try {
+            if (tombstones == 0) {
+                return new ArrayList<>(slots);
+            }
+            List<ToDo> all = new ArrayList<>(slotById.size());
+            for (ToDo toDo : slots) {
+                if (toDo != null) {
+                    all.add(toDo);
+                }
+            }
+            return all;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    List<ToDo> findAll(Predicate<ToDo> filter) {
+        return findAll(null, filter);
+    }
+
+    /**
+     * Finds the ToDos whose name contains the given text and that match the
+     * filter.
+     *
+     * @param lowerCaseName the lower cased text looked for in the names (null
+     *                      when not filtering by name)
+     * @param filter        the other criteria
+     * @return the matching ToDos, in ID order
+     */
+    List<ToDo> findAll(String lowerCaseName, Predicate<ToDo> filter) {
+        lock.readLock().lock();
+        try {
+            List<ToDo> filteredList = new ArrayList<>();
+            for (int slot = 0; slot < slots.size(); slot++) {
+                ToDo toDo = slots.get(slot);
+                if (matches(slot, toDo, lowerCaseName, filter)) {
+                    filteredList.add(toDo);
+                }
+            }
+            return filteredList;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    ToDo findById(int id) {
+        lock.readLock().lock();
+        try {
+            Integer slot = slotById.get(id);
+            return slot == null ? null : new ToDo(slots.get(slot));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    ToDo add(ToDo toDo) {
+        ToDo stored = new ToDo(toDo);
+        lock.writeLock().lock();
+        try {
+            Integer slot = slotById.get(toDo.getId());
+            if (slot != null) {
+                replace(slot, stored);
+                return toDo;
+            }
+            writeCount++;
+            slotById.put(toDo.getId(), slots.size());
+            slots.add(stored);
+            slotNames.add(null);
+            recordName(slots.size() - 1, stored);
+            recordCompletion(null, stored);
+            listener.onAdd(tenantId, stored);
+            return toDo;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    ToDo update(int id, ToDo updatedToDo) {
+        ToDo stored = new ToDo(updatedToDo);
+        lock.writeLock().lock();
+        try {
+            Integer slot = slotById.get(id);
+            if (slot == null) {
+                return null;
+            }
+            replace(slot, stored);
+            return updatedToDo;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Updates a ToDo atomically: the change is applied to a copy of its current
+     * state under the write lock, so no other write can slip in between.
+     *
+     * @param id     the ToDo's ID
+     * @param change modifies the given copy and returns it, or returns a new
+     *               ToDo
+     * @return a copy of the updated ToDo, or null if it wasn't found
+     */
+    ToDo update(int id, UnaryOperator<ToDo> change) {
+        lock.writeLock().lock();
+        try {
+            Integer slot = slotById.get(id);
+            if (slot == null) {
+                return null;
+            }
+            ToDo updated = change.apply(new ToDo(slots.get(slot)));
+            replace(slot, updated);
+            return new ToDo(updated);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Stores the new version of the ToDo in a slot. Must be called holding the
+    // write lock.
+    private void replace(int slot, ToDo updated) {
+        writeCount++;
+        ToDo previous = slots.set(slot, updated);
+        recordName(slot, updated);
+        recordCompletion(previous, updated);
+        listener.onUpdate(tenantId, previous, updated);
+    }
+
+    boolean delete(int id) {
+        return deleteIf(id, toDo -> true);
+    }
+
+    boolean deleteIf(int id, Predicate<ToDo> condition) {
+        lock.writeLock().lock();
+        try {
+            Integer slot = slotById.get(id);
+            if (slot == null || !condition.test(slots.get(slot))) {
+                return false;
+            }
+            slotById.remove(id);
+            writeCount++;
+            ToDo deleted = slots.set(slot, null);
+            recordName(slot, null);
+            tombstones++;
+            recordCompletion(deleted, null);
+            listener.onDelete(tenantId, deleted);
+            scheduleCompactionIfNeeded();
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Deletes every ToDo matching the filter in one pass, under a single
+     * acquisition of the write lock.
+     *
+     * @return the number of ToDos deleted
+     */
+    int deleteAll(Predicate<ToDo> filter) {
+        return deleteAll(null, filter);
+    }
+
+    int deleteAll(String lowerCaseName, Predicate<ToDo> filter) {
+        lock.writeLock().lock();
+        try {
+            int deleted = 0;
+            for (int slot = 0; slot < slots.size(); slot++) {
+                ToDo toDo = slots.get(slot);
+                if (!matches(slot, toDo, lowerCaseName, filter)) {
+                    continue;
+                }
+                slots.set(slot, null);
+                recordName(slot, null);
+                slotById.remove(toDo.getId());
+                recordCompletion(toDo, null);
+                listener.onDelete(tenantId, toDo);
+                deleted++;
+            }
+            if (deleted > 0) {
+                writeCount++;
+                tombstones += deleted;
+                scheduleCompactionIfNeeded();
+            }
+            return deleted;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Replaces every ToDo matching the filter by its patched version in one
+     * pass, under a single acquisition of the write lock.
+     *
+     * @param filter the ToDos to update
+     * @param patch  makes the updated version of a ToDo (a new instance)
+     * @return the number of ToDos updated
+     */
+    int updateAll(Predicate<ToDo> filter, UnaryOperator<ToDo> patch) {
+        return updateAll(null, filter, patch);
+    }
+
+    int updateAll(String lowerCaseName, Predicate<ToDo> filter, UnaryOperator<ToDo> patch) {
+        lock.writeLock().lock();
+        try {
+            int updated = 0;
+            for (int slot = 0; slot < slots.size(); slot++) {
+                ToDo toDo = slots.get(slot);
+                if (!matches(slot, toDo, lowerCaseName, filter)) {
+                    continue;
+                }
+                ToDo patched = patch.apply(toDo);
+                slots.set(slot, patched);
+                recordName(slot, patched);
+                recordCompletion(toDo, patched);
+                listener.onUpdate(tenantId, toDo, patched);
+                updated++;
+            }
+            if (updated > 0) {
+                writeCount++;
+            }
+            return updated;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return the number of deleted slots not reclaimed yet
+     */
+    int tombstones() {
+        lock.readLock().lock();
+        try {
+            return tombstones;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Drops the tombstones, keeping the ToDos in order.
+     */
+    void compact() {
+        compactionPending.set(false);
+        for (int attempt = 0; attempt < OPTIMISTIC_COMPACTIONS; attempt++) {
+            List<ToDo> liveSlots;
+            List<NameDictionary.Name> liveNames;
+            Map<Integer, Integer> liveSlotById;
+            long seenWriteCount;
+            lock.readLock().lock();
+            try {
+                if (tombstones == 0) {
+                    return;
+                }
+                seenWriteCount = writeCount;
+                liveSlots = liveSlots();
+                liveNames = liveNames();
+                liveSlotById = slotIndex(liveSlots);
+            } finally {
+                lock.readLock().unlock();
+            }
+
+            lock.writeLock().lock();
+            try {
+                if (writeCount == seenWriteCount) {
+                    swap(liveSlots, liveNames, liveSlotById);
+                    return;
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        // writes keep coming in, so keep them out while compacting
+        lock.writeLock().lock();
+        try {
+            List<ToDo> liveSlots = liveSlots();
+            swap(liveSlots, liveNames(), slotIndex(liveSlots));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private List<ToDo> liveSlots() {
+        List<ToDo> liveSlots = new ArrayList<>(slotById.size());
+        for (ToDo toDo : slots) {
+            if (toDo != null) {
+                liveSlots.add(toDo);
+            }
+        }
+        return liveSlots;
+    }
+
+    private List<NameDictionary.Name> liveNames() {
+        List<NameDictionary.Name> liveNames = new ArrayList<>(slotById.size());
+        for (int slot = 0; slot < slots.size(); slot++) {
+            if (slots.get(slot) != null) {
+                liveNames.add(slotNames.get(slot));
+            }
+        }
+        return liveNames;
+    }
+
+    private static Map<Integer, Integer> slotIndex(List<ToDo> liveSlots) {
+        Map<Integer, Integer> index = new HashMap<>(liveSlots.size() * 4 / 3 + 1);
+        for (int i = 0; i < liveSlots.size(); i++) {
+            index.put(liveSlots.get(i).getId(), i);
+        }
+        return index;
+    }
+
+    // Must be called holding the write lock
+    private void swap(List<ToDo> liveSlots, List<NameDictionary.Name> liveNames, Map<Integer, Integer> liveSlotById) {
+        slots = liveSlots;
+        slotNames = liveNames;
+        slotById = liveSlotById;
+        tombstones = 0;
+        writeCount++;
+    }
+
+    // Starts a background compaction once tombstones make up a good part of
+    // the slots. Must be called holding the write lock.
+    private void scheduleCompactionIfNeeded() {
+        if (tombstones >= COMPACTION_MIN_TOMBSTONES && tombstones * COMPACTION_RATIO >= slots.size()
+                && compactionPending.compareAndSet(false, true)) {
+            compactor.execute(this::compact);
+        }
+    }
+
+    // Adds this stripe's completion time accumulators to the given totals:
+    // [count, seconds, count by priority..., seconds by priority...], and its
+    // sketches to the given ones (by priority, ToDos without priority last)
+    void addCompletionStatsTo(long[] totals, QuantileSketch[] sketches) {
+        int priorities = doneCountByPriority.length;
+        lock.readLock().lock();
+        try {
+            totals[0] += doneCount;
+            totals[1] += doneSeconds;
+            for (int i = 0; i < priorities; i++) {
+                totals[2 + i] += doneCountByPriority[i];
+                totals[2 + priorities + i] += doneSecondsByPriority[i];
+            }
+            for (int i = 0; i < sketches.length; i++) {
+                sketches[i].merge(doneSketchByPriority[i]);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Tells whether the live ToDo in a slot matches the criteria, the name
+    // through its dictionary entry. Must be called holding the lock.
+    private boolean matches(int slot, ToDo toDo, String lowerCaseName, Predicate<ToDo> filter) {
+        if (toDo == null) {
+            return false;
+        }
+        if (lowerCaseName != null && !slotNames.get(slot).contains(lowerCaseName)) {
+            return false;
+        }
+        return filter.test(toDo);
+    }
+
+    // Gives the ToDo stored in a slot (null once deleted) the canonical
+    // instance of its name, and moves the slot's use of a name to it. Must be
+    // called holding the write lock.
+    private void recordName(int slot, ToDo toDo) {
+        NameDictionary.Name name = toDo == null ? null : names.acquire(toDo.getName());
+        names.release(slotNames.set(slot, name));
+        if (name != null) {
+            toDo.setName(name.name());
+        }
+    }
+
+    // Replaces the completion time of a ToDo's previous version (null if it was
+    // just added) by the one of its current version (null once deleted). Must
+    // be called holding the write lock.
+    private void recordCompletion(ToDo previous, ToDo current) {
+        if (previous != null) {
+            accumulate(previous, -1);
+        }
+        if (current != null) {
+            accumulate(current, 1);
+        }
+    }
+
+    private void accumulate(ToDo toDo, int sign) {
+        if (toDo.getIsDone() != Status.DONE) {
+            return;
+        }
+        Priority priority = toDo.getPriority();
+        long seconds = toDo.getDoneCompletionMillis() / 1000;
+        doneCount += sign;
+        doneSeconds += sign * seconds;
+        QuantileSketch sketch = doneSketchByPriority[priority != null ? priority.ordinal()
+                : doneSketchByPriority.length - 1];
+        if (sign > 0) {
+            sketch.add(seconds);
+        } else {
+            sketch.remove(seconds);
+        }
+        if (priority != null) {
+            doneCountByPriority[priority.ordinal()] += sign;
+            doneSecondsByPriority[priority.ordinal()] += sign * seconds;
+        }
+    }
+}
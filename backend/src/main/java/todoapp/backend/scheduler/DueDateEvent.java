@@ -0,0 +1,19 @@
+package todoapp.backend.scheduler;
+
+import todoapp.backend.model.ToDo;
+
+/**
+ * Published when a ToDo that is not done gets close to its due date, and when
+ * its due date has passed.
+ *
+ * @param tenantId the tenant the ToDo belongs to
+ * @param type     whether the ToDo is due soon or overdue
+ * @param toDo     the ToDo
+ */
+public record DueDateEvent(String tenantId, Type type, ToDo toDo) {
+
+    public enum Type {
+        DUE_SOON,
+        OVERDUE;
+    }
+}
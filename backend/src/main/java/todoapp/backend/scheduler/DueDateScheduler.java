@@ -0,0 +1,123 @@
+package todoapp.backend.scheduler;
+
+import java.time.Clock;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import todoapp.backend.model.ToDo;
+import todoapp.backend.repository.ToDoChangeListener;
+import todoapp.backend.util.TenantContext;
+
+/**
+ * Tracks the due dates of the ToDos that are not done yet. Publishes a
+ * {@link DueDateEvent} when a ToDo becomes due soon and when it becomes
+ * overdue, and keeps the list of overdue ToDos of each tenant.
+ *
+ * Timers are kept current as ToDos change, and each tick only fires the
+ * timers that are due, so the ToDos are never scanned. A due date ends at
+ * midnight in the clock's zone (UTC), whatever the JVM's zone is.
+ */
+@Component
+@Lazy(false)
+public class DueDateScheduler implements ToDoChangeListener {
+    private static final Logger logger = LoggerFactory.getLogger(DueDateScheduler.class);
+
+    private final ApplicationEventPublisher publisher;
+    private final Clock clock;
+    private final long dueSoonHours;
+    private final long tickMillis;
+    private final Map<String, TenantDueDates> tenants = new ConcurrentHashMap<>();
+    private ScheduledExecutorService ticker;
+
+    public DueDateScheduler(ApplicationEventPublisher publisher, Clock clock,
+            @Value("${todo.scheduler.due-soon-hours:24}") long dueSoonHours,
+            @Value("${todo.scheduler.tick-millis:1000}") long tickMillis) {
+        this.publisher = publisher;
+        this.clock = clock;
+        this.dueSoonHours = dueSoonHours;
+        this.tickMillis = tickMillis;
+    }
+
+    @PostConstruct
+    public void start() {
+        ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "todo-due-dates");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ticker.scheduleWithFixedDelay(() -> tick(clock.millis()), tickMillis, tickMillis,
+                TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (ticker != null) {
+            ticker.shutdownNow();
+        }
+    }
+
+    @Override
+    public void onAdd(String tenantId, ToDo added) {
+        tenant(tenantId).record(added.getId(), added, clock.millis());
+    }
+
+    @Override
+    public void onUpdate(String tenantId, ToDo previous, ToDo updated) {
+        tenant(tenantId).record(updated.getId(), updated, clock.millis());
+    }
+
+    @Override
+    public void onDelete(String tenantId, ToDo deleted) {
+        tenant(tenantId).record(deleted.getId(), null, clock.millis());
+    }
+
+    /**
+     * Returns the overdue ToDos of the current tenant, in the order they
+     * became overdue.
+     */
+    public OverdueToDos getOverdueToDos() {
+        TenantDueDates tenant = tenants.get(TenantContext.getTenantId());
+        List<ToDo> overdue = tenant == null ? List.of() : tenant.getOverdue();
+        return new OverdueToDos(overdue.size(), overdue);
+    }
+
+    /**
+     * Returns how many ToDos of the current tenant are overdue.
+     */
+    public int getOverdueCount() {
+        TenantDueDates tenant = tenants.get(TenantContext.getTenantId());
+        return tenant == null ? 0 : tenant.getOverdueCount();
+    }
+
+    // Fires the due timers of every tenant. Events are published outside of
+    // the tenants' locks, so event listeners may use the repository.
+    void tick(long nowMillis) {
+        for (TenantDueDates tenant : tenants.values()) {
+            for (DueDateEvent event : tenant.tick(nowMillis)) {
+                try {
+                    publisher.publishEvent(event);
+                } catch (RuntimeException ex) {
+                    logger.warn("Due date event listener failed for ToDo {}", event.toDo().getId(), ex);
+                }
+            }
+        }
+    }
+
+    // Timers of a tenant, created on its first change
+    private TenantDueDates tenant(String tenantId) {
+        return tenants.computeIfAbsent(tenantId, id -> new TenantDueDates(id, dueSoonHours, clock.getZone()));
+    }
+}
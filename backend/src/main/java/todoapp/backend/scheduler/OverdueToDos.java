@@ -0,0 +1,14 @@
+package todoapp.backend.scheduler;
+
+import java.util.List;
+
+import todoapp.backend.model.ToDo;
+
+/**
+ * The overdue ToDos of a tenant.
+ *
+ * @param count   how many ToDos are overdue
+ * @param content the overdue ToDos, in the order they became overdue
+ */
+public record OverdueToDos(int count, List<ToDo> content) {
+}
@@ -0,0 +1,161 @@
+package todoapp.backend.scheduler;
+
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+import todoapp.backend.enums.Status;
+import todoapp.backend.model.ToDo;
+import todoapp.backend.util.ChangeBuffer;
+
+/**
+ * Due date timers of one tenant's ToDos. ToDos not done with a due date have
+ * a "due soon" and an "overdue" timer in a min-heap ordered by firing time, so
+ * each tick only looks at the timers that are due. Timers of ToDos that
+ * changed since are skipped when they fire (or dropped when the heap gets
+ * mostly stale).
+ *
+ * Changes are recorded while the repository's stripe is locked, so they are
+ * only queued there, and applied to the timers through a {@link ChangeBuffer}.
+ */
+class TenantDueDates {
+    private static final long MILLIS_PER_HOUR = 3_600_000L;
+
+    private record Timer(long fireAt, int id, long version, DueDateEvent.Type type) {
+    }
+
+    // A ToDo's state (stored ToDos are never modified), null once it no
+    // longer needs timers
+    private record Change(int id, ToDo toDo, long nowMillis) {
+    }
+
+    // Current state of a tracked ToDo, and the last event emitted for it
+    private static class Tracked {
+        final ToDo toDo;
+        final long dueDay;
+        final long version;
+        DueDateEvent.Type emitted;
+
+        Tracked(ToDo toDo, long dueDay, long version, DueDateEvent.Type emitted) {
+            this.toDo = toDo;
+            this.dueDay = dueDay;
+            this.version = version;
+            this.emitted = emitted;
+        }
+    }
+
+    private final String tenantId;
+    private final long dueSoonMillis;
+    private final ZoneId zone;
+
+    private final Map<Integer, Tracked> tracked = new HashMap<>();
+    private final PriorityQueue<Timer> timers = new PriorityQueue<>(
+            (a, b) -> Long.compare(a.fireAt(), b.fireAt()));
+    // overdue ToDos, in the order they became overdue
+    private final Map<Integer, ToDo> overdue = new LinkedHashMap<>();
+    private final ChangeBuffer<Change> changes = new ChangeBuffer<>(this::apply);
+    private long nextVersion;
+
+    TenantDueDates(String tenantId, long dueSoonHours, ZoneId zone) {
+        this.tenantId = tenantId;
+        this.dueSoonMillis = dueSoonHours * MILLIS_PER_HOUR;
+        this.zone = zone;
+    }
+
+    /**
+     * Replaces the timers of the ToDo with the given ID by the ones of its
+     * current state.
+     *
+     * @param id        the ToDo's ID
+     * @param toDo      the ToDo's current state, or null if it was deleted
+     * @param nowMillis the current time
+     */
+    void record(int id, ToDo toDo, long nowMillis) {
+        boolean timed = toDo != null && toDo.getIsDone() != Status.DONE && toDo.getDueDate() != null;
+        changes.add(new Change(id, timed ? toDo : null, nowMillis));
+    }
+
+    /**
+     * Fires the timers due at the given time.
+     *
+     * @param nowMillis the current time
+     * @return the events to publish
+     */
+    List<DueDateEvent> tick(long nowMillis) {
+        return changes.read(() -> fire(nowMillis));
+    }
+
+    int getOverdueCount() {
+        return changes.read(overdue::size);
+    }
+
+    List<ToDo> getOverdue() {
+        return changes.read(() -> new ArrayList<>(overdue.values()));
+    }
+
+    private void apply(Change change) {
+        int id = change.id();
+        ToDo toDo = change.toDo();
+        long nowMillis = change.nowMillis();
+        Tracked previous = tracked.remove(id);
+        overdue.remove(id);
+        if (toDo == null) {
+            compactIfStale();
+            return;
+        }
+
+        long dueDay = toDo.getDueDate().toEpochDay();
+        // events already emitted for the same due date are not emitted again
+        DueDateEvent.Type emitted = previous != null && previous.dueDay == dueDay ? previous.emitted : null;
+        Tracked current = new Tracked(toDo, dueDay, nextVersion++, emitted);
+        tracked.put(id, current);
+
+        // overdue once the due day is over
+        long overdueAt = toDo.getDueDate().plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli();
+        if (overdueAt <= nowMillis) {
+            overdue.put(id, toDo);
+        }
+        if (emitted == null) {
+            timers.add(new Timer(overdueAt - dueSoonMillis, id, current.version, DueDateEvent.Type.DUE_SOON));
+        }
+        if (emitted != DueDateEvent.Type.OVERDUE) {
+            timers.add(new Timer(overdueAt, id, current.version, DueDateEvent.Type.OVERDUE));
+        }
+        compactIfStale();
+    }
+
+    private List<DueDateEvent> fire(long nowMillis) {
+        List<DueDateEvent> events = new ArrayList<>();
+        while (!timers.isEmpty() && timers.peek().fireAt() <= nowMillis) {
+            Timer timer = timers.poll();
+            Tracked current = tracked.get(timer.id());
+            if (current == null || current.version != timer.version()) {
+                continue; // the ToDo changed since
+            }
+            if (timer.type() == DueDateEvent.Type.OVERDUE) {
+                overdue.put(timer.id(), current.toDo);
+            } else if (overdue.containsKey(timer.id())) {
+                continue; // already overdue when added, so never "due soon"
+            }
+            current.emitted = timer.type();
+            events.add(new DueDateEvent(tenantId, timer.type(), current.toDo));
+        }
+        return events;
+    }
+
+    // Rebuilds the heap without the timers of changed ToDos once they are the
+    // majority, so ToDos updated over and over don't make it grow unbounded
+    private void compactIfStale() {
+        if (timers.size() <= 2 * tracked.size() + 64) {
+            return;
+        }
+        timers.removeIf(timer -> {
+            Tracked current = tracked.get(timer.id());
+            return current == null || current.version != timer.version();
+        });
+    }
+}
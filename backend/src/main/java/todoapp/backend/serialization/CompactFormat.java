@@ -0,0 +1,35 @@
+package todoapp.backend.serialization;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import todoapp.backend.model.ToDo;
+
+/**
+ * Compact binary wire format (CBOR, application/cbor) offered next to JSON to
+ * clients that ask for it. ToDos are written with
+ * {@link CompactToDoSerializer}, pages with the same envelope as in JSON.
+ */
+public final class CompactFormat {
+
+    private CompactFormat() {
+    }
+
+    public static ObjectMapper newCborMapper() {
+        SimpleModule compact = new SimpleModule("CompactFormat");
+        CompactToDoSerializer toDoSerializer = new CompactToDoSerializer();
+        compact.addSerializer(toDoSerializer);
+        compact.addSerializer(new PageJsonSerializer(toDoSerializer));
+        compact.addDeserializer(ToDo.class, new CompactToDoDeserializer());
+
+        // other dates (e.g. in analytics) are written as epoch milliseconds
+        return new ObjectMapper(new CBORFactory()).registerModule(new JavaTimeModule()).registerModule(compact)
+                .enable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .disable(SerializationFeature.WRITE_DATE_TIMESTAMPS_AS_NANOSECONDS)
+                .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+    }
+}
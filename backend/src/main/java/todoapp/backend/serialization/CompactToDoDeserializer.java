@@ -0,0 +1,70 @@
+package todoapp.backend.serialization;
+
+import java.io.IOException;
+import java.time.LocalDate;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.fasterxml.jackson.databind.exc.InvalidFormatException;
+
+import todoapp.backend.enums.Priority;
+import todoapp.backend.enums.Status;
+import todoapp.backend.model.ToDo;
+
+/**
+ * Reads ToDos written by {@link CompactToDoSerializer}. Unknown fields are
+ * skipped, and ordinals out of range are rejected as invalid.
+ */
+public class CompactToDoDeserializer extends StdDeserializer<ToDo> {
+    private static final Status[] STATUSES = Status.values();
+    private static final Priority[] PRIORITIES = Priority.values();
+
+    public CompactToDoDeserializer() {
+        super(ToDo.class);
+    }
+
+    @Override
+    public ToDo deserialize(JsonParser parser, DeserializationContext ctxt) throws IOException {
+        if (!parser.isExpectedStartObjectToken()) {
+            return (ToDo) ctxt.handleUnexpectedToken(ToDo.class, parser);
+        }
+
+        ToDo toDo = new ToDo();
+        Status isDone = Status.NOT_DONE;
+        long doneMillis = ToDo.NO_DATE;
+
+        for (String field = parser.nextFieldName(); field != null; field = parser.nextFieldName()) {
+            JsonToken token = parser.nextToken();
+            boolean isNull = token == JsonToken.VALUE_NULL;
+            switch (field) {
+                case "id" -> toDo.setId(parser.getIntValue());
+                case "name" -> toDo.setName(isNull ? null : parser.getText());
+                case "dueDate" -> toDo.setDueDate(isNull ? null : LocalDate.ofEpochDay(parser.getLongValue()));
+                case "isDone" -> isDone = isNull ? null : ordinal(STATUSES, parser);
+                case "doneDate" -> doneMillis = isNull ? ToDo.NO_DATE : parser.getLongValue();
+                case "priority" -> toDo.setPriority(isNull ? null : ordinal(PRIORITIES, parser));
+                case "creationDate" -> toDo.setCreationMillis(parser.getLongValue());
+                default -> parser.skipChildren();
+            }
+        }
+
+        // the done date is only known once the whole object is read
+        toDo.setIsDone(isDone);
+        toDo.setDoneMillis(doneMillis);
+        return toDo;
+    }
+
+    // Enums are sent as their ordinal, which comes from the client
+    private static <E extends Enum<E>> E ordinal(E[] values, JsonParser parser) throws IOException {
+        int ordinal = parser.getIntValue();
+        if (ordinal < 0 || ordinal >= values.length) {
+            Class<?> type = values.getClass().getComponentType();
+            throw InvalidFormatException.from(parser,
+                    "Ordinal " + ordinal + " is not a " + type.getSimpleName() + " (0 to " + (values.length - 1) + ")",
+                    ordinal, type);
+        }
+        return values[ordinal];
+    }
+}
@@ -0,0 +1,74 @@
+package todoapp.backend.serialization;
+
+import java.io.IOException;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import todoapp.backend.model.ToDo;
+
+/**
+ * Writes ToDos for the compact binary format: same fields as the JSON format,
+ * but enums are written as their ordinals, the due date as days since the
+ * epoch and the other dates as epoch milliseconds.
+ */
+public class CompactToDoSerializer extends StdSerializer<ToDo> {
+
+    public CompactToDoSerializer() {
+        super(ToDo.class);
+    }
+
+    @Override
+    public void serialize(ToDo toDo, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        int fields = ToDoFields.maskOf(provider);
+        gen.writeStartObject(toDo);
+
+        if ((fields & ToDoFields.ID) != 0) {
+            gen.writeFieldName(ToDoJsonSerializer.ID);
+            gen.writeNumber(toDo.getId());
+        }
+        if ((fields & ToDoFields.NAME) != 0) {
+            gen.writeFieldName(ToDoJsonSerializer.NAME);
+            gen.writeString(toDo.getName());
+        }
+        if ((fields & ToDoFields.DUE_DATE) != 0) {
+            gen.writeFieldName(ToDoJsonSerializer.DUE_DATE);
+            if (toDo.getDueDate() == null) {
+                gen.writeNull();
+            } else {
+                gen.writeNumber(toDo.getDueDate().toEpochDay());
+            }
+        }
+        if ((fields & ToDoFields.IS_DONE) != 0) {
+            gen.writeFieldName(ToDoJsonSerializer.IS_DONE);
+            writeOrdinal(toDo.getIsDone(), gen);
+        }
+        if ((fields & ToDoFields.DONE_DATE) != 0) {
+            gen.writeFieldName(ToDoJsonSerializer.DONE_DATE);
+            if (toDo.getDoneMillis() == ToDo.NO_DATE) {
+                gen.writeNull();
+            } else {
+                gen.writeNumber(toDo.getDoneMillis());
+            }
+        }
+        if ((fields & ToDoFields.PRIORITY) != 0) {
+            gen.writeFieldName(ToDoJsonSerializer.PRIORITY);
+            writeOrdinal(toDo.getPriority(), gen);
+        }
+        if ((fields & ToDoFields.CREATION_DATE) != 0) {
+            gen.writeFieldName(ToDoJsonSerializer.CREATION_DATE);
+            gen.writeNumber(toDo.getCreationMillis());
+        }
+
+        gen.writeEndObject();
+    }
+
+    private static void writeOrdinal(Enum<?> value, JsonGenerator gen) throws IOException {
+        if (value == null) {
+            gen.writeNull();
+        } else {
+            gen.writeNumber(value.ordinal());
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package todoapp.backend.serialization;
+
+/**
+ * Allocation-free ISO-8601 formatting of ToDo dates into a caller supplied
+ * buffer, for the years 1 to 9999. Callers fall back to java.time for any
+ * other year.
+ */
+final class IsoDates {
+    // yyyy-MM-dd
+    static final int DATE_LENGTH = 10;
+    // yyyy-MM-dd'T'HH:mm:ss.SSS'Z'
+    static final int DATE_TIME_LENGTH = 24;
+
+    private static final long MILLIS_PER_DAY = 86_400_000L;
+
+    private IsoDates() {
+    }
+
+    /**
+     * Writes the given date as yyyy-MM-dd at the start of the buffer.
+     *
+     * @return False if the year can't be written with 4 digits
+     */
+    static boolean formatDate(int year, int month, int day, char[] buffer) {
+        if (year < 1 || year > 9999) {
+            return false;
+        }
+        writeDigits(year, 4, buffer, 0);
+        buffer[4] = '-';
+        writeDigits(month, 2, buffer, 5);
+        buffer[7] = '-';
+        writeDigits(day, 2, buffer, 8);
+        return true;
+    }
+
+    /**
+     * Writes the given instant, in UTC, as yyyy-MM-dd'T'HH:mm:ss.SSS'Z' at the
+     * start of the buffer.
+     *
+     * @return False if the year can't be written with 4 digits
+     */
+    static boolean formatDateTime(long epochMillis, char[] buffer) {
+        long epochDay = Math.floorDiv(epochMillis, MILLIS_PER_DAY);
+        int millisOfDay = (int) Math.floorMod(epochMillis, MILLIS_PER_DAY);
+
+        // days to civil date, from Howard Hinnant's "chrono-compatible
+        // low-level date algorithms" (eras of 400 years starting on March 1st)
+        long shifted = epochDay + 719_468;
+        long era = Math.floorDiv(shifted, 146_097);
+        long dayOfEra = shifted - era * 146_097;
+        long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36_524 - dayOfEra / 146_096) / 365;
+        long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        long shiftedMonth = (5 * dayOfYear + 2) / 153;
+        int day = (int) (dayOfYear - (153 * shiftedMonth + 2) / 5 + 1);
+        int month = (int) (shiftedMonth < 10 ? shiftedMonth + 3 : shiftedMonth - 9);
+        long year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+
+        if (year < 1 || year > 9999) {
+            return false;
+        }
+        formatDate((int) year, month, day, buffer);
+        buffer[10] = 'T';
+        writeDigits(millisOfDay / 3_600_000, 2, buffer, 11);
+        buffer[13] = ':';
+        writeDigits(millisOfDay / 60_000 % 60, 2, buffer, 14);
+        buffer[16] = ':';
+        writeDigits(millisOfDay / 1000 % 60, 2, buffer, 17);
+        buffer[19] = '.';
+        writeDigits(millisOfDay % 1000, 3, buffer, 20);
+        buffer[23] = 'Z';
+        return true;
+    }
+
+    private static void writeDigits(int value, int digits, char[] buffer, int offset) {
+        for (int i = offset + digits - 1; i >= offset; i--) {
+            buffer[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+}
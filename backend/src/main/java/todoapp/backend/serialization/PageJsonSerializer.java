@@ -0,0 +1,94 @@
+package todoapp.backend.serialization;
+
+import java.io.IOException;
+
+import org.springframework.boot.jackson.JsonComponent;
+import org.springframework.data.domain.Page;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import todoapp.backend.model.ToDo;
+
+/**
+ * Writes pages as a flat envelope: the content, the paging numbers and whether
+ * the page is sorted. The pageable block Jackson writes for PageImpl is left
+ * out, since it only repeats those numbers. ToDos are written by the given
+ * serializer directly, without looking up their serializer
+ * ({@link ToDoJsonSerializer} by default).
+ */
+@JsonComponent
+public class PageJsonSerializer extends StdSerializer<Page<?>> {
+    private static final SerializedString CONTENT = new SerializedString("content");
+    private static final SerializedString LAST = new SerializedString("last");
+    private static final SerializedString TOTAL_PAGES = new SerializedString("totalPages");
+    private static final SerializedString TOTAL_ELEMENTS = new SerializedString("totalElements");
+    private static final SerializedString FIRST = new SerializedString("first");
+    private static final SerializedString SIZE = new SerializedString("size");
+    private static final SerializedString NUMBER = new SerializedString("number");
+    private static final SerializedString SORT = new SerializedString("sort");
+    private static final SerializedString SORTED = new SerializedString("sorted");
+    private static final SerializedString UNSORTED = new SerializedString("unsorted");
+    private static final SerializedString EMPTY = new SerializedString("empty");
+    private static final SerializedString NUMBER_OF_ELEMENTS = new SerializedString("numberOfElements");
+
+    private final StdSerializer<ToDo> toDoSerializer;
+
+    public PageJsonSerializer() {
+        this(new ToDoJsonSerializer());
+    }
+
+    public PageJsonSerializer(StdSerializer<ToDo> toDoSerializer) {
+        super(Page.class, false);
+        this.toDoSerializer = toDoSerializer;
+    }
+
+    @Override
+    public void serialize(Page<?> page, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        gen.writeStartObject(page);
+
+        gen.writeFieldName(CONTENT);
+        gen.writeStartArray(page.getContent(), page.getNumberOfElements());
+        for (Object element : page.getContent()) {
+            if (element instanceof ToDo toDo) {
+                toDoSerializer.serialize(toDo, gen, provider);
+            } else {
+                provider.defaultSerializeValue(element, gen);
+            }
+        }
+        gen.writeEndArray();
+
+        gen.writeFieldName(LAST);
+        gen.writeBoolean(page.isLast());
+        gen.writeFieldName(TOTAL_PAGES);
+        gen.writeNumber(page.getTotalPages());
+        gen.writeFieldName(TOTAL_ELEMENTS);
+        gen.writeNumber(page.getTotalElements());
+        gen.writeFieldName(FIRST);
+        gen.writeBoolean(page.isFirst());
+        gen.writeFieldName(SIZE);
+        gen.writeNumber(page.getSize());
+        gen.writeFieldName(NUMBER);
+        gen.writeNumber(page.getNumber());
+
+        boolean sorted = page.getSort().isSorted();
+        gen.writeFieldName(SORT);
+        gen.writeStartObject();
+        gen.writeFieldName(EMPTY);
+        gen.writeBoolean(!sorted);
+        gen.writeFieldName(SORTED);
+        gen.writeBoolean(sorted);
+        gen.writeFieldName(UNSORTED);
+        gen.writeBoolean(!sorted);
+        gen.writeEndObject();
+
+        gen.writeFieldName(NUMBER_OF_ELEMENTS);
+        gen.writeNumber(page.getNumberOfElements());
+        gen.writeFieldName(EMPTY);
+        gen.writeBoolean(!page.hasContent());
+
+        gen.writeEndObject();
+    }
+}
@@ -0,0 +1,91 @@
+package todoapp.backend.serialization;
+
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.FilterProvider;
+import com.fasterxml.jackson.databind.ser.PropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+
+import todoapp.backend.exception.InvalidToDoPropertiesException;
+
+/**
+ * Set of ToDo properties a client asked for (the fields= projection), kept as
+ * a bit mask. It travels with the response as a Jackson property filter, and
+ * the ToDo serializers test its bits before writing each property.
+ */
+public final class ToDoFields extends SimpleBeanPropertyFilter {
+    public static final String FILTER_ID = "toDoFields";
+
+    public static final int ID = 1;
+    public static final int NAME = 1 << 1;
+    public static final int DUE_DATE = 1 << 2;
+    public static final int IS_DONE = 1 << 3;
+    public static final int DONE_DATE = 1 << 4;
+    public static final int PRIORITY = 1 << 5;
+    public static final int CREATION_DATE = 1 << 6;
+    public static final int ALL = (1 << 7) - 1;
+
+    private final int mask;
+
+    private ToDoFields(int mask) {
+        this.mask = mask;
+    }
+
+    /**
+     * Parses a comma separated list of ToDo property names.
+     *
+     * @param fields the requested properties, e.g. "id,name,priority"
+     * @return the requested set of properties
+     * @throws InvalidToDoPropertiesException if a property doesn't exist
+     */
+    public static ToDoFields parse(String fields) {
+        int mask = 0;
+        for (String field : fields.split(",")) {
+            int bit = bitOf(field.trim());
+            if (bit == 0) {
+                throw new InvalidToDoPropertiesException("Unknown ToDo property '" + field.trim()
+                        + "'. Valid properties are: id, name, dueDate, isDone, doneDate, priority, creationDate");
+            }
+            mask |= bit;
+        }
+        return new ToDoFields(mask);
+    }
+
+    /**
+     * Returns the filter provider that carries this projection to the
+     * serializers.
+     */
+    public FilterProvider toFilterProvider() {
+        return new SimpleFilterProvider().addFilter(FILTER_ID, this);
+    }
+
+    /**
+     * Returns the properties to write in the current serialization: the
+     * requested ones, or all of them when no projection was requested.
+     */
+    static int maskOf(SerializerProvider provider) {
+        FilterProvider filters = provider.getFilterProvider();
+        if (filters == null) {
+            return ALL;
+        }
+        PropertyFilter filter = filters.findPropertyFilter(FILTER_ID, null);
+        return filter instanceof ToDoFields fields ? fields.mask : ALL;
+    }
+
+    public boolean contains(int field) {
+        return (mask & field) != 0;
+    }
+
+    private static int bitOf(String field) {
+        return switch (field) {
+            case "id" -> ID;
+            case "name" -> NAME;
+            case "dueDate" -> DUE_DATE;
+            case "isDone" -> IS_DONE;
+            case "doneDate" -> DONE_DATE;
+            case "priority" -> PRIORITY;
+            case "creationDate" -> CREATION_DATE;
+            default -> 0;
+        };
+    }
+}
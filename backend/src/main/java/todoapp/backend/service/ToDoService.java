@@ -1,67 +1,133 @@
 package todoapp.backend.service;
 
+import java.time.Clock;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.Set;
+import java.util.function.Predicate;
 
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 
+import todoapp.backend.analytics.AnalyticsReport;
+import todoapp.backend.analytics.CompletionAnalytics;
+import todoapp.backend.archive.ToDoArchive;
+import todoapp.backend.cluster.ShardRouter;
+import todoapp.backend.enums.Granularity;
+import todoapp.backend.enums.Priority;
 import todoapp.backend.enums.Status;
 import todoapp.backend.exception.InvalidToDoPropertiesException;
 import todoapp.backend.exception.ToDoNotFoundException;
+import todoapp.backend.model.CompletionStats;
 import todoapp.backend.model.FilterCriteria;
 import todoapp.backend.model.ToDo;
-import todoapp.backend.repository.ToDoInMemoRepository;
+import todoapp.backend.model.ToDoPatch;
+import todoapp.backend.persistence.WriteBehindPipeline;
+import todoapp.backend.query.SortPlan;
+import todoapp.backend.repository.ToDoRepository;
+import todoapp.backend.scheduler.DueDateScheduler;
+import todoapp.backend.scheduler.OverdueToDos;
+import todoapp.backend.suggest.NameMatch;
+import todoapp.backend.suggest.NameSuggester;
+import todoapp.backend.suggest.NameSuggestions;
+import todoapp.backend.sync.ChangeLog;
+import todoapp.backend.sync.ChangeSet;
+import todoapp.backend.sync.LoggedChanges;
 import todoapp.backend.util.Validators;
 
 @Service
 public class ToDoService {
 
-    private final ToDoInMemoRepository toDoInMemoRepository;
-    private int nextId;
-
-    // Comparators map
-    Map<String, Comparator<ToDo>> comparators;
-
-    public ToDoService(ToDoInMemoRepository toDoInMemoRepository) {
-        this.toDoInMemoRepository = toDoInMemoRepository;
-        nextId = 1;
-        comparators = new HashMap<>();
-        comparators.put("dueDate",
-                Comparator.comparing(ToDo::getDueDate, Comparator.nullsLast(Comparator.naturalOrder())));
-        comparators.put("priority",
-                Comparator.comparing(ToDo::getPriority, Comparator.nullsLast(Comparator.naturalOrder())));
+    private final ToDoRepository toDoRepository;
+    private final ShardRouter shardRouter;
+    private final CompletionAnalytics completionAnalytics;
+    private final DueDateScheduler dueDateScheduler;
+    private final NameSuggester nameSuggester;
+    private final ChangeLog changeLog;
+    private final ToDoArchive toDoArchive;
+    private final ObjectProvider<WriteBehindPipeline> writeBehindPipeline;
+    private final Clock clock;
+
+    public ToDoService(ToDoRepository toDoRepository, ShardRouter shardRouter,
+            CompletionAnalytics completionAnalytics, DueDateScheduler dueDateScheduler, NameSuggester nameSuggester,
+            ChangeLog changeLog, ToDoArchive toDoArchive, ObjectProvider<WriteBehindPipeline> writeBehindPipeline,
+            Clock clock) {
+        this.toDoRepository = toDoRepository;
+        this.shardRouter = shardRouter;
+        this.completionAnalytics = completionAnalytics;
+        this.dueDateScheduler = dueDateScheduler;
+        this.nameSuggester = nameSuggester;
+        this.changeLog = changeLog;
+        this.toDoArchive = toDoArchive;
+        this.writeBehindPipeline = writeBehindPipeline;
+        this.clock = clock;
     }
 
     public Page<ToDo> getAllToDos(Pageable pageReq) {
-        List<ToDo> allToDos = new ArrayList<>(toDoInMemoRepository.findAll());
+        // in a sharded deployment, every node contributes its part of the page
+        if (shardRouter.shouldScatter()) {
+            return getClusterPage(null, pageReq);
+        }
+        return getLocalPage(null, pageReq);
+    }
 
-        // sort if necessary
-        if (pageReq.getSort() != null) {
-            Collections.sort(allToDos, getComparator(pageReq.getSort()));
+    public Page<ToDo> getByCriteria(FilterCriteria filterCriteria, Pageable pageReq) {
+        // in a sharded deployment, every node contributes its part of the page
+        if (shardRouter.shouldScatter()) {
+            return getClusterPage(filterCriteria, pageReq);
         }
+        return getLocalPage(filterCriteria, pageReq);
+    }
 
-        return getPageContent(allToDos, pageReq);
+    public Page<ToDo> searchByName(FilterCriteria filterCriteria, Pageable pageReq) {
+        // candidates come ranked from the name index, only the other criteria
+        // are checked on the ToDos themselves
+        Predicate<ToDo> otherCriteria = new FilterCriteria(null, filterCriteria.getPriority(),
+                filterCriteria.getDoneStatus()).toPredicate();
+
+        List<ToDo> ranked = new ArrayList<>();
+        for (NameMatch match : nameSuggester.search(filterCriteria.getName())) {
+            ToDo toDo = toDoRepository.findById(match.id());
+            if (toDo != null && otherCriteria.test(toDo)) {
+                ranked.add(toDo);
+            }
+        }
 
+        return getPageContent(ranked, pageReq);
     }
 
-    public Page<ToDo> getByCriteria(FilterCriteria filterCriteria, Pageable pageReq) {
-        List<ToDo> allToDos = new ArrayList<>(toDoInMemoRepository.findAllByCriteria(filterCriteria));
+    public Page<ToDo> getIncludingArchived(FilterCriteria filterCriteria, Pageable pageReq) {
+        // live ToDos first; archived copies of ToDos that are live again are
+        // hidden by the live ones
+        List<ToDo> allToDos = new ArrayList<>(filterCriteria == null ? toDoRepository.findAll()
+                : toDoRepository.findAllByCriteria(filterCriteria));
+        Set<Integer> liveIds = new HashSet<>();
+        allToDos.forEach(toDo -> liveIds.add(toDo.getId()));
+        for (ToDo archived : toDoArchive.findAllByCriteria(filterCriteria)) {
+            if (!liveIds.contains(archived.getId())) {
+                allToDos.add(archived);
+            }
+        }
 
-        // sort if necessary
-        if (pageReq.getSort() != null) {
-            Collections.sort(allToDos, getComparator(pageReq.getSort()));
+        SortPlan sortPlan = SortPlan.of(pageReq.getSort());
+        if (sortPlan.isUnsorted()) {
+            allToDos.sort(Comparator.comparingInt(ToDo::getId));
+            return getPageContent(allToDos, pageReq);
         }
+        return getPageContent(sortPlan.sort(allToDos), pageReq);
+    }
 
-        return getPageContent(allToDos, pageReq);
+    private Page<ToDo> getLocalPage(FilterCriteria filterCriteria, Pageable pageReq) {
+        // every engine filters, sorts and pages in the way that suits its storage
+        return toDoRepository.findPage(filterCriteria, pageReq);
     }
 
     public ToDo addToDo(ToDo toDo) {
@@ -69,15 +135,18 @@ public class ToDoService {
         if (Validators.validateToDo(toDo)) {
             // set up new ToDo's properties
             ToDo newToDo = new ToDo();
-            newToDo.setId(nextId);
+            newToDo.setId(shardRouter.toClusterId(toDoRepository.nextId()));
             newToDo.setName(toDo.getName());
             newToDo.setDueDate(toDo.getDueDate());
             newToDo.setPriority(toDo.getPriority());
-
-            // increment nextId value
-            nextId++;
-
-            return toDoInMemoRepository.add(newToDo);
+            newToDo.setCreationMillis(clock.millis());
+
+            // the new ToDo may belong to another node
+            if (shardRouter.isRemote(newToDo.getId())) {
+                return shardRouter.forwardAdd(newToDo);
+            }
+            awaitPersistence();
+            return toDoRepository.add(newToDo);
         } else {
             throw new InvalidToDoPropertiesException();
         }
@@ -85,85 +154,222 @@ public class ToDoService {
     }
 
     public ToDo updateToDo(int id, ToDo updatedToDo) {
-        ToDo existingToDo = toDoInMemoRepository.findById(id);
+        if (shardRouter.isRemote(id)) {
+            return shardRouter.forwardUpdate(id, updatedToDo);
+        }
 
-        // Throw exception if no ToDo was found
-        if (existingToDo == null) {
-            throw new ToDoNotFoundException("No ToDo matching ID '" + id + "' was found.");
+        // Validate updatedToDo data, a missing ToDo being reported first
+        if (!Validators.validateToDo(updatedToDo)) {
+            if (toDoRepository.findById(id) == null) {
+                throw notFound(id);
+            }
+            throw new InvalidToDoPropertiesException();
         }
 
-        // Validate updatedToDo data
-        if (Validators.validateToDo(updatedToDo)) {
+        // applied under the repository's write lock, to a copy of the ToDo
+        awaitPersistence();
+        ToDo updated = toDoRepository.update(id, existingToDo -> {
             existingToDo.setName(updatedToDo.getName());
             existingToDo.setDueDate(updatedToDo.getDueDate());
             existingToDo.setPriority(updatedToDo.getPriority());
-            return toDoInMemoRepository.update(id, existingToDo);
-        } else {
-            throw new InvalidToDoPropertiesException();
-        }
+            return existingToDo;
+        });
 
+        // Throw exception if no ToDo was found
+        if (updated == null) {
+            throw notFound(id);
+        }
+        return updated;
     }
 
     public ToDo updateToDoDoneStatus(int id, Status doneStatus) {
-        ToDo existingToDo = toDoInMemoRepository.findById(id);
-
-        // Throw exception if no ToDo was found
-        if (existingToDo == null) {
-            throw new ToDoNotFoundException("No ToDo matching ID '" + id + "' was found.");
+        if (shardRouter.isRemote(id)) {
+            return shardRouter.forwardDoneStatus(id, doneStatus);
         }
 
-        // Otherwise, update done status
-        existingToDo.setIsDone(doneStatus);
+        long nowMillis = clock.millis();
+        awaitPersistence();
+        ToDo updated = toDoRepository.update(id, existingToDo -> {
+            existingToDo.setIsDone(doneStatus, nowMillis);
+            return existingToDo;
+        });
 
-        return toDoInMemoRepository.update(id, existingToDo);
+        // Throw exception if no ToDo was found
+        if (updated == null) {
+            throw notFound(id);
+        }
+        return updated;
     }
 
     public boolean deleteToDo(int id) {
-        boolean wasDeleted = toDoInMemoRepository.delete(id);
+        if (shardRouter.isRemote(id)) {
+            return shardRouter.forwardDelete(id);
+        }
+
+        awaitPersistence();
+        boolean wasDeleted = toDoRepository.delete(id);
         if (!wasDeleted) {
-            throw new ToDoNotFoundException("No ToDo matching ID '" + id + "' was found.");
+            throw notFound(id);
         }
         return wasDeleted;
     }
 
+    public int deleteByCriteria(FilterCriteria filterCriteria) {
+        // one set-oriented operation in the repository; in a sharded
+        // deployment, every node deletes its own matching ToDos
+        awaitPersistence();
+        int deleted = toDoRepository.deleteAllByCriteria(filterCriteria);
+        if (shardRouter.shouldScatter()) {
+            deleted += shardRouter.scatterDeleteByCriteria(filterCriteria);
+        }
+        return deleted;
+    }
+
+    public int updateByCriteria(FilterCriteria filterCriteria, ToDoPatch patch) {
+        // Validate the patch before touching any ToDo
+        if (!Validators.validateToDoPatch(patch)) {
+            throw new InvalidToDoPropertiesException();
+        }
+
+        // one set-oriented operation in the repository; in a sharded
+        // deployment, every node updates its own matching ToDos
+        patch.setDoneMillis(clock.millis());
+        awaitPersistence();
+        int updated = toDoRepository.updateAllByCriteria(filterCriteria, patch);
+        if (shardRouter.shouldScatter()) {
+            updated += shardRouter.scatterUpdateByCriteria(filterCriteria, patch);
+        }
+        return updated;
+    }
+
     public Map<String, Double> getMetrics() {
-        // get all completed To Dos
-        List<ToDo> allCompleted = toDoInMemoRepository.findAll().stream()
-                .filter(toDo -> (toDo.getIsDone() == Status.DONE))
-                .collect(Collectors.toList());
+        return getMetrics(new double[0]);
+    }
+
+    /**
+     * Gets the average completion time, overall and by priority, together with
+     * the requested percentiles of the completion time, keyed as "ALL_P95",
+     * "HIGH_P95", etc. Percentiles are estimated within 1% of the exact value.
+     *
+     * @param percentiles the percentiles to include, between 0 and 100
+     * @return the completion time metrics, in seconds
+     */
+    public Map<String, Double> getMetrics(double[] percentiles) {
+        // completion times are accumulated by the repository as ToDos change
+        CompletionStats stats = toDoRepository.getCompletionStats();
+        if (toDoArchive.isEnabled()) {
+            // archived ToDos still count, from the stats kept in their segments
+            stats = stats.plus(toDoArchive.getCompletionStats());
+        }
+        if (shardRouter.shouldScatter()) {
+            // sums and counts of every node, so the averages are exact
+            stats = shardRouter.fetchPeerCompletionStats(stats);
+        }
 
-        Double avgAll = allCompleted.stream()
-                .collect(Collectors.averagingDouble(toDo -> toDo.getCompletionTime().toSeconds()));
+        Map<String, Double> metrics = new HashMap<String, Double>();
+        metrics.put("ALL", stats.getAverageSeconds());
 
         // average completion time grouped by priority
-        Map<String, Double> avgGrouped = allCompleted.stream()
-                .collect(Collectors.groupingBy(toDo -> toDo.getPriority().toString(),
-                        Collectors.averagingDouble(toDo -> toDo.getCompletionTime().toSeconds())));
+        for (Priority priority : Priority.values()) {
+            if (stats.getCount(priority) > 0) {
+                metrics.put(priority.toString(), stats.getAverageSeconds(priority));
+            }
+        }
 
-        // merge all results into 1 map
-        Map<String, Double> metrics = new HashMap<String, Double>();
-        metrics.put("ALL", avgAll);
-        metrics.putAll(avgGrouped);
+        // percentiles, from the completion time sketches
+        for (double percentile : percentiles) {
+            String suffix = "_P" + (percentile == Math.rint(percentile) ? String.valueOf((long) percentile)
+                    : String.valueOf(percentile));
+            if (stats.getCount() > 0) {
+                metrics.put("ALL" + suffix, stats.getPercentileSeconds(percentile));
+            }
+            for (Priority priority : Priority.values()) {
+                if (stats.getCount(priority) > 0) {
+                    metrics.put(priority.toString() + suffix, stats.getPercentileSeconds(priority, percentile));
+                }
+            }
+        }
 
         return metrics;
     }
 
+    public AnalyticsReport getAnalytics(Granularity granularity, int buckets) {
+        // served from the rollups kept up to date as ToDos change
+        return completionAnalytics.getReport(granularity, buckets);
+    }
+
+    public OverdueToDos getOverdueToDos() {
+        // kept up to date by the due date timers, no scan needed
+        return dueDateScheduler.getOverdueToDos();
+    }
+
+    public NameSuggestions getNameSuggestions(String name, int limit) {
+        // served from the trie of name words kept up to date as ToDos change
+        return nameSuggester.suggest(name, limit);
+    }
+
+    public ChangeSet getChangesSince(long since, int limit) {
+        // the log only has the IDs, ToDos are sent in their current state
+        LoggedChanges changes = changeLog.getChangesSince(since, limit);
+
+        List<ToDo> upserts = new ArrayList<>(changes.changedIds().size());
+        List<Integer> deletes = new ArrayList<>(changes.deletedIds());
+        for (int id : changes.changedIds()) {
+            ToDo toDo = toDoRepository.findById(id);
+            // deleted since it was read from the log, its tombstone comes later
+            if (toDo == null) {
+                deletes.add(id);
+            } else {
+                upserts.add(toDo);
+            }
+        }
+        return new ChangeSet(changes.version(), changes.resync(), changes.hasMore(), upserts, deletes);
+    }
+
+    // Holds a change back while the write-behind writer is too far behind. The
+    // listeners enqueue changes under the stripe locks without blocking, so
+    // this is the place to wait, before any lock is taken
+    private void awaitPersistence() {
+        writeBehindPipeline.ifAvailable(WriteBehindPipeline::awaitCapacity);
+    }
+
+    // Archived ToDos are read-only, which is worth telling apart from missing
+    private ToDoNotFoundException notFound(int id) {
+        if (toDoArchive.isArchived(id)) {
+            return new ToDoNotFoundException("ToDo '" + id + "' is archived and can't be changed.");
+        }
+        return new ToDoNotFoundException("No ToDo matching ID '" + id + "' was found.");
+    }
+
+    // Gathers the first (offset + page size) matching ToDos of every node and
+    // merges them into the requested page
+    private Page<ToDo> getClusterPage(FilterCriteria filterCriteria, Pageable pageReq) {
+        int limit = (int) Math.min(Integer.MAX_VALUE, pageReq.getOffset() + pageReq.getPageSize());
+        Page<ToDo> localPage = getLocalPage(filterCriteria, PageRequest.of(0, Math.max(1, limit), pageReq.getSort()));
+
+        List<ToDo> merged = new ArrayList<>(localPage.getContent());
+        long total = localPage.getTotalElements();
+        for (ShardRouter.PartialPage peerPage : shardRouter.fetchPeerPages(filterCriteria, pageReq.getSort(), limit)) {
+            merged.addAll(peerPage.content());
+            total += peerPage.totalElements();
+        }
+
+        // every partial page is already sorted, so this only merges the runs
+        SortPlan sortPlan = SortPlan.of(pageReq.getSort());
+        merged.sort(sortPlan.isUnsorted() ? Comparator.comparingInt(ToDo::getId) : sortPlan.comparator());
+
+        int start = (int) Math.min(pageReq.getOffset(), merged.size());
+        int end = Math.min(limit, merged.size());
+        return new PageImpl<>(new ArrayList<>(merged.subList(start, end)), pageReq, total);
+    }
+
     private Page<ToDo> getPageContent(List<ToDo> allToDos, Pageable pageReq) {
-        // get start and end of our list slice
-        int start = (int) pageReq.getOffset();
+        // get start and end of our list slice, empty past the last page
+        int start = (int) Math.min(pageReq.getOffset(), allToDos.size());
         int end = Math.min((start + pageReq.getPageSize()), allToDos.size());
 
         // get sublist
         List<ToDo> pageContent = allToDos.subList(start, end);
         return new PageImpl<>(pageContent, pageReq, allToDos.size());
     }
-
-    private Comparator<ToDo> getComparator(Sort sortOrders) {
-        Comparator<ToDo> fullComparator = sortOrders.stream()
-                .map(order -> (order.getDirection() == Sort.Direction.ASC) ? comparators.get(order.getProperty())
-                        : comparators.get(order.getProperty()).reversed())
-                .reduce(Comparator::thenComparing).orElse((toDo1, toDo2) -> 0);
-
-        return Comparator.nullsLast(fullComparator);
-    }
 }
@@ -0,0 +1,129 @@
+package todoapp.backend.suggest;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * Burkhard-Keller tree of words under the Levenshtein distance. Each child
+ * hangs from its parent by their distance, so by the triangle inequality a
+ * search within k edits of a word at distance d from a node only needs the
+ * children between d - k and d + k, and most of the tree is never visited.
+ *
+ * Words can't be removed: callers skip the ones that are gone and rebuild the
+ * tree when they pile up. Not thread safe.
+ */
+class BkTree {
+
+    private static class Node {
+        final String word;
+        Map<Integer, Node> children;
+
+        Node(String word) {
+            this.word = word;
+        }
+    }
+
+    private Node root;
+    private int size;
+
+    /**
+     * @return the number of words in the tree
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Adds a word.
+     *
+     * @param word the word
+     * @return true if it was added, false if it was already there
+     */
+    boolean add(String word) {
+        if (root == null) {
+            root = new Node(word);
+            size++;
+            return true;
+        }
+        Node node = root;
+        while (true) {
+            int distance = distance(word, node.word);
+            if (distance == 0) {
+                return false;
+            }
+            if (node.children == null) {
+                node.children = new HashMap<>(4);
+            }
+            Node child = node.children.get(distance);
+            if (child == null) {
+                node.children.put(distance, new Node(word));
+                size++;
+                return true;
+            }
+            node = child;
+        }
+    }
+
+    /**
+     * Finds the words within a number of edits of a word.
+     *
+     * @param word        the word to look for
+     * @param maxDistance the maximum number of edits
+     * @param consumer    receives every word found and its distance
+     */
+    void forEachWithin(String word, int maxDistance, ObjIntConsumer<String> consumer) {
+        if (root == null) {
+            return;
+        }
+        Deque<Node> pending = new ArrayDeque<>();
+        pending.push(root);
+        while (!pending.isEmpty()) {
+            Node node = pending.pop();
+            int distance = distance(word, node.word);
+            if (distance <= maxDistance) {
+                consumer.accept(node.word, distance);
+            }
+            if (node.children == null) {
+                continue;
+            }
+            for (int childDistance = Math.max(1, distance - maxDistance); childDistance <= distance
+                    + maxDistance; childDistance++) {
+                Node child = node.children.get(childDistance);
+                if (child != null) {
+                    pending.push(child);
+                }
+            }
+        }
+    }
+
+    /**
+     * Levenshtein distance: the fewest insertions, deletions and substitutions
+     * of a character turning one word into the other.
+     */
+    static int distance(String a, String b) {
+        if (a.length() < b.length()) {
+            String swap = a;
+            a = b;
+            b = swap;
+        }
+        // one row of the edit matrix, over the shorter word
+        int[] row = new int[b.length() + 1];
+        for (int j = 0; j < row.length; j++) {
+            row[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            int diagonal = row[0];
+            row[0] = i;
+            char c = a.charAt(i - 1);
+            for (int j = 1; j < row.length; j++) {
+                int above = row[j];
+                row[j] = c == b.charAt(j - 1) ? diagonal : 1 + Math.min(diagonal, Math.min(above, row[j - 1]));
+                diagonal = above;
+            }
+        }
+        return row[b.length()];
+    }
+}
@@ -0,0 +1,11 @@
+package todoapp.backend.suggest;
+
+/**
+ * A ToDo found by a fuzzy name search.
+ *
+ * @param id    the ToDo's ID
+ * @param score how close its name is to the searched one, from 0 (exclusive)
+ *              to 1 (every word found as is)
+ */
+public record NameMatch(int id, double score) {
+}
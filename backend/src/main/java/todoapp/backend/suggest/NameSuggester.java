@@ -0,0 +1,73 @@
+package todoapp.backend.suggest;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.stereotype.Component;
+
+import todoapp.backend.model.ToDo;
+import todoapp.backend.repository.ToDoChangeListener;
+import todoapp.backend.util.TenantContext;
+
+/**
+ * Suggests completions for the name filter and finds ToDos by misspelled
+ * names. Keeps an index of the words found in each tenant's ToDo names up to
+ * date as ToDos change, so neither ever scans the ToDos.
+ *
+ * Words are normalized (lower cased, accents stripped) and only the last word
+ * of what was typed is completed. Without one (nothing typed, or a separator
+ * typed last), the most frequent words are suggested.
+ */
+@Component
+public class NameSuggester implements ToDoChangeListener {
+
+    private final Map<String, TenantNameIndex> tenants = new ConcurrentHashMap<>();
+
+    @Override
+    public void onAdd(String tenantId, ToDo added) {
+        tenant(tenantId).record(added.getId(), added.getName());
+    }
+
+    @Override
+    public void onUpdate(String tenantId, ToDo previous, ToDo updated) {
+        tenant(tenantId).record(updated.getId(), updated.getName());
+    }
+
+    @Override
+    public void onDelete(String tenantId, ToDo deleted) {
+        tenant(tenantId).record(deleted.getId(), null);
+    }
+
+    /**
+     * Completes the last word of a name filter with the words of the current
+     * tenant's ToDo names.
+     *
+     * @param text  what was typed so far (the last word may be partial)
+     * @param limit the maximum number of suggestions
+     * @return the most frequent completions
+     */
+    public NameSuggestions suggest(String text, int limit) {
+        String prefix = text == null ? "" : TenantNameIndex.lastWord(text);
+        TenantNameIndex tenant = tenants.get(TenantContext.getTenantId());
+        return new NameSuggestions(prefix, tenant == null ? List.of() : tenant.complete(prefix, limit));
+    }
+
+    /**
+     * Finds the current tenant's ToDos whose names contain words close to the
+     * ones of the given name, allowing a few typos per word.
+     *
+     * @param name the name searched
+     * @return the matching ToDos, the most relevant first
+     */
+    public List<NameMatch> search(String name) {
+        TenantNameIndex tenant = tenants.get(TenantContext.getTenantId());
+        return tenant == null ? List.of() : tenant.search(TenantNameIndex.tokenize(name));
+    }
+
+    // Only changes create a tenant's index, lookups of unknown tenants find
+    // nothing
+    private TenantNameIndex tenant(String tenantId) {
+        return tenants.computeIfAbsent(tenantId, id -> new TenantNameIndex());
+    }
+}
@@ -0,0 +1,21 @@
+package todoapp.backend.suggest;
+
+import java.util.List;
+
+/**
+ * Completions of the last word typed in a name filter.
+ *
+ * @param prefix      the normalized prefix that was completed
+ * @param suggestions the completions, the most frequent first
+ */
+public record NameSuggestions(String prefix, List<Suggestion> suggestions) {
+
+    /**
+     * A word found in ToDo names.
+     *
+     * @param text  the word, normalized
+     * @param count how many ToDos have it in their name
+     */
+    public record Suggestion(String text, int count) {
+    }
+}
@@ -0,0 +1,233 @@
+package todoapp.backend.suggest;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Compressed (radix) trie of name tokens, each with the number of ToDos whose
+ * name contains it. Chains of single-child nodes are merged into one edge, so
+ * the trie has at most two nodes per distinct token.
+ *
+ * Every node also keeps the highest count found in its subtree. The top
+ * completions of a prefix are found best first from the prefix's node, only
+ * descending into subtrees that can still hold one of them, so a query costs
+ * about the length of the results rather than the size of the subtree.
+ *
+ * Not thread safe.
+ */
+class NameTrie {
+    private static final char[] NO_CHARS = new char[0];
+    private static final Node[] NO_NODES = new Node[0];
+
+    private static class Node {
+        // label of the edge leading to this node
+        String label;
+        // ToDos containing the token ending at this node (0 if none does)
+        int count;
+        // highest count in this subtree, this node included
+        int maxCount;
+        // children sorted by the first character of their label
+        char[] firstChars = NO_CHARS;
+        Node[] children = NO_NODES;
+
+        Node(String label) {
+            this.label = label;
+        }
+
+        int indexOf(char c) {
+            return Arrays.binarySearch(firstChars, c);
+        }
+
+        void insertChild(int index, Node child) {
+            int at = -index - 1;
+            char[] chars = new char[firstChars.length + 1];
+            Node[] nodes = new Node[children.length + 1];
+            System.arraycopy(firstChars, 0, chars, 0, at);
+            System.arraycopy(children, 0, nodes, 0, at);
+            chars[at] = child.label.charAt(0);
+            nodes[at] = child;
+            System.arraycopy(firstChars, at, chars, at + 1, firstChars.length - at);
+            System.arraycopy(children, at, nodes, at + 1, children.length - at);
+            firstChars = chars;
+            children = nodes;
+        }
+
+        void removeChild(int index) {
+            char[] chars = new char[firstChars.length - 1];
+            Node[] nodes = new Node[children.length - 1];
+            System.arraycopy(firstChars, 0, chars, 0, index);
+            System.arraycopy(children, 0, nodes, 0, index);
+            System.arraycopy(firstChars, index + 1, chars, index, chars.length - index);
+            System.arraycopy(children, index + 1, nodes, index, nodes.length - index);
+            firstChars = chars;
+            children = nodes;
+        }
+
+        void updateMaxCount() {
+            int max = count;
+            for (Node child : children) {
+                max = Math.max(max, child.maxCount);
+            }
+            maxCount = max;
+        }
+    }
+
+    // A subtree still to be explored, or a token ready to be returned. Both
+    // are ordered by count, then by text: a subtree's text is a prefix of all
+    // its tokens, so it's explored before any token it could precede.
+    private record Candidate(Node node, String text, int count, boolean isToken) {
+    }
+
+    private static final Comparator<Candidate> BEST_FIRST = Comparator.comparingInt(Candidate::count).reversed()
+            .thenComparing(Candidate::text).thenComparing(candidate -> candidate.isToken());
+
+    private final Node root = new Node("");
+    private int size;
+
+    /**
+     * @return the number of distinct tokens
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Adds the given amount to a token's count. Tokens whose count drops to 0
+     * are removed.
+     *
+     * @param token the token, not empty
+     * @param delta the amount to add (negative to subtract)
+     */
+    void add(String token, int delta) {
+        add(root, token, 0, delta);
+    }
+
+    /**
+     * Returns the count of a token.
+     *
+     * @param token the token
+     * @return how many ToDos contain it, 0 if none
+     */
+    int count(String token) {
+        Node node = root;
+        int depth = 0;
+        while (depth < token.length()) {
+            int index = node.indexOf(token.charAt(depth));
+            if (index < 0 || !token.startsWith(node.children[index].label, depth)) {
+                return 0;
+            }
+            node = node.children[index];
+            depth += node.label.length();
+        }
+        return node.count;
+    }
+
+    /**
+     * Returns the tokens starting with a prefix, the most frequent first (then
+     * in alphabetical order).
+     *
+     * @param prefix the prefix (empty for all tokens)
+     * @param limit  the maximum number of tokens to return
+     * @return the tokens and their counts
+     */
+    List<NameSuggestions.Suggestion> complete(String prefix, int limit) {
+        // find the node of the prefix, which may end in the middle of an edge
+        Node node = root;
+        StringBuilder path = new StringBuilder();
+        while (path.length() < prefix.length()) {
+            int depth = path.length();
+            int index = node.indexOf(prefix.charAt(depth));
+            if (index < 0) {
+                return List.of();
+            }
+            Node child = node.children[index];
+            int matched = commonPrefixLength(child.label, prefix, depth);
+            if (matched < Math.min(child.label.length(), prefix.length() - depth)) {
+                return List.of();
+            }
+            node = child;
+            path.append(child.label);
+        }
+
+        List<NameSuggestions.Suggestion> suggestions = new ArrayList<>(Math.min(limit, 16));
+        PriorityQueue<Candidate> candidates = new PriorityQueue<>(BEST_FIRST);
+        if (node.maxCount > 0) {
+            candidates.add(new Candidate(node, path.toString(), node.maxCount, false));
+        }
+        while (suggestions.size() < limit && !candidates.isEmpty()) {
+            Candidate best = candidates.poll();
+            if (best.isToken()) {
+                suggestions.add(new NameSuggestions.Suggestion(best.text(), best.count()));
+                continue;
+            }
+            if (best.node().count > 0) {
+                candidates.add(new Candidate(best.node(), best.text(), best.node().count, true));
+            }
+            for (Node child : best.node().children) {
+                candidates.add(new Candidate(child, best.text() + child.label, child.maxCount, false));
+            }
+        }
+        return suggestions;
+    }
+
+    // Applies the delta below 'node', whose path is token[0, depth), and
+    // keeps the trie compressed on the way back up
+    private void add(Node node, String token, int depth, int delta) {
+        if (depth == token.length()) {
+            boolean existed = node.count > 0;
+            node.count = Math.max(0, node.count + delta);
+            size += (node.count > 0 ? 1 : 0) - (existed ? 1 : 0);
+            node.updateMaxCount();
+            return;
+        }
+
+        int index = node.indexOf(token.charAt(depth));
+        if (index < 0) {
+            if (delta <= 0) {
+                return;
+            }
+            node.insertChild(index, new Node(token.substring(depth)));
+            index = -index - 1;
+        } else {
+            Node child = node.children[index];
+            int matched = commonPrefixLength(child.label, token, depth);
+            if (matched < child.label.length()) {
+                if (delta <= 0) {
+                    return;
+                }
+                // split the edge where the token leaves it
+                Node middle = new Node(child.label.substring(0, matched));
+                child.label = child.label.substring(matched);
+                middle.firstChars = new char[] { child.label.charAt(0) };
+                middle.children = new Node[] { child };
+                middle.updateMaxCount();
+                node.children[index] = middle;
+            }
+        }
+
+        Node child = node.children[index];
+        add(child, token, depth + child.label.length(), delta);
+
+        if (child.count == 0 && child.children.length == 0) {
+            node.removeChild(index);
+        } else if (child.count == 0 && child.children.length == 1) {
+            // merge the child into its only grandchild
+            Node grandchild = child.children[0];
+            grandchild.label = child.label + grandchild.label;
+            node.children[index] = grandchild;
+        }
+        node.updateMaxCount();
+    }
+
+    private static int commonPrefixLength(String label, String token, int offset) {
+        int max = Math.min(label.length(), token.length() - offset);
+        int length = 0;
+        while (length < max && label.charAt(length) == token.charAt(offset + length)) {
+            length++;
+        }
+        return length;
+    }
+}
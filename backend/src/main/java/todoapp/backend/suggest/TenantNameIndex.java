@@ -0,0 +1,198 @@
+package todoapp.backend.suggest;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import todoapp.backend.util.ChangeBuffer;
+
+/**
+ * Name tokens of one tenant's ToDos. Remembers the tokens of every ToDo, so a
+ * change only updates the counts of the tokens that were added or removed.
+ *
+ * Besides the trie used for completions, the tokens are kept in an inverted
+ * index (the ToDos containing each token) and in a BK-tree of the distinct
+ * tokens, used to find the tokens close to a misspelled one.
+ *
+ * Changes are recorded while the repository's stripe is locked, so they are
+ * only queued there, and tokenized and indexed through a {@link ChangeBuffer}.
+ */
+class TenantNameIndex {
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final String[] NO_TOKENS = new String[0];
+    // the BK-tree is rebuilt once it has more removed tokens than this, and
+    // than live ones
+    private static final int MIN_REMOVED_TO_REBUILD = 1024;
+
+    // A ToDo's name from now on, null once deleted
+    private record Change(int id, String name) {
+    }
+
+    private final NameTrie trie = new NameTrie();
+    // distinct tokens of each ToDo, sorted
+    private final Map<Integer, String[]> tokensById = new HashMap<>();
+    private final Map<String, Set<Integer>> idsByToken = new HashMap<>();
+    private final ChangeBuffer<Change> changes = new ChangeBuffer<>(this::apply);
+    private BkTree dictionary = new BkTree();
+    // tokens still in the BK-tree that no ToDo contains anymore
+    private int removedTokens;
+
+    /**
+     * Replaces the tokens of the ToDo with the given ID by the ones of its
+     * current name.
+     *
+     * @param id   the ToDo's ID
+     * @param name the ToDo's current name, or null if it was deleted
+     */
+    void record(int id, String name) {
+        changes.add(new Change(id, name));
+    }
+
+    List<NameSuggestions.Suggestion> complete(String prefix, int limit) {
+        return changes.read(() -> trie.complete(prefix, limit));
+    }
+
+    /**
+     * Finds the ToDos with names close to the given words. Each word matches
+     * the tokens within a few edits of it (none for words of up to 2
+     * characters, 1 up to 5 and 2 beyond). A ToDo scores, for every word, the
+     * similarity of its closest token (1 minus the edits per character), and
+     * its score is the average over the words.
+     *
+     * @param words the normalized words searched
+     * @return the matching ToDos, the best first (then by ID)
+     */
+    List<NameMatch> search(String[] words) {
+        return changes.read(() -> match(words));
+    }
+
+    private void apply(Change change) {
+        int id = change.id();
+        String name = change.name();
+        String[] tokens = name == null ? NO_TOKENS : tokenize(name);
+        String[] previous = tokens.length == 0 ? tokensById.remove(id) : tokensById.put(id, tokens);
+        if (previous == null) {
+            previous = NO_TOKENS;
+        }
+        if (Arrays.equals(previous, tokens)) {
+            return;
+        }
+
+        // both are sorted, so the differences are found in one pass
+        int i = 0;
+        int j = 0;
+        while (i < previous.length || j < tokens.length) {
+            int comparison = i == previous.length ? 1
+                    : j == tokens.length ? -1 : previous[i].compareTo(tokens[j]);
+            if (comparison < 0) {
+                removeToken(id, previous[i++]);
+            } else if (comparison > 0) {
+                addToken(id, tokens[j++]);
+            } else {
+                i++;
+                j++;
+            }
+        }
+    }
+
+    private List<NameMatch> match(String[] words) {
+        if (words.length == 0) {
+            return List.of();
+        }
+        // best similarity of each ToDo to each word
+        Map<Integer, double[]> similarities = new HashMap<>();
+        for (int w = 0; w < words.length; w++) {
+            String word = words[w];
+            int index = w;
+            dictionary.forEachWithin(word, maxEdits(word), (token, distance) -> {
+                Set<Integer> ids = idsByToken.get(token);
+                if (ids == null) {
+                    return;
+                }
+                double similarity = 1 - (double) distance / Math.max(word.length(), token.length());
+                for (int id : ids) {
+                    double[] best = similarities.computeIfAbsent(id, key -> new double[words.length]);
+                    best[index] = Math.max(best[index], similarity);
+                }
+            });
+        }
+
+        List<NameMatch> matches = new ArrayList<>(similarities.size());
+        similarities.forEach((id, best) -> matches.add(new NameMatch(id, Arrays.stream(best).sum() / best.length)));
+        matches.sort(Comparator.comparingDouble(NameMatch::score).reversed().thenComparingInt(NameMatch::id));
+        return matches;
+    }
+
+    private static int maxEdits(String word) {
+        return word.length() <= 2 ? 0 : word.length() <= 5 ? 1 : 2;
+    }
+
+    private void addToken(int id, String token) {
+        trie.add(token, 1);
+        Set<Integer> ids = idsByToken.computeIfAbsent(token, key -> new HashSet<>());
+        if (ids.isEmpty() && !dictionary.add(token)) {
+            // a removed token is back
+            removedTokens--;
+        }
+        ids.add(id);
+    }
+
+    private void removeToken(int id, String token) {
+        trie.add(token, -1);
+        Set<Integer> ids = idsByToken.get(token);
+        ids.remove(id);
+        if (!ids.isEmpty()) {
+            return;
+        }
+        idsByToken.remove(token);
+        removedTokens++;
+        if (removedTokens > MIN_REMOVED_TO_REBUILD && removedTokens > idsByToken.size()) {
+            dictionary = new BkTree();
+            idsByToken.keySet().forEach(dictionary::add);
+            removedTokens = 0;
+        }
+    }
+
+    /**
+     * Lower cases a text and strips its accents, so "Résumé" and "resume" are
+     * the same word.
+     *
+     * @param text the text
+     * @return the normalized text
+     */
+    static String normalize(String text) {
+        return MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Returns the last normalized word of a text, which may be partial.
+     *
+     * @param text the text
+     * @return the last word, empty if the text ends with a separator
+     */
+    static String lastWord(String text) {
+        String[] words = SEPARATORS.split(normalize(text), -1);
+        return words[words.length - 1];
+    }
+
+    /**
+     * Splits a name into its distinct normalized words (runs of letters and
+     * digits).
+     *
+     * @param name the name
+     * @return the words, sorted
+     */
+    static String[] tokenize(String name) {
+        return SEPARATORS.splitAsStream(normalize(name)).filter(token -> !token.isEmpty()).distinct().sorted()
+                .toArray(String[]::new);
+    }
+}
@@ -0,0 +1,71 @@
+package todoapp.backend.sync;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import todoapp.backend.model.ToDo;
+import todoapp.backend.repository.ToDoChangeListener;
+import todoapp.backend.util.TenantContext;
+
+/**
+ * Versioned log of the changes made to each tenant's ToDos, letting clients
+ * that keep a copy of them fetch only what changed since they last synced.
+ *
+ * Versions grow with every change. Each log starts at a version derived from
+ * the time it was created (microseconds since the epoch), so versions handed
+ * out before a restart are older than the log and those clients resync.
+ */
+@Component
+public class ChangeLog implements ToDoChangeListener {
+
+    private final int maxTombstones;
+    private final Map<String, TenantChangeLog> tenants = new ConcurrentHashMap<>();
+
+    public ChangeLog(@Value("${todo.sync.max-tombstones:10000}") int maxTombstones) {
+        this.maxTombstones = maxTombstones;
+    }
+
+    @Override
+    public void onAdd(String tenantId, ToDo added) {
+        tenant(tenantId).record(added.getId(), false);
+    }
+
+    @Override
+    public void onUpdate(String tenantId, ToDo previous, ToDo updated) {
+        tenant(tenantId).record(updated.getId(), false);
+    }
+
+    @Override
+    public void onDelete(String tenantId, ToDo deleted) {
+        tenant(tenantId).record(deleted.getId(), true);
+    }
+
+    /**
+     * Returns the current tenant's ToDos changed after a version.
+     *
+     * @param since the version the client synced to (0 if it never did)
+     * @param limit the maximum number of changes to return
+     * @return the IDs of the changed ToDos
+     */
+    public LoggedChanges getChangesSince(long since, int limit) {
+        TenantChangeLog tenant = tenants.get(TenantContext.getTenantId());
+        if (tenant == null) {
+            // nothing changed yet: an empty log starting now, which isn't kept
+            tenant = newLog();
+        }
+        return tenant.changesSince(since, limit);
+    }
+
+    // Log of a tenant, created by its first change. Reads don't create one, so
+    // made-up tenant IDs take no memory
+    private TenantChangeLog tenant(String tenantId) {
+        return tenants.computeIfAbsent(tenantId, id -> newLog());
+    }
+
+    private TenantChangeLog newLog() {
+        return new TenantChangeLog(System.currentTimeMillis() * 1000, maxTombstones);
+    }
+}
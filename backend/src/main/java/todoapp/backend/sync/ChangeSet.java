@@ -0,0 +1,19 @@
+package todoapp.backend.sync;
+
+import java.util.List;
+
+import todoapp.backend.model.ToDo;
+
+/**
+ * Changes a client applies to its copy of the ToDos, then asks for the ones
+ * after 'version'.
+ *
+ * @param version the version to ask the next changes from
+ * @param resync  whether the client must drop all its ToDos before applying
+ *                these (it was too far behind or its version is unknown)
+ * @param hasMore whether more changes can be fetched right away
+ * @param upserts the ToDos added or updated, in their current state
+ * @param deletes the IDs of the ToDos deleted
+ */
+public record ChangeSet(long version, boolean resync, boolean hasMore, List<ToDo> upserts, List<Integer> deletes) {
+}
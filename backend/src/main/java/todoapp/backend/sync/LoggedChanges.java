@@ -0,0 +1,17 @@
+package todoapp.backend.sync;
+
+import java.util.List;
+
+/**
+ * The ToDos changed after a version, as found in the change log.
+ *
+ * @param version    the version the client is at once it applied them
+ * @param resync     whether the client must drop its ToDos first, because it
+ *                   was too far behind (or its version is unknown)
+ * @param hasMore    whether there are more changes after this version
+ * @param changedIds IDs of the ToDos added or updated
+ * @param deletedIds IDs of the ToDos deleted
+ */
+public record LoggedChanges(long version, boolean resync, boolean hasMore, List<Integer> changedIds,
+        List<Integer> deletedIds) {
+}
@@ -0,0 +1,123 @@
+package todoapp.backend.sync;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+import todoapp.backend.util.ChangeBuffer;
+
+/**
+ * Change log of one tenant. Every change gets the next version, and only the
+ * latest change of each ToDo is kept, so the log never holds more than one
+ * entry per ToDo: the live ones, and the tombstones of the deleted ones.
+ *
+ * Tombstones are only kept up to a maximum. The newest one dropped sets the
+ * horizon: clients synced before it may have missed a delete and must resync.
+ *
+ * Changes are recorded while the repository's stripe is locked, so they are
+ * only queued there, and get their version through a {@link ChangeBuffer}.
+ */
+class TenantChangeLog {
+    private record Change(int id, boolean deleted) {
+    }
+
+    private final int maxTombstones;
+
+    // ID of the ToDo changed at each version
+    private final NavigableMap<Long, Integer> idsByVersion = new TreeMap<>();
+    private final Map<Integer, Long> versionsById = new HashMap<>();
+    // version of each deleted ToDo, the oldest deletion first
+    private final LinkedHashMap<Integer, Long> tombstones = new LinkedHashMap<>();
+    private final ChangeBuffer<Change> changes = new ChangeBuffer<>(this::apply);
+    private long version;
+    private long horizon;
+
+    /**
+     * @param firstVersion  the version the log starts at; clients that synced
+     *                      against an earlier one must resync
+     * @param maxTombstones the maximum number of deletes remembered
+     */
+    TenantChangeLog(long firstVersion, int maxTombstones) {
+        this.version = firstVersion;
+        this.horizon = firstVersion;
+        this.maxTombstones = maxTombstones;
+    }
+
+    /**
+     * Logs a change of a ToDo, replacing its previous one.
+     *
+     * @param id      the ToDo's ID
+     * @param deleted whether the ToDo was deleted
+     */
+    void record(int id, boolean deleted) {
+        changes.add(new Change(id, deleted));
+    }
+
+    /**
+     * Returns the ToDos changed after a version, in the order of their latest
+     * change. Clients that can't be brought up to date from the log get all
+     * the live ToDos at once instead, flagged as a resync.
+     *
+     * @param since the version the client has
+     * @param limit the maximum number of changes to return, except on resync
+     * @return the changes
+     */
+    LoggedChanges changesSince(long since, int limit) {
+        return changes.read(() -> collect(since, limit));
+    }
+
+    private void apply(Change change) {
+        int id = change.id();
+        boolean deleted = change.deleted();
+        Long previous = versionsById.put(id, ++version);
+        if (previous != null) {
+            idsByVersion.remove(previous);
+        }
+        idsByVersion.put(version, id);
+        tombstones.remove(id);
+        if (!deleted) {
+            return;
+        }
+
+        tombstones.put(id, version);
+        if (tombstones.size() > maxTombstones) {
+            Iterator<Map.Entry<Integer, Long>> oldest = tombstones.entrySet().iterator();
+            Map.Entry<Integer, Long> dropped = oldest.next();
+            oldest.remove();
+            versionsById.remove(dropped.getKey());
+            idsByVersion.remove(dropped.getValue());
+            horizon = Math.max(horizon, dropped.getValue());
+        }
+    }
+
+    private LoggedChanges collect(long since, int limit) {
+        List<Integer> changedIds = new ArrayList<>();
+        List<Integer> deletedIds = new ArrayList<>();
+        if (since < horizon || since > version) {
+            // live ToDos may be older than the horizon, so a resync can't be
+            // paged by version
+            for (Integer id : idsByVersion.values()) {
+                if (!tombstones.containsKey(id)) {
+                    changedIds.add(id);
+                }
+            }
+            return new LoggedChanges(version, true, false, changedIds, deletedIds);
+        }
+
+        long upTo = since;
+        for (Map.Entry<Long, Integer> change : idsByVersion.tailMap(since, false).entrySet()) {
+            if (changedIds.size() + deletedIds.size() == limit) {
+                break;
+            }
+            int id = change.getValue();
+            (tombstones.containsKey(id) ? deletedIds : changedIds).add(id);
+            upTo = change.getKey();
+        }
+        return new LoggedChanges(upTo, false, upTo < version, changedIds, deletedIds);
+    }
+}
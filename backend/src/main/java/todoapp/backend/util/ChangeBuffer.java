@@ -0,0 +1,79 @@
+package todoapp.backend.util;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Hands the changes seen by a repository listener off to the state they
+ * update, without making the writer wait for that state's lock. Writers only
+ * append to a lock-free queue. The changes are applied in the order they were
+ * added, under the buffer's lock, by the next read, or by a writer that finds
+ * many of them pending and the lock free.
+ *
+ * Listeners are called while the changed ToDo's stripe is locked, so the
+ * changes of one ToDo are added, and applied, in the order they were made.
+ *
+ * @param <T> the type of the changes
+ */
+public class ChangeBuffer<T> {
+    // pending changes a writer applies itself, if nobody holds the lock
+    private static final int DRAIN_THRESHOLD = 256;
+
+    private final Consumer<T> apply;
+    private final Queue<T> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingCount = new AtomicInteger();
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * @param apply applies a change to the buffered state, always under the
+     *              buffer's lock
+     */
+    public ChangeBuffer(Consumer<T> apply) {
+        this.apply = apply;
+    }
+
+    /**
+     * Adds a change, without ever blocking.
+     *
+     * @param change the change, which must not be modified afterwards
+     */
+    public void add(T change) {
+        pending.add(change);
+        if (pendingCount.incrementAndGet() >= DRAIN_THRESHOLD && lock.tryLock()) {
+            try {
+                drain();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Applies the pending changes, then reads the buffered state, under the
+     * buffer's lock.
+     *
+     * @param read reads the state
+     * @return what was read
+     */
+    public <R> R read(Supplier<R> read) {
+        lock.lock();
+        try {
+            drain();
+            return read.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void drain() {
+        T change;
+        while ((change = pending.poll()) != null) {
+            pendingCount.decrementAndGet();
+            apply.accept(change);
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package todoapp.backend.util;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Coarse-grained UTC wall clock, injected wherever ToDos are timestamped. A
+ * daemon thread refreshes a cached epoch millisecond tick, so reading the time
+ * is a single volatile read and allocates nothing.
+ *
+ * With a tick of 0, no thread is started and every read goes to the system
+ * clock, which is already cheap: pick a tick only when the time is read far
+ * more often than the tick refreshes it.
+ */
+@Component
+@Lazy(false)
+public class CoarseClock extends Clock {
+    public static final long DEFAULT_TICK_MILLIS = 10;
+
+    private final long tickMillis;
+    private final Thread ticker;
+    private volatile long millis;
+    private volatile boolean running = true;
+
+    /**
+     * @param tickMillis how often the cached time is refreshed. With 0 or less,
+     *                   every read goes to the system clock
+     */
+    public CoarseClock(@Value("${todo.clock.tick-millis:10}") long tickMillis) {
+        this.tickMillis = tickMillis;
+        this.millis = System.currentTimeMillis();
+        if (tickMillis > 0) {
+            ticker = new Thread(this::tick, "todo-clock");
+            ticker.setDaemon(true);
+            ticker.start();
+        } else {
+            ticker = null;
+        }
+    }
+
+    /**
+     * @return the current time in milliseconds since the epoch, accurate to the
+     *         tick interval
+     */
+    @Override
+    public long millis() {
+        return ticker != null ? millis : System.currentTimeMillis();
+    }
+
+    @Override
+    public Instant instant() {
+        return Instant.ofEpochMilli(millis());
+    }
+
+    @Override
+    public ZoneId getZone() {
+        return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+        return zone.equals(getZone()) ? this : new Zoned(this, zone);
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (ticker != null) {
+            ticker.interrupt();
+        }
+    }
+
+    private void tick() {
+        while (running) {
+            millis = System.currentTimeMillis();
+            try {
+                Thread.sleep(tickMillis);
+            } catch (InterruptedException ex) {
+                return;
+            }
+        }
+    }
+
+    // The same ticks, seen from another time zone
+    private static final class Zoned extends Clock {
+        private final CoarseClock clock;
+        private final ZoneId zone;
+
+        Zoned(CoarseClock clock, ZoneId zone) {
+            this.clock = clock;
+            this.zone = zone;
+        }
+
+        @Override
+        public long millis() {
+            return clock.millis();
+        }
+
+        @Override
+        public Instant instant() {
+            return clock.instant();
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return zone;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return clock.withZone(zone);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package todoapp.backend.util;
+
+/**
+ * Holds the tenant (team or list) the current request belongs to. Every
+ * repository operation is scoped to the partition of this tenant.
+ */
+public final class TenantContext {
+
+    public static final String TENANT_HEADER = "X-Tenant-Id";
+    public static final String DEFAULT_TENANT = "default";
+
+    private static final ThreadLocal<String> currentTenant = new ThreadLocal<>();
+
+    private TenantContext() {
+    }
+
+    /**
+     * Returns the tenant bound to the current thread, or the default tenant when
+     * none was set (e.g. requests without tenant header, or tests).
+     *
+     * @return the current tenant's ID
+     */
+    public static String getTenantId() {
+        String tenantId = currentTenant.get();
+        return tenantId != null ? tenantId : DEFAULT_TENANT;
+    }
+
+    public static void setTenantId(String tenantId) {
+        currentTenant.set(tenantId);
+    }
+
+    public static void clear() {
+        currentTenant.remove();
+    }
+}
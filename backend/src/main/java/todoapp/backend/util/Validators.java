@@ -3,6 +3,7 @@ package todoapp.backend.util;
 import todoapp.backend.enums.Priority;
 import todoapp.backend.enums.Status;
 import todoapp.backend.model.ToDo;
+import todoapp.backend.model.ToDoPatch;
 
 public final class Validators {
 
@@ -31,7 +32,66 @@ public final class Validators {
         return name != null && !name.isBlank() && name.length() <= 120;
     }
 
+    /**
+     * Validates that a bulk update changes at least one property, and that the
+     * new name, if any, meets the same requirements as a ToDo's name.
+     *
+     * @param patch the changes to apply
+     * @return True if the patch is valid, False if not
+     */
+    public static boolean validateToDoPatch(ToDoPatch patch) {
+        return patch != null && !patch.isEmpty() && (patch.getName() == null || validateToDoName(patch.getName()));
+    }
+
     public static boolean validateAllCriteriaAreNull(String name, Priority priority, Status doneStatus) {
         return name == null && priority == null && doneStatus == null;
     }
+
+    /**
+     * Validates that the tenant ID is not blank, has a maximum of 64 characters
+     * and only contains letters, digits, dashes or underscores.
+     *
+     * @param tenantId the tenant's ID
+     * @return True if the tenant ID meets the requirements, False if not
+     */
+    public static boolean validateTenantId(String tenantId) {
+        return tenantId != null && !tenantId.isBlank() && tenantId.length() <= 64
+                && tenantId.chars().allMatch(c -> Character.isLetterOrDigit(c) || c == '-' || c == '_');
+    }
+
+    /**
+     * Validates that every percentile is greater than 0 and at most 100.
+     *
+     * @param percentiles the requested percentiles
+     * @return True if all the percentiles are valid, False if not
+     */
+    public static boolean validatePercentiles(double[] percentiles) {
+        for (double percentile : percentiles) {
+            if (!(percentile > 0 && percentile <= 100)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Validates that the number of requested name suggestions is between 1 and
+     * 100.
+     *
+     * @param limit the requested number of suggestions
+     * @return True if the limit is valid, False if not
+     */
+    public static boolean validateSuggestionLimit(int limit) {
+        return limit >= 1 && limit <= 100;
+    }
+
+    /**
+     * Validates that the number of requested changes is between 1 and 10000.
+     *
+     * @param limit the requested number of changes
+     * @return True if the limit is valid, False if not
+     */
+    public static boolean validateChangesLimit(int limit) {
+        return limit >= 1 && limit <= 10_000;
+    }
 }
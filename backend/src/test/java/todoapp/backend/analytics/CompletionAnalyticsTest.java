@@ -0,0 +1,130 @@
+package todoapp.backend.analytics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import todoapp.backend.enums.Granularity;
+import todoapp.backend.enums.Priority;
+import todoapp.backend.enums.Status;
+import todoapp.backend.model.ToDo;
+import todoapp.backend.repository.ToDoInMemoRepository;
+import todoapp.backend.util.TenantContext;
+
+class CompletionAnalyticsTest {
+    private static final long HOUR = 3_600_000L;
+
+    // late in the day, when the UTC date is ahead of the one of the zones west of it
+    private final Clock clock = Clock.fixed(Instant.parse("2025-06-15T23:30:00Z"), ZoneOffset.UTC);
+    private CompletionAnalytics analytics;
+    private ToDoInMemoRepository repository;
+
+    @BeforeEach
+    void init() {
+        analytics = new CompletionAnalytics(clock, 0.01, 48, 30);
+        repository = new ToDoInMemoRepository(4, List.of(analytics));
+    }
+
+    @Test
+    void testCompletionsAreBucketedByDoneTime() {
+        long now = clock.millis();
+        repository.add(doneToDo(1, now - 2 * HOUR - 60_000, now - 2 * HOUR));
+        repository.add(doneToDo(2, now - 10 * HOUR, now));
+        repository.add(new ToDo(3, "Not done", null, Priority.LOW));
+
+        AnalyticsReport report = analytics.getReport(Granularity.HOUR, 24);
+
+        assertEquals(24, report.buckets().size());
+        assertEquals(1, report.buckets().get(23).completions());
+        assertEquals(1, report.buckets().get(21).completions());
+        assertEquals(0, report.buckets().get(22).completions());
+        assertNull(report.buckets().get(22).p50());
+        assertEquals(2, report.completions());
+        assertTrue(Math.abs(report.buckets().get(21).p50() - 60) <= 0.6);
+        assertTrue(Math.abs(report.p99() - 36_000) <= 360);
+    }
+
+    @Test
+    void testUndoneAndDeletedToDosAreRemoved() {
+        long now = clock.millis();
+        repository.add(doneToDo(1, now - HOUR, now));
+        ToDo toDo = doneToDo(2, now - HOUR, now);
+        repository.add(toDo);
+
+        toDo.setIsDone(Status.NOT_DONE);
+        repository.update(2, toDo);
+        repository.delete(1);
+
+        assertEquals(0, analytics.getReport(Granularity.DAY, 7).completions());
+    }
+
+    @Test
+    void testOverdueCountsOnlyOpenToDosDueBeforeToday() {
+        LocalDate today = LocalDate.now(clock);
+        repository.add(new ToDo(1, "Late", today.minusDays(3), Priority.HIGH));
+        repository.add(new ToDo(2, "Late", today.minusDays(1), Priority.HIGH));
+        repository.add(new ToDo(3, "Due today", today, Priority.HIGH));
+        repository.add(new ToDo(4, "No due date", null, Priority.HIGH));
+        ToDo done = new ToDo(5, "Late but done", today.minusDays(1), Priority.HIGH);
+        done.setIsDone(Status.DONE);
+        repository.add(done);
+
+        assertEquals(2, analytics.getReport(Granularity.DAY, 1).overdue());
+    }
+
+    @Test
+    void testConcurrentWritersAreAllRecorded() throws InterruptedException {
+        long now = clock.millis();
+        List<Thread> writers = new ArrayList<>();
+        for (int w = 0; w < 4; w++) {
+            int first = w * 1000 + 1;
+            writers.add(new Thread(() -> {
+                for (int id = first; id < first + 1000; id++) {
+                    repository.add(doneToDo(id, now - HOUR, now));
+                    if (id % 10 == 0) {
+                        repository.delete(id);
+                    }
+                }
+            }));
+        }
+        writers.forEach(Thread::start);
+        for (Thread writer : writers) {
+            writer.join();
+        }
+
+        // Assertions
+        assertEquals(3600, analytics.getReport(Granularity.DAY, 1).completions());
+    }
+
+    @Test
+    void testTenantsHaveTheirOwnAnalytics() {
+        long now = clock.millis();
+        try {
+            TenantContext.setTenantId("team-a");
+            repository.add(doneToDo(1, now - HOUR, now));
+
+            TenantContext.setTenantId("team-b");
+            assertEquals(0, analytics.getReport(Granularity.HOUR, 24).completions());
+        } finally {
+            TenantContext.clear();
+        }
+    }
+
+    private static ToDo doneToDo(int id, long creationMillis, long doneMillis) {
+        ToDo toDo = new ToDo(id, "Task " + id, null, Priority.MEDIUM);
+        toDo.setIsDone(Status.DONE);
+        toDo.setCreationMillis(creationMillis);
+        toDo.setDoneMillis(doneMillis);
+        return toDo;
+    }
+}
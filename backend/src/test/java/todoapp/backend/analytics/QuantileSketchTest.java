@@ -0,0 +1,98 @@
+package todoapp.backend.analytics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+class QuantileSketchTest {
+    private static final double ACCURACY = 0.01;
+
+    @Test
+    void testEmptySketch() {
+        assertNull(new QuantileSketch(ACCURACY).getQuantile(0.5));
+    }
+
+    @Test
+    void testQuantilesWithinRelativeAccuracy() {
+        Random random = new Random(3);
+        double[] values = new double[20_000];
+        QuantileSketch sketch = new QuantileSketch(ACCURACY);
+        for (int i = 0; i < values.length; i++) {
+            // long tailed, from seconds to weeks
+            values[i] = Math.exp(random.nextGaussian() * 3 + 8);
+            sketch.add(values[i]);
+        }
+        Arrays.sort(values);
+
+        for (double quantile : new double[] { 0.5, 0.95, 0.99 }) {
+            double exact = values[(int) Math.ceil(quantile * values.length) - 1];
+            double estimate = sketch.getQuantile(quantile);
+            assertTrue(Math.abs(estimate - exact) <= exact * ACCURACY, quantile + ": " + estimate + " vs " + exact);
+        }
+    }
+
+    @Test
+    void testMergeEqualsSketchOfAllValues() {
+        QuantileSketch all = new QuantileSketch(ACCURACY);
+        QuantileSketch first = new QuantileSketch(ACCURACY);
+        QuantileSketch second = new QuantileSketch(ACCURACY);
+        for (int i = 1; i <= 1000; i++) {
+            all.add(i);
+            (i % 3 == 0 ? first : second).add(i);
+        }
+
+        first.merge(second);
+
+        assertEquals(all.getCount(), first.getCount());
+        for (double quantile : new double[] { 0, 0.5, 0.95, 0.99, 1 }) {
+            assertEquals(all.getQuantile(quantile), first.getQuantile(quantile));
+        }
+    }
+
+    @Test
+    void testRemoveUndoesAdd() {
+        QuantileSketch sketch = new QuantileSketch(ACCURACY);
+        sketch.add(10);
+        sketch.add(0);
+        sketch.add(1000);
+        sketch.remove(1000);
+
+        assertEquals(2, sketch.getCount());
+        assertEquals(0.0, sketch.getQuantile(0));
+        assertTrue(Math.abs(sketch.getQuantile(1) - 10) <= 10 * ACCURACY);
+    }
+
+    @Test
+    void testMemoryIsBounded() {
+        QuantileSketch sketch = new QuantileSketch(ACCURACY, 100);
+        for (int i = 1; i <= 1_000_000; i *= 2) {
+            sketch.add(i);
+        }
+
+        assertTrue(sketch.getCounts().length <= 100);
+        // only the lowest values were collapsed
+        assertTrue(Math.abs(sketch.getQuantile(1) - 524_288) <= 524_288 * ACCURACY);
+        assertEquals(20, sketch.getCount());
+    }
+
+    @Test
+    void testJsonRoundTrip() throws Exception {
+        QuantileSketch sketch = new QuantileSketch(ACCURACY);
+        for (int i = 1; i <= 100; i++) {
+            sketch.add(i);
+        }
+        ObjectMapper mapper = new ObjectMapper();
+
+        QuantileSketch read = mapper.readValue(mapper.writeValueAsString(sketch), QuantileSketch.class);
+
+        assertEquals(sketch.getCount(), read.getCount());
+        assertEquals(sketch.getQuantile(0.95), read.getQuantile(0.95));
+    }
+}
@@ -0,0 +1,93 @@
+package todoapp.backend.archive;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import todoapp.backend.enums.Priority;
+import todoapp.backend.enums.Status;
+import todoapp.backend.model.ToDo;
+
+class ArchiveSegmentTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final List<ToDo> toDos = new ArrayList<>();
+    private Path file;
+
+    @BeforeEach
+    void init() throws IOException {
+        file = Files.createTempDirectory("archive").resolve("0000000001.seg");
+        // every other ID, so some IDs in range aren't there
+        for (int id = 2; id <= 1000; id += 2) {
+            ToDo toDo = new ToDo(id, "Task " + id, id % 3 == 0 ? null : LocalDate.of(2025, 1, 1).plusDays(id % 90),
+                    id % 7 == 0 ? null : Priority.values()[id % 3]);
+            toDo.setCreationMillis(1_750_000_000_000L + id);
+            toDo.setIsDone(Status.DONE);
+            toDo.setDoneMillis(toDo.getCreationMillis() + id * 1000L);
+            toDos.add(toDo);
+        }
+    }
+
+    @Test
+    void testToDosAreReadBackAsWritten() throws IOException {
+        ArchiveSegment.write(file, toDos, mapper);
+        ArchiveSegment segment = new ArchiveSegment(file, mapper);
+
+        // Assertions
+        assertEquals(toDos.size(), segment.count());
+        assertEquals(1000, segment.maxId());
+        List<ToDo> read = segment.readAll();
+        for (int i = 0; i < toDos.size(); i++) {
+            assertSameToDo(toDos.get(i), read.get(i));
+        }
+        // compressed well below the size of the fields themselves
+        assertTrue(Files.size(file) < toDos.size() * 30L);
+    }
+
+    @Test
+    void testLookupsOnlyFindArchivedIds() throws IOException {
+        ArchiveSegment.write(file, toDos, mapper);
+        ArchiveSegment segment = new ArchiveSegment(file, mapper);
+
+        // Assertions: first, last and block boundaries
+        for (int index : new int[] { 0, ArchiveSegment.BLOCK_SIZE - 1, ArchiveSegment.BLOCK_SIZE,
+                toDos.size() - 1 }) {
+            assertSameToDo(toDos.get(index), segment.findById(toDos.get(index).getId()));
+        }
+        assertNull(segment.findById(1));
+        assertNull(segment.findById(257));
+        assertNull(segment.findById(1002));
+    }
+
+    @Test
+    void testFooterKeepsTheCompletionStats() throws IOException {
+        ArchiveSegment.write(file, toDos, mapper);
+
+        // Assertions: same figures as computing them from the ToDos
+        assertEquals(ArchiveSegment.statsOf(toDos).getAverageSeconds(),
+                new ArchiveSegment(file, mapper).stats().getAverageSeconds());
+        assertEquals(toDos.size(), new ArchiveSegment(file, mapper).stats().getCount());
+    }
+
+    private static void assertSameToDo(ToDo expected, ToDo actual) {
+        assertEquals(expected.getId(), actual.getId());
+        assertEquals(expected.getName(), actual.getName());
+        assertEquals(expected.getDueDate(), actual.getDueDate());
+        assertEquals(expected.getPriority(), actual.getPriority());
+        assertEquals(Status.DONE, actual.getIsDone());
+        assertEquals(expected.getDoneMillis(), actual.getDoneMillis());
+        assertEquals(expected.getCreationMillis(), actual.getCreationMillis());
+    }
+}
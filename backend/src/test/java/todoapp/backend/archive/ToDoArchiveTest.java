@@ -0,0 +1,177 @@
+package todoapp.backend.archive;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import todoapp.backend.cluster.ShardRouter;
+import todoapp.backend.enums.Priority;
+import todoapp.backend.enums.Status;
+import todoapp.backend.model.FilterCriteria;
+import todoapp.backend.model.ToDo;
+import todoapp.backend.repository.ToDoInMemoRepository;
+import todoapp.backend.util.TenantContext;
+
+class ToDoArchiveTest {
+    private static final long HOUR = 3_600_000L;
+    private static final long NOW = 1_760_000_000_000L;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final List<ToDoArchive> archives = new ArrayList<>();
+    private Path dir;
+
+    @BeforeEach
+    void init() throws IOException {
+        dir = Files.createTempDirectory("archive");
+    }
+
+    @AfterEach
+    void stop() {
+        archives.forEach(ToDoArchive::stop);
+        TenantContext.clear();
+    }
+
+    @Test
+    void testOldDoneToDosMoveToTheArchive() throws IOException {
+        ToDoInMemoRepository repository = new ToDoInMemoRepository(4);
+        ToDoArchive archive = newArchive(repository, 16);
+        addToDo(repository, 1, "Old report", NOW - 48 * HOUR);
+        addToDo(repository, 2, "Recent report", NOW - HOUR);
+        addToDo(repository, 3, "Open task", ToDo.NO_DATE);
+        addToDo(repository, 4, "Old bug fix", NOW - 30 * HOUR);
+
+        // Assertions: only the ones done more than a day ago
+        assertEquals(2, archive.archiveOldToDos(NOW));
+        assertEquals(2, repository.count());
+        assertNull(repository.findById(1));
+        assertEquals(List.of(1, 4), ids(archive.findAllByCriteria(null)));
+        assertEquals(List.of(1), ids(archive.findAllByCriteria(new FilterCriteria("report", null, null))));
+        assertTrue(archive.findAllByCriteria(new FilterCriteria(null, null, Status.NOT_DONE)).isEmpty());
+        assertTrue(archive.isArchived(4));
+        assertFalse(archive.isArchived(2));
+        // the archive keeps counting in the completion stats
+        assertEquals(2, archive.getCompletionStats().getCount());
+        assertEquals(1, repository.getCompletionStats().getCount());
+        assertEquals(0, archive.archiveOldToDos(NOW));
+    }
+
+    @Test
+    void testArchiveSurvivesRestartsAndItsIdsAreNotReused() throws IOException {
+        ToDoInMemoRepository repository = new ToDoInMemoRepository(4);
+        ToDoArchive archive = newArchive(repository, 16);
+        for (int id = 1; id <= 300; id++) {
+            addToDo(repository, id, "Task " + id, NOW - 100 * HOUR);
+        }
+        TenantContext.setTenantId("team-b");
+        addToDo(repository, 1, "Team B task", NOW - 100 * HOUR);
+        TenantContext.clear();
+        archive.archiveOldToDos(NOW);
+
+        ToDoInMemoRepository restarted = new ToDoInMemoRepository(4);
+        ToDoArchive reopened = newArchive(restarted, 16);
+
+        // Assertions
+        assertEquals(300, reopened.findAllByCriteria(null).size());
+        assertEquals(301, restarted.nextId());
+        TenantContext.setTenantId("team-b");
+        assertEquals(List.of(1), ids(reopened.findAllByCriteria(null)));
+        assertEquals(2, restarted.nextId());
+    }
+
+    @Test
+    void testSegmentsAreMergedOnceThereAreTooMany() throws IOException {
+        ToDoInMemoRepository repository = new ToDoInMemoRepository(4);
+        ToDoArchive archive = newArchive(repository, 3);
+        for (int id = 1; id <= 4; id++) {
+            addToDo(repository, id, "Task " + id, NOW - 100 * HOUR);
+            archive.archiveOldToDos(NOW);
+        }
+
+        // Assertions: a single segment left, with everything
+        try (var files = Files.list(dir.resolve(TenantContext.getTenantId()))) {
+            assertEquals(1, files.count());
+        }
+        assertEquals(List.of(1, 2, 3, 4), ids(archive.findAllByCriteria(null)));
+        assertEquals(4, archive.getCompletionStats().getCount());
+    }
+
+    @Test
+    void testToDosUpdatedWhileArchivingStayLiveAndLeaveTheArchive() throws Exception {
+        ToDoInMemoRepository repository = new ToDoInMemoRepository(4);
+        ToDoArchive archive = newArchive(repository, 16);
+        int count = 5_000;
+        for (int id = 1; id <= count; id++) {
+            addToDo(repository, id, "Task " + id, NOW - 100 * HOUR);
+        }
+
+        // renames the ToDos over and over while they are being archived
+        AtomicBoolean archiving = new AtomicBoolean(true);
+        Thread updater = new Thread(() -> {
+            while (archiving.get()) {
+                for (int id = count; id >= 1 && archiving.get(); id--) {
+                    ToDo current = repository.findById(id);
+                    if (current != null) {
+                        ToDo renamed = new ToDo(current);
+                        renamed.setName(current.getName() + "!");
+                        repository.update(id, renamed);
+                    }
+                }
+            }
+        });
+        updater.start();
+        int archived;
+        try {
+            archived = archive.archiveOldToDos(NOW);
+        } finally {
+            archiving.set(false);
+            updater.join();
+        }
+
+        // Assertions: every ToDo is either live or archived, never both
+        for (int id = 1; id <= count; id++) {
+            assertTrue(repository.findById(id) != null ^ archive.isArchived(id), "ToDo " + id);
+        }
+        assertEquals(count - repository.count(), archived);
+        assertEquals(archived, archive.findAllByCriteria(null).size());
+        assertEquals(archived, archive.getCompletionStats().getCount());
+    }
+
+    private ToDoArchive newArchive(ToDoInMemoRepository repository, int maxSegments) {
+        ShardRouter shardRouter = new ShardRouter(repository, mapper, false, "http://localhost:9090", "", 0, 64, 128,
+                "");
+        ToDoArchive archive = new ToDoArchive(repository, shardRouter, mapper, Clock.systemUTC(), true,
+                dir.toString(), 24, HOUR, maxSegments);
+        archive.start();
+        archives.add(archive);
+        return archive;
+    }
+
+    private static void addToDo(ToDoInMemoRepository repository, int id, String name, long doneMillis) {
+        ToDo toDo = new ToDo(id, name, null, Priority.MEDIUM);
+        toDo.setCreationMillis(NOW - 200 * HOUR);
+        if (doneMillis != ToDo.NO_DATE) {
+            toDo.setIsDone(Status.DONE);
+            toDo.setDoneMillis(doneMillis);
+        }
+        repository.add(toDo);
+    }
+
+    private static List<Integer> ids(List<ToDo> toDos) {
+        return toDos.stream().map(ToDo::getId).toList();
+    }
+}
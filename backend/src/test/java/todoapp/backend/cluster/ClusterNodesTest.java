@@ -0,0 +1,164 @@
+package todoapp.backend.cluster;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import todoapp.backend.BackendApplication;
+
+/**
+ * Runs a sharded deployment of two nodes, each its own Spring context on a
+ * random port, and talks to them over HTTP as clients and peers do.
+ */
+public class ClusterNodesTest {
+    private static final String SECRET = "test-secret";
+
+    private final HttpClient http = HttpClient.newHttpClient();
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final List<ConfigurableApplicationContext> nodes = new ArrayList<>();
+
+    private String nodeA;
+    private String nodeB;
+
+    @BeforeEach
+    void init() throws IOException {
+        // A starts alone, B joins it in the tests
+        nodeA = "http://localhost:" + freePort();
+        nodeB = "http://localhost:" + freePort();
+        startNode(nodeA, 0, nodeA, true);
+        startNode(nodeB, 1, nodeA + "," + nodeB, true);
+    }
+
+    @AfterEach
+    void stop() {
+        nodes.forEach(ConfigurableApplicationContext::close);
+    }
+
+    @Test
+    public void testJoiningNodeTakesOverItsToDosAndQueriesGatherThem() throws Exception {
+        for (int i = 0; i < 40; i++) {
+            assertEquals(200, send(nodeA, "POST", "/todos",
+                    "{\"name\": \"Task " + (char) ('a' + i % 26) + i + "\", \"priority\": \"LOW\"}").statusCode());
+        }
+        assertEquals(40, localCount(nodeA));
+
+        assertEquals(200, sendAsPeer(nodeA, "POST", "/cluster/nodes", "{\"url\": \"" + nodeB + "\"}").statusCode());
+
+        // Assertions
+        int movedToB = localCount(nodeB);
+        assertTrue(movedToB > 0 && movedToB < 40);
+        assertEquals(40, localCount(nodeA) + movedToB);
+        List<String> expectedNames = new ArrayList<>();
+        for (JsonNode toDo : page(nodeA, "/todos?page=0&size=40&sortBy=name&order=ASC").path("content")) {
+            expectedNames.add(toDo.path("name").asText());
+        }
+        assertEquals(40, expectedNames.size());
+        // any node gathers the sorted partial pages of both
+        JsonNode secondPage = page(nodeB, "/todos?page=1&size=10&sortBy=name&order=ASC");
+        assertEquals(40, secondPage.path("totalElements").asInt());
+        for (int i = 0; i < 10; i++) {
+            assertEquals(expectedNames.get(10 + i), secondPage.path("content").get(i).path("name").asText());
+        }
+
+        // single-ID requests are forwarded to the owner, whichever node gets them
+        for (JsonNode toDo : page(nodeB, "/todos?page=0&size=40").path("content")) {
+            assertEquals(200, send(nodeB, "PUT", "/todos/" + toDo.path("id").asInt() + "/done", null).statusCode());
+        }
+        assertEquals(40, page(nodeA, "/todos?page=0&size=10&doneStatus=DONE").path("totalElements").asInt());
+        assertEquals(movedToB, localCount(nodeB));
+
+        // leaving hands every ToDo back
+        assertEquals(200, sendAsPeer(nodeA, "DELETE", "/cluster/nodes?url=" + nodeB, null).statusCode());
+        assertEquals(40, localCount(nodeA));
+        assertEquals(0, localCount(nodeB));
+    }
+
+    @Test
+    public void testClusterEndpointsRequireTheSecret() throws Exception {
+        send(nodeA, "POST", "/todos", "{\"name\": \"Keep me\", \"priority\": \"LOW\"}");
+        String membership = "[\"http://localhost:1\"]";
+
+        // Assertions
+        assertEquals(403, send(nodeA, "PUT", "/cluster/membership", membership).statusCode());
+        assertEquals(403, send(nodeA, "GET", "/cluster/nodes", null).statusCode());
+        HttpResponse<String> wrongSecret = http.send(request(nodeA, "PUT", "/cluster/membership", membership)
+                .header(ShardRouter.SECRET_HEADER, "guess").build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(403, wrongSecret.statusCode());
+        assertEquals(1, localCount(nodeA));
+    }
+
+    @Test
+    public void testStandaloneNodeRejectsClusterEndpoints() throws Exception {
+        String standalone = "http://localhost:" + freePort();
+        startNode(standalone, 0, "", false);
+        send(standalone, "POST", "/todos", "{\"name\": \"Keep me\", \"priority\": \"LOW\"}");
+
+        // Assertions
+        HttpResponse<String> membership = sendAsPeer(standalone, "PUT", "/cluster/membership", "[\"" + nodeA + "\"]");
+        assertEquals(403, membership.statusCode());
+        assertEquals(1, page(standalone, "/todos?page=0&size=10").path("totalElements").asInt());
+        assertEquals(0, localCount(nodeA));
+    }
+
+    private void startNode(String url, int nodeId, String clusterNodes, boolean enabled) {
+        nodes.add(new SpringApplicationBuilder(BackendApplication.class).run(
+                "--server.port=" + URI.create(url).getPort(),
+                "--spring.datasource.url=jdbc:h2:mem:cluster-node-" + URI.create(url).getPort(),
+                "--todo.cluster.enabled=" + enabled,
+                "--todo.cluster.self-url=" + url,
+                "--todo.cluster.nodes=" + clusterNodes,
+                "--todo.cluster.node-id=" + nodeId,
+                "--todo.cluster.secret=" + SECRET));
+    }
+
+    // Number of ToDos stored on the node itself, asked as a peer would
+    private int localCount(String node) throws Exception {
+        HttpResponse<String> response = http.send(request(node, "GET", "/todos?page=0&size=1", null)
+                .header(ShardRouter.SECRET_HEADER, SECRET).header(ShardRouter.FORWARDED_HEADER, "test").build(),
+                HttpResponse.BodyHandlers.ofString());
+        return mapper.readTree(response.body()).path("totalElements").asInt();
+    }
+
+    private JsonNode page(String node, String path) throws Exception {
+        return mapper.readTree(send(node, "GET", path, null).body());
+    }
+
+    private HttpResponse<String> send(String node, String method, String path, String body) throws Exception {
+        return http.send(request(node, method, path, body).build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpResponse<String> sendAsPeer(String node, String method, String path, String body)
+            throws Exception {
+        return http.send(request(node, method, path, body).header(ShardRouter.SECRET_HEADER, SECRET).build(),
+                HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static HttpRequest.Builder request(String node, String method, String path, String body) {
+        return HttpRequest.newBuilder(URI.create(node + path)).header("Content-Type", "application/json")
+                .method(method, body == null ? HttpRequest.BodyPublishers.noBody()
+                        : HttpRequest.BodyPublishers.ofString(body));
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
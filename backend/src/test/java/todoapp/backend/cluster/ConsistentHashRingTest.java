@@ -0,0 +1,68 @@
+package todoapp.backend.cluster;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+public class ConsistentHashRingTest {
+    private static final int KEYS = 20000;
+
+    private final ConsistentHashRing ring = new ConsistentHashRing(
+            List.of("http://node-a", "http://node-b", "http://node-c"), 128);
+
+    @Test
+    public void testEmptyRingHasNoOwner() {
+        assertNull(new ConsistentHashRing(List.of(), 128).ownerOf("1"));
+    }
+
+    @Test
+    public void testKeysAreSpreadOverAllNodes() {
+        Map<String, Integer> keysByNode = new HashMap<>();
+        for (int key = 0; key < KEYS; key++) {
+            keysByNode.merge(ring.ownerOf(String.valueOf(key)), 1, Integer::sum);
+        }
+
+        assertEquals(3, keysByNode.size());
+        for (int keys : keysByNode.values()) {
+            // each node gets roughly a third of the keys
+            assertTrue(keys > KEYS / 5 && keys < KEYS / 2);
+        }
+    }
+
+    @Test
+    public void testAddingNodeOnlyMovesKeysToIt() {
+        ConsistentHashRing grown = ring.withNode("http://node-d");
+
+        int moved = 0;
+        for (int key = 0; key < KEYS; key++) {
+            String before = ring.ownerOf(String.valueOf(key));
+            String after = grown.ownerOf(String.valueOf(key));
+            if (!before.equals(after)) {
+                assertEquals("http://node-d", after);
+                moved++;
+            }
+        }
+        // roughly a quarter of the keys move to the new node
+        assertTrue(moved > KEYS / 8 && moved < KEYS / 2);
+    }
+
+    @Test
+    public void testRemovingNodeOnlyMovesItsKeys() {
+        ConsistentHashRing shrunk = ring.withoutNode("http://node-b");
+
+        for (int key = 0; key < KEYS; key++) {
+            String before = ring.ownerOf(String.valueOf(key));
+            String after = shrunk.ownerOf(String.valueOf(key));
+            if (!before.equals("http://node-b")) {
+                assertEquals(before, after);
+            }
+        }
+        assertEquals(List.of("http://node-a", "http://node-c"), shrunk.getNodes());
+    }
+}
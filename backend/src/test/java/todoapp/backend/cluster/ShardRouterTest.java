@@ -0,0 +1,109 @@
+package todoapp.backend.cluster;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import todoapp.backend.enums.Priority;
+import todoapp.backend.model.ToDo;
+import todoapp.backend.repository.ToDoInMemoRepository;
+import todoapp.backend.util.TenantContext;
+
+/**
+ * Rebalances the ToDos of a node to a fake peer, which changes or deletes a
+ * ToDo on the node while receiving it, as a concurrent request would.
+ */
+public class ShardRouterTest {
+    private static final String SELF = "http://localhost:9090";
+
+    private final ObjectMapper mapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    private final ToDoInMemoRepository repository = new ToDoInMemoRepository(4, List.of());
+    private final List<String> received = new CopyOnWriteArrayList<>();
+
+    private HttpServer peer;
+    private String peerUrl;
+
+    @BeforeEach
+    void init() throws IOException {
+        peer = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        peer.createContext("/", this::receive);
+        peer.start();
+        peerUrl = "http://localhost:" + peer.getAddress().getPort();
+    }
+
+    @AfterEach
+    void stop() {
+        peer.stop(0);
+        TenantContext.clear();
+    }
+
+    @Test
+    public void testToDosChangedWhileMovingAreSentAgainOrDeletedAtTheOwner() {
+        ShardRouter shardRouter = new ShardRouter(repository, mapper, true, SELF, "", 0, 64, 128, "secret");
+        for (int id = 1; id <= 40; id++) {
+            repository.add(new ToDo(id, "Task " + id, null, Priority.LOW));
+        }
+
+        shardRouter.applyMembership(List.of(SELF, peerUrl));
+
+        // Assertions: the first ToDo moved was renamed once sent, and sent
+        // again; the second was deleted once sent, and deleted at the peer
+        assertTrue(received.size() > 4);
+        int renamedId = idOf(received.get(0));
+        assertEquals("POST " + renamedId + " Task " + renamedId + " (renamed)", received.get(1));
+        int deletedId = idOf(received.get(2));
+        assertEquals("DELETE /todos/" + deletedId, received.get(3));
+        for (String request : received) {
+            if (request.startsWith("POST ")) {
+                assertNull(repository.findById(idOf(request)));
+            }
+        }
+        assertEquals(40 - received.size() + 2, repository.count());
+    }
+
+    // Records the request, renaming the first ToDo received and deleting the
+    // second one on the node right after they were sent
+    private void receive(HttpExchange exchange) throws IOException {
+        if (exchange.getRequestMethod().equals("DELETE")) {
+            received.add("DELETE " + exchange.getRequestURI().getPath());
+        } else {
+            JsonNode toDo = mapper.readTree(exchange.getRequestBody());
+            int id = toDo.path("id").asInt();
+            received.add("POST " + id + " " + toDo.path("name").asText());
+            if (received.size() == 1) {
+                repository.update(id, changed -> {
+                    changed.setName(changed.getName() + " (renamed)");
+                    return changed;
+                });
+            } else if (received.size() == 3) {
+                repository.delete(id);
+            }
+        }
+        byte[] body = "{}".getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream output = exchange.getResponseBody()) {
+            output.write(body);
+        }
+    }
+
+    private static int idOf(String request) {
+        return Integer.parseInt(request.split(" ")[1]);
+    }
+}
@@ -1,12 +1,14 @@
 package todoapp.backend.controller;
 
 import static org.hamcrest.Matchers.hasSize;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.hamcrest.Matchers.is;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
@@ -16,6 +18,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -31,6 +34,7 @@ import org.springframework.http.MediaType;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.json.JsonMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
@@ -40,7 +44,10 @@ import todoapp.backend.enums.Status;
 import todoapp.backend.exception.ToDoNotFoundException;
 import todoapp.backend.model.FilterCriteria;
 import todoapp.backend.model.ToDo;
+import todoapp.backend.model.ToDoPatch;
+import todoapp.backend.serialization.CompactFormat;
 import todoapp.backend.service.ToDoService;
+import todoapp.backend.sync.ChangeSet;
 
 @WebMvcTest(ToDoController.class)
 public class ToDoControllerTest {
@@ -87,6 +94,146 @@ public class ToDoControllerTest {
                 .andExpect(jsonPath("$.sort.sorted", is(false)));
     }
 
+    @Test
+    @DisplayName("Test for GET('/todos') endpoint when the client accepts CBOR")
+    void testGetAllToDosAsCbor() throws Exception {
+        // expected response
+        Page<ToDo> expectedPage = new PageImpl<>(sampleToDos);
+
+        when(toDoService.getAllToDos(any(Pageable.class))).thenReturn(expectedPage);
+
+        byte[] body = mockMvc.perform(get("/todos")
+                .accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk()) // succesful response
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        // enums are written as ordinals and dates as epoch numbers
+        JsonNode page = CompactFormat.newCborMapper().readTree(body);
+        assertEquals(expectedPage.getContent().size(), page.path("content").size());
+        assertEquals(Priority.HIGH.ordinal(), page.path("content").path(0).path("priority").asInt());
+        assertEquals(toDo1.getDueDate().toEpochDay(), page.path("content").path(0).path("dueDate").asLong());
+        assertEquals(toDo1.getCreationMillis(), page.path("content").path(0).path("creationDate").asLong());
+    }
+
+    @Test
+    @DisplayName("Test for POST('/todos') endpoint with a CBOR body holding an unknown ordinal")
+    void testAddToDoAsCborWithUnknownOrdinal() throws Exception {
+        byte[] body = CompactFormat.newCborMapper().writeValueAsBytes(Map.of("name", "Bad priority", "priority", 7));
+
+        mockMvc.perform(post("/todos").contentType(MediaType.APPLICATION_CBOR).content(body)
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error", is("INVALID_TODO_PROPERTIES")));
+    }
+
+    @Test
+    @DisplayName("Test for GET('/todos') endpoint with a fields projection")
+    void testGetAllToDosWithFields() throws Exception {
+        // expected response
+        Page<ToDo> expectedPage = new PageImpl<>(sampleToDos);
+
+        when(toDoService.getAllToDos(any(Pageable.class))).thenReturn(expectedPage);
+
+        mockMvc.perform(get("/todos").param("fields", "id,name")
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk()) // succesful response
+                .andExpect(jsonPath("$.content", hasSize(expectedPage.getContent().size())))
+                .andExpect(jsonPath("$.content[0].name", is(toDo1.getName())))
+                .andExpect(jsonPath("$.content[0].priority").doesNotExist());
+    }
+
+    @Test
+    @DisplayName("Test for GET('/todos') endpoint with a fuzzy name search")
+    void testGetToDosByFuzzyName() throws Exception {
+        // expected response, ranked by relevance
+        Page<ToDo> expectedPage = new PageImpl<>(List.of(toDo2, toDo1));
+
+        when(toDoService.searchByName(any(FilterCriteria.class), any(Pageable.class))).thenReturn(expectedPage);
+
+        mockMvc.perform(get("/todos").param("name", "documentaton").param("fuzzy", "true")
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk()) // succesful response
+                .andExpect(jsonPath("$.content", hasSize(2)))
+                .andExpect(jsonPath("$.content[0].id", is(toDo2.getId())));
+
+        // there must be a name to search
+        mockMvc.perform(get("/todos").param("fuzzy", "true")
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("Test for GET('/todos') endpoint including the archived ToDos")
+    void testGetToDosIncludingArchived() throws Exception {
+        // expected response
+        Page<ToDo> expectedPage = new PageImpl<>(List.of(toDo1, toDo2));
+
+        when(toDoService.getIncludingArchived(any(), any(Pageable.class))).thenReturn(expectedPage);
+
+        mockMvc.perform(get("/todos").param("doneStatus", "DONE").param("archived", "true")
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk()) // succesful response
+                .andExpect(jsonPath("$.content", hasSize(2)));
+
+        // fuzzy searches only cover the live ToDos
+        mockMvc.perform(get("/todos").param("name", "api").param("fuzzy", "true").param("archived", "true")
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("Test for GET('/todos/changes') endpoint")
+    void testGetChanges() throws Exception {
+        when(toDoService.getChangesSince(42L, 1000))
+                .thenReturn(new ChangeSet(45, false, false, List.of(toDo1), List.of(2)));
+
+        mockMvc.perform(get("/todos/changes").param("since", "42")
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk()) // succesful response
+                .andExpect(jsonPath("$.version", is(45)))
+                .andExpect(jsonPath("$.resync", is(false)))
+                .andExpect(jsonPath("$.upserts[0].id", is(toDo1.getId())))
+                .andExpect(jsonPath("$.deletes[0]", is(2)));
+
+        // the limit is bounded
+        mockMvc.perform(get("/todos/changes").param("limit", "0")
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("Test for DELETE('/todos') and PATCH('/todos') endpoints")
+    void testBulkOperationsByCriteria() throws Exception {
+        when(toDoService.deleteByCriteria(any(FilterCriteria.class))).thenReturn(4);
+        when(toDoService.updateByCriteria(any(FilterCriteria.class), any(ToDoPatch.class))).thenReturn(2);
+
+        mockMvc.perform(delete("/todos").param("doneStatus", "DONE")
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk()) // succesful response
+                .andExpect(jsonPath("$.affected", is(4)));
+
+        mockMvc.perform(patch("/todos").param("priority", "LOW")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"priority\":\"HIGH\"}")
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk()) // succesful response
+                .andExpect(jsonPath("$.affected", is(2)));
+
+        // a bulk operation needs at least one criteria
+        mockMvc.perform(delete("/todos")
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("Test for GET('/todos') endpoint with an unknown field in the projection")
+    void testGetAllToDosWithUnknownField() throws Exception {
+        mockMvc.perform(get("/todos").param("fields", "id,owner")
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     @DisplayName("Test for GET('/todos') endpoint when filtering by at least 1 criteria but not sorting")
     void testGetAllToDosByFilterCriteria() throws Exception {
@@ -295,4 +442,13 @@ public class ToDoControllerTest {
                 .characterEncoding(StandardCharsets.UTF_8))
                 .andExpect(status().isNotFound());
     }
+
+    @Test
+    @DisplayName("Test for GET('/todos') endpoint when the tenant header is invalid")
+    void testGetAllToDosWithInvalidTenant() throws Exception {
+        mockMvc.perform(get("/todos").header("X-Tenant-Id", "team a/../b")
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error", is("INVALID_TENANT")));
+    }
 }
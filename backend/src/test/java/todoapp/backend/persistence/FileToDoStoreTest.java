@@ -0,0 +1,99 @@
+package todoapp.backend.persistence;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import todoapp.backend.enums.Priority;
+import todoapp.backend.model.ToDo;
+import todoapp.backend.replication.ReplicationOperation;
+
+class FileToDoStoreTest {
+
+    @Test
+    void testFailedBatchIsCutOffBeforeTheRetry() throws IOException {
+        Path file = Files.createTempDirectory("todos").resolve("todos.log");
+        FailingMapper mapper = new FailingMapper();
+        FileToDoStore store = new FileToDoStore(mapper, file.toString(), false);
+        store.write(List.of(add(1)));
+
+        // long enough for part of the batch to reach the file before it fails
+        List<ReplicationOperation> batch = new ArrayList<>();
+        for (int id = 2; id <= 200; id++) {
+            batch.add(add(id));
+        }
+        mapper.failOn = 200;
+        assertThrows(JsonProcessingException.class, () -> store.write(batch));
+        mapper.failOn = -1;
+        store.write(batch);
+        store.close();
+
+        // Assertions: every line is whole, and nothing was written twice
+        List<String> lines = Files.readAllLines(file);
+        assertEquals(200, lines.size());
+        for (String line : lines) {
+            mapper.readValue(line, ReplicationOperation.class);
+        }
+        assertEquals(200, store.load().get("default").size());
+    }
+
+    @Test
+    void testTornLineIsSkippedOnLoad() throws IOException {
+        Path file = Files.createTempDirectory("todos").resolve("todos.log");
+        ObjectMapper mapper = new FailingMapper();
+        FileToDoStore store = new FileToDoStore(mapper, file.toString(), false);
+        store.write(List.of(add(1)));
+        store.close();
+        // a line cut in the middle, followed by more changes
+        String torn = mapper.writeValueAsString(add(2));
+        Files.writeString(file, torn.substring(0, torn.length() / 2) + "\n", StandardCharsets.UTF_8,
+                StandardOpenOption.APPEND);
+        store.write(List.of(add(3)));
+        store.close();
+
+        Map<String, List<ToDo>> loaded = store.load();
+
+        // Assertions
+        assertEquals(List.of(1, 3), loaded.get("default").stream().map(ToDo::getId).toList());
+    }
+
+    private static ReplicationOperation add(int id) {
+        ToDo toDo = new ToDo(id, "A rather long name to fill the writer's buffer quickly, task " + id, null,
+                Priority.MEDIUM);
+        return new ReplicationOperation(0, ReplicationOperation.Type.ADD, "default", id, toDo);
+    }
+
+    // Fails to serialize the operation of the given ToDo ID
+    private static class FailingMapper extends ObjectMapper {
+        private int failOn = -1;
+
+        FailingMapper() {
+            registerModule(new JavaTimeModule());
+            disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        }
+
+        @Override
+        public String writeValueAsString(Object value) throws JsonProcessingException {
+            if (value instanceof ReplicationOperation operation && operation.getId() == failOn) {
+                throw JsonMappingException.from(this.getSerializerProvider(), "Could not serialize " + failOn);
+            }
+            return super.writeValueAsString(value);
+        }
+    }
+}
@@ -0,0 +1,266 @@
+package todoapp.backend.persistence;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import todoapp.backend.cluster.ShardRouter;
+import todoapp.backend.enums.Priority;
+import todoapp.backend.enums.Status;
+import todoapp.backend.exception.PersistenceBacklogException;
+import todoapp.backend.model.ToDo;
+import todoapp.backend.replication.ReplicationOperation;
+import todoapp.backend.repository.ToDoChangeListener;
+import todoapp.backend.repository.ToDoInMemoRepository;
+import todoapp.backend.util.TenantContext;
+
+class WriteBehindPipelineTest {
+
+    private final ObjectMapper mapper = JsonMapper.builder().addModule(new JavaTimeModule())
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES).build();
+
+    private final List<WriteBehindPipeline> pipelines = new ArrayList<>();
+
+    @AfterEach
+    void stop() throws InterruptedException {
+        for (WriteBehindPipeline pipeline : pipelines) {
+            pipeline.stop();
+        }
+        TenantContext.clear();
+    }
+
+    @Test
+    void testChangesAreRestoredFromTheFileStore() throws IOException, InterruptedException {
+        Path dir = Files.createTempDirectory("todos");
+        String file = dir.resolve("todos.log").toString();
+
+        ToDoInMemoRepository repository = newRepository(new FileToDoStore(mapper, file, false), 3, 10);
+        for (int id = 1; id <= 5; id++) {
+            repository.add(new ToDo(repository.nextId(), "Task " + id, LocalDate.of(2025, 8, id), Priority.HIGH));
+        }
+        repository.update(2, toDo -> {
+            toDo.setIsDone(Status.DONE);
+            return toDo;
+        });
+        repository.delete(4);
+        TenantContext.setTenantId("team-b");
+        repository.add(new ToDo(repository.nextId(), "Team B task", null, Priority.LOW));
+        TenantContext.clear();
+        pipelines.get(0).stop();
+
+        // a fresh repository gets everything back
+        ToDoInMemoRepository restored = newRepository(new FileToDoStore(mapper, file, false), 3, 10);
+        assertEquals(4, restored.count());
+        assertNull(restored.findById(4));
+        assertEquals(Status.DONE, restored.findById(2).getIsDone());
+        assertEquals(repository.findById(2).getDoneMillis(), restored.findById(2).getDoneMillis());
+        assertEquals(repository.findById(1).getCreationMillis(), restored.findById(1).getCreationMillis());
+        // new IDs don't reuse the restored ones
+        assertEquals(6, restored.nextId());
+        TenantContext.setTenantId("team-b");
+        assertEquals("Team B task", restored.findById(1).getName());
+
+        // the log was compacted to one line per live ToDo
+        assertEquals(5, Files.readAllLines(Path.of(file)).size());
+    }
+
+    @Test
+    void testChangesAreWrittenInBatches() throws InterruptedException {
+        RecordingStore store = new RecordingStore(null);
+        // a long flush interval: batches are only cut by their size
+        ToDoInMemoRepository repository = newRepository(store, 4, 60_000);
+        for (int id = 1; id <= 8; id++) {
+            repository.add(new ToDo(id, "Task " + id, null, Priority.LOW));
+        }
+        awaitTrue(() -> store.written().size() == 8);
+
+        assertEquals(List.of(4, 4), store.batchSizes());
+        assertEquals(8, pipelines.get(0).getWrittenCount());
+    }
+
+    @Test
+    void testWritesOfTheSameToDoKeepTheirOrderAndState() throws InterruptedException {
+        RecordingStore store = new RecordingStore(null);
+        ToDoInMemoRepository repository = newRepository(store, 100, 5);
+        ToDo toDo = repository.add(new ToDo(1, "Task", null, Priority.LOW));
+        toDo.setIsDone(Status.DONE);
+        repository.update(1, toDo);
+        repository.delete(1);
+        pipelines.get(0).stop();
+
+        List<ReplicationOperation> written = store.written();
+        assertEquals(3, written.size());
+        assertEquals(ReplicationOperation.Type.ADD, written.get(0).getType());
+        // each change was copied as it was then, not as the ToDo is now
+        assertEquals(Status.NOT_DONE, written.get(0).getToDo().getIsDone());
+        assertEquals(Status.DONE, written.get(1).getToDo().getIsDone());
+        assertEquals(ReplicationOperation.Type.DELETE, written.get(2).getType());
+    }
+
+    @Test
+    void testFullBufferHoldsBackNewChangesUntilTheStoreCatchesUp() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingStore store = new RecordingStore(release);
+        ToDoInMemoRepository repository = newRepository(store, 1, 1, 0, 10_000);
+        WriteBehindPipeline pipeline = pipelines.get(0);
+
+        // the first change is stuck in the store, the others are enqueued
+        // anyway: the listener never blocks under the stripe lock
+        for (int id = 1; id <= 3; id++) {
+            repository.add(new ToDo(id, "Task " + id, null, Priority.LOW));
+        }
+        assertTrue(pipeline.getPendingCount() >= 1);
+
+        // a new change waits for room before being made
+        Thread producer = new Thread(pipeline::awaitCapacity);
+        producer.start();
+        producer.join(300);
+        assertTrue(producer.isAlive());
+        assertTrue(store.written().isEmpty());
+
+        release.countDown();
+        producer.join(5000);
+        assertFalse(producer.isAlive());
+        awaitTrue(() -> store.written().size() == 3);
+    }
+
+    @Test
+    void testNewChangesFailWhenTheStoreDoesNotCatchUp() {
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingStore store = new RecordingStore(release);
+        ToDoInMemoRepository repository = newRepository(store, 1, 1, 0, 100);
+        try {
+            for (int id = 1; id <= 3; id++) {
+                repository.add(new ToDo(id, "Task " + id, null, Priority.LOW));
+            }
+
+            assertThrows(PersistenceBacklogException.class, pipelines.get(0)::awaitCapacity);
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    void testStopDrainsTheBuffer() throws InterruptedException {
+        RecordingStore store = new RecordingStore(null);
+        ToDoInMemoRepository repository = newRepository(store, 1000, 60_000);
+        for (int id = 1; id <= 100; id++) {
+            repository.add(new ToDo(id, "Task " + id, null, Priority.LOW));
+        }
+
+        long start = System.nanoTime();
+        pipelines.get(0).stop();
+
+        assertEquals(100, store.written().size());
+        assertEquals(0, pipelines.get(0).getPendingCount());
+        // stopping doesn't wait for the flush interval
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+    }
+
+    private ToDoInMemoRepository newRepository(ToDoStore store, int batchSize, long flushIntervalMillis) {
+        return newRepository(store, 1000, batchSize, flushIntervalMillis, 10_000);
+    }
+
+    // Repository whose changes go through a started pipeline, with the stored
+    // ToDos restored
+    private ToDoInMemoRepository newRepository(ToDoStore store, int bufferSize, int batchSize,
+            long flushIntervalMillis, long backPressureTimeoutMillis) {
+        AtomicReference<WriteBehindPipeline> pipelineRef = new AtomicReference<>();
+        ToDoChangeListener toPipeline = new ToDoChangeListener() {
+            @Override
+            public void onAdd(String tenantId, ToDo added) {
+                pipelineRef.get().onAdd(tenantId, added);
+            }
+
+            @Override
+            public void onUpdate(String tenantId, ToDo previous, ToDo updated) {
+                pipelineRef.get().onUpdate(tenantId, previous, updated);
+            }
+
+            @Override
+            public void onDelete(String tenantId, ToDo deleted) {
+                pipelineRef.get().onDelete(tenantId, deleted);
+            }
+        };
+        ToDoInMemoRepository repository = new ToDoInMemoRepository(4, List.of(toPipeline));
+        ShardRouter shardRouter = new ShardRouter(repository, mapper, false, "http://localhost:9090", "", 0, 64, 128,
+                "");
+        WriteBehindPipeline pipeline = new WriteBehindPipeline(repository, shardRouter, store, bufferSize, batchSize,
+                flushIntervalMillis, 10_000, backPressureTimeoutMillis);
+        pipelineRef.set(pipeline);
+        pipelines.add(pipeline);
+        pipeline.afterSingletonsInstantiated();
+        return repository;
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(condition.getAsBoolean());
+    }
+
+    // Keeps the written batches in memory, optionally waiting for a latch
+    // before writing
+    private static class RecordingStore implements ToDoStore {
+        private final CountDownLatch release;
+        private final List<List<ReplicationOperation>> batches = Collections.synchronizedList(new ArrayList<>());
+
+        RecordingStore(CountDownLatch release) {
+            this.release = release;
+        }
+
+        @Override
+        public void write(List<ReplicationOperation> batch) throws IOException {
+            if (release != null) {
+                try {
+                    release.await();
+                } catch (InterruptedException ex) {
+                    throw new IOException(ex);
+                }
+            }
+            batches.add(List.copyOf(batch));
+        }
+
+        @Override
+        public Map<String, List<ToDo>> load() {
+            return Map.of();
+        }
+
+        List<Integer> batchSizes() {
+            synchronized (batches) {
+                return batches.stream().map(List::size).toList();
+            }
+        }
+
+        List<ReplicationOperation> written() {
+            synchronized (batches) {
+                return batches.stream().flatMap(List::stream).toList();
+            }
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package todoapp.backend.query;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+
+import todoapp.backend.enums.Priority;
+import todoapp.backend.enums.Status;
+import todoapp.backend.model.FilterCriteria;
+import todoapp.backend.model.ToDo;
+
+class ParallelQueryExecutorTest {
+
+    private ParallelQueryExecutor executor;
+    private List<ToDo> toDos;
+
+    @BeforeEach
+    void init() {
+        // small chunks so that every query spans many of them
+        executor = new ParallelQueryExecutor(100, 4, 37);
+
+        Random random = new Random(42);
+        toDos = new ArrayList<>();
+        for (int i = 1; i <= 1000; i++) {
+            LocalDate dueDate = random.nextInt(4) == 0 ? null : LocalDate.of(2025, 1, 1).plusDays(random.nextInt(30));
+            ToDo toDo = new ToDo(i, "Task " + random.nextInt(50), dueDate, Priority.values()[random.nextInt(3)]);
+            if (random.nextBoolean()) {
+                toDo.setIsDone(Status.DONE);
+            }
+            toDos.add(toDo);
+        }
+    }
+
+    @AfterEach
+    void shutdown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void testThreshold() {
+        assertFalse(executor.isWorthParallelizing(99));
+        assertTrue(executor.isWorthParallelizing(100));
+    }
+
+    @Test
+    void testUnsortedPageMatchesSequentialQuery() {
+        Predicate<ToDo> filter = new FilterCriteria("1", null, Status.DONE).toPredicate();
+
+        for (int page = 0; page < 5; page++) {
+            assertSamePage(filter, null, PageRequest.of(page, 10));
+        }
+    }
+
+    @Test
+    void testSortedPageMatchesSequentialQuery() {
+        Comparator<ToDo> comparator = Comparator
+                .comparing(ToDo::getPriority, Comparator.nullsLast(Comparator.<Priority>naturalOrder()))
+                .thenComparing(ToDo::getDueDate, Comparator.nullsLast(Comparator.<LocalDate>naturalOrder()));
+
+        for (int page = 0; page < 5; page++) {
+            assertSamePage(null, comparator, PageRequest.of(page, 25));
+            assertSamePage(new FilterCriteria(null, Priority.LOW, null).toPredicate(), comparator.reversed(),
+                    PageRequest.of(page, 7));
+        }
+    }
+
+    @Test
+    void testPageBeyondLastMatch() {
+        Page<ToDo> page = executor.findPage(toDos, null, null, PageRequest.of(500, 10));
+
+        assertEquals(0, page.getContent().size());
+        assertEquals(1000L, page.getTotalElements());
+    }
+
+    // compares the parallel result with filtering, stably sorting and slicing
+    // the whole list sequentially
+    private void assertSamePage(Predicate<ToDo> filter, Comparator<ToDo> comparator, PageRequest pageReq) {
+        List<ToDo> expected = toDos.stream().filter(toDo -> filter == null || filter.test(toDo))
+                .collect(Collectors.toList());
+        long total = expected.size();
+        if (comparator != null) {
+            expected.sort(comparator);
+        }
+        int start = (int) Math.min(pageReq.getOffset(), expected.size());
+        int end = Math.min(start + pageReq.getPageSize(), expected.size());
+
+        Page<ToDo> page = executor.findPage(toDos, filter, comparator, pageReq);
+
+        assertEquals(expected.subList(start, end), page.getContent());
+        assertEquals(total, page.getTotalElements());
+    }
+}
@@ -0,0 +1,152 @@
+package todoapp.backend.query;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+
+import todoapp.backend.enums.Priority;
+import todoapp.backend.enums.Status;
+import todoapp.backend.exception.InvalidRequestParamsException;
+import todoapp.backend.model.ToDo;
+
+class SortPlanTest {
+
+    private static final String[] NAMES = { "Write report", "write Report", "Fix bug", "Fix bugs", "\u00dcn\u00efcode task",
+            "Call client about the contract", "Call client about the invoice", "a", "" };
+
+    private List<ToDo> toDos;
+
+    @BeforeEach
+    void init() {
+        Random random = new Random(42);
+        toDos = new ArrayList<>();
+        for (int i = 1; i <= 2000; i++) {
+            LocalDate dueDate = random.nextInt(4) == 0 ? null : LocalDate.of(2025, 1, 1).plusDays(random.nextInt(30));
+            Priority priority = random.nextInt(8) == 0 ? null : Priority.values()[random.nextInt(3)];
+            ToDo toDo = new ToDo(i, NAMES[random.nextInt(NAMES.length)], dueDate, priority);
+            toDo.setCreationMillis(1_750_000_000_000L + random.nextInt(1000));
+            if (random.nextBoolean()) {
+                toDo.setIsDone(Status.DONE);
+                toDo.setDoneMillis(toDo.getCreationMillis() + random.nextInt(100));
+            }
+            toDos.add(toDo);
+        }
+    }
+
+    @Test
+    void testSortsLikeTheComparators() {
+        List<Sort> sorts = List.of(Sort.by("priority"), Sort.by(Sort.Direction.DESC, "dueDate"),
+                Sort.by("name"), Sort.by(Sort.Direction.DESC, "name"), Sort.by("doneDate", "creationDate"),
+                Sort.by(new Sort.Order(Sort.Direction.DESC, "priority"), new Sort.Order(Sort.Direction.ASC, "dueDate")),
+                // more bits than a key holds, so the last fields are sorted through ties
+                Sort.by(new Sort.Order(Sort.Direction.ASC, "dueDate"), new Sort.Order(Sort.Direction.DESC, "doneDate"),
+                        new Sort.Order(Sort.Direction.ASC, "priority"), new Sort.Order(Sort.Direction.DESC, "name")));
+
+        for (Sort sort : sorts) {
+            List<ToDo> expected = new ArrayList<>(toDos);
+            expected.sort(referenceOrder(sort));
+
+            // Assertions
+            assertEquals(ids(expected), ids(SortPlan.of(sort).sort(toDos)), sort.toString());
+        }
+    }
+
+    @Test
+    void testNamesPastLatin1AreSortedLikeTheComparator() {
+        // characters past 253 share a key byte, so the characters after them
+        // must not decide the order
+        String[] names = { "a\u0100b", "a\u00FFc", "a\u00FEz", "A\u0101a", "a\u00FFa", "\u0416b", "\u0436a", "ab",
+                "a\u0100" };
+        List<ToDo> nonLatin1 = new ArrayList<>();
+        for (int i = 1; i <= 100; i++) {
+            nonLatin1.add(new ToDo(i, names[i % names.length], null, Priority.LOW));
+        }
+
+        for (Sort sort : List.of(Sort.by("name"), Sort.by(Sort.Direction.DESC, "name"))) {
+            List<ToDo> expected = new ArrayList<>(nonLatin1);
+            expected.sort(referenceOrder(sort));
+
+            // Assertions
+            assertEquals(ids(expected), ids(SortPlan.of(sort).sort(nonLatin1)), sort.toString());
+        }
+    }
+
+    @Test
+    void testNullsAreLastWhenAscendingAndFirstWhenDescending() {
+        List<ToDo> small = List.of(new ToDo(1, "One", LocalDate.of(2025, 8, 4), Priority.LOW),
+                new ToDo(2, "Two", null, Priority.HIGH), new ToDo(3, "Three", LocalDate.of(2025, 7, 18), null));
+
+        // Assertions
+        assertEquals(List.of(3, 1, 2), ids(SortPlan.of(Sort.by("dueDate")).sort(small)));
+        assertEquals(List.of(2, 1, 3), ids(SortPlan.of(Sort.by(Sort.Direction.DESC, "dueDate")).sort(small)));
+        assertEquals(List.of(1, 2, 3), ids(SortPlan.of(Sort.by("priority")).sort(small)));
+        assertEquals(List.of(3, 2, 1), ids(SortPlan.of(Sort.by(Sort.Direction.DESC, "priority")).sort(small)));
+    }
+
+    @Test
+    void testKeysFollowTheComparator() {
+        SortPlan plan = SortPlan.of(Sort.by(new Sort.Order(Sort.Direction.DESC, "priority"),
+                new Sort.Order(Sort.Direction.ASC, "dueDate")));
+
+        for (int i = 1; i < toDos.size(); i++) {
+            int byComparator = Integer.signum(plan.comparator().compare(toDos.get(i - 1), toDos.get(i)));
+            int byKey = Integer.signum(Long.compareUnsigned(plan.keyOf(toDos.get(i - 1)), plan.keyOf(toDos.get(i))));
+
+            // Assertions
+            assertEquals(byComparator, byKey);
+        }
+    }
+
+    @Test
+    void testRadixSortIsStableOnUnsignedKeys() {
+        long[] keys = { 5, -1, 0, 5, Long.MIN_VALUE, 1L << 40, 5 };
+        int[] order = { 0, 1, 2, 3, 4, 5, 6 };
+
+        SortPlan.radixSort(keys, order, Long.SIZE);
+
+        // Assertions
+        assertArrayEquals(new long[] { 0, 5, 5, 5, 1L << 40, Long.MIN_VALUE, -1 }, keys);
+        assertArrayEquals(new int[] { 2, 0, 3, 6, 5, 4, 1 }, order);
+    }
+
+    @Test
+    void testPlansAreCachedAndUnknownPropertiesRejected() {
+        assertSame(SortPlan.of(Sort.by("name", "dueDate")), SortPlan.of(Sort.by("name", "dueDate")));
+        assertTrue(SortPlan.of(Sort.unsorted()).isUnsorted());
+        assertEquals(ids(toDos), ids(SortPlan.of(null).sort(toDos)));
+        assertThrows(InvalidRequestParamsException.class, () -> SortPlan.of(Sort.by("owner")));
+    }
+
+    private static Comparator<ToDo> referenceOrder(Sort sort) {
+        Comparator<ToDo> order = (a, b) -> 0;
+        for (Sort.Order sortOrder : sort) {
+            Comparator<ToDo> byProperty = switch (sortOrder.getProperty()) {
+                case "dueDate" -> Comparator.comparing(ToDo::getDueDate, Comparator.nullsLast(Comparator.naturalOrder()));
+                case "priority" -> Comparator.comparing(ToDo::getPriority,
+                        Comparator.nullsLast(Comparator.naturalOrder()));
+                case "creationDate" -> Comparator.comparingLong(ToDo::getCreationMillis);
+                case "doneDate" -> Comparator.comparing(ToDo::getDoneDate, Comparator.nullsLast(Comparator.naturalOrder()));
+                case "name" -> Comparator.comparing(ToDo::getName, String.CASE_INSENSITIVE_ORDER);
+                default -> throw new IllegalArgumentException(sortOrder.getProperty());
+            };
+            order = order.thenComparing(sortOrder.isAscending() ? byProperty : byProperty.reversed());
+        }
+        return order;
+    }
+
+    private static List<Integer> ids(List<ToDo> toDos) {
+        return toDos.stream().map(ToDo::getId).toList();
+    }
+}
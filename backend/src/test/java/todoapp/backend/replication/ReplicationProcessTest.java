@@ -0,0 +1,161 @@
+package todoapp.backend.replication;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import todoapp.backend.enums.Priority;
+import todoapp.backend.model.ToDo;
+import todoapp.backend.repository.ToDoChangeListener;
+import todoapp.backend.repository.ToDoInMemoRepository;
+import todoapp.backend.util.TenantContext;
+
+/**
+ * Runs followers as separate backend JVMs on localhost, replicating from a
+ * leader in the test's JVM, and reads them through their HTTP API.
+ */
+class ReplicationProcessTest {
+    private static final long STARTUP_TIMEOUT_MILLIS = 60000;
+
+    private final ObjectMapper mapper = JsonMapper.builder().addModule(new JavaTimeModule())
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES).build();
+    private final HttpClient http = HttpClient.newHttpClient();
+    private final List<Process> followers = new ArrayList<>();
+
+    private ToDoInMemoRepository leaderRepository;
+    private ReplicationLeader leader;
+
+    @BeforeEach
+    void init() throws IOException {
+        ReplicationLeader[] leaderRef = new ReplicationLeader[1];
+        ToDoChangeListener toLeader = new ToDoChangeListener() {
+            @Override
+            public void onAdd(String tenantId, ToDo added) {
+                leaderRef[0].onAdd(tenantId, added);
+            }
+
+            @Override
+            public void onUpdate(String tenantId, ToDo previous, ToDo updated) {
+                leaderRef[0].onUpdate(tenantId, previous, updated);
+            }
+
+            @Override
+            public void onDelete(String tenantId, ToDo deleted) {
+                leaderRef[0].onDelete(tenantId, deleted);
+            }
+        };
+        leaderRepository = new ToDoInMemoRepository(4, List.of(toLeader));
+        leader = new ReplicationLeader(leaderRepository, mapper, 0, 100000);
+        leaderRef[0] = leader;
+        leader.start();
+    }
+
+    @AfterEach
+    void stop() throws IOException, InterruptedException {
+        for (Process follower : followers) {
+            follower.destroy();
+            follower.waitFor();
+        }
+        leader.stop();
+        TenantContext.clear();
+    }
+
+    @Test
+    void testFollowerJvmsServeTheLeadersToDos() throws Exception {
+        for (int id = 1; id <= 100; id++) {
+            leaderRepository.add(new ToDo(id, "Task " + id, null, Priority.LOW));
+        }
+        int[] ports = { startFollower(), startFollower() };
+
+        // written while the followers start and take their snapshot
+        for (int id = 1; id <= 100; id += 2) {
+            leaderRepository.delete(id);
+        }
+        for (int id = 101; id <= 120; id++) {
+            leaderRepository.add(new ToDo(id, "Task " + id, null, Priority.HIGH));
+        }
+
+        // Assertions
+        Set<String> expected = new TreeSet<>();
+        leaderRepository.findAll().forEach(toDo -> expected.add(toDo.getName()));
+        assertEquals(70, expected.size());
+        for (int port : ports) {
+            awaitNames(port, expected);
+            HttpResponse<String> write = http.send(request(port, "/todos/2").DELETE().build(),
+                    HttpResponse.BodyHandlers.ofString());
+            assertTrue(write.statusCode() >= 400);
+        }
+        assertEquals(2, leader.getFollowerCount());
+    }
+
+    private int startFollower() throws IOException {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+
+        String java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+        ProcessBuilder builder = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                "todoapp.backend.BackendApplication", "--server.port=" + port,
+                "--todo.replication.role=follower", "--todo.replication.leader-host=localhost",
+                "--todo.replication.port=" + leader.getPort());
+        builder.redirectErrorStream(true);
+        builder.redirectOutput(new File("target/replication-follower-" + port + ".log"));
+        followers.add(builder.start());
+        return port;
+    }
+
+    // Waits for the follower to start and to hold exactly the given ToDo names
+    private void awaitNames(int port, Set<String> expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + STARTUP_TIMEOUT_MILLIS;
+        Set<String> names = Set.of();
+        while (System.currentTimeMillis() < deadline) {
+            try {
+                names = names(port);
+                if (names.equals(expected)) {
+                    return;
+                }
+            } catch (IOException ex) {
+                // not started yet
+            }
+            Thread.sleep(100);
+        }
+        assertEquals(expected, names);
+    }
+
+    private Set<String> names(int port) throws IOException, InterruptedException {
+        HttpResponse<String> response = http.send(request(port, "/todos?page=0&size=1000").GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+        Set<String> names = new TreeSet<>();
+        for (JsonNode toDo : mapper.readTree(response.body()).path("content")) {
+            names.add(toDo.path("name").asText());
+        }
+        return names;
+    }
+
+    private static HttpRequest.Builder request(int port, String path) {
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + port + path));
+    }
+}
@@ -0,0 +1,158 @@
+package todoapp.backend.replication;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import todoapp.backend.enums.Priority;
+import todoapp.backend.enums.Status;
+import todoapp.backend.model.ToDo;
+import todoapp.backend.repository.ToDoChangeListener;
+import todoapp.backend.repository.ToDoInMemoRepository;
+import todoapp.backend.util.TenantContext;
+
+class ReplicationTest {
+
+    private final ObjectMapper mapper = JsonMapper.builder().addModule(new JavaTimeModule())
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES).build();
+
+    private ToDoInMemoRepository leaderRepository;
+    private ToDoInMemoRepository followerRepository;
+    private ReplicationLeader leader;
+    private ReplicationFollower follower;
+
+    @BeforeEach
+    void init() throws IOException {
+        // the leader listens to the repository it also takes snapshots from
+        AtomicReference<ReplicationLeader> leaderRef = new AtomicReference<>();
+        ToDoChangeListener toLeader = new ToDoChangeListener() {
+            @Override
+            public void onAdd(String tenantId, ToDo added) {
+                leaderRef.get().onAdd(tenantId, added);
+            }
+
+            @Override
+            public void onUpdate(String tenantId, ToDo previous, ToDo updated) {
+                leaderRef.get().onUpdate(tenantId, previous, updated);
+            }
+
+            @Override
+            public void onDelete(String tenantId, ToDo deleted) {
+                leaderRef.get().onDelete(tenantId, deleted);
+            }
+        };
+        leaderRepository = new ToDoInMemoRepository(4, List.of(toLeader));
+        leader = new ReplicationLeader(leaderRepository, mapper, 0, 100000);
+        leaderRef.set(leader);
+        leader.start();
+
+        followerRepository = new ToDoInMemoRepository(4);
+    }
+
+    @AfterEach
+    void stop() throws IOException {
+        if (follower != null) {
+            follower.stop();
+        }
+        leader.stop();
+        TenantContext.clear();
+    }
+
+    @Test
+    void testFollowerReceivesSnapshotAndLaterChanges() throws InterruptedException {
+        // written before the follower connects: shipped in the snapshot
+        leaderRepository.add(new ToDo(1, "Test API", LocalDate.of(2025, 8, 4), Priority.HIGH));
+        leaderRepository.add(new ToDo(2, "Write API documentation", null, Priority.LOW));
+
+        follower = new ReplicationFollower(followerRepository, mapper, "localhost", leader.getPort());
+        follower.start();
+        awaitTrue(() -> followerRepository.findAll().size() == 2);
+
+        // written afterwards: shipped as operations
+        ToDo done = leaderRepository.findById(1);
+        done.setIsDone(Status.DONE);
+        leaderRepository.update(1, done);
+        leaderRepository.delete(2);
+        leaderRepository.add(new ToDo(3, "Finish essay", null, Priority.MEDIUM));
+
+        TenantContext.setTenantId("team-b");
+        leaderRepository.add(new ToDo(1, "Team B task", null, Priority.LOW));
+        TenantContext.clear();
+
+        awaitTrue(() -> followerRepository.findById(3) != null);
+
+        // Assertions
+        assertEquals(Status.DONE, followerRepository.findById(1).getIsDone());
+        // dates are shipped with millisecond precision
+        assertEquals(done.getDoneDate().truncatedTo(ChronoUnit.MILLIS), followerRepository.findById(1).getDoneDate());
+        assertNull(followerRepository.findById(2));
+        assertEquals(1, followerRepository.getCompletionStats().getCount());
+
+        TenantContext.setTenantId("team-b");
+        awaitTrue(() -> followerRepository.findById(1) != null);
+        assertEquals("Team B task", followerRepository.findById(1).getName());
+        assertTrue(follower.getLastAppliedSequence() > 0);
+    }
+
+    @Test
+    void testFollowerConnectingDuringWritesConverges() throws InterruptedException {
+        for (int id = 1; id <= 20000; id++) {
+            leaderRepository.add(new ToDo(id, "Task " + id, null, Priority.LOW));
+        }
+
+        // deletes and updates race with the snapshot read and sent to the follower
+        Thread writer = new Thread(() -> {
+            for (int id = 1; id <= 20000; id++) {
+                if (id % 2 == 1) {
+                    leaderRepository.delete(id);
+                } else {
+                    ToDo toDo = leaderRepository.findById(id);
+                    toDo.setName("Renamed " + id);
+                    leaderRepository.update(id, toDo);
+                }
+            }
+        });
+        follower = new ReplicationFollower(followerRepository, mapper, "localhost", leader.getPort());
+        writer.start();
+        follower.start();
+        writer.join();
+
+        // Assertions
+        awaitTrue(() -> names(followerRepository).equals(names(leaderRepository)));
+        assertEquals(10000, names(followerRepository).size());
+    }
+
+    private static Map<Integer, String> names(ToDoInMemoRepository repository) {
+        Map<Integer, String> names = new HashMap<>();
+        for (ToDo toDo : repository.findAll()) {
+            names.put(toDo.getId(), toDo.getName());
+        }
+        return names;
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(condition.getAsBoolean());
+    }
+}
@@ -0,0 +1,28 @@
+package todoapp.backend.repository;
+
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.AfterEach;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+class JdbcToDoRepositoryContractTest extends ToDoRepositoryContractTest {
+
+    private JdbcTemplate jdbcTemplate;
+
+    @Override
+    protected ToDoRepository newRepository() {
+        // a private in-memory database per test
+        jdbcTemplate = new JdbcTemplate(
+                new DriverManagerDataSource("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1"));
+        JdbcToDoRepository repository = new JdbcToDoRepository(jdbcTemplate, List.of(), 100, 10);
+        repository.init();
+        return repository;
+    }
+
+    @AfterEach
+    void shutdown() {
+        jdbcTemplate.execute("SHUTDOWN");
+    }
+}
@@ -0,0 +1,216 @@
+package todoapp.backend.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import todoapp.backend.enums.Priority;
+import todoapp.backend.enums.Status;
+import todoapp.backend.exception.InvalidRequestParamsException;
+import todoapp.backend.model.CompletionStats;
+import todoapp.backend.model.FilterCriteria;
+import todoapp.backend.model.ToDo;
+import todoapp.backend.util.TenantContext;
+
+class JdbcToDoRepositoryTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private JdbcToDoRepository toDoRepository;
+    private final List<String> changes = new ArrayList<>();
+
+    @BeforeEach
+    void init() {
+        // a private in-memory database per test
+        jdbcTemplate = new JdbcTemplate(
+                new DriverManagerDataSource("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1"));
+        toDoRepository = newRepository();
+        toDoRepository.add(new ToDo(1, "Test API", LocalDate.of(2025, 8, 4), Priority.HIGH));
+        toDoRepository.add(new ToDo(2, "Write API documentation", null, Priority.LOW));
+        toDoRepository.add(new ToDo(3, "Finish essay", LocalDate.of(2025, 7, 18), Priority.MEDIUM));
+    }
+
+    @AfterEach
+    void clear() {
+        jdbcTemplate.execute("SHUTDOWN");
+        TenantContext.clear();
+    }
+
+    @Test
+    void testFindByCriteriaIsRunInSql() {
+        FilterCriteria criteria = new FilterCriteria("api", null, Status.NOT_DONE);
+
+        Page<ToDo> page = toDoRepository.findPage(criteria, PageRequest.of(0, 10));
+
+        // Assertions
+        assertEquals(2, page.getTotalElements());
+        assertEquals(List.of(1, 2), page.getContent().stream().map(ToDo::getId).toList());
+        assertEquals(2, toDoRepository.findAllByCriteria(criteria).size());
+    }
+
+    @Test
+    void testNameFilterTreatsWildcardsLiterally() {
+        toDoRepository.add(new ToDo(4, "Reach 100% coverage", null, Priority.LOW));
+
+        FilterCriteria criteria = new FilterCriteria("0%", null, null);
+
+        // Assertions
+        assertEquals(List.of(4), toDoRepository.findAllByCriteria(criteria).stream().map(ToDo::getId).toList());
+    }
+
+    @Test
+    void testFindPageSortsLikeTheInMemoryRepository() {
+        // due date ascending puts the ToDo without one last...
+        Page<ToDo> page = toDoRepository.findPage(null, PageRequest.of(0, 10, Sort.by("dueDate")));
+        assertEquals(List.of(3, 1, 2), page.getContent().stream().map(ToDo::getId).toList());
+
+        // ...and descending first
+        page = toDoRepository.findPage(null,
+                PageRequest.of(0, 10, Sort.by(new Sort.Order(Sort.Direction.DESC, "dueDate"))));
+        assertEquals(List.of(2, 1, 3), page.getContent().stream().map(ToDo::getId).toList());
+
+        // pages are sliced by the database
+        page = toDoRepository.findPage(null, PageRequest.of(1, 2, Sort.by("priority")));
+        assertEquals(3, page.getTotalElements());
+        assertEquals(List.of(1), page.getContent().stream().map(ToDo::getId).toList());
+    }
+
+    @Test
+    void testUnknownSortPropertyIsRejected() {
+        assertThrows(InvalidRequestParamsException.class,
+                () -> toDoRepository.findPage(null, PageRequest.of(0, 10, Sort.by("owner"))));
+    }
+
+    @Test
+    void testWritesInvalidateCachedPagesAndToDos() {
+        PageRequest pageReq = PageRequest.of(0, 10);
+        assertEquals(3, toDoRepository.findPage(null, pageReq).getTotalElements());
+
+        ToDo toDo = toDoRepository.findById(1);
+        toDo.setIsDone(Status.DONE);
+        // modifying a returned ToDo doesn't change the cached one
+        assertEquals(Status.NOT_DONE, toDoRepository.findById(1).getIsDone());
+
+        toDoRepository.update(1, toDo);
+        toDoRepository.delete(2);
+
+        // Assertions
+        assertEquals(Status.DONE, toDoRepository.findById(1).getIsDone());
+        assertNull(toDoRepository.findById(2));
+        Page<ToDo> page = toDoRepository.findPage(null, pageReq);
+        assertEquals(2, page.getTotalElements());
+        assertEquals(Status.DONE, page.getContent().get(0).getIsDone());
+        assertEquals(1, toDoRepository.getCompletionStats().getCount());
+    }
+
+    @Test
+    void testToDosAreReadBackWithTheirDates() {
+        ToDo toDo = toDoRepository.findById(3);
+        toDo.setIsDone(Status.DONE);
+        toDo.setDoneMillis(toDo.getCreationMillis() + 90_000);
+        toDoRepository.update(3, toDo);
+
+        // a new repository has an empty cache
+        ToDo stored = newRepository().findById(3);
+
+        // Assertions
+        assertEquals("Finish essay", stored.getName());
+        assertEquals(LocalDate.of(2025, 7, 18), stored.getDueDate());
+        assertEquals(Priority.MEDIUM, stored.getPriority());
+        assertEquals(toDo.getCreationMillis(), stored.getCreationMillis());
+        assertEquals(toDo.getDoneMillis(), stored.getDoneMillis());
+        assertEquals(ToDo.NO_DATE, newRepository().findById(1).getDoneMillis());
+    }
+
+    @Test
+    void testCompletionStatsMatchTheInMemoryAccumulators() {
+        ToDo toDo = toDoRepository.findById(1);
+        toDo.setIsDone(Status.DONE);
+        toDo.setDoneMillis(toDo.getCreationMillis() + 120_500);
+        toDoRepository.update(1, toDo);
+
+        CompletionStats stats = toDoRepository.getCompletionStats();
+
+        // Assertions
+        assertEquals(1, stats.getCount());
+        assertEquals(120, stats.getTotalSeconds());
+        assertEquals(120.0, stats.getAverageSeconds(Priority.HIGH));
+        assertEquals(0, stats.getCount(Priority.LOW));
+    }
+
+    @Test
+    void testIdsAreSequentialAndSurviveRestarts() {
+        int first = toDoRepository.nextId();
+        int second = toDoRepository.nextId();
+
+        // Assertions
+        assertTrue(first > 3);
+        assertEquals(first + 1, second);
+        assertTrue(newRepository().nextId() > second);
+    }
+
+    @Test
+    void testTenantsAreIsolated() {
+        TenantContext.setTenantId("team-b");
+
+        // Assertions
+        assertEquals(0, toDoRepository.count());
+        assertNull(toDoRepository.findById(1));
+        assertFalse(toDoRepository.delete(1));
+
+        TenantContext.clear();
+        assertEquals(3, toDoRepository.count());
+    }
+
+    @Test
+    void testListenersSeeChangesAndStoredToDosOnStartup() {
+        assertEquals(List.of("add 1", "add 2", "add 3"), changes);
+
+        changes.clear();
+        toDoRepository.update(2, toDoRepository.findById(2));
+        toDoRepository.delete(2);
+        assertEquals(List.of("update 2", "delete 2"), changes);
+
+        // stored ToDos are replayed to the listeners of a new repository
+        changes.clear();
+        newRepository();
+        assertEquals(List.of("add 1", "add 3"), changes);
+    }
+
+    private JdbcToDoRepository newRepository() {
+        ToDoChangeListener recorder = new ToDoChangeListener() {
+            @Override
+            public void onAdd(String tenantId, ToDo added) {
+                changes.add("add " + added.getId());
+            }
+
+            @Override
+            public void onUpdate(String tenantId, ToDo previous, ToDo updated) {
+                changes.add("update " + updated.getId());
+            }
+
+            @Override
+            public void onDelete(String tenantId, ToDo deleted) {
+                changes.add("delete " + deleted.getId());
+            }
+        };
+        JdbcToDoRepository repository = new JdbcToDoRepository(jdbcTemplate, List.of(recorder), 100, 10);
+        repository.init();
+        return repository;
+    }
+}
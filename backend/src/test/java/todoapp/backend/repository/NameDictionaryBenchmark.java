@@ -0,0 +1,102 @@
+package todoapp.backend.repository;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import org.junit.jupiter.api.Test;
+
+import todoapp.backend.enums.Priority;
+import todoapp.backend.enums.Status;
+import todoapp.backend.model.FilterCriteria;
+import todoapp.backend.model.ToDo;
+
+/**
+ * Measures the heap taken by the names of 100000 ToDos (set with
+ * -Dtodo.benchmark.size) with and without the name dictionary, and how long a
+ * name filter takes lower casing every name or going through the dictionary.
+ * Not part of the unit tests, run it with {@code mvn test -Pbenchmarks}.
+ */
+class NameDictionaryBenchmark {
+    private static final int SIZE = Integer.getInteger("todo.benchmark.size", 100_000);
+    private static final int WARMUP_ROUNDS = 50;
+    private static final int MEASURED_ROUNDS = 50;
+
+    @Test
+    void heapAndNameFilter() {
+        NameDictionary dictionary = new NameDictionary();
+        ToDoStripe stripe = new ToDoStripe("default", new ToDoChangeListener() {
+        }, Runnable::run, dictionary);
+        List<ToDo> unshared = new ArrayList<>(SIZE);
+        Random random = new Random(42);
+        for (int id = 1; id <= SIZE; id++) {
+            // a new instance per ToDo, as when read from a request body
+            String name = new String(NameDictionaryTest.realisticName(random, id));
+            unshared.add(new ToDo(id, name, null, Priority.values()[id % 3]));
+            stripe.add(new ToDo(id, new String(name), null, Priority.values()[id % 3]));
+        }
+        List<ToDo> stored = stripe.findAll();
+
+        long unsharedBytes = nameBytes(unshared);
+        long sharedBytes = nameBytes(stored) + dictionaryBytes(stored);
+        System.out.printf("%d ToDos, %d distinct names: %d KB of names without the dictionary, %d KB with it%n",
+                SIZE, dictionary.size(), unsharedBytes / 1024, sharedBytes / 1024);
+
+        // the same scan, lower casing every name or going through the dictionary
+        Predicate<ToDo> plain = new FilterCriteria("review", null, Status.NOT_DONE).toPredicate();
+        Predicate<ToDo> otherCriteria = new FilterCriteria(null, null, Status.NOT_DONE).toPredicate();
+        long plainNanos = 0;
+        long dictionaryNanos = 0;
+        for (int round = 0; round < WARMUP_ROUNDS + MEASURED_ROUNDS; round++) {
+            long start = System.nanoTime();
+            stripe.findAll(plain);
+            long middle = System.nanoTime();
+            stripe.findAll("review", otherCriteria);
+            long end = System.nanoTime();
+            if (round >= WARMUP_ROUNDS) {
+                plainNanos += middle - start;
+                dictionaryNanos += end - middle;
+            }
+        }
+        System.out.printf("Name filter over %d ToDos: %.2f ms lower casing each name, %.2f ms with the dictionary%n",
+                SIZE, plainNanos / 1e6 / MEASURED_ROUNDS, dictionaryNanos / 1e6 / MEASURED_ROUNDS);
+    }
+
+    // Shallow size of the distinct String instances, with compressed oops:
+    // a 24 bytes String plus its byte[] (16 bytes header, Latin-1 or UTF-16)
+    private static long nameBytes(List<ToDo> toDos) {
+        Set<String> instances = Collections.newSetFromMap(new IdentityHashMap<>());
+        long bytes = 0;
+        for (ToDo toDo : toDos) {
+            if (instances.add(toDo.getName())) {
+                bytes += stringBytes(toDo.getName());
+            }
+        }
+        return bytes;
+    }
+
+    // Per distinct name an entry (32 bytes with its remembered match), its
+    // lower cased String (counted as a copy, though String.toLowerCase()
+    // returns the same instance when nothing changes) and a map node (32
+    // bytes) with its table slot; per ToDo, the reference kept by its slot
+    private static long dictionaryBytes(List<ToDo> stored) {
+        Set<String> names = Collections.newSetFromMap(new IdentityHashMap<>());
+        long bytes = 0;
+        for (ToDo toDo : stored) {
+            if (names.add(toDo.getName())) {
+                bytes += 32 + stringBytes(toDo.getName().toLowerCase()) + 32 + 8;
+            }
+        }
+        return bytes + 4L * stored.size();
+    }
+
+    private static long stringBytes(String string) {
+        boolean latin1 = string.chars().allMatch(c -> c < 256);
+        long array = 16 + (latin1 ? string.length() : 2L * string.length());
+        return 24 + (array + 7) / 8 * 8;
+    }
+}
@@ -0,0 +1,92 @@
+package todoapp.backend.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import org.junit.jupiter.api.Test;
+
+import todoapp.backend.enums.Priority;
+import todoapp.backend.enums.Status;
+import todoapp.backend.model.FilterCriteria;
+import todoapp.backend.model.ToDo;
+
+class NameDictionaryTest {
+    private static final int SIZE = 10_000;
+
+    private final NameDictionary dictionary = new NameDictionary();
+
+    @Test
+    void testNamesAreSharedUntilTheirLastUse() {
+        NameDictionary.Name first = dictionary.acquire(new String("Review PR"));
+        NameDictionary.Name second = dictionary.acquire(new String("Review PR"));
+
+        // Assertions
+        assertSame(first, second);
+        assertEquals(1, dictionary.size());
+
+        dictionary.release(first);
+        assertEquals(1, dictionary.size());
+        dictionary.release(second);
+        assertEquals(0, dictionary.size());
+        // a new canonical instance next time
+        assertNotSame(first.name(), dictionary.acquire(new String("Review PR")).name());
+    }
+
+    @Test
+    void testNamesAreMatchedIgnoringCase() {
+        NameDictionary.Name name = dictionary.acquire("\u00c9tude Planning");
+
+        // Assertions: the outcome remembered is only reused for the same text
+        assertTrue(name.contains("\u00e9tude"));
+        assertTrue(name.contains(new String("\u00e9tude")));
+        assertFalse(name.contains("review"));
+        assertTrue(name.contains("planning"));
+    }
+
+    @Test
+    void testStoredToDosShareOneInstancePerName() {
+        ToDoStripe stripe = new ToDoStripe("default", new ToDoChangeListener() {
+        }, Runnable::run, dictionary);
+        Random random = new Random(42);
+        for (int id = 1; id <= SIZE; id++) {
+            // a new instance per ToDo, as when read from a request body
+            stripe.add(new ToDo(id, new String(realisticName(random, id)), null, Priority.values()[id % 3]));
+        }
+        List<ToDo> stored = stripe.findAll();
+        Set<String> instances = Collections.newSetFromMap(new IdentityHashMap<>());
+        stored.forEach(toDo -> instances.add(toDo.getName()));
+        FilterCriteria criteria = new FilterCriteria("review", null, Status.NOT_DONE);
+        Predicate<ToDo> otherCriteria = new FilterCriteria(null, null, Status.NOT_DONE).toPredicate();
+
+        // Assertions: one instance and one entry per distinct name
+        assertEquals(stored.stream().map(ToDo::getName).distinct().count(), instances.size());
+        assertEquals(instances.size(), dictionary.size());
+        // the dictionary finds what lower casing every name finds
+        assertEquals(stripe.findAll(criteria.toPredicate()), stripe.findAll("review", otherCriteria));
+        // the entries go with the last ToDos using them
+        stripe.deleteAll(toDo -> true);
+        assertEquals(0, dictionary.size());
+    }
+
+    // Most ToDos are recurring tasks, the rest have names of their own
+    static String realisticName(Random random, int id) {
+        String[] recurring = { "Daily standup", "Review PR", "Weekly report", "Pay rent", "Water the plants",
+                "Team retrospective", "Update dependencies", "Backup laptop", "Call mom", "Grocery shopping" };
+        if (random.nextInt(10) < 8) {
+            // skewed: the first names come up far more often
+            int index = (int) Math.min(recurring.length - 1, Math.abs(random.nextGaussian()) * 3);
+            return random.nextInt(5) == 0 ? recurring[index] + " #" + random.nextInt(50) : recurring[index];
+        }
+        return "Follow up on ticket " + id;
+    }
+}
@@ -0,0 +1,9 @@
+package todoapp.backend.repository;
+
+class ToDoInMemoRepositoryContractTest extends ToDoRepositoryContractTest {
+
+    @Override
+    protected ToDoRepository newRepository() {
+        return new ToDoInMemoRepository(4);
+    }
+}
@@ -4,18 +4,28 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 
 import todoapp.backend.enums.Priority;
 import todoapp.backend.enums.Status;
+import todoapp.backend.model.CompletionStats;
 import todoapp.backend.model.FilterCriteria;
 import todoapp.backend.model.ToDo;
+import todoapp.backend.query.ParallelQueryExecutor;
+import todoapp.backend.util.TenantContext;
 
 class ToDoInMemoRepositoryTest {
 
@@ -107,6 +117,164 @@ class ToDoInMemoRepositoryTest {
         assertTrue(filteredToDos.contains(toDo3));
     }
 
+    @Test
+    void testFindPageSortedByPriorityAsc() {
+        // make request to get To Dos sorted
+        Pageable pageReq = PageRequest.of(0, 10, Sort.by(Sort.Direction.ASC, "priority"));
+        List<ToDo> allToDos = toDoRepository.findPage(null, pageReq).getContent();
+
+        // assertions
+        assertNotNull(allToDos);
+        assertEquals(allToDos.size(), 3);
+        assertEquals(allToDos, List.of(toDo2, toDo3, toDo1));
+    }
+
+    @Test
+    void testFindPageSortedByPriorityDesc() {
+        // make request to get To Dos sorted
+        Pageable pageReq = PageRequest.of(0, 10, Sort.by(Sort.Direction.DESC, "priority"));
+        List<ToDo> allToDos = toDoRepository.findPage(null, pageReq).getContent();
+
+        // assertions
+        assertNotNull(allToDos);
+        assertEquals(allToDos.size(), 3);
+        assertEquals(allToDos, List.of(toDo1, toDo3, toDo2));
+    }
+
+    @Test
+    void testFindPageSortedByDueDateAsc() {
+        // make request to get To Dos sorted
+        Pageable pageReq = PageRequest.of(0, 10, Sort.by(Sort.Direction.ASC, "dueDate"));
+        List<ToDo> allToDos = toDoRepository.findPage(null, pageReq).getContent();
+
+        // assertions
+        assertNotNull(allToDos);
+        assertEquals(allToDos.size(), 3);
+        assertEquals(allToDos, List.of(toDo3, toDo1, toDo2));
+    }
+
+    @Test
+    void testFindPageSortedByDueDateDesc() {
+        // make request to get To Dos sorted
+        Pageable pageReq = PageRequest.of(0, 10, Sort.by(Sort.Direction.DESC, "dueDate"));
+        List<ToDo> allToDos = toDoRepository.findPage(null, pageReq).getContent();
+
+        // assertions
+        assertNotNull(allToDos);
+        assertEquals(allToDos.size(), 3);
+        assertEquals(allToDos, List.of(toDo2, toDo1, toDo3));
+    }
+
+    @Test
+    void testFindPageSortedByPriorityAndDueDateAsc() {
+        ToDo extraToDo = new ToDo(4, "Extra sample To Do", null, Priority.MEDIUM);
+        toDoRepository.add(extraToDo);
+
+        // setup sort orders
+        List<Sort.Order> sortOrders = new ArrayList<>();
+        sortOrders.add(new Sort.Order(Sort.Direction.ASC, "priority"));
+        sortOrders.add(new Sort.Order(Sort.Direction.ASC, "dueDate"));
+
+        // make request to get To Dos sorted
+        Pageable pageReq = PageRequest.of(0, 10, Sort.by(sortOrders));
+        List<ToDo> allToDos = toDoRepository.findPage(null, pageReq).getContent();
+
+        // assertions
+        assertNotNull(allToDos);
+        assertEquals(allToDos.size(), 4);
+        assertEquals(allToDos, List.of(toDo2, toDo3, extraToDo, toDo1));
+    }
+
+    @Test
+    void testFindPageSortedByPriorityAndDueDateDesc() {
+        ToDo extraToDo = new ToDo(4, "Extra sample To Do", null, Priority.MEDIUM);
+        toDoRepository.add(extraToDo);
+
+        // setup sort orders
+        List<Sort.Order> sortOrders = new ArrayList<>();
+        sortOrders.add(new Sort.Order(Sort.Direction.DESC, "priority"));
+        sortOrders.add(new Sort.Order(Sort.Direction.DESC, "dueDate"));
+
+        // make request to get To Dos sorted
+        Pageable pageReq = PageRequest.of(0, 10, Sort.by(sortOrders));
+        List<ToDo> allToDos = toDoRepository.findPage(null, pageReq).getContent();
+
+        // assertions
+        assertNotNull(allToDos);
+        assertEquals(allToDos.size(), 4);
+        assertEquals(allToDos, List.of(toDo1, extraToDo, toDo3, toDo2));
+    }
+
+    @Test
+    void testFindPageSortedByPriorityAscAndDueDateDesc() {
+        ToDo extraToDo = new ToDo(4, "Extra sample To Do", null, Priority.MEDIUM);
+        toDoRepository.add(extraToDo);
+
+        // setup sort orders
+        List<Sort.Order> sortOrders = new ArrayList<>();
+        sortOrders.add(new Sort.Order(Sort.Direction.ASC, "priority"));
+        sortOrders.add(new Sort.Order(Sort.Direction.DESC, "dueDate"));
+
+        // make request to get To Dos sorted
+        Pageable pageReq = PageRequest.of(0, 10, Sort.by(sortOrders));
+        List<ToDo> allToDos = toDoRepository.findPage(null, pageReq).getContent();
+
+        // assertions
+        assertNotNull(allToDos);
+        assertEquals(allToDos.size(), 4);
+        assertEquals(allToDos, List.of(toDo2, extraToDo, toDo3, toDo1));
+    }
+
+    @Test
+    void testFindPageSortedByPriorityDescAndDueDateAsc() {
+        ToDo extraToDo = new ToDo(4, "Extra sample To Do", null, Priority.MEDIUM);
+        toDoRepository.add(extraToDo);
+
+        // setup sort orders
+        List<Sort.Order> sortOrders = new ArrayList<>();
+        sortOrders.add(new Sort.Order(Sort.Direction.DESC, "priority"));
+        sortOrders.add(new Sort.Order(Sort.Direction.ASC, "dueDate"));
+
+        // make request to get To Dos sorted
+        Pageable pageReq = PageRequest.of(0, 10, Sort.by(sortOrders));
+        List<ToDo> allToDos = toDoRepository.findPage(null, pageReq).getContent();
+
+        // assertions
+        assertNotNull(allToDos);
+        assertEquals(allToDos.size(), 4);
+        assertEquals(allToDos, List.of(toDo1, toDo3, extraToDo, toDo2));
+    }
+
+    @Test
+    void testLargeTenantsArePagedInParallelChunks() {
+        ParallelQueryExecutor executor = new ParallelQueryExecutor(100, 2, 16);
+        ToDoInMemoRepository parallelRepository = new ToDoInMemoRepository(4, List.of(), executor);
+        try {
+            for (int id = 4; id <= 200; id++) {
+                ToDo toDo = new ToDo(id, (id % 3 == 0 ? "Review " : "Write ") + id,
+                        id % 5 == 0 ? null : LocalDate.of(2025, 1, 1).plusDays(id % 40), Priority.values()[id % 3]);
+                toDoRepository.add(toDo);
+                parallelRepository.add(new ToDo(toDo));
+            }
+            parallelRepository.add(new ToDo(toDo1));
+            parallelRepository.add(new ToDo(toDo2));
+            parallelRepository.add(new ToDo(toDo3));
+            FilterCriteria criteria = new FilterCriteria("write", null, Status.NOT_DONE);
+            Pageable pageReq = PageRequest.of(2, 10, Sort.by(Sort.Direction.DESC, "dueDate").and(Sort.by("priority")));
+
+            Page<ToDo> expected = toDoRepository.findPage(criteria, pageReq);
+            Page<ToDo> page = parallelRepository.findPage(criteria, pageReq);
+
+            // Assertions
+            assertEquals(expected.getTotalElements(), page.getTotalElements());
+            assertEquals(expected.getContent().stream().map(ToDo::getId).toList(),
+                    page.getContent().stream().map(ToDo::getId).toList());
+        } finally {
+            executor.shutdown();
+            parallelRepository.close();
+        }
+    }
+
     @Test
     void testAddToDo() {
         ToDo newToDo = new ToDo(5, "New Task", null, Priority.HIGH);
@@ -183,4 +351,177 @@ class ToDoInMemoRepositoryTest {
         assertFalse(wasDeleted);
         assertEquals(3, all.size());
     }
+
+    @Test
+    void testTenantsAreIsolated() {
+        TenantContext.setTenantId("team-b");
+        try {
+            // other tenant starts empty, with its own ID sequence
+            assertEquals(0, toDoRepository.findAll().size());
+            assertEquals(1, toDoRepository.nextId());
+
+            toDoRepository.add(new ToDo(1, "Team B task", null, Priority.LOW));
+            assertEquals(1, toDoRepository.findAll().size());
+            assertEquals("Team B task", toDoRepository.findById(1).getName());
+        } finally {
+            TenantContext.clear();
+        }
+
+        // default tenant is not affected
+        assertEquals(3, toDoRepository.findAll().size());
+        assertEquals(toDo1, toDoRepository.findById(1));
+    }
+
+    @Test
+    void testReadingAnUnknownTenantDoesNotCreateIt() {
+        TenantContext.setTenantId("made-up");
+        try {
+            assertTrue(toDoRepository.findAll().isEmpty());
+            assertTrue(toDoRepository.findAllByCriteria(new FilterCriteria("Task", null, null)).isEmpty());
+            assertNull(toDoRepository.findById(1));
+            assertNull(toDoRepository.update(1, toDo1));
+            assertFalse(toDoRepository.delete(1));
+            assertEquals(0, toDoRepository.count());
+            assertEquals(0, toDoRepository.getCompletionStats().getCount());
+        } finally {
+            TenantContext.clear();
+        }
+
+        // Assertions
+        assertEquals(Set.of(TenantContext.DEFAULT_TENANT), toDoRepository.getTenantIds());
+    }
+
+    @Test
+    void testEqualNamesShareOneInstance() {
+        // names deserialized from different requests are different instances
+        toDoRepository.add(new ToDo(4, new String("Daily standup"), null, Priority.LOW));
+        toDoRepository.add(new ToDo(5, new String("Daily standup"), null, Priority.HIGH));
+
+        // Assertions
+        assertSame(toDoRepository.findById(4).getName(), toDoRepository.findById(5).getName());
+        assertEquals(4, toDoRepository.distinctNames());
+        assertEquals(List.of(4, 5), toDoRepository.findAllByCriteria(new FilterCriteria("STANDUP", null, null))
+                .stream().map(ToDo::getId).toList());
+
+        // renamed in place, as the service does, and then deleted
+        ToDo renamed = toDoRepository.findById(4);
+        renamed.setName("Weekly standup");
+        toDoRepository.update(4, renamed);
+        assertEquals(5, toDoRepository.distinctNames());
+        toDoRepository.delete(5);
+        assertEquals(4, toDoRepository.distinctNames());
+        assertEquals(List.of(4), toDoRepository.findAllByCriteria(new FilterCriteria("standup", null, null))
+                .stream().map(ToDo::getId).toList());
+    }
+
+    @Test
+    void testCompletionStatsFollowUpdatesAndDeletes() {
+        toDo1.setIsDone(Status.DONE);
+        toDoRepository.update(1, toDo1);
+        toDo3.setIsDone(Status.DONE);
+        toDoRepository.update(3, toDo3);
+
+        assertEquals(2, toDoRepository.getCompletionStats().getCount());
+        assertEquals(1, toDoRepository.getCompletionStats().getCount(Priority.HIGH));
+
+        // marking as not done and deleting removes their completion times
+        toDo1.setIsDone(Status.NOT_DONE);
+        toDoRepository.update(1, toDo1);
+        toDoRepository.delete(3);
+
+        assertEquals(0, toDoRepository.getCompletionStats().getCount());
+        assertEquals(0.0, toDoRepository.getCompletionStats().getAverageSeconds());
+    }
+
+    @Test
+    void testCompletionPercentilesFollowUpdatesAndDeletes() {
+        toDo1.setIsDone(Status.DONE);
+        toDo1.setDoneMillis(toDo1.getCreationMillis() + 10_000);
+        toDoRepository.update(1, toDo1);
+        toDo3.setIsDone(Status.DONE);
+        toDo3.setDoneMillis(toDo3.getCreationMillis() + 1_000_000);
+        toDoRepository.update(3, toDo3);
+
+        CompletionStats stats = toDoRepository.getCompletionStats();
+        assertEquals(10.0, stats.getPercentileSeconds(Priority.HIGH, 99), 0.1);
+        assertEquals(1000.0, stats.getPercentileSeconds(99), 10.0);
+
+        // marking as not done and deleting removes them from the sketches
+        toDo3.setIsDone(Status.NOT_DONE);
+        toDoRepository.update(3, toDo3);
+        assertEquals(10.0, toDoRepository.getCompletionStats().getPercentileSeconds(99), 0.1);
+
+        toDoRepository.delete(1);
+        assertNull(toDoRepository.getCompletionStats().getPercentileSeconds(50));
+    }
+
+    @Test
+    void testConcurrentWritesOnDifferentStripes() throws InterruptedException {
+        ToDoInMemoRepository stripedRepository = new ToDoInMemoRepository(8);
+        int threads = 8;
+        int toDosPerThread = 500;
+
+        for (int i = 1; i <= threads * toDosPerThread; i++) {
+            stripedRepository.add(new ToDo(i, "Task " + i, null, Priority.values()[i % 3]));
+        }
+
+        // mark every ToDo as done, each thread working on its own range of IDs
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int firstId = t * toDosPerThread + 1;
+            Thread worker = new Thread(() -> {
+                for (int id = firstId; id < firstId + toDosPerThread; id++) {
+                    ToDo toDo = stripedRepository.findById(id);
+                    toDo.setIsDone(Status.DONE);
+                    stripedRepository.update(id, toDo);
+                }
+            });
+            workers.add(worker);
+            worker.start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        FilterCriteria criteria = new FilterCriteria(null, null, Status.DONE);
+        List<ToDo> doneToDos = stripedRepository.findAllByCriteria(criteria);
+
+        // Assertions
+        assertEquals(threads * toDosPerThread, doneToDos.size());
+        assertEquals(threads * toDosPerThread, stripedRepository.getCompletionStats().getCount());
+        // scans are merged back in ID order
+        for (int i = 0; i < doneToDos.size(); i++) {
+            assertEquals(i + 1, doneToDos.get(i).getId());
+        }
+    }
+
+    @Test
+    void testConcurrentUpdatesOfOneToDoAreAtomic() throws InterruptedException {
+        int threads = 8;
+        int updatesPerThread = 250;
+
+        // every thread appends to the same ToDo's name, read and stored at once
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            Thread worker = new Thread(() -> {
+                for (int i = 0; i < updatesPerThread; i++) {
+                    toDoRepository.update(1, toDo -> {
+                        toDo.setName(toDo.getName() + "!");
+                        return toDo;
+                    });
+                }
+            });
+            workers.add(worker);
+            worker.start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        // Assertions: no update was lost, and the caller's ToDo was not touched
+        String name = toDoRepository.findById(1).getName();
+        assertEquals("Test API".length() + threads * updatesPerThread, name.length());
+        assertEquals("Test API", toDo1.getName());
+        assertNull(toDoRepository.update(10, toDo -> toDo));
+    }
 }
@@ -0,0 +1,86 @@
+package todoapp.backend.repository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import todoapp.backend.enums.Priority;
+import todoapp.backend.enums.Status;
+import todoapp.backend.model.FilterCriteria;
+import todoapp.backend.model.ToDo;
+import todoapp.backend.util.TenantContext;
+
+/**
+ * Measures how long a filtered and sorted page query takes on each storage
+ * engine, on a tenant of 20000 ToDos (set with -Dtodo.benchmark.size). Not
+ * part of the unit tests, run it with {@code mvn test -Pbenchmarks}.
+ */
+class ToDoRepositoryBenchmark {
+    private static final int SIZE = Integer.getInteger("todo.benchmark.size", 20_000);
+    private static final int WARMUP_ROUNDS = 10;
+    private static final int MEASURED_ROUNDS = 50;
+    private static final String[] NAMES = { "Write report", "Fix bug", "Call client", "Review PR", "Plan sprint" };
+
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void shutdown() {
+        if (jdbcTemplate != null) {
+            jdbcTemplate.execute("SHUTDOWN");
+        }
+        TenantContext.clear();
+    }
+
+    @Test
+    void pageQueryInMemory() {
+        report(new ToDoInMemoRepository(16));
+    }
+
+    @Test
+    void pageQueryJdbc() {
+        jdbcTemplate = new JdbcTemplate(
+                new DriverManagerDataSource("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1"));
+        JdbcToDoRepository repository = new JdbcToDoRepository(jdbcTemplate, List.of(), 100, 10);
+        repository.init();
+        report(repository);
+    }
+
+    private static void report(ToDoRepository repository) {
+        Random random = new Random(42);
+        Priority[] priorities = Priority.values();
+        for (int id = 1; id <= SIZE; id++) {
+            Priority priority = random.nextInt(10) == 0 ? null : priorities[random.nextInt(priorities.length)];
+            LocalDate dueDate = random.nextBoolean() ? null : LocalDate.of(2025, 1, 1).plusDays(random.nextInt(60));
+            ToDo toDo = new ToDo(id, NAMES[random.nextInt(NAMES.length)] + " " + id, dueDate, priority);
+            if (random.nextInt(3) == 0) {
+                toDo.setIsDone(Status.DONE);
+            }
+            repository.add(toDo);
+        }
+
+        FilterCriteria filter = new FilterCriteria("re", null, Status.NOT_DONE);
+        Sort sort = Sort.by("priority", "dueDate");
+        for (int round = 0; round < WARMUP_ROUNDS; round++) {
+            repository.findPage(filter, PageRequest.of(round % 10, 10, sort));
+        }
+
+        long start = System.nanoTime();
+        for (int round = 0; round < MEASURED_ROUNDS; round++) {
+            Pageable pageReq = PageRequest.of(round % 10, 10, sort);
+            repository.findPage(filter, pageReq);
+        }
+        double millisPerQuery = (System.nanoTime() - start) / 1e6 / MEASURED_ROUNDS;
+
+        System.out.printf("%s: %.2f ms per filtered and sorted page over %d ToDos%n",
+                repository.getClass().getSimpleName(), millisPerQuery, SIZE);
+    }
+}
@@ -0,0 +1,279 @@
+package todoapp.backend.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import todoapp.backend.enums.Priority;
+import todoapp.backend.enums.Status;
+import todoapp.backend.model.CompletionStats;
+import todoapp.backend.model.FilterCriteria;
+import todoapp.backend.model.ToDo;
+import todoapp.backend.model.ToDoPatch;
+import todoapp.backend.util.TenantContext;
+
+/**
+ * Conformance suite of the storage engines: every engine runs it through a
+ * subclass. Pages are checked against filtering and sorting the same ToDos in
+ * memory.
+ */
+abstract class ToDoRepositoryContractTest {
+    private static final String[] NAMES = { "Write report", "Fix bug", "Call client", "Review PR", "Plan sprint" };
+
+    protected ToDoRepository repository;
+
+    /**
+     * @return a new, empty repository of the engine under test
+     */
+    protected abstract ToDoRepository newRepository();
+
+    @BeforeEach
+    void initRepository() {
+        repository = newRepository();
+    }
+
+    @AfterEach
+    void clearTenant() {
+        TenantContext.clear();
+    }
+
+    @Test
+    void testAddFindUpdateAndDelete() {
+        repository.add(new ToDo(1, "Test API", LocalDate.of(2025, 8, 4), Priority.HIGH));
+
+        ToDo toDo = repository.findById(1);
+        assertEquals("Test API", toDo.getName());
+        assertEquals(LocalDate.of(2025, 8, 4), toDo.getDueDate());
+
+        toDo.setName("Test the API");
+        toDo.setIsDone(Status.DONE);
+        assertEquals("Test the API", repository.update(1, toDo).getName());
+        assertEquals(Status.DONE, repository.findById(1).getIsDone());
+        assertEquals(toDo.getDoneMillis(), repository.findById(1).getDoneMillis());
+
+        assertTrue(repository.delete(1));
+        assertNull(repository.findById(1));
+        assertFalse(repository.delete(1));
+        assertNull(repository.update(1, toDo));
+        assertEquals(0, repository.count());
+    }
+
+    @Test
+    void testDeleteIfOnlyDeletesAMatchingToDo() {
+        repository.add(new ToDo(1, "Write report", null, Priority.LOW));
+
+        // Assertions
+        assertFalse(repository.deleteIf(1, toDo -> toDo.getPriority() == Priority.HIGH));
+        assertEquals("Write report", repository.findById(1).getName());
+        assertTrue(repository.deleteIf(1, toDo -> toDo.getPriority() == Priority.LOW));
+        assertNull(repository.findById(1));
+        assertFalse(repository.deleteIf(1, toDo -> true));
+    }
+
+    @Test
+    void testAddingAnExistingIdReplacesTheToDo() {
+        repository.add(new ToDo(1, "First", null, Priority.LOW));
+        repository.add(new ToDo(1, "Second", null, Priority.HIGH));
+
+        assertEquals(1, repository.count());
+        assertEquals("Second", repository.findById(1).getName());
+    }
+
+    @Test
+    void testFindAllByCriteria() {
+        repository.add(new ToDo(1, "Test API", null, Priority.HIGH));
+        repository.add(new ToDo(2, "Write API documentation", null, Priority.LOW));
+        ToDo done = new ToDo(3, "Finish essay", null, Priority.HIGH);
+        done.setIsDone(Status.DONE);
+        repository.add(done);
+
+        assertEquals(Set.of(1, 2), idsOf(repository.findAllByCriteria(new FilterCriteria("api", null, null))));
+        assertEquals(Set.of(1, 3), idsOf(repository.findAllByCriteria(new FilterCriteria(null, Priority.HIGH, null))));
+        assertEquals(Set.of(3), idsOf(repository.findAllByCriteria(new FilterCriteria(null, null, Status.DONE))));
+        assertEquals(Set.of(1), idsOf(repository.findAllByCriteria(
+                new FilterCriteria("API", Priority.HIGH, Status.NOT_DONE))));
+        assertEquals(Set.of(1, 2, 3), idsOf(repository.findAll()));
+    }
+
+    @Test
+    void testNextIdNeverRepeats() {
+        Set<Integer> ids = new HashSet<>();
+        for (int i = 0; i < 500; i++) {
+            assertTrue(ids.add(repository.nextId()));
+        }
+    }
+
+    @Test
+    void testTenantsAreIsolated() {
+        repository.add(new ToDo(1, "Default task", null, Priority.LOW));
+        TenantContext.setTenantId("team-b");
+        repository.add(new ToDo(1, "Team B task", null, Priority.HIGH));
+        repository.add(new ToDo(2, "Another team B task", null, Priority.HIGH));
+
+        assertEquals(2, repository.count());
+        assertEquals("Team B task", repository.findById(1).getName());
+        TenantContext.clear();
+        assertEquals(1, repository.count());
+        assertEquals("Default task", repository.findById(1).getName());
+        assertTrue(repository.getTenantIds().containsAll(Set.of(TenantContext.getTenantId(), "team-b")));
+    }
+
+    @Test
+    void testCompletionStatsFollowChanges() {
+        ToDo high = new ToDo(1, "High", null, Priority.HIGH);
+        high.setIsDone(Status.DONE);
+        high.setDoneMillis(high.getCreationMillis() + 60_000);
+        ToDo low = new ToDo(2, "Low", null, Priority.LOW);
+        low.setIsDone(Status.DONE);
+        low.setDoneMillis(low.getCreationMillis() + 180_000);
+        repository.add(high);
+        repository.add(low);
+        repository.add(new ToDo(3, "Not done", null, Priority.LOW));
+
+        CompletionStats stats = repository.getCompletionStats();
+        assertEquals(2, stats.getCount());
+        assertEquals(120.0, stats.getAverageSeconds());
+        assertEquals(60.0, stats.getAverageSeconds(Priority.HIGH));
+
+        repository.delete(2);
+        ToDo undone = repository.findById(1);
+        undone.setIsDone(Status.NOT_DONE);
+        repository.update(1, undone);
+        assertEquals(0, repository.getCompletionStats().getCount());
+    }
+
+    @Test
+    void testBulkOperationsByCriteria() {
+        ToDo done = new ToDo(1, "Write report", null, Priority.LOW);
+        done.setIsDone(Status.DONE);
+        done.setDoneMillis(done.getCreationMillis() + 60_000);
+        repository.add(done);
+        repository.add(new ToDo(2, "Review report", null, Priority.LOW));
+        repository.add(new ToDo(3, "Fix bug", null, Priority.MEDIUM));
+
+        int updated = repository.updateAllByCriteria(new FilterCriteria(null, Priority.LOW, null),
+                new ToDoPatch(null, LocalDate.of(2025, 9, 1), Priority.HIGH, null));
+
+        assertEquals(2, updated);
+        assertEquals(Set.of(1, 2), idsOf(repository.findAllByCriteria(new FilterCriteria(null, Priority.HIGH, null))));
+        assertEquals(LocalDate.of(2025, 9, 1), repository.findById(2).getDueDate());
+        assertEquals(60.0, repository.getCompletionStats().getAverageSeconds(Priority.HIGH));
+
+        assertEquals(1, repository.updateAllByCriteria(new FilterCriteria("bug", null, null),
+                new ToDoPatch(null, null, null, Status.DONE)));
+        assertEquals(Status.DONE, repository.findById(3).getIsDone());
+        assertNotEquals(ToDo.NO_DATE, repository.findById(3).getDoneMillis());
+
+        assertEquals(2, repository.deleteAllByCriteria(new FilterCriteria(null, null, Status.DONE)));
+        assertEquals(Set.of(2), idsOf(repository.findAll()));
+        assertNull(repository.findById(1));
+        assertEquals(0, repository.getCompletionStats().getCount());
+        assertEquals(0, repository.deleteAllByCriteria(new FilterCriteria("no match", null, null)));
+    }
+
+    @Test
+    void testPagesMatchFilteringAndSortingInMemory() {
+        List<ToDo> all = addRandomToDos(500, new Random(7));
+
+        List<FilterCriteria> criteria = List.of(new FilterCriteria(), new FilterCriteria("re", null, null),
+                new FilterCriteria(null, Priority.MEDIUM, null), new FilterCriteria(null, null, Status.DONE),
+                new FilterCriteria("i", Priority.HIGH, Status.NOT_DONE), new FilterCriteria("no match", null, null));
+        List<Sort> sorts = List.of(Sort.unsorted(), Sort.by("priority"), Sort.by(Sort.Direction.DESC, "dueDate"),
+                Sort.by(new Sort.Order(Sort.Direction.DESC, "priority"), new Sort.Order(Sort.Direction.ASC, "dueDate")),
+                Sort.by(new Sort.Order(Sort.Direction.DESC, "doneDate"), new Sort.Order(Sort.Direction.ASC, "name")),
+                Sort.by("creationDate"));
+
+        for (FilterCriteria filter : criteria) {
+            for (Sort sort : sorts) {
+                for (int pageNumber : new int[] { 0, 3, 100 }) {
+                    Pageable pageReq = PageRequest.of(pageNumber, 10, sort);
+                    List<ToDo> expected = all.stream().filter(filter.toPredicate()).sorted(referenceOrder(sort))
+                            .toList();
+
+                    Page<ToDo> page = repository.findPage(filter, pageReq);
+
+                    assertEquals(expected.size(), page.getTotalElements());
+                    int from = Math.min(expected.size(), (int) pageReq.getOffset());
+                    int to = Math.min(expected.size(), from + pageReq.getPageSize());
+                    assertEquals(idList(expected.subList(from, to)), idList(page.getContent()));
+                }
+            }
+        }
+    }
+
+    @Test
+    void testPagesSeeWritesRightAway() {
+        repository.add(new ToDo(1, "First", null, Priority.LOW));
+        Pageable pageReq = PageRequest.of(0, 10);
+        assertEquals(1, repository.findPage(null, pageReq).getTotalElements());
+
+        repository.add(new ToDo(2, "Second", null, Priority.LOW));
+        ToDo first = repository.findById(1);
+        first.setName("Renamed");
+        repository.update(1, first);
+
+        Page<ToDo> page = repository.findPage(null, pageReq);
+        assertEquals(2, page.getTotalElements());
+        assertEquals("Renamed", page.getContent().get(0).getName());
+    }
+
+    private List<ToDo> addRandomToDos(int count, Random random) {
+        List<ToDo> added = new ArrayList<>(count);
+        Priority[] priorities = Priority.values();
+        for (int id = 1; id <= count; id++) {
+            Priority priority = random.nextInt(10) == 0 ? null : priorities[random.nextInt(priorities.length)];
+            LocalDate dueDate = random.nextBoolean() ? null : LocalDate.of(2025, 1, 1).plusDays(random.nextInt(60));
+            ToDo toDo = new ToDo(id, NAMES[random.nextInt(NAMES.length)] + " " + id, dueDate, priority);
+            if (random.nextInt(3) == 0) {
+                toDo.setIsDone(Status.DONE);
+            }
+            added.add(repository.add(toDo));
+        }
+        return added;
+    }
+
+    // The order of the SPI contract: each sorted property with nulls last when
+    // ascending and first when descending, then the ID
+    private static Comparator<ToDo> referenceOrder(Sort sort) {
+        Comparator<ToDo> order = (a, b) -> 0;
+        for (Sort.Order sortOrder : sort) {
+            Comparator<ToDo> byProperty = switch (sortOrder.getProperty()) {
+                case "dueDate" -> Comparator.comparing(ToDo::getDueDate, Comparator.nullsLast(Comparator.naturalOrder()));
+                case "priority" -> Comparator.comparing(ToDo::getPriority,
+                        Comparator.nullsLast(Comparator.naturalOrder()));
+                case "creationDate" -> Comparator.comparingLong(ToDo::getCreationMillis);
+                case "doneDate" -> Comparator.comparing(ToDo::getDoneDate, Comparator.nullsLast(Comparator.naturalOrder()));
+                case "name" -> Comparator.comparing(ToDo::getName, String.CASE_INSENSITIVE_ORDER);
+                default -> throw new IllegalArgumentException(sortOrder.getProperty());
+            };
+            order = order.thenComparing(sortOrder.isAscending() ? byProperty : byProperty.reversed());
+        }
+        return order.thenComparingInt(ToDo::getId);
+    }
+
+    private static Set<Integer> idsOf(List<ToDo> toDos) {
+        return new HashSet<>(idList(toDos));
+    }
+
+    private static List<Integer> idList(List<ToDo> toDos) {
+        return toDos.stream().map(ToDo::getId).toList();
+    }
+}
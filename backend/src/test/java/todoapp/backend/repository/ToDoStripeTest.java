@@ -0,0 +1,150 @@
+package todoapp.backend.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import todoapp.backend.enums.Priority;
+import todoapp.backend.enums.Status;
+import todoapp.backend.model.ToDo;
+
+class ToDoStripeTest {
+
+    // compactions requested by the stripe, run by the tests
+    private final List<Runnable> compactions = new ArrayList<>();
+    private ToDoStripe stripe;
+
+    @BeforeEach
+    void init() {
+        stripe = new ToDoStripe("default", new ToDoChangeListener() {
+        }, compactions::add);
+        for (int id = 1; id <= 200; id++) {
+            stripe.add(new ToDo(id, "Task " + id, null, Priority.LOW));
+        }
+    }
+
+    @Test
+    void testDeletesLeaveTombstonesUntilCompacted() {
+        for (int id = 1; id < ToDoStripe.COMPACTION_MIN_TOMBSTONES; id++) {
+            stripe.delete(id);
+        }
+
+        // Assertions: not enough tombstones yet
+        assertTrue(compactions.isEmpty());
+        assertEquals(ToDoStripe.COMPACTION_MIN_TOMBSTONES - 1, stripe.tombstones());
+        assertEquals(200 - stripe.tombstones(), stripe.size());
+        assertNull(stripe.findById(1));
+
+        for (int id = ToDoStripe.COMPACTION_MIN_TOMBSTONES; id <= 100; id++) {
+            stripe.delete(id);
+        }
+        // a single compaction is requested until it runs
+        assertEquals(1, compactions.size());
+        compactions.get(0).run();
+
+        assertEquals(0, stripe.tombstones());
+        assertEquals(IntStream.rangeClosed(101, 200).boxed().toList(),
+                stripe.findAll().stream().map(ToDo::getId).toList());
+        assertEquals("Task 150", stripe.findById(150).getName());
+    }
+
+    @Test
+    void testCompactedStripeKeepsWorking() {
+        for (int id = 1; id <= 100; id++) {
+            stripe.delete(id);
+        }
+        compactions.forEach(Runnable::run);
+
+        ToDo toDo = stripe.findById(200);
+        toDo.setIsDone(Status.DONE);
+        stripe.update(200, toDo);
+        stripe.add(new ToDo(1, "Back again", null, Priority.HIGH));
+        stripe.delete(101);
+
+        // Assertions
+        assertEquals(100, stripe.size());
+        assertEquals(1, stripe.findAll(candidate -> candidate.getIsDone() == Status.DONE).size());
+        assertEquals(1, stripe.findAll().get(stripe.size() - 1).getId());
+        assertNull(stripe.findById(101));
+    }
+
+    @Test
+    void testBulkOperationsTouchEveryMatchAtOnce() {
+        for (int id = 1; id <= 200; id += 2) {
+            ToDo toDo = new ToDo(stripe.findById(id));
+            toDo.setIsDone(Status.DONE);
+            stripe.update(id, toDo);
+        }
+
+        int updated = stripe.updateAll(toDo -> toDo.getId() <= 100, toDo -> {
+            ToDo patched = new ToDo(toDo);
+            patched.setPriority(Priority.HIGH);
+            return patched;
+        });
+        int deleted = stripe.deleteAll(toDo -> toDo.getIsDone() == Status.DONE);
+
+        // Assertions
+        assertEquals(100, updated);
+        assertEquals(100, deleted);
+        assertEquals(100, stripe.size());
+        assertEquals(50, stripe.findAll(toDo -> toDo.getPriority() == Priority.HIGH).size());
+        assertNull(stripe.findById(1));
+        // enough tombstones for a single compaction
+        assertEquals(1, compactions.size());
+        compactions.get(0).run();
+        assertEquals(0, stripe.tombstones());
+        assertEquals(0, stripe.deleteAll(toDo -> toDo.getIsDone() == Status.DONE));
+    }
+
+    @Test
+    void testReadersSeeConsistentStripesWhileCompacting() throws InterruptedException {
+        ExecutorService compactor = Executors.newSingleThreadExecutor();
+        ToDoStripe concurrent = new ToDoStripe("default", new ToDoChangeListener() {
+        }, compactor);
+        int count = 20_000;
+        for (int id = 1; id <= count; id++) {
+            concurrent.add(new ToDo(id, "Task " + id, null, Priority.LOW));
+        }
+
+        AtomicBoolean deleting = new AtomicBoolean(true);
+        AtomicReference<String> failure = new AtomicReference<>();
+        Thread reader = new Thread(() -> {
+            while (deleting.get()) {
+                List<ToDo> all = concurrent.findAll();
+                for (int i = 1; i < all.size(); i++) {
+                    if (all.get(i - 1).getId() >= all.get(i).getId()) {
+                        failure.set("out of order at " + i);
+                    }
+                }
+                ToDo last = concurrent.findById(count);
+                if (last == null || last.getId() != count) {
+                    failure.set("lost ToDo " + count);
+                }
+            }
+        });
+        reader.start();
+
+        // deletes every ToDo but the last one, compacting many times meanwhile
+        for (int id = 1; id < count; id++) {
+            concurrent.delete(id);
+        }
+        deleting.set(false);
+        reader.join();
+        compactor.shutdown();
+
+        // Assertions
+        assertNull(failure.get());
+        assertEquals(List.of(count), concurrent.findAll().stream().map(ToDo::getId).toList());
+    }
+}
@@ -0,0 +1,114 @@
+package todoapp.backend.scheduler;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TimeZone;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import todoapp.backend.enums.Priority;
+import todoapp.backend.enums.Status;
+import todoapp.backend.model.ToDo;
+import todoapp.backend.repository.ToDoInMemoRepository;
+
+class DueDateSchedulerTest {
+    private static final long HOUR = 3_600_000L;
+
+    private final List<DueDateEvent> events = new ArrayList<>();
+    private DueDateScheduler scheduler;
+    private ToDoInMemoRepository repository;
+    private LocalDate today;
+
+    @BeforeEach
+    void init() {
+        // the ticker thread isn't started, ticks are run by the tests
+        scheduler = new DueDateScheduler(event -> events.add((DueDateEvent) event), Clock.systemUTC(), 24, 1000);
+        repository = new ToDoInMemoRepository(4, List.of(scheduler));
+        today = LocalDate.now(ZoneOffset.UTC);
+    }
+
+    @Test
+    void testToDosPastTheirDueDateAreOverdueRightAway() {
+        repository.add(new ToDo(1, "Late", today.minusDays(2), Priority.HIGH));
+        repository.add(new ToDo(2, "Due today", today, Priority.HIGH));
+        repository.add(new ToDo(3, "No due date", null, Priority.HIGH));
+
+        assertEquals(1, scheduler.getOverdueCount());
+        assertEquals(1, scheduler.getOverdueToDos().content().get(0).getId());
+
+        // overdue ToDos don't get a "due soon" event
+        scheduler.tick(System.currentTimeMillis());
+        assertEquals(List.of(DueDateEvent.Type.OVERDUE, DueDateEvent.Type.DUE_SOON),
+                events.stream().map(DueDateEvent::type).toList());
+    }
+
+    @Test
+    void testTimersFireAsTimePasses() {
+        repository.add(new ToDo(1, "Tomorrow", today.plusDays(1), Priority.LOW));
+        long endOfTomorrow = today.plusDays(2).atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
+
+        scheduler.tick(endOfTomorrow - 25 * HOUR);
+        assertTrue(events.isEmpty());
+
+        scheduler.tick(endOfTomorrow - 23 * HOUR);
+        assertEquals(DueDateEvent.Type.DUE_SOON, events.get(0).type());
+        assertEquals(0, scheduler.getOverdueCount());
+
+        scheduler.tick(endOfTomorrow);
+        assertEquals(DueDateEvent.Type.OVERDUE, events.get(1).type());
+        assertEquals(1, scheduler.getOverdueCount());
+
+        // nothing fires twice
+        scheduler.tick(endOfTomorrow + HOUR);
+        assertEquals(2, events.size());
+    }
+
+    @Test
+    void testDoneUpdatedAndDeletedToDosLeaveTheOverdueList() {
+        ToDo late = new ToDo(1, "Late", today.minusDays(1), Priority.HIGH);
+        ToDo moved = new ToDo(2, "Moved", today.minusDays(1), Priority.HIGH);
+        repository.add(late);
+        repository.add(moved);
+        repository.add(new ToDo(3, "Deleted", today.minusDays(1), Priority.HIGH));
+        assertEquals(3, scheduler.getOverdueCount());
+
+        late.setIsDone(Status.DONE);
+        repository.update(1, late);
+        moved.setDueDate(today.plusDays(7));
+        repository.update(2, moved);
+        repository.delete(3);
+
+        assertEquals(0, scheduler.getOverdueCount());
+        // the stale timers of the changed ToDos don't fire
+        scheduler.tick(System.currentTimeMillis());
+        assertTrue(events.isEmpty());
+    }
+
+    @Test
+    void testDueDatesEndAtMidnightUtcWhateverTheJvmZone() {
+        TimeZone jvmZone = TimeZone.getDefault();
+        TimeZone.setDefault(TimeZone.getTimeZone("Pacific/Kiritimati")); // UTC+14
+        try {
+            Instant lateEvening = Instant.parse("2025-06-15T23:30:00Z");
+            scheduler = new DueDateScheduler(event -> events.add((DueDateEvent) event),
+                    Clock.fixed(lateEvening, ZoneOffset.UTC), 24, 1000);
+            repository = new ToDoInMemoRepository(4, List.of(scheduler));
+            repository.add(new ToDo(1, "Due today", LocalDate.of(2025, 6, 15), Priority.HIGH));
+
+            // Assertions
+            assertEquals(0, scheduler.getOverdueCount());
+            scheduler.tick(Instant.parse("2025-06-16T00:00:00Z").toEpochMilli());
+            assertEquals(1, scheduler.getOverdueCount());
+        } finally {
+            TimeZone.setDefault(jvmZone);
+        }
+    }
+}
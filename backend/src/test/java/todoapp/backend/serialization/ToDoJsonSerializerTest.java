@@ -0,0 +1,176 @@
+package todoapp.backend.serialization;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import todoapp.backend.enums.Priority;
+import todoapp.backend.enums.Status;
+import todoapp.backend.exception.InvalidToDoPropertiesException;
+import todoapp.backend.model.ToDo;
+
+class ToDoJsonSerializerTest {
+
+    private ObjectMapper annotationsMapper;
+    private ObjectMapper customMapper;
+
+    @BeforeEach
+    void init() {
+        // same date settings as Spring Boot's ObjectMapper
+        annotationsMapper = new ObjectMapper().registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+        SimpleModule serializers = new SimpleModule();
+        serializers.addSerializer(new ToDoJsonSerializer());
+        serializers.addSerializer(new PageJsonSerializer());
+        customMapper = new ObjectMapper().registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS).registerModule(serializers);
+    }
+
+    @Test
+    void testToDoMatchesAnnotationsOutput() throws Exception {
+        ToDo done = new ToDo(1, "Write \"docs\" \u00e9", LocalDate.of(2025, 2, 28), Priority.HIGH);
+        done.setIsDone(Status.DONE);
+        ToDo notDone = new ToDo(2, null, null, null);
+
+        for (ToDo toDo : List.of(done, notDone)) {
+            JsonNode expected = annotationsMapper.readTree(annotationsMapper.writeValueAsString(toDo));
+            assertEquals(expected, customMapper.readTree(customMapper.writeValueAsString(toDo)));
+        }
+    }
+
+    @Test
+    void testToDoRoundTrip() throws Exception {
+        ToDo toDo = new ToDo(3, "Task", LocalDate.of(2025, 7, 1), Priority.LOW);
+        toDo.setIsDone(Status.DONE);
+
+        ToDo read = customMapper.readValue(customMapper.writeValueAsString(toDo), ToDo.class);
+
+        assertEquals(toDo.getName(), read.getName());
+        assertEquals(toDo.getDueDate(), read.getDueDate());
+        assertEquals(toDo.getIsDone(), read.getIsDone());
+        assertEquals(toDo.getDoneMillis(), read.getDoneMillis());
+        assertEquals(toDo.getCreationMillis(), read.getCreationMillis());
+    }
+
+    @Test
+    void testProjectionOnlyWritesRequestedFields() throws Exception {
+        Page<ToDo> page = new PageImpl<>(List.of(new ToDo(1, "A", LocalDate.of(2025, 1, 2), Priority.LOW)));
+        ToDoFields fields = ToDoFields.parse("id, name,priority");
+
+        JsonNode json = customMapper.readTree(customMapper.writer(fields.toFilterProvider()).writeValueAsString(page));
+
+        JsonNode toDo = json.path("content").path(0);
+        assertEquals(3, toDo.size());
+        assertEquals(1, toDo.path("id").asInt());
+        assertEquals("A", toDo.path("name").asText());
+        assertEquals("LOW", toDo.path("priority").asText());
+        // the page envelope isn't projected
+        assertEquals(1, json.path("totalElements").asLong());
+    }
+
+    @Test
+    void testProjectionRejectsUnknownFields() {
+        assertThrows(InvalidToDoPropertiesException.class, () -> ToDoFields.parse("id,owner"));
+    }
+
+    @Test
+    void testDateTimesMatchFormatter() {
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'")
+                .withZone(ZoneOffset.UTC);
+        char[] buffer = new char[IsoDates.DATE_TIME_LENGTH];
+
+        Random random = new Random(7);
+        for (int i = 0; i < 100_000; i++) {
+            // from year 1 to 9999
+            long epochMillis = -62_135_596_800_000L + (long) (random.nextDouble() * 315_537_897_600_000L);
+            assertTrue(IsoDates.formatDateTime(epochMillis, buffer));
+            assertEquals(formatter.format(Instant.ofEpochMilli(epochMillis)), new String(buffer));
+        }
+        assertFalse(IsoDates.formatDateTime(253_402_300_800_000L, buffer)); // year 10000
+    }
+
+    @Test
+    void testPageEnvelope() throws Exception {
+        List<ToDo> content = List.of(new ToDo(1, "A", null, Priority.LOW), new ToDo(2, "B", null, Priority.HIGH));
+        Page<ToDo> page = new PageImpl<>(content, PageRequest.of(1, 2, Sort.by("priority")), 7);
+
+        JsonNode json = customMapper.readTree(customMapper.writeValueAsString(page));
+
+        assertEquals(2, json.path("content").size());
+        assertEquals("B", json.path("content").path(1).path("name").asText());
+        assertEquals(1, json.path("number").asInt());
+        assertEquals(2, json.path("size").asInt());
+        assertEquals(7, json.path("totalElements").asLong());
+        assertEquals(4, json.path("totalPages").asInt());
+        assertFalse(json.path("first").asBoolean());
+        assertFalse(json.path("last").asBoolean());
+        assertTrue(json.path("sort").path("sorted").asBoolean());
+        assertFalse(json.has("pageable"));
+    }
+
+    @Test
+    void testPageRoundTripsInJsonAndCbor() throws Exception {
+        List<ToDo> content = new ArrayList<>();
+        for (int i = 1; i <= 100; i++) {
+            ToDo toDo = new ToDo(i, "Task number " + i * 37, i % 4 == 0 ? null : LocalDate.of(2025, 1, 1).plusDays(i),
+                    Priority.values()[i % 3]);
+            if (i % 2 == 0) {
+                toDo.setIsDone(Status.DONE);
+            }
+            content.add(toDo);
+        }
+        Page<ToDo> page = new PageImpl<>(content, PageRequest.of(0, 100), 100);
+        ObjectMapper jsonReader = customMapper.copy().disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        ObjectMapper cborMapper = CompactFormat.newCborMapper();
+
+        byte[] json = customMapper.writeValueAsBytes(page);
+        byte[] cbor = cborMapper.writeValueAsBytes(page);
+
+        // Assertions
+        assertSameToDos(content, jsonReader.readValue(json, DecodedPage.class).content());
+        assertSameToDos(content, cborMapper.readValue(cbor, DecodedPage.class).content());
+        assertEquals(100, cborMapper.readValue(cbor, DecodedPage.class).totalElements());
+        assertTrue(cbor.length < json.length);
+    }
+
+    // the part of a page clients read back
+    record DecodedPage(List<ToDo> content, long totalElements) {
+    }
+
+    private static void assertSameToDos(List<ToDo> expected, List<ToDo> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getId(), actual.get(i).getId());
+            assertEquals(expected.get(i).getName(), actual.get(i).getName());
+            assertEquals(expected.get(i).getDueDate(), actual.get(i).getDueDate());
+            assertEquals(expected.get(i).getIsDone(), actual.get(i).getIsDone());
+            assertEquals(expected.get(i).getDoneMillis(), actual.get(i).getDoneMillis());
+            assertEquals(expected.get(i).getPriority(), actual.get(i).getPriority());
+            assertEquals(expected.get(i).getCreationMillis(), actual.get(i).getCreationMillis());
+        }
+    }
+}
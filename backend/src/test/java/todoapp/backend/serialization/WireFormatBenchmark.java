@@ -0,0 +1,98 @@
+package todoapp.backend.serialization;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import todoapp.backend.enums.Priority;
+import todoapp.backend.enums.Status;
+import todoapp.backend.model.ToDo;
+
+/**
+ * Compares the JSON and CBOR wire formats on a large page of ToDos: payload
+ * size, and encode/decode time. Not part of the unit tests, run it with
+ * {@code mvn test -Pbenchmarks}.
+ */
+class WireFormatBenchmark {
+    private static final int TODOS = 10_000;
+    private static final int WARMUP_ROUNDS = 20;
+    private static final int MEASURED_ROUNDS = 50;
+
+    private ObjectMapper jsonMapper;
+    private ObjectMapper cborMapper;
+    private Page<ToDo> page;
+
+    // the part of a page clients read back
+    record DecodedPage(List<ToDo> content, long totalElements) {
+    }
+
+    @BeforeEach
+    void init() {
+        // same setup as Spring's ObjectMapper
+        SimpleModule serializers = new SimpleModule();
+        serializers.addSerializer(new ToDoJsonSerializer());
+        serializers.addSerializer(new PageJsonSerializer());
+        jsonMapper = new ObjectMapper().registerModule(new JavaTimeModule()).registerModule(serializers)
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        cborMapper = CompactFormat.newCborMapper();
+
+        Random random = new Random(42);
+        List<ToDo> toDos = new ArrayList<>(TODOS);
+        for (int i = 1; i <= TODOS; i++) {
+            LocalDate dueDate = random.nextInt(4) == 0 ? null : LocalDate.of(2025, 1, 1).plusDays(random.nextInt(365));
+            ToDo toDo = new ToDo(i, "Task number " + random.nextInt(100_000), dueDate,
+                    Priority.values()[random.nextInt(3)]);
+            if (random.nextBoolean()) {
+                toDo.setIsDone(Status.DONE);
+            }
+            toDos.add(toDo);
+        }
+        page = new PageImpl<>(toDos, PageRequest.of(0, TODOS), TODOS);
+    }
+
+    @Test
+    void compareJsonAndCbor() throws Exception {
+        byte[] json = jsonMapper.writeValueAsBytes(page);
+        byte[] cbor = cborMapper.writeValueAsBytes(page);
+
+        System.out.printf("%-5s %10s %12s %12s%n", "", "bytes", "encode (ms)", "decode (ms)");
+        report("json", jsonMapper, json.length);
+        report("cbor", cborMapper, cbor.length);
+    }
+
+    private void report(String format, ObjectMapper mapper, int bytes) throws Exception {
+        byte[] encoded = null;
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            encoded = mapper.writeValueAsBytes(page);
+            mapper.readValue(encoded, DecodedPage.class);
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            encoded = mapper.writeValueAsBytes(page);
+        }
+        double encodeMillis = (System.nanoTime() - start) / 1e6 / MEASURED_ROUNDS;
+
+        start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            mapper.readValue(encoded, DecodedPage.class);
+        }
+        double decodeMillis = (System.nanoTime() - start) / 1e6 / MEASURED_ROUNDS;
+
+        System.out.printf("%-5s %10d %12.2f %12.2f%n", format, bytes, encodeMillis, decodeMillis);
+    }
+}
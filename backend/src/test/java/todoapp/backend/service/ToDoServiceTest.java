@@ -6,12 +6,16 @@ import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.time.Clock;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.function.UnaryOperator;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -19,22 +23,64 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 
+import todoapp.backend.analytics.CompletionAnalytics;
+import todoapp.backend.archive.ToDoArchive;
+import todoapp.backend.cluster.ShardRouter;
 import todoapp.backend.enums.Priority;
 import todoapp.backend.enums.Status;
+import todoapp.backend.exception.InvalidToDoPropertiesException;
 import todoapp.backend.exception.ToDoNotFoundException;
+import todoapp.backend.model.CompletionStats;
 import todoapp.backend.model.FilterCriteria;
 import todoapp.backend.model.ToDo;
+import todoapp.backend.model.ToDoPatch;
+import todoapp.backend.persistence.WriteBehindPipeline;
 import todoapp.backend.repository.ToDoInMemoRepository;
+import todoapp.backend.repository.ToDoRepository;
+import todoapp.backend.scheduler.DueDateScheduler;
+import todoapp.backend.suggest.NameMatch;
+import todoapp.backend.suggest.NameSuggester;
+import todoapp.backend.sync.ChangeLog;
+import todoapp.backend.sync.ChangeSet;
+import todoapp.backend.sync.LoggedChanges;
 
 @ExtendWith(MockitoExtension.class)
 public class ToDoServiceTest {
     @Mock
-    private ToDoInMemoRepository toDoRepository;
+    private ToDoRepository toDoRepository;
+
+    @Mock
+    private ShardRouter shardRouter;
+
+    @Mock
+    private CompletionAnalytics completionAnalytics;
+
+    @Mock
+    private DueDateScheduler dueDateScheduler;
+
+    @Mock
+    private NameSuggester nameSuggester;
+
+    @Mock
+    private ChangeLog changeLog;
+
+    @Mock
+    private ToDoArchive toDoArchive;
+
+    @Mock
+    private ObjectProvider<WriteBehindPipeline> writeBehindPipeline;
+
+    @Spy
+    private Clock clock = Clock.systemUTC();
 
     @InjectMocks
     private ToDoService toDoService;
@@ -51,12 +97,126 @@ public class ToDoServiceTest {
         toDo3.setIsDone(Status.DONE);
     }
 
+    @Test
+    @DisplayName("Test for getByCriteria() paging in the engine")
+    void testGetByCriteriaIsPushedDownToTheEngine() {
+        FilterCriteria criteria = new FilterCriteria("API", null, null);
+        Pageable pageReq = PageRequest.of(0, 10, Sort.by("priority"));
+        Page<ToDo> enginePage = new PageImpl<>(List.of(toDo2, toDo1), pageReq, 2);
+        when(toDoRepository.findPage(criteria, pageReq)).thenReturn(enginePage);
+
+        Page<ToDo> page = toDoService.getByCriteria(criteria, pageReq);
+
+        // Assertions: the engine's page is returned as is, nothing is loaded
+        assertEquals(enginePage, page);
+        verify(toDoRepository, never()).findAllByCriteria(any());
+        verify(toDoRepository, never()).findAll();
+    }
+
+    @Test
+    @DisplayName("Test for searchByName() method")
+    void testSearchByNameKeepsTheRankingAndFilters() {
+        when(nameSuggester.search("documentaton")).thenReturn(
+                List.of(new NameMatch(2, 0.9), new NameMatch(3, 0.5), new NameMatch(1, 0.4), new NameMatch(4, 0.3)));
+        when(toDoRepository.findById(1)).thenReturn(toDo1);
+        when(toDoRepository.findById(2)).thenReturn(toDo2);
+        when(toDoRepository.findById(3)).thenReturn(toDo3);
+
+        Page<ToDo> page = toDoService.searchByName(new FilterCriteria("documentaton", null, Status.NOT_DONE),
+                PageRequest.of(0, 10));
+
+        // Assertions: toDo3 is done and ToDo 4 is gone
+        assertEquals(List.of(toDo2, toDo1), page.getContent());
+        assertEquals(2, page.getTotalElements());
+    }
+
+    @Test
+    @DisplayName("Test for searchByName() method with a page past the end")
+    void testSearchByNamePastTheLastPageIsEmpty() {
+        when(nameSuggester.search("documentaton")).thenReturn(List.of(new NameMatch(2, 0.9), new NameMatch(1, 0.4)));
+        when(toDoRepository.findById(1)).thenReturn(toDo1);
+        when(toDoRepository.findById(2)).thenReturn(toDo2);
+
+        Page<ToDo> page = toDoService.searchByName(new FilterCriteria("documentaton", null, null),
+                PageRequest.of(3, 10));
+
+        // Assertions
+        assertTrue(page.getContent().isEmpty());
+        assertEquals(2, page.getTotalElements());
+    }
+
+    @Test
+    @DisplayName("Test for deleteByCriteria() and updateByCriteria() methods")
+    void testBulkOperationsRunInTheRepository() {
+        FilterCriteria criteria = new FilterCriteria(null, Priority.LOW, null);
+        ToDoPatch patch = new ToDoPatch(null, null, Priority.HIGH, null);
+        when(toDoRepository.updateAllByCriteria(criteria, patch)).thenReturn(3);
+        when(toDoRepository.deleteAllByCriteria(criteria)).thenReturn(2);
+
+        // Assertions: the counts of the repository, no ToDo is loaded
+        assertEquals(3, toDoService.updateByCriteria(criteria, patch));
+        assertEquals(2, toDoService.deleteByCriteria(criteria));
+        verify(toDoRepository, never()).findAllByCriteria(any());
+
+        // a patch must change something, and names stay valid
+        assertThrows(InvalidToDoPropertiesException.class,
+                () -> toDoService.updateByCriteria(criteria, new ToDoPatch()));
+        assertThrows(InvalidToDoPropertiesException.class,
+                () -> toDoService.updateByCriteria(criteria, new ToDoPatch(" ", null, null, null)));
+    }
+
+    @Test
+    @DisplayName("Test for getIncludingArchived() method")
+    void testArchivedToDosArePagedWithTheLiveOnes() {
+        FilterCriteria criteria = new FilterCriteria(null, null, Status.DONE);
+        ToDo archived = new ToDo(4, "Old report", null, Priority.LOW);
+        archived.setIsDone(Status.DONE);
+        ToDo staleCopy = new ToDo(toDo3);
+        when(toDoRepository.findAllByCriteria(criteria)).thenReturn(List.of(toDo3));
+        when(toDoArchive.findAllByCriteria(criteria)).thenReturn(List.of(staleCopy, archived));
+
+        Page<ToDo> page = toDoService.getIncludingArchived(criteria, PageRequest.of(0, 10, Sort.by("priority")));
+
+        // Assertions: the live ToDo hides its archived copy
+        assertEquals(List.of(archived, toDo3), page.getContent());
+        assertEquals(2, page.getTotalElements());
+    }
+
+    @Test
+    @DisplayName("Test for getIncludingArchived() method with a page past the end")
+    void testArchivedToDosPastTheLastPageIsEmpty() {
+        ToDo archived = new ToDo(4, "Old report", null, Priority.LOW);
+        archived.setIsDone(Status.DONE);
+        when(toDoRepository.findAll()).thenReturn(List.of(toDo1, toDo2));
+        when(toDoArchive.findAllByCriteria(null)).thenReturn(List.of(archived));
+
+        Page<ToDo> page = toDoService.getIncludingArchived(null, PageRequest.of(1, 10));
+
+        // Assertions
+        assertTrue(page.getContent().isEmpty());
+        assertEquals(3, page.getTotalElements());
+    }
+
+    @Test
+    @DisplayName("Test for getChangesSince() method")
+    void testChangesAreSentInTheirCurrentState() {
+        when(changeLog.getChangesSince(10, 100))
+                .thenReturn(new LoggedChanges(14, false, false, List.of(1, 2), List.of(5)));
+        when(toDoRepository.findById(1)).thenReturn(toDo1);
+
+        ChangeSet changes = toDoService.getChangesSince(10, 100);
+
+        // Assertions: ToDo 2 was deleted after the log was read
+        assertEquals(14, changes.version());
+        assertEquals(List.of(toDo1), changes.upserts());
+        assertEquals(List.of(5, 2), changes.deletes());
+    }
+
     @Test
     @DisplayName("Test for getAllToDos() method")
     void testGetAllToDos() {
-        when(toDoRepository.findAll()).thenReturn(List.of(toDo1, toDo2, toDo3));
-
         Pageable pageReq = PageRequest.of(0, 10);
+        when(toDoRepository.findPage(null, pageReq)).thenReturn(new PageImpl<>(List.of(toDo1, toDo2, toDo3)));
         List<ToDo> allToDos = toDoService.getAllToDos(pageReq).getContent();
 
         // Assertions
@@ -68,9 +228,8 @@ public class ToDoServiceTest {
     @DisplayName("Test for getByCriteria() method when filtering only by name.")
     void testGetByName() {
         FilterCriteria criteria = new FilterCriteria("API", null, null);
-        when(toDoRepository.findAllByCriteria(criteria)).thenReturn(List.of(toDo1, toDo2));
-
         Pageable pageReq = PageRequest.of(0, 10);
+        when(toDoRepository.findPage(criteria, pageReq)).thenReturn(new PageImpl<>(List.of(toDo1, toDo2)));
         List<ToDo> toDosByName = toDoService.getByCriteria(criteria, pageReq).getContent();
 
         // Assertions
@@ -83,9 +242,8 @@ public class ToDoServiceTest {
     void testGetByPriority() {
         FilterCriteria criteria = new FilterCriteria(null, Priority.MEDIUM, null);
 
-        when(toDoRepository.findAllByCriteria(criteria)).thenReturn(List.of(toDo3));
-
         Pageable pageReq = PageRequest.of(0, 10);
+        when(toDoRepository.findPage(criteria, pageReq)).thenReturn(new PageImpl<>(List.of(toDo3)));
         List<ToDo> toDosByPriority = toDoService.getByCriteria(criteria, pageReq).getContent();
 
         // Assertions
@@ -98,9 +256,8 @@ public class ToDoServiceTest {
     void testGetByStatus() {
         FilterCriteria criteria = new FilterCriteria(null, null, Status.DONE);
 
-        when(toDoRepository.findAllByCriteria(criteria)).thenReturn(List.of(toDo3));
-
         Pageable pageReq = PageRequest.of(0, 10);
+        when(toDoRepository.findPage(criteria, pageReq)).thenReturn(new PageImpl<>(List.of(toDo3)));
         List<ToDo> toDosByStatus = toDoService.getByCriteria(criteria, pageReq).getContent();
 
         // Assertions
@@ -113,9 +270,8 @@ public class ToDoServiceTest {
     void testGetByMultipleCriteria() {
         FilterCriteria criteria = new FilterCriteria("Essay", Priority.MEDIUM, Status.DONE);
 
-        when(toDoRepository.findAllByCriteria(criteria)).thenReturn(List.of(toDo3));
-
         Pageable pageReq = PageRequest.of(0, 10);
+        when(toDoRepository.findPage(criteria, pageReq)).thenReturn(new PageImpl<>(List.of(toDo3)));
         List<ToDo> toDosByMultiCriteria = toDoService.getByCriteria(criteria, pageReq).getContent();
 
         // Assertions
@@ -135,27 +291,44 @@ public class ToDoServiceTest {
         assertEquals(addedToDo.getId(), toDo1.getId());
     }
 
+    @Test
+    @DisplayName("Test for addToDo() and updateToDoDoneStatus() stamping ToDos with the injected clock")
+    void testToDosAreStampedWithTheInjectedClock() {
+        when(clock.millis()).thenReturn(1_000_000L, 4_000_000L);
+        when(toDoRepository.add(any(ToDo.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        ToDo added = toDoService.addToDo(toDo2);
+        updatesApplyTo(added);
+
+        ToDo done = toDoService.updateToDoDoneStatus(added.getId(), Status.DONE);
+
+        // Assertions
+        assertEquals(1_000_000L, done.getCreationMillis());
+        assertEquals(4_000_000L, done.getDoneMillis());
+        assertEquals(3_000_000L, done.getDoneCompletionMillis());
+    }
+
     @Test
     @DisplayName("Test for updateToDo() method")
     void testUpdateToDoData() {
-        when(toDoRepository.findById(anyInt())).thenReturn(toDo2);
-        when(toDoRepository.update(anyInt(), any(ToDo.class))).thenReturn(toDo2);
-
-        toDo2.setName("Updated ToDo Name");
-        toDo2.setDueDate(LocalDate.of(2025, 7, 23));
-        toDo2.setPriority(Priority.HIGH);
+        updatesApplyTo(toDo2);
+        ToDo changes = new ToDo(toDo2);
+        changes.setName("Updated ToDo Name");
+        changes.setDueDate(LocalDate.of(2025, 7, 23));
+        changes.setPriority(Priority.HIGH);
 
-        ToDo updatedToDo = toDoService.updateToDo(2, toDo2);
+        ToDo updatedToDo = toDoService.updateToDo(2, changes);
 
-        // Assertions
+        // Assertions: the change went to a copy, the stored ToDo is untouched
         assertNotNull(updatedToDo);
         assertEquals(updatedToDo.getId(), toDo2.getId());
+        assertEquals(changes, updatedToDo);
+        assertEquals("Write API documentation", toDo2.getName());
     }
 
     @Test()
     @DisplayName("Test for updateToDo() method when trying to update a non existing To Do object")
     void testUpdateNonExistingToDo() throws ToDoNotFoundException {
-        when(toDoRepository.findById(anyInt())).thenReturn(null).thenThrow(ToDoNotFoundException.class);
+        when(toDoRepository.update(anyInt(), any(UnaryOperator.class))).thenReturn(null);
 
         assertThrows(ToDoNotFoundException.class, () -> toDoService.updateToDo(10, toDo2));
     }
@@ -179,164 +352,12 @@ public class ToDoServiceTest {
         assertThrows(ToDoNotFoundException.class, () -> toDoService.deleteToDo(10));
     }
 
-    @Test
-    @DisplayName("Test for getAllToDos() when sorting by priority ASC")
-    void testGetAllToDosSortedByPriorityAsc() {
-        List<ToDo> toDosReturned = List.of(toDo1, toDo2, toDo3);
-        when(toDoRepository.findAll()).thenReturn(new ArrayList<>(toDosReturned));
-
-        // make request to get To Dos sorted
-        Pageable pageReq = PageRequest.of(0, 10, Sort.by(Sort.Direction.ASC, "priority"));
-        List<ToDo> allToDos = toDoService.getAllToDos(pageReq).getContent();
-
-        // assertions
-        assertNotNull(allToDos);
-        assertEquals(allToDos.size(), 3);
-        assertEquals(allToDos, List.of(toDo2, toDo3, toDo1));
-    }
-
-    @Test
-    @DisplayName("Test for getAllToDos() when sorting by priority DESC")
-    void testGetAllToDosSortedByPriorityDesc() {
-        List<ToDo> toDosReturned = List.of(toDo1, toDo2, toDo3);
-        when(toDoRepository.findAll()).thenReturn(new ArrayList<>(toDosReturned));
-
-        // make request to get To Dos sorted
-        Pageable pageReq = PageRequest.of(0, 10, Sort.by(Sort.Direction.DESC, "priority"));
-        List<ToDo> allToDos = toDoService.getAllToDos(pageReq).getContent();
-
-        // assertions
-        assertNotNull(allToDos);
-        assertEquals(allToDos.size(), 3);
-        assertEquals(allToDos, List.of(toDo1, toDo3, toDo2));
-    }
-
-    @Test
-    @DisplayName("Test for getAllToDos() when sorting by due date ASC")
-    void testGetAllToDosSortedByDueDateAsc() {
-        List<ToDo> toDosReturned = List.of(toDo1, toDo2, toDo3);
-        when(toDoRepository.findAll()).thenReturn(new ArrayList<>(toDosReturned));
-
-        // make request to get To Dos sorted
-        Pageable pageReq = PageRequest.of(0, 10, Sort.by(Sort.Direction.ASC, "dueDate"));
-        List<ToDo> allToDos = toDoService.getAllToDos(pageReq).getContent();
-
-        // assertions
-        assertNotNull(allToDos);
-        assertEquals(allToDos.size(), 3);
-        assertEquals(allToDos, List.of(toDo3, toDo1, toDo2));
-    }
-
-    @Test
-    @DisplayName("Test for getAllToDos() when sorting by due date DESC")
-    void testGetAllToDosSortedByDueDateDesc() {
-        List<ToDo> toDosReturned = List.of(toDo1, toDo2, toDo3);
-        when(toDoRepository.findAll()).thenReturn(new ArrayList<>(toDosReturned));
-
-        // make request to get To Dos sorted
-        Pageable pageReq = PageRequest.of(0, 10, Sort.by(Sort.Direction.DESC, "dueDate"));
-        List<ToDo> allToDos = toDoService.getAllToDos(pageReq).getContent();
-
-        // assertions
-        assertNotNull(allToDos);
-        assertEquals(allToDos.size(), 3);
-        assertEquals(allToDos, List.of(toDo2, toDo1, toDo3));
-    }
-
-    @Test
-    @DisplayName("Test for getAllToDos() when sorting by priority and due date, both ASC")
-    void testGetAllToDosSortedByPriorityAndDueDateAsc() {
-        ToDo extraToDo = new ToDo(4, "Extra sample To Do", null, Priority.MEDIUM);
-        List<ToDo> toDosReturned = List.of(toDo1, toDo2, toDo3, extraToDo);
-        when(toDoRepository.findAll()).thenReturn(new ArrayList<>(toDosReturned));
-
-        // setup sort orders
-        List<Sort.Order> sortOrders = new ArrayList<>();
-        sortOrders.add(new Sort.Order(Sort.Direction.ASC, "priority"));
-        sortOrders.add(new Sort.Order(Sort.Direction.ASC, "dueDate"));
-
-        // make request to get To Dos sorted
-        Pageable pageReq = PageRequest.of(0, 10, Sort.by(sortOrders));
-        List<ToDo> allToDos = toDoService.getAllToDos(pageReq).getContent();
-
-        // assertions
-        assertNotNull(allToDos);
-        assertEquals(allToDos.size(), 4);
-        assertEquals(allToDos, List.of(toDo2, toDo3, extraToDo, toDo1));
-    }
-
-    @Test
-    @DisplayName("Test for getAllToDos() when sorting by priority and due date, both DESC")
-    void testGetAllToDosSortedByPriorityAndDueDateDesc() {
-        ToDo extraToDo = new ToDo(4, "Extra sample To Do", null, Priority.MEDIUM);
-        List<ToDo> toDosReturned = List.of(toDo1, toDo2, toDo3, extraToDo);
-        when(toDoRepository.findAll()).thenReturn(new ArrayList<>(toDosReturned));
-
-        // setup sort orders
-        List<Sort.Order> sortOrders = new ArrayList<>();
-        sortOrders.add(new Sort.Order(Sort.Direction.DESC, "priority"));
-        sortOrders.add(new Sort.Order(Sort.Direction.DESC, "dueDate"));
-
-        // make request to get To Dos sorted
-        Pageable pageReq = PageRequest.of(0, 10, Sort.by(sortOrders));
-        List<ToDo> allToDos = toDoService.getAllToDos(pageReq).getContent();
-
-        // assertions
-        assertNotNull(allToDos);
-        assertEquals(allToDos.size(), 4);
-        assertEquals(allToDos, List.of(toDo1, extraToDo, toDo3, toDo2));
-    }
-
-    @Test
-    @DisplayName("Test for getAllToDos() when sorting by priority ASC and due date DESC")
-    void testGetAllToDosSortedByPriorityAscAndDueDateDesc() {
-        ToDo extraToDo = new ToDo(4, "Extra sample To Do", null, Priority.MEDIUM);
-        List<ToDo> toDosReturned = List.of(toDo1, toDo2, toDo3, extraToDo);
-        when(toDoRepository.findAll()).thenReturn(new ArrayList<>(toDosReturned));
-
-        // setup sort orders
-        List<Sort.Order> sortOrders = new ArrayList<>();
-        sortOrders.add(new Sort.Order(Sort.Direction.ASC, "priority"));
-        sortOrders.add(new Sort.Order(Sort.Direction.DESC, "dueDate"));
-
-        // make request to get To Dos sorted
-        Pageable pageReq = PageRequest.of(0, 10, Sort.by(sortOrders));
-        List<ToDo> allToDos = toDoService.getAllToDos(pageReq).getContent();
-
-        // assertions
-        assertNotNull(allToDos);
-        assertEquals(allToDos.size(), 4);
-        assertEquals(allToDos, List.of(toDo2, extraToDo, toDo3, toDo1));
-    }
-
-    @Test
-    @DisplayName("Test for getAllToDos() when sorting by priority DESC and due date ASC")
-    void testGetAllToDosSortedByPriorityDescAndDueDateAsc() {
-        ToDo extraToDo = new ToDo(4, "Extra sample To Do", null, Priority.MEDIUM);
-        List<ToDo> toDosReturned = List.of(toDo1, toDo2, toDo3, extraToDo);
-        when(toDoRepository.findAll()).thenReturn(new ArrayList<>(toDosReturned));
-
-        // setup sort orders
-        List<Sort.Order> sortOrders = new ArrayList<>();
-        sortOrders.add(new Sort.Order(Sort.Direction.DESC, "priority"));
-        sortOrders.add(new Sort.Order(Sort.Direction.ASC, "dueDate"));
-
-        // make request to get To Dos sorted
-        Pageable pageReq = PageRequest.of(0, 10, Sort.by(sortOrders));
-        List<ToDo> allToDos = toDoService.getAllToDos(pageReq).getContent();
-
-        // assertions
-        assertNotNull(allToDos);
-        assertEquals(allToDos.size(), 4);
-        assertEquals(allToDos, List.of(toDo1, toDo3, extraToDo, toDo2));
-    }
-
     @Test
     @DisplayName("Test for getMetrics() when no To Dos are marked as DONE")
     void testGetMetricsWhenNoToDosAreDone() {
         toDo3.setIsDone(Status.NOT_DONE); // mark the sample ToDo as NOT_DONE
 
-        when(toDoRepository.findAll()).thenReturn(List.of(toDo1, toDo2, toDo3));
+        when(toDoRepository.getCompletionStats()).thenReturn(completionStatsOf(toDo1, toDo2, toDo3));
 
         // call service method to get metrics
         Map<String, Double> metrics = toDoService.getMetrics();
@@ -354,7 +375,7 @@ public class ToDoServiceTest {
         toDo1.setIsDone(Status.DONE);
         toDo2.setIsDone(Status.DONE);
 
-        when(toDoRepository.findAll()).thenReturn(List.of(toDo1, toDo2, toDo3));
+        when(toDoRepository.getCompletionStats()).thenReturn(completionStatsOf(toDo1, toDo2, toDo3));
 
         // call service method to get metrics
         Map<String, Double> metrics = toDoService.getMetrics();
@@ -374,7 +395,7 @@ public class ToDoServiceTest {
         toDo1.setIsDone(Status.DONE);
         toDo3.setIsDone(Status.NOT_DONE);
 
-        when(toDoRepository.findAll()).thenReturn(List.of(toDo1, toDo2, toDo3));
+        when(toDoRepository.getCompletionStats()).thenReturn(completionStatsOf(toDo1, toDo2, toDo3));
 
         // call service method to get metrics
         Map<String, Double> metrics = toDoService.getMetrics();
@@ -388,7 +409,7 @@ public class ToDoServiceTest {
     @Test
     @DisplayName("Test for getMetrics() when only MEDIUM priority To Dos are marked as DONE")
     void testGetMetricsWhenOnlyMediumPriorityAreDone() {
-        when(toDoRepository.findAll()).thenReturn(List.of(toDo1, toDo2, toDo3));
+        when(toDoRepository.getCompletionStats()).thenReturn(completionStatsOf(toDo1, toDo2, toDo3));
 
         // call service method to get metrics
         Map<String, Double> metrics = toDoService.getMetrics();
@@ -406,7 +427,7 @@ public class ToDoServiceTest {
         toDo2.setIsDone(Status.DONE);
         toDo3.setIsDone(Status.NOT_DONE);
 
-        when(toDoRepository.findAll()).thenReturn(List.of(toDo1, toDo2, toDo3));
+        when(toDoRepository.getCompletionStats()).thenReturn(completionStatsOf(toDo1, toDo2, toDo3));
 
         // call service method to get metrics
         Map<String, Double> metrics = toDoService.getMetrics();
@@ -416,4 +437,40 @@ public class ToDoServiceTest {
         assertTrue(metrics.containsKey("ALL"));
         assertTrue(metrics.containsKey("LOW"));
     }
+
+    @Test
+    @DisplayName("Test for getMetrics() with percentiles")
+    void testGetMetricsWithPercentiles() {
+        // mark only HIGH priority To Do as DONE
+        toDo1.setIsDone(Status.DONE);
+        toDo3.setIsDone(Status.NOT_DONE);
+
+        when(toDoRepository.getCompletionStats()).thenReturn(completionStatsOf(toDo1, toDo2, toDo3));
+
+        // call service method to get metrics
+        Map<String, Double> metrics = toDoService.getMetrics(new double[] { 50, 99.9 });
+
+        // assertions
+        assertEquals(metrics.size(), 6); // averages plus 2 percentiles for ALL and HIGH
+        assertTrue(metrics.containsKey("ALL_P50"));
+        assertTrue(metrics.containsKey("ALL_P99.9"));
+        assertTrue(metrics.containsKey("HIGH_P50"));
+        assertTrue(metrics.containsKey("HIGH_P99.9"));
+    }
+
+    // Builds the completion stats a repository holding the given To Dos would report
+    private CompletionStats completionStatsOf(ToDo... toDos) {
+        ToDoInMemoRepository repository = new ToDoInMemoRepository();
+        for (ToDo toDo : toDos) {
+            repository.add(toDo);
+        }
+        return repository.getCompletionStats();
+    }
+
+    // The repository applies each change to a copy of the given stored ToDo
+    @SuppressWarnings("unchecked")
+    private void updatesApplyTo(ToDo stored) {
+        when(toDoRepository.update(anyInt(), any(UnaryOperator.class)))
+                .thenAnswer(invocation -> invocation.<UnaryOperator<ToDo>>getArgument(1).apply(new ToDo(stored)));
+    }
 }
@@ -0,0 +1,76 @@
+package todoapp.backend.suggest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.junit.jupiter.api.Test;
+
+class BkTreeTest {
+
+    @Test
+    void testDistance() {
+        assertEquals(0, BkTree.distance("groceries", "groceries"));
+        assertEquals(1, BkTree.distance("grocries", "groceries"));
+        assertEquals(2, BkTree.distance("gorceries", "groceries"));
+        assertEquals(3, BkTree.distance("kitten", "sitting"));
+        assertEquals(4, BkTree.distance("", "test"));
+    }
+
+    @Test
+    void testFindsTheSameWordsAsAFullScan() {
+        Random random = new Random(42);
+        BkTree tree = new BkTree();
+        TreeSet<String> words = new TreeSet<>();
+        for (int i = 0; i < 3000; i++) {
+            String word = randomWord(random);
+            assertEquals(words.add(word), tree.add(word));
+        }
+        assertEquals(words.size(), tree.size());
+
+        for (int i = 0; i < 200; i++) {
+            String query = randomWord(random);
+            int maxDistance = random.nextInt(3);
+            Map<String, Integer> expected = new HashMap<>();
+            for (String word : words) {
+                int distance = BkTree.distance(query, word);
+                if (distance <= maxDistance) {
+                    expected.put(word, distance);
+                }
+            }
+
+            Map<String, Integer> found = new HashMap<>();
+            tree.forEachWithin(query, maxDistance, found::put);
+
+            // Assertions
+            assertEquals(expected, found);
+        }
+    }
+
+    @Test
+    void testAddingAWordTwiceKeepsOne() {
+        BkTree tree = new BkTree();
+
+        // Assertions
+        assertTrue(tree.add("milk"));
+        assertFalse(tree.add("milk"));
+        assertTrue(tree.add("silk"));
+        assertEquals(2, tree.size());
+        Map<String, Integer> found = new HashMap<>();
+        tree.forEachWithin("mlk", 1, found::put);
+        assertEquals(Map.of("milk", 1), found);
+    }
+
+    private static String randomWord(Random random) {
+        StringBuilder word = new StringBuilder();
+        for (int length = 2 + random.nextInt(6); length > 0; length--) {
+            word.append((char) ('a' + random.nextInt(6)));
+        }
+        return word.toString();
+    }
+}
@@ -0,0 +1,123 @@
+package todoapp.backend.suggest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import todoapp.backend.enums.Priority;
+import todoapp.backend.model.ToDo;
+import todoapp.backend.repository.ToDoInMemoRepository;
+import todoapp.backend.util.TenantContext;
+
+class NameSuggesterTest {
+
+    private NameSuggester suggester;
+    private ToDoInMemoRepository repository;
+
+    @BeforeEach
+    void init() {
+        suggester = new NameSuggester();
+        repository = new ToDoInMemoRepository(4, List.of(suggester));
+        repository.add(new ToDo(1, "Write report", null, Priority.HIGH));
+        repository.add(new ToDo(2, "Review the report", null, Priority.LOW));
+        repository.add(new ToDo(3, "Write API documentation", null, Priority.MEDIUM));
+    }
+
+    @AfterEach
+    void clear() {
+        TenantContext.clear();
+    }
+
+    @Test
+    void testLastWordIsCompletedWithCounts() {
+        NameSuggestions suggestions = suggester.suggest("Finish the RE", 10);
+
+        // Assertions
+        assertEquals("re", suggestions.prefix());
+        assertEquals(List.of(new NameSuggestions.Suggestion("report", 2), new NameSuggestions.Suggestion("review", 1)),
+                suggestions.suggestions());
+        assertEquals(List.of(new NameSuggestions.Suggestion("report", 2), new NameSuggestions.Suggestion("write", 2)),
+                suggester.suggest("write ", 2).suggestions());
+    }
+
+    @Test
+    void testConcurrentWritersAreAllIndexed() throws InterruptedException {
+        List<Thread> writers = new ArrayList<>();
+        for (int w = 0; w < 4; w++) {
+            int first = 1000 * (w + 1);
+            writers.add(new Thread(() -> {
+                for (int id = first; id < first + 1000; id++) {
+                    repository.add(new ToDo(id, "Daily standup " + id % 2, null, Priority.LOW));
+                }
+            }));
+        }
+        writers.forEach(Thread::start);
+        for (Thread writer : writers) {
+            writer.join();
+        }
+
+        // Assertions
+        assertEquals(List.of(new NameSuggestions.Suggestion("daily", 4000)), suggester.suggest("da", 10).suggestions());
+        assertEquals(4000, suggester.search("standup").size());
+    }
+
+    @Test
+    void testSuggestionsFollowUpdatesAndDeletes() {
+        ToDo toDo = repository.findById(1);
+        toDo.setName("Write r\u00e9sum\u00e9");
+        repository.update(1, toDo);
+        repository.delete(2);
+
+        // Assertions
+        assertEquals(List.of(), suggester.suggest("rep", 10).suggestions());
+        assertEquals(List.of(new NameSuggestions.Suggestion("resume", 1)),
+                suggester.suggest("R\u00e9s", 10).suggestions());
+        assertEquals(List.of(new NameSuggestions.Suggestion("write", 2)), suggester.suggest("w", 10).suggestions());
+    }
+
+    @Test
+    void testTenantsHaveTheirOwnSuggestions() {
+        TenantContext.setTenantId("team-b");
+        repository.add(new ToDo(1, "Release notes", null, Priority.LOW));
+
+        // Assertions
+        assertEquals(List.of(new NameSuggestions.Suggestion("release", 1)), suggester.suggest("re", 10).suggestions());
+        TenantContext.clear();
+        assertEquals(2, suggester.suggest("re", 10).suggestions().size());
+    }
+
+    @Test
+    void testMisspelledNamesAreFoundAndRanked() {
+        repository.add(new ToDo(4, "Buy groceries", null, Priority.LOW));
+        repository.add(new ToDo(5, "Put the groceries away", null, Priority.LOW));
+
+        List<NameMatch> matches = suggester.search("Wrte the reports");
+
+        // Assertions
+        assertEquals(List.of(2, 1, 5, 3), matches.stream().map(NameMatch::id).toList());
+        assertEquals(List.of(4, 5), suggester.search("grocries").stream().map(NameMatch::id).toList());
+        assertEquals(1.0, suggester.search("buy").get(0).score());
+        // short words must be spelled right
+        assertEquals(List.of(), suggester.search("bu"));
+    }
+
+    @Test
+    void testRemovedWordsAreNotFoundAnymore() {
+        // enough renames to rebuild the word dictionary
+        for (int i = 0; i < 2000; i++) {
+            ToDo toDo = repository.findById(3);
+            toDo.setName("Write draft" + i);
+            repository.update(3, toDo);
+        }
+
+        // Assertions
+        assertEquals(List.of(), suggester.search("documentation"));
+        assertEquals(List.of(3), suggester.search("draft1999").stream().map(NameMatch::id).toList());
+        assertEquals(List.of(1, 3), suggester.search("write").stream().map(NameMatch::id).toList());
+    }
+}
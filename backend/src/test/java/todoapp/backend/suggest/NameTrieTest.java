@@ -0,0 +1,90 @@
+package todoapp.backend.suggest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.Test;
+
+class NameTrieTest {
+
+    @Test
+    void testCompletionsAreTheMostFrequentFirstThenAlphabetical() {
+        NameTrie trie = new NameTrie();
+        trie.add("report", 3);
+        trie.add("review", 3);
+        trie.add("rest", 5);
+        trie.add("re", 1);
+        trie.add("write", 4);
+
+        // Assertions
+        assertEquals(List.of(new NameSuggestions.Suggestion("rest", 5), new NameSuggestions.Suggestion("report", 3),
+                new NameSuggestions.Suggestion("review", 3), new NameSuggestions.Suggestion("re", 1)),
+                trie.complete("re", 10));
+        assertEquals(List.of(new NameSuggestions.Suggestion("rest", 5), new NameSuggestions.Suggestion("write", 4)),
+                trie.complete("", 2));
+        assertEquals(List.of(new NameSuggestions.Suggestion("review", 3)), trie.complete("rev", 10));
+        assertEquals(List.of(), trie.complete("rx", 10));
+        assertEquals(List.of(), trie.complete("reviews", 10));
+    }
+
+    @Test
+    void testRemovedTokensDisappearAndEdgesAreMergedBack() {
+        NameTrie trie = new NameTrie();
+        trie.add("test", 1);
+        trie.add("testing", 1);
+        trie.add("tea", 1);
+
+        trie.add("test", -1);
+        trie.add("tea", -1);
+        // removing a missing token changes nothing
+        trie.add("team", -1);
+
+        // Assertions
+        assertEquals(1, trie.size());
+        assertEquals(0, trie.count("test"));
+        assertEquals(1, trie.count("testing"));
+        assertEquals(List.of(new NameSuggestions.Suggestion("testing", 1)), trie.complete("te", 10));
+    }
+
+    @Test
+    void testMatchesABruteForceIndex() {
+        Random random = new Random(42);
+        NameTrie trie = new NameTrie();
+        Map<String, Integer> counts = new TreeMap<>();
+        String letters = "abcd";
+
+        for (int round = 0; round < 20_000; round++) {
+            StringBuilder token = new StringBuilder();
+            for (int length = 1 + random.nextInt(6); length > 0; length--) {
+                token.append(letters.charAt(random.nextInt(letters.length())));
+            }
+            String key = token.toString();
+            if (random.nextInt(3) == 0 && counts.containsKey(key)) {
+                trie.add(key, -1);
+                counts.computeIfPresent(key, (k, count) -> count == 1 ? null : count - 1);
+            } else {
+                trie.add(key, 1);
+                counts.merge(key, 1, Integer::sum);
+            }
+
+            if (round % 100 == 0) {
+                String prefix = key.substring(0, random.nextInt(Math.min(3, key.length()) + 1));
+                List<NameSuggestions.Suggestion> expected = counts.entrySet().stream()
+                        .filter(entry -> entry.getKey().startsWith(prefix))
+                        .map(entry -> new NameSuggestions.Suggestion(entry.getKey(), entry.getValue()))
+                        .sorted(Comparator.comparingInt(NameSuggestions.Suggestion::count).reversed()
+                                .thenComparing(NameSuggestions.Suggestion::text))
+                        .limit(5).toList();
+
+                // Assertions
+                assertEquals(expected, trie.complete(prefix, 5));
+                assertEquals(counts.size(), trie.size());
+            }
+        }
+    }
+}
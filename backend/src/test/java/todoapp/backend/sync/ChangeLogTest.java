@@ -0,0 +1,151 @@
+package todoapp.backend.sync;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import todoapp.backend.enums.Priority;
+import todoapp.backend.enums.Status;
+import todoapp.backend.model.ToDo;
+import todoapp.backend.repository.ToDoInMemoRepository;
+import todoapp.backend.util.TenantContext;
+
+class ChangeLogTest {
+
+    private ChangeLog changeLog;
+    private ToDoInMemoRepository repository;
+
+    @BeforeEach
+    void init() {
+        changeLog = new ChangeLog(3);
+        repository = new ToDoInMemoRepository(4, List.of(changeLog));
+        repository.add(new ToDo(1, "Test API", null, Priority.HIGH));
+        repository.add(new ToDo(2, "Write API documentation", null, Priority.LOW));
+        repository.add(new ToDo(3, "Finish essay", null, Priority.MEDIUM));
+    }
+
+    @AfterEach
+    void clear() {
+        TenantContext.clear();
+    }
+
+    @Test
+    void testFirstSyncIsAFullResync() {
+        LoggedChanges changes = changeLog.getChangesSince(0, 100);
+
+        // Assertions
+        assertTrue(changes.resync());
+        assertFalse(changes.hasMore());
+        assertEquals(List.of(1, 2, 3), changes.changedIds());
+        assertFalse(changeLog.getChangesSince(changes.version(), 100).resync());
+        assertEquals(List.of(), changeLog.getChangesSince(changes.version(), 100).changedIds());
+    }
+
+    @Test
+    void testOnlyTheLatestChangeOfEachToDoIsSent() {
+        long version = changeLog.getChangesSince(0, 100).version();
+
+        ToDo toDo = repository.findById(1);
+        toDo.setIsDone(Status.DONE);
+        repository.update(1, toDo);
+        repository.delete(2);
+        toDo.setName("Test the API");
+        repository.update(1, toDo);
+
+        LoggedChanges changes = changeLog.getChangesSince(version, 100);
+
+        // Assertions
+        assertFalse(changes.resync());
+        assertEquals(version + 3, changes.version());
+        assertEquals(List.of(1), changes.changedIds());
+        assertEquals(List.of(2), changes.deletedIds());
+    }
+
+    @Test
+    void testConcurrentWritersAreAllLogged() throws InterruptedException {
+        long version = changeLog.getChangesSince(0, 100).version();
+        List<Thread> writers = new ArrayList<>();
+        for (int w = 0; w < 4; w++) {
+            int first = 1000 * (w + 1);
+            writers.add(new Thread(() -> {
+                for (int id = first; id < first + 500; id++) {
+                    repository.add(new ToDo(id, "Task " + id, null, Priority.LOW));
+                }
+            }));
+        }
+        writers.forEach(Thread::start);
+        for (Thread writer : writers) {
+            writer.join();
+        }
+
+        LoggedChanges changes = changeLog.getChangesSince(version, 10_000);
+
+        // Assertions
+        assertEquals(version + 2000, changes.version());
+        assertEquals(2000, changes.changedIds().size());
+    }
+
+    @Test
+    void testChangesArePaged() {
+        long version = changeLog.getChangesSince(0, 100).version();
+        for (int id = 4; id <= 8; id++) {
+            repository.add(new ToDo(id, "Task " + id, null, Priority.LOW));
+        }
+
+        LoggedChanges first = changeLog.getChangesSince(version, 3);
+        LoggedChanges second = changeLog.getChangesSince(first.version(), 3);
+
+        // Assertions
+        assertEquals(List.of(4, 5, 6), first.changedIds());
+        assertTrue(first.hasMore());
+        assertEquals(List.of(7, 8), second.changedIds());
+        assertFalse(second.hasMore());
+    }
+
+    @Test
+    void testClientsBehindTheDroppedTombstonesResync() {
+        long version = changeLog.getChangesSince(0, 100).version();
+        for (int id = 4; id <= 7; id++) {
+            repository.add(new ToDo(id, "Task " + id, null, Priority.LOW));
+        }
+        long recentVersion = changeLog.getChangesSince(version, 100).version();
+        for (int id = 4; id <= 7; id++) {
+            repository.delete(id);
+        }
+
+        // 4 deletes but only 3 tombstones kept: the first delete was dropped
+        LoggedChanges behind = changeLog.getChangesSince(version, 100);
+        LoggedChanges recent = changeLog.getChangesSince(recentVersion + 1, 100);
+
+        // Assertions
+        assertTrue(behind.resync());
+        assertEquals(List.of(1, 2, 3), behind.changedIds());
+        assertFalse(recent.resync());
+        assertEquals(List.of(5, 6, 7), recent.deletedIds());
+    }
+
+    @Test
+    void testVersionsFromAnotherLogResync() {
+        long version = changeLog.getChangesSince(0, 100).version();
+
+        // Assertions
+        assertTrue(changeLog.getChangesSince(version + 1, 100).resync());
+        assertTrue(new ChangeLog(3).getChangesSince(version, 100).resync());
+    }
+
+    @Test
+    void testTenantsHaveTheirOwnLog() {
+        TenantContext.setTenantId("team-b");
+        repository.add(new ToDo(1, "Team B task", null, Priority.HIGH));
+
+        // Assertions
+        assertEquals(List.of(1), changeLog.getChangesSince(0, 100).changedIds());
+    }
+}
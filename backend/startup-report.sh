@@ -0,0 +1,65 @@
+#!/usr/bin/env bash
+# Compares the startup time and first request latency of the regular build with
+# the fast-startup one (with and without lazy initialization), and prints them
+# as a Markdown table. Run from the backend directory: ./startup-report.sh [runs]
+set -euo pipefail
+
+RUNS=${1:-5}
+PORT=${PORT:-9095}
+JAR=backend-0.0.1-SNAPSHOT.jar
+WORK=$(mktemp -d)
+trap 'rm -rf "$WORK"' EXIT
+
+# Starts the application, waits for it to be up and times its first request.
+# Prints "<seconds until started> <milliseconds of the first request>".
+measure() {
+    local log="$WORK/app.log"
+    java "$@" --server.port="$PORT" > "$log" 2>&1 &
+    local pid=$!
+    until grep -q "Started BackendApplication" "$log"; do
+        if ! kill -0 "$pid" 2> /dev/null; then
+            cat "$log" >&2
+            exit 1
+        fi
+        sleep 0.05
+    done
+    local started
+    started=$(sed -n 's/.*process running for \([0-9.]*\)).*/\1/p' "$log")
+    local first
+    first=$(curl -s -o /dev/null -w '%{time_total}' "http://localhost:$PORT/todos")
+    kill "$pid"
+    wait "$pid" 2> /dev/null || true
+    echo "$started $(awk -v s="$first" 'BEGIN { printf "%.1f", s * 1000 }')"
+}
+
+# Runs a variant several times and prints its median figures as a table row
+report() {
+    local name=$1
+    shift
+    local results="$WORK/results"
+    : > "$results"
+    for _ in $(seq "$RUNS"); do
+        measure "$@" >> "$results"
+    done
+    local middle=$(((RUNS + 1) / 2))
+    local started first
+    started=$(cut -d' ' -f1 "$results" | sort -n | sed -n "${middle}p")
+    first=$(cut -d' ' -f2 "$results" | sort -n | sed -n "${middle}p")
+    echo "| $name | ${started} s | ${first} ms |"
+}
+
+# from clean: AOT classes left by an earlier build don't match changed beans
+mvn -B -q -DskipTests clean package
+cp "target/$JAR" "$WORK/regular.jar"
+mvn -B -q -DskipTests -Pfast-startup clean package
+FAST="target/fast-startup"
+
+echo "Median of $RUNS runs, $(java -version 2>&1 | head -1), $(nproc) processors"
+echo
+echo "| Build | Started after | First GET /todos |"
+echo "| --- | --- | --- |"
+report "Regular" -jar "$WORK/regular.jar"
+report "AOT + CDS" -XX:SharedArchiveFile="$FAST/application.jsa" -Dspring.aot.enabled=true \
+    -jar "$FAST/$JAR"
+report "AOT + CDS + lazy" -XX:SharedArchiveFile="$FAST/application.jsa" -Dspring.aot.enabled=true \
+    -jar "$FAST/$JAR" --spring.main.lazy-initialization=true
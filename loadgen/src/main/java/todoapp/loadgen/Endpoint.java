@@ -0,0 +1,26 @@
+package todoapp.loadgen;
+
+/**
+ * The backend endpoints called by the frontend, as reported. List queries are
+ * told apart by whether they filter or sort, as they don't cost the same.
+ */
+public enum Endpoint {
+    LIST("GET /todos"),
+    LIST_FILTERED("GET /todos?<filters>"),
+    LIST_SORTED("GET /todos?sortBy"),
+    ADD("POST /todos"),
+    EDIT("PUT /todos/{id}"),
+    TOGGLE_DONE("PUT /todos/{id}/(un)done"),
+    DELETE("DELETE /todos/{id}"),
+    METRICS("GET /todos/metrics");
+
+    private final String label;
+
+    Endpoint(String label) {
+        this.label = label;
+    }
+
+    public String label() {
+        return label;
+    }
+}
@@ -0,0 +1,50 @@
+package todoapp.loadgen;
+
+import java.util.Random;
+
+/**
+ * IDs of the ToDos created by the run and not deleted by it, to pick the ToDos
+ * that are edited, ticked and deleted. Picking and removing a random ID both
+ * take constant time: a removed ID is replaced by the last one.
+ */
+public class IdPool {
+    public static final int NONE = -1;
+
+    private int[] ids = new int[1024];
+    private int size;
+
+    public synchronized void add(int id) {
+        if (size == ids.length) {
+            int[] grown = new int[ids.length * 2];
+            System.arraycopy(ids, 0, grown, 0, size);
+            ids = grown;
+        }
+        ids[size++] = id;
+    }
+
+    /**
+     * @return a random ID of the pool, or {@link #NONE} if it's empty
+     */
+    public synchronized int pick(Random random) {
+        return size == 0 ? NONE : ids[random.nextInt(size)];
+    }
+
+    /**
+     * Removes a random ID from the pool, e.g. to delete its ToDo.
+     *
+     * @return the removed ID, or {@link #NONE} if the pool is empty
+     */
+    public synchronized int take(Random random) {
+        if (size == 0) {
+            return NONE;
+        }
+        int index = random.nextInt(size);
+        int id = ids[index];
+        ids[index] = ids[--size];
+        return id;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+}
@@ -0,0 +1,188 @@
+package todoapp.loadgen;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+/**
+ * Latencies of the requests made by the run, by endpoint, plus the response
+ * time of whole user actions. An action's time is counted from when it was
+ * due to start, not from when a thread got to it, so a generator falling
+ * behind shows up in the figures instead of hiding the slow responses
+ * (coordinated omission).
+ *
+ * Requests record into lock-free HdrHistogram recorders. The reporting thread
+ * swaps out their interval histograms and adds them to the totals.
+ */
+public class LatencyStats {
+    // microseconds, up to a minute with 3 significant digits
+    private static final long HIGHEST_MICROS = TimeUnit.MINUTES.toMicros(1);
+    private static final int SIGNIFICANT_DIGITS = 3;
+    private static final String ACTIONS = "user actions (due to done)";
+
+    private static final class Series {
+        private final Recorder recorder = new Recorder(HIGHEST_MICROS, SIGNIFICANT_DIGITS);
+        private final Histogram total = new Histogram(HIGHEST_MICROS, SIGNIFICANT_DIGITS);
+        private final LongAdder intervalErrors = new LongAdder();
+        private long totalErrors;
+        // interval last closed, whose histogram is recycled by the recorder
+        private Histogram interval;
+        private long intervalErrorCount;
+
+        private void record(long nanos, boolean ok) {
+            recorder.recordValue(Math.min(HIGHEST_MICROS, Math.max(0, TimeUnit.NANOSECONDS.toMicros(nanos))));
+            if (!ok) {
+                intervalErrors.increment();
+            }
+        }
+
+        // swaps the interval histogram out, and returns its errors
+        private long swap() {
+            interval = recorder.getIntervalHistogram(interval);
+            return intervalErrors.sumThenReset();
+        }
+    }
+
+    private final Map<Endpoint, Series> endpoints = new EnumMap<>(Endpoint.class);
+    private final Series actions = new Series();
+    private final LongAdder dropped = new LongAdder();
+    private long intervalDropped;
+    private long totalDropped;
+
+    public LatencyStats() {
+        for (Endpoint endpoint : Endpoint.values()) {
+            endpoints.put(endpoint, new Series());
+        }
+    }
+
+    /**
+     * Records a request.
+     *
+     * @param endpoint the endpoint called
+     * @param nanos    time from sending the request to reading the response
+     * @param ok       False if the request failed or got an error status
+     */
+    public void record(Endpoint endpoint, long nanos, boolean ok) {
+        endpoints.get(endpoint).record(nanos, ok);
+    }
+
+    /**
+     * Records a user action, with all its requests.
+     *
+     * @param nanos time from when the action was due to when it was done
+     * @param ok    False if any of its requests failed
+     */
+    public void recordAction(long nanos, boolean ok) {
+        actions.record(nanos, ok);
+    }
+
+    /**
+     * Counts an action that wasn't started because too many were in flight.
+     */
+    public void recordDropped() {
+        dropped.increment();
+    }
+
+    /**
+     * Forgets what was recorded so far, e.g. during the warmup. Only called by
+     * the reporting thread.
+     */
+    public synchronized void reset() {
+        for (Series series : all()) {
+            series.swap();
+            series.total.reset();
+            series.totalErrors = 0;
+        }
+        dropped.reset();
+        totalDropped = 0;
+    }
+
+    /**
+     * Ends the current interval: what was recorded since the previous one is
+     * added to the totals, and kept to be printed. Only called by the
+     * reporting thread.
+     */
+    public synchronized void closeInterval() {
+        intervalDropped = dropped.sumThenReset();
+        totalDropped += intervalDropped;
+        for (Series series : all()) {
+            series.intervalErrorCount = series.swap();
+            series.totalErrors += series.intervalErrorCount;
+            series.total.add(series.interval);
+        }
+    }
+
+    /**
+     * Prints the interval last closed.
+     *
+     * @param out     where to print
+     * @param seconds length of the interval
+     */
+    public synchronized void printInterval(PrintStream out, double seconds) {
+        printHeader(out, String.format("Last %.0f s", seconds), intervalDropped);
+        for (Map.Entry<Endpoint, Series> entry : endpoints.entrySet()) {
+            Series series = entry.getValue();
+            printRow(out, entry.getKey().label(), series.interval, series.intervalErrorCount, seconds);
+        }
+        printRow(out, ACTIONS, actions.interval, actions.intervalErrorCount, seconds);
+    }
+
+    /**
+     * Prints the totals of the intervals closed.
+     *
+     * @param out     where to print
+     * @param seconds time measured
+     */
+    public synchronized void printTotals(PrintStream out, double seconds) {
+        printHeader(out, String.format("Total over %.0f s", seconds), totalDropped);
+        for (Map.Entry<Endpoint, Series> entry : endpoints.entrySet()) {
+            Series series = entry.getValue();
+            printRow(out, entry.getKey().label(), series.total, series.totalErrors, seconds);
+        }
+        printRow(out, ACTIONS, actions.total, actions.totalErrors, seconds);
+    }
+
+    /**
+     * @return the number of requests recorded in the totals
+     */
+    public synchronized long totalRequests() {
+        long requests = 0;
+        for (Series series : endpoints.values()) {
+            requests += series.total.getTotalCount();
+        }
+        return requests;
+    }
+
+    private List<Series> all() {
+        List<Series> all = new ArrayList<>(endpoints.values());
+        all.add(actions);
+        return all;
+    }
+
+    private static void printHeader(PrintStream out, String title, long dropped) {
+        out.printf("%n%s (%d actions dropped at the concurrency limit)%n", title, dropped);
+        out.printf("%-28s %9s %9s %7s %9s %9s %9s %9s %9s%n", "endpoint", "requests", "req/s", "errors",
+                "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+    }
+
+    private static void printRow(PrintStream out, String label, Histogram histogram, long errors, double seconds) {
+        if (histogram.getTotalCount() == 0) {
+            out.printf("%-28s %9d %9s %7d%n", label, 0, "-", errors);
+            return;
+        }
+        out.printf("%-28s %9d %9.1f %7d %9.2f %9.2f %9.2f %9.2f %9.2f%n", label, histogram.getTotalCount(),
+                histogram.getTotalCount() / seconds, errors, millis(histogram, 50), millis(histogram, 90),
+                millis(histogram, 99), millis(histogram, 99.9), histogram.getMaxValue() / 1000.0);
+    }
+
+    private static double millis(Histogram histogram, double percentile) {
+        return histogram.getValueAtPercentile(percentile) / 1000.0;
+    }
+}
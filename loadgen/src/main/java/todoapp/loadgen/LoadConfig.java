@@ -0,0 +1,102 @@
+package todoapp.loadgen;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Settings of a load run, read from --name=value arguments. Every setting has
+ * a default, so a run against a local backend needs none.
+ *
+ * @param baseUrl        URL of the backend
+ * @param tenant         tenant the ToDos are created for, so the run doesn't
+ *                       touch the others
+ * @param rate           user actions started per second. Actions arrive at
+ *                       random (Poisson) times, whether the previous ones are
+ *                       done or not, as real users would (open model)
+ * @param concurrency    most actions in flight at once, each on its own
+ *                       virtual thread. Actions arriving beyond it are counted
+ *                       as dropped
+ * @param dataSetSize    ToDos added before the run
+ * @param warmup         time the load runs before being measured
+ * @param duration       time the load is measured
+ * @param reportInterval time between interim reports during long (soak) runs,
+ *                       zero for the final report only
+ * @param pageSize       ToDos per page, as in the frontend
+ * @param seed           seed of the random choices, so runs can be repeated
+ */
+public record LoadConfig(URI baseUrl, String tenant, double rate, int concurrency, int dataSetSize, Duration warmup,
+        Duration duration, Duration reportInterval, int pageSize, long seed) {
+
+    public static final String USAGE = """
+            Usage: mvn -q exec:java -Dexec.args="[--name=value...]"
+              --base-url=http://localhost:9090  backend to load
+              --tenant=loadgen                  tenant of the ToDos created
+              --rate=50                         user actions started per second (open model)
+              --concurrency=200                 most actions in flight (virtual threads)
+              --data-set=1000                   ToDos added before the run
+              --warmup=10                       seconds of load before measuring
+              --duration=60                     seconds measured
+              --report-interval=10              seconds between interim reports (0 = none)
+              --page-size=10                    ToDos per page
+              --seed=42                         seed of the random choices""";
+
+    private static final Set<String> SETTINGS = Set.of("base-url", "tenant", "rate", "concurrency", "data-set",
+            "warmup", "duration", "report-interval", "page-size", "seed");
+
+    public LoadConfig {
+        if (rate <= 0 || concurrency <= 0 || dataSetSize < 0 || pageSize <= 0) {
+            throw new IllegalArgumentException(
+                    "The rate, concurrency and page size must be positive, and the data set can't be negative");
+        }
+        if (warmup.isNegative() || duration.isZero() || duration.isNegative() || reportInterval.isNegative()) {
+            throw new IllegalArgumentException(
+                    "The duration must be positive, and the warmup and report interval can't be negative");
+        }
+    }
+
+    /**
+     * Reads the settings from the command line arguments.
+     *
+     * @param args --name=value arguments, see {@link #USAGE}
+     * @return the settings, with the defaults for the ones not given
+     * @throws IllegalArgumentException if an argument is unknown or invalid
+     */
+    public static LoadConfig parse(String... args) {
+        Map<String, String> values = new HashMap<>();
+        for (String arg : args) {
+            int equals = arg.indexOf('=');
+            if (!arg.startsWith("--") || equals < 0) {
+                throw new IllegalArgumentException("Expected --name=value, got " + arg);
+            }
+            values.put(arg.substring(2, equals), arg.substring(equals + 1));
+        }
+
+        try {
+            LoadConfig config = new LoadConfig(
+                    URI.create(stripTrailingSlash(values.getOrDefault("base-url", "http://localhost:9090"))),
+                    values.getOrDefault("tenant", "loadgen"),
+                    Double.parseDouble(values.getOrDefault("rate", "50")),
+                    Integer.parseInt(values.getOrDefault("concurrency", "200")),
+                    Integer.parseInt(values.getOrDefault("data-set", "1000")),
+                    Duration.ofSeconds(Long.parseLong(values.getOrDefault("warmup", "10"))),
+                    Duration.ofSeconds(Long.parseLong(values.getOrDefault("duration", "60"))),
+                    Duration.ofSeconds(Long.parseLong(values.getOrDefault("report-interval", "10"))),
+                    Integer.parseInt(values.getOrDefault("page-size", "10")),
+                    Long.parseLong(values.getOrDefault("seed", "42")));
+            values.keySet().removeAll(SETTINGS);
+            if (!values.isEmpty()) {
+                throw new IllegalArgumentException("Unknown settings " + values.keySet());
+            }
+            return config;
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("Invalid number: " + ex.getMessage(), ex);
+        }
+    }
+
+    private static String stripTrailingSlash(String url) {
+        return url.endsWith("/") ? url.substring(0, url.length() - 1) : url;
+    }
+}
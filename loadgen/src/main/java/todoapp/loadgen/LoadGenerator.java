@@ -0,0 +1,257 @@
+package todoapp.loadgen;
+
+import java.io.PrintStream;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Replays the traffic of the frontend's users against a running backend, to
+ * reproduce production load locally or to soak it for hours.
+ *
+ * User actions arrive at the configured rate, at random (Poisson) times that
+ * don't depend on how fast the backend answers (open model), and each runs on
+ * its own virtual thread, up to the concurrency limit. After the data set is
+ * added and the warmup is over, the throughput and latency percentiles of
+ * every endpoint are printed every report interval, and for the whole run at
+ * the end.
+ */
+public class LoadGenerator {
+    private static final String[] RECURRING_NAMES = { "Daily standup", "Review PR", "Weekly report", "Pay rent",
+            "Water the plants", "Team retrospective", "Update dependencies", "Backup laptop", "Call mom",
+            "Grocery shopping" };
+    private static final String[] NAME_FILTERS = { "review", "report", "standup", "pay", "ticket", "team", "up" };
+    private static final String[] PRIORITIES = { "HIGH", "MEDIUM", "LOW" };
+    private static final String[][] SORTS = { { "priority" }, { "dueDate" }, { "priority", "dueDate" },
+            { "dueDate", "priority" } };
+    // users mostly look at the first pages
+    private static final int MAX_PAGE = 5;
+
+    private final LoadConfig config;
+    private final PrintStream out;
+    private final LatencyStats stats = new LatencyStats();
+    private final IdPool ids = new IdPool();
+    private final ToDoClient client;
+    private volatile long intervalStartNanos;
+
+    public LoadGenerator(LoadConfig config, PrintStream out) {
+        this.config = config;
+        this.out = out;
+        this.client = new ToDoClient(config.baseUrl(), config.tenant(), stats);
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        LoadConfig config;
+        try {
+            config = LoadConfig.parse(args);
+        } catch (IllegalArgumentException ex) {
+            System.err.println(ex.getMessage());
+            System.err.println(LoadConfig.USAGE);
+            System.exit(2);
+            return;
+        }
+        new LoadGenerator(config, System.out).run();
+    }
+
+    /**
+     * Adds the data set, then runs the load and prints the reports.
+     */
+    public void run() throws InterruptedException {
+        try (ExecutorService actions = Executors.newVirtualThreadPerTaskExecutor()) {
+            addDataSet(actions);
+            runLoad(actions);
+        }
+    }
+
+    private void addDataSet(ExecutorService actions) throws InterruptedException {
+        out.printf("Adding %d ToDos for tenant %s at %s%n", config.dataSetSize(), config.tenant(), config.baseUrl());
+        long start = System.nanoTime();
+        Semaphore inFlight = new Semaphore(config.concurrency());
+        Random random = new Random(config.seed());
+        for (int i = 0; i < config.dataSetSize(); i++) {
+            Random toDoRandom = new Random(random.nextLong());
+            int index = i;
+            inFlight.acquire();
+            actions.execute(() -> {
+                try {
+                    int id = client.add(name(toDoRandom, index), dueDate(toDoRandom), priority(toDoRandom));
+                    if (id != IdPool.NONE) {
+                        ids.add(id);
+                    }
+                } finally {
+                    inFlight.release();
+                }
+            });
+        }
+        inFlight.acquire(config.concurrency());
+        out.printf("Added %d ToDos in %.1f s%n", ids.size(), (System.nanoTime() - start) / 1e9);
+    }
+
+    private void runLoad(ExecutorService actions) throws InterruptedException {
+        long intervalNanos = config.reportInterval().toNanos();
+        long start = System.nanoTime();
+        long measureStart = start + config.warmup().toNanos();
+        long end = measureStart + config.duration().toNanos();
+        out.printf("Starting %.1f user actions/s, up to %d at once: %d s of warmup, then %d s measured%n",
+                config.rate(), config.concurrency(), config.warmup().toSeconds(), config.duration().toSeconds());
+
+        ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "loadgen-reporter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        reporter.schedule(() -> {
+            stats.reset();
+            intervalStartNanos = System.nanoTime();
+        }, measureStart - start, TimeUnit.NANOSECONDS);
+        if (intervalNanos > 0) {
+            reporter.scheduleAtFixedRate(this::report, measureStart - start + intervalNanos, intervalNanos,
+                    TimeUnit.NANOSECONDS);
+        }
+
+        // open model: the arrivals don't wait for the previous actions
+        Semaphore inFlight = new Semaphore(config.concurrency());
+        Random arrivals = new Random(config.seed());
+        long due = start;
+        while (true) {
+            due += (long) (-Math.log(1 - arrivals.nextDouble()) / config.rate() * 1e9);
+            if (due >= end) {
+                break;
+            }
+            sleepUntil(due);
+            UserAction action = UserAction.pick(arrivals.nextDouble());
+            Random actionRandom = new Random(arrivals.nextLong());
+            long actionDue = due;
+            if (!inFlight.tryAcquire()) {
+                stats.recordDropped();
+                continue;
+            }
+            actions.execute(() -> {
+                try {
+                    boolean ok = perform(action, actionRandom);
+                    stats.recordAction(System.nanoTime() - actionDue, ok);
+                } finally {
+                    inFlight.release();
+                }
+            });
+        }
+        sleepUntil(end);
+        // the actions still in flight end the last interval
+        inFlight.tryAcquire(config.concurrency(), 10, TimeUnit.SECONDS);
+
+        reporter.shutdownNow();
+        reporter.awaitTermination(10, TimeUnit.SECONDS);
+        long lastInterval = System.nanoTime() - intervalStartNanos;
+        stats.closeInterval();
+        if (intervalNanos > 0 && lastInterval >= intervalNanos / 10) {
+            stats.printInterval(out, lastInterval / 1e9);
+        }
+        stats.printTotals(out, config.duration().toNanos() / 1e9);
+    }
+
+    private void report() {
+        long now = System.nanoTime();
+        stats.closeInterval();
+        stats.printInterval(out, (now - intervalStartNanos) / 1e9);
+        intervalStartNanos = now;
+    }
+
+    // What the frontend sends for each user action. Changes are followed by a
+    // refresh of the list and of the metrics, as in the frontend.
+    boolean perform(UserAction action, Random random) {
+        return switch (action) {
+            case BROWSE -> client.list(Endpoint.LIST, pageQuery(random));
+            case FILTER -> client.list(Endpoint.LIST_FILTERED, filterQuery(random));
+            case SORT -> client.list(Endpoint.LIST_SORTED, sortQuery(random));
+            case ADD -> {
+                int id = client.add(name(random, random.nextInt(Integer.MAX_VALUE)), dueDate(random),
+                        priority(random));
+                if (id != IdPool.NONE) {
+                    ids.add(id);
+                }
+                yield id != IdPool.NONE & refresh(random);
+            }
+            case EDIT -> {
+                int id = ids.pick(random);
+                yield id == IdPool.NONE
+                        || client.edit(id, name(random, id), dueDate(random), priority(random)) & refresh(random);
+            }
+            case TOGGLE_DONE -> {
+                int id = ids.pick(random);
+                yield id == IdPool.NONE || client.markDone(id, random.nextInt(10) < 6) & refresh(random);
+            }
+            case DELETE -> {
+                int id = ids.take(random);
+                yield id == IdPool.NONE || client.delete(id) & refresh(random);
+            }
+            case REFRESH_METRICS -> client.metrics();
+        };
+    }
+
+    private boolean refresh(Random random) {
+        return client.list(Endpoint.LIST, pageQuery(random)) & client.metrics();
+    }
+
+    String pageQuery(Random random) {
+        int pages = Math.max(1, Math.min(MAX_PAGE, ids.size() / config.pageSize()));
+        return "page=" + random.nextInt(pages) + "&size=" + config.pageSize();
+    }
+
+    String filterQuery(Random random) {
+        List<String> filters = new ArrayList<>();
+        if (random.nextBoolean()) {
+            filters.add("name=" + URLEncoder.encode(NAME_FILTERS[random.nextInt(NAME_FILTERS.length)],
+                    StandardCharsets.UTF_8));
+        }
+        if (random.nextInt(10) < 4) {
+            filters.add("priority=" + priority(random));
+        }
+        if (filters.isEmpty() || random.nextInt(10) < 4) {
+            filters.add("doneStatus=" + (random.nextBoolean() ? "DONE" : "NOT_DONE"));
+        }
+        // changing a filter goes back to the first page
+        return String.join("&", filters) + "&page=0&size=" + config.pageSize();
+    }
+
+    String sortQuery(Random random) {
+        String[] sortBy = SORTS[random.nextInt(SORTS.length)];
+        List<String> orders = new ArrayList<>();
+        for (int i = 0; i < sortBy.length; i++) {
+            orders.add(random.nextBoolean() ? "ASC" : "DESC");
+        }
+        return pageQuery(random) + "&sortBy=" + String.join(",", sortBy) + "&order=" + String.join(",", orders);
+    }
+
+    // Most ToDos are recurring tasks, the rest have names of their own
+    private static String name(Random random, int index) {
+        if (random.nextInt(10) < 8) {
+            return RECURRING_NAMES[random.nextInt(RECURRING_NAMES.length)];
+        }
+        return "Follow up on ticket " + index;
+    }
+
+    // Seven in ten ToDos are due within two months
+    private static LocalDate dueDate(Random random) {
+        return random.nextInt(10) < 7 ? LocalDate.now().plusDays(random.nextInt(60)) : null;
+    }
+
+    private static String priority(Random random) {
+        return PRIORITIES[random.nextInt(PRIORITIES.length)];
+    }
+
+    private static void sleepUntil(long nanos) {
+        long remaining;
+        while ((remaining = nanos - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+        }
+    }
+}
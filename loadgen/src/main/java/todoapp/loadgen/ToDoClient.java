@@ -0,0 +1,119 @@
+package todoapp.loadgen;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpRequest.BodyPublishers;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Calls the backend as the frontend does, and records the latency of every
+ * call. Calls block their (virtual) thread until the response is read.
+ */
+public class ToDoClient {
+    // the frontend's axios timeout
+    private static final Duration TIMEOUT = Duration.ofSeconds(2);
+    private static final String TENANT_HEADER = "X-Tenant-Id";
+
+    private final HttpClient http = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(TIMEOUT).build();
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final String baseUrl;
+    private final String tenant;
+    private final LatencyStats stats;
+
+    public ToDoClient(URI baseUrl, String tenant, LatencyStats stats) {
+        this.baseUrl = baseUrl + "/todos";
+        this.tenant = tenant;
+        this.stats = stats;
+    }
+
+    /**
+     * Gets a page of the list.
+     *
+     * @param endpoint how the call is reported
+     * @param query    the page, filters and sorting, as query parameters
+     * @return True if the call succeeded
+     */
+    public boolean list(Endpoint endpoint, String query) {
+        return send(endpoint, request("?" + query).GET()) != null;
+    }
+
+    /**
+     * Adds a ToDo.
+     *
+     * @return the ID of the new ToDo, or {@link IdPool#NONE} if the call failed
+     */
+    public int add(String name, LocalDate dueDate, String priority) {
+        String body = send(Endpoint.ADD, request("").POST(json(name, dueDate, priority)));
+        if (body == null) {
+            return IdPool.NONE;
+        }
+        try {
+            return mapper.readTree(body).path("id").asInt(IdPool.NONE);
+        } catch (JsonProcessingException ex) {
+            return IdPool.NONE;
+        }
+    }
+
+    public boolean edit(int id, String name, LocalDate dueDate, String priority) {
+        return send(Endpoint.EDIT, request("/" + id).PUT(json(name, dueDate, priority))) != null;
+    }
+
+    public boolean markDone(int id, boolean done) {
+        return send(Endpoint.TOGGLE_DONE, request("/" + id + (done ? "/done" : "/undone"))
+                .PUT(BodyPublishers.noBody())) != null;
+    }
+
+    public boolean delete(int id) {
+        return send(Endpoint.DELETE, request("/" + id).DELETE()) != null;
+    }
+
+    public boolean metrics() {
+        return send(Endpoint.METRICS, request("/metrics").GET()) != null;
+    }
+
+    private HttpRequest.Builder request(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path)).timeout(TIMEOUT).header(TENANT_HEADER, tenant);
+    }
+
+    private HttpRequest.BodyPublisher json(String name, LocalDate dueDate, String priority) {
+        Map<String, Object> toDo = new LinkedHashMap<>();
+        toDo.put("name", name);
+        toDo.put("dueDate", dueDate == null ? null : dueDate.toString());
+        toDo.put("priority", priority);
+        try {
+            return BodyPublishers.ofString(mapper.writeValueAsString(toDo));
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Could not write a ToDo", ex);
+        }
+    }
+
+    // Sends the request and records how long it took. Returns the body of a
+    // successful response, null if it failed.
+    private String send(Endpoint endpoint, HttpRequest.Builder request) {
+        HttpRequest built = request.header("Content-Type", "application/json").build();
+        long start = System.nanoTime();
+        String body = null;
+        try {
+            var response = http.send(built, BodyHandlers.ofString());
+            if (response.statusCode() < 400) {
+                body = response.body();
+            }
+        } catch (IOException ex) {
+            // counted as an error, like a timeout in the frontend
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        stats.record(endpoint, System.nanoTime() - start, body != null);
+        return body;
+    }
+}
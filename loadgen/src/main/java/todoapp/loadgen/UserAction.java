@@ -0,0 +1,64 @@
+package todoapp.loadgen;
+
+/**
+ * What a user does in the frontend, with how often they do it relative to
+ * the other actions. Like the frontend, every change is followed by a refresh
+ * of the list page and of the metrics. Adds and deletes are as frequent, so the
+ * data set keeps about the same size during long runs.
+ */
+public enum UserAction {
+    // moves to another page of the list
+    BROWSE(30),
+    // changes the name, priority or done status filters
+    FILTER(20),
+    // clicks a column header to sort by priority and/or due date
+    SORT(15),
+    ADD(7),
+    EDIT(7),
+    // ticks or unticks the done checkbox
+    TOGGLE_DONE(12),
+    DELETE(7),
+    // first load of the app
+    REFRESH_METRICS(2);
+
+    private static final UserAction[] ACTIONS = values();
+    private static final int TOTAL_WEIGHT;
+
+    static {
+        int total = 0;
+        for (UserAction action : ACTIONS) {
+            total += action.weight;
+        }
+        TOTAL_WEIGHT = total;
+    }
+
+    private final int weight;
+
+    UserAction(int weight) {
+        this.weight = weight;
+    }
+
+    /**
+     * @return the share of all actions that are this one
+     */
+    public double share() {
+        return (double) weight / TOTAL_WEIGHT;
+    }
+
+    /**
+     * Picks an action, each with its share of the traffic.
+     *
+     * @param uniform a random number in [0, 1)
+     * @return the action
+     */
+    public static UserAction pick(double uniform) {
+        int target = (int) (uniform * TOTAL_WEIGHT);
+        for (UserAction action : ACTIONS) {
+            target -= action.weight;
+            if (target < 0) {
+                return action;
+            }
+        }
+        return ACTIONS[ACTIONS.length - 1];
+    }
+}
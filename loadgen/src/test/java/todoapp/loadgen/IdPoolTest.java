@@ -0,0 +1,37 @@
+package todoapp.loadgen;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+class IdPoolTest {
+
+    @Test
+    void testTakenIdsLeaveThePool() {
+        IdPool pool = new IdPool();
+        Random random = new Random(42);
+        Set<Integer> added = new HashSet<>();
+        // past the initial capacity
+        for (int id = 1; id <= 3000; id++) {
+            pool.add(id);
+            added.add(id);
+        }
+
+        // Assertions
+        assertTrue(added.contains(pool.pick(random)));
+        Set<Integer> taken = new HashSet<>();
+        for (int i = 0; i < 3000; i++) {
+            int id = pool.take(random);
+            assertTrue(taken.add(id));
+            assertEquals(3000 - taken.size(), pool.size());
+        }
+        assertEquals(added, taken);
+        assertEquals(IdPool.NONE, pool.take(random));
+        assertEquals(IdPool.NONE, pool.pick(random));
+    }
+}
@@ -0,0 +1,53 @@
+package todoapp.loadgen;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.net.URI;
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+
+class LoadConfigTest {
+
+    @Test
+    void testDefaultsTargetTheLocalBackend() {
+        LoadConfig config = LoadConfig.parse();
+
+        // Assertions
+        assertEquals(URI.create("http://localhost:9090"), config.baseUrl());
+        assertEquals("loadgen", config.tenant());
+        assertEquals(50, config.rate());
+        assertEquals(200, config.concurrency());
+        assertEquals(1000, config.dataSetSize());
+        assertEquals(Duration.ofSeconds(60), config.duration());
+        assertEquals(10, config.pageSize());
+    }
+
+    @Test
+    void testSettingsOverrideTheDefaults() {
+        LoadConfig config = LoadConfig.parse("--base-url=http://backend:8080/", "--rate=2.5", "--concurrency=10",
+                "--data-set=0", "--warmup=0", "--duration=3600", "--report-interval=0", "--seed=7");
+
+        // Assertions
+        assertEquals(URI.create("http://backend:8080"), config.baseUrl());
+        assertEquals(2.5, config.rate());
+        assertEquals(10, config.concurrency());
+        assertEquals(0, config.dataSetSize());
+        assertEquals(Duration.ZERO, config.warmup());
+        assertEquals(Duration.ofHours(1), config.duration());
+        assertEquals(Duration.ZERO, config.reportInterval());
+        assertEquals(7, config.seed());
+    }
+
+    @Test
+    void testInvalidSettingsAreRejected() {
+        // Assertions
+        assertThrows(IllegalArgumentException.class, () -> LoadConfig.parse("--rates=10"));
+        assertThrows(IllegalArgumentException.class, () -> LoadConfig.parse("rate=10"));
+        assertThrows(IllegalArgumentException.class, () -> LoadConfig.parse("--rate"));
+        assertThrows(IllegalArgumentException.class, () -> LoadConfig.parse("--rate=fast"));
+        assertThrows(IllegalArgumentException.class, () -> LoadConfig.parse("--rate=0"));
+        assertThrows(IllegalArgumentException.class, () -> LoadConfig.parse("--duration=0"));
+    }
+}
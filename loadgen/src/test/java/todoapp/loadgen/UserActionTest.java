@@ -0,0 +1,38 @@
+package todoapp.loadgen;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class UserActionTest {
+
+    @Test
+    void testActionsArePickedWithTheirShare() {
+        Map<UserAction, Integer> picked = new EnumMap<>(UserAction.class);
+        Random random = new Random(42);
+        int picks = 100_000;
+        for (int i = 0; i < picks; i++) {
+            picked.merge(UserAction.pick(random.nextDouble()), 1, Integer::sum);
+        }
+
+        // Assertions
+        double shares = 0;
+        for (UserAction action : UserAction.values()) {
+            shares += action.share();
+            assertEquals(action.share(), picked.getOrDefault(action, 0) / (double) picks, 0.01);
+        }
+        assertEquals(1, shares, 1e-9);
+    }
+
+    @Test
+    void testDataSetKeepsItsSize() {
+        // Assertions
+        assertEquals(UserAction.ADD.share(), UserAction.DELETE.share());
+        assertEquals(UserAction.BROWSE, UserAction.pick(0));
+        assertEquals(UserAction.REFRESH_METRICS, UserAction.pick(0.9999));
+    }
+}